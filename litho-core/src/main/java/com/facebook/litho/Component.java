@@ -10,6 +10,7 @@
 package com.facebook.litho;
 
 import android.support.annotation.AttrRes;
+import android.support.annotation.Nullable;
 import android.support.annotation.StyleRes;
 import android.support.annotation.VisibleForTesting;
 import com.facebook.infer.annotation.ReturnsOwnership;
@@ -36,7 +37,9 @@ import java.util.concurrent.atomic.AtomicInteger;
 public abstract class Component<L extends ComponentLifecycle> implements HasEventDispatcher {
   private static final AtomicInteger sIdGenerator = new AtomicInteger(0);
   private int mId = sIdGenerator.getAndIncrement();
-  private String mGlobalKey;
+  // Layout only needs the hash of the global key, the String is built when it's first asked for.
+  private @Nullable GlobalKey mGlobalKey;
+  private long mGlobalKeyHash;
   private String mKey;
   private boolean mHasManualKey;
 
@@ -107,18 +110,36 @@ public abstract class Component<L extends ComponentLifecycle> implements HasEven
    * @return
    */
   String getGlobalKey() {
-    return mGlobalKey;
+    return mGlobalKey == null ? null : mGlobalKey.get();
+  }
+
+  /**
+   * @return a 64 bit hash of {@link #getGlobalKey()}, which is computed without building the
+   * String. Equal keys have equal hashes, different keys almost always have different ones.
+   */
+  long getGlobalKeyHash() {
+    return mGlobalKeyHash;
+  }
+
+  boolean hasGlobalKey() {
+    return mGlobalKey != null;
   }
 
   /**
    * Set a key for this component that is unique within its tree.
-   * @param key
-   *
+   * @param globalKey the key
+   * @param hash the hash of the key, see {@link KeyHandler#hashKey(long, String)}
    */
   // thread-safe because the one write is before all the reads
   @ThreadSafe(enableChecks = false)
-  private void setGlobalKey(String key) {
-    mGlobalKey = key;
+  private void setGlobalKey(GlobalKey globalKey, long hash) {
+    mGlobalKey = globalKey;
+    mGlobalKeyHash = hash;
+  }
+
+  @VisibleForTesting
+  void setGlobalKey(String globalKey, long hash) {
+    setGlobalKey(new GlobalKey(null, globalKey), hash);
   }
 
   /**
@@ -139,27 +160,37 @@ public abstract class Component<L extends ComponentLifecycle> implements HasEven
   }
 
   /**
-   * Generate a global key for the given component that is unique among all of this component's
-   * children of the same type. If a manual key has been set on the child component using the .key()
-   * method, return the manual key.
+   * Set a global key on the given component that is unique among all of this component's children
+   * of the same type. If a manual key has been set on the child component using the .key() method,
+   * use the manual key.
    *
    * @param component the child component for which we're finding a unique global key
    * @param key the key of the child component as determined by its lifecycle id or manual setting
-   * @return a unique global key for this component relative to its siblings.
    */
-  private String generateUniqueGlobalKeyForChild(Component component, String key) {
-
-    final String childKey = getGlobalKey() + key;
+  private void setUniqueGlobalKeyForChild(Component component, String key) {
+    final long childKeyHash = KeyHandler.hashKey(mGlobalKeyHash, key);
     final KeyHandler keyHandler = mScopedContext.getKeyHandler();
 
     /** Null check is for testing only, the keyHandler should never be null here otherwise. */
     if (component.mHasManualKey || keyHandler == null) {
-      return childKey;
+      component.setGlobalKey(new GlobalKey(mGlobalKey, key), childKeyHash);
+      return;
+    }
+
+    /**
+     * If no key has this hash, the key is unique. Otherwise it's most likely a duplicate, but it
+     * could be a different key with the same hash, so compare the actual Strings.
+     */
+    if (!keyHandler.hasKeyHash(childKeyHash)) {
+      component.setGlobalKey(new GlobalKey(mGlobalKey, key), childKeyHash);
+      return;
     }
 
-    /** If the key is already unique, return it. */
-    if (!keyHandler.hasKey(childKey)) {
-      return childKey;
+    // The String is needed to tell the keys apart, so it's kept rather than built again later.
+    final String childKey = getGlobalKey() + key;
+    if (!keyHandler.hasKey(childKey, childKeyHash)) {
+      component.setGlobalKey(new GlobalKey(null, childKey), childKeyHash);
+      return;
     }
 
     final String childType = component.getSimpleName();
@@ -176,14 +207,17 @@ public abstract class Component<L extends ComponentLifecycle> implements HasEven
      * end up being used in the valid layout output. We'll need to try increasing the index until we
      * hit a unique key.
      */
-    String uniqueKey = childKey + childIndex;
-    while (keyHandler.hasKey(uniqueKey)) {
-      uniqueKey = childKey + (childIndex++);
+    int uniqueIndex = childIndex;
+    while (keyHandler.hasKey(childKey + uniqueIndex)) {
+      uniqueIndex = childIndex++;
     }
 
     mChildCounters.put(childType, childIndex + 1);
 
-    return uniqueKey;
+    final String uniqueSuffix = key + uniqueIndex;
+    component.setGlobalKey(
+        new GlobalKey(null, childKey + uniqueIndex),
+        KeyHandler.hashKey(mGlobalKeyHash, uniqueSuffix));
   }
 
   Component<L> makeCopyWithNullContext() {
@@ -344,8 +378,11 @@ public abstract class Component<L extends ComponentLifecycle> implements HasEven
     final Component<?> parentScope = c.getComponentScope();
     final String key = getKey();
 
-    setGlobalKey(
-        parentScope == null ? key : parentScope.generateUniqueGlobalKeyForChild(this, key));
+    if (parentScope == null) {
+      setGlobalKey(new GlobalKey(null, key), KeyHandler.hashKey(KeyHandler.EMPTY_KEY_HASH, key));
+    } else {
+      parentScope.setUniqueGlobalKeyForChild(this, key);
+    }
 
     setScopedContext(ComponentContext.withComponentScope(c, this));
 
@@ -367,6 +404,32 @@ public abstract class Component<L extends ComponentLifecycle> implements HasEven
     return mLifecycle;
   }
 
+  /**
+   * A global key, made of the global key of the parent scope followed by a suffix. It doesn't
+   * reference the components, so a component doesn't retain its ancestors, and its key can't
+   * change when an ancestor is keyed again.
+   */
+  private static final class GlobalKey {
+    private final @Nullable GlobalKey mParent;
+    private final String mSuffix;
+    private String mKey;
+
+    private GlobalKey(@Nullable GlobalKey parent, String suffix) {
+      mParent = parent;
+      mSuffix = suffix;
+    }
+
+    // thread-safe because the String is the same whichever thread concatenates it
+    @ThreadSafe(enableChecks = false)
+    private String get() {
+      if (mKey == null) {
+        mKey = mParent == null ? mSuffix : mParent.get() + mSuffix;
+      }
+
+      return mKey;
+    }
+  }
+
   /**
    * @param <L> the {@link ComponentLifecycle} of the {@link Component} that this builder will
    *     build.
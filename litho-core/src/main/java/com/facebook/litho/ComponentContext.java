@@ -251,6 +251,11 @@ public class ComponentContext extends ContextWrapper {
     return new EventHandler<E>(mComponentScope, name, id, params);
   }
 
+  <E> EventHandler<E> newEventHandler(
+      String name, int id, Object param0, Object param1, Object param2) {
+    return new EventHandler<E>(mComponentScope, name, id, param0, param1, param2);
+  }
+
   InternalNode newLayoutBuilder(
       @AttrRes int defStyleAttr,
       @StyleRes int defStyleRes) {
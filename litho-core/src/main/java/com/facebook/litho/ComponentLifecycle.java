@@ -638,6 +638,30 @@ public abstract class ComponentLifecycle implements EventDispatcher {
     return new EventHandler<E>(c, name, id, params);
   }
 
+  /**
+   * Creates an event handler with up to three params without allocating an array for them, see
+   * {@link EventHandler#getParam(int)}.
+   */
+  protected static <E> EventHandler<E> newEventHandler(
+      ComponentContext c,
+      String name,
+      int id,
+      Object param0,
+      Object param1,
+      Object param2) {
+    return c.newEventHandler(name, id, param0, param1, param2);
+  }
+
+  protected static <E> EventHandler<E> newEventHandler(
+      Component<?> c,
+      String name,
+      int id,
+      Object param0,
+      Object param1,
+      Object param2) {
+    return new EventHandler<E>(c, name, id, param0, param1, param2);
+  }
+
   protected boolean needsPreviousRenderData() {
     return false;
   }
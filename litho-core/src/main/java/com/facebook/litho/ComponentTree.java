@@ -12,8 +12,12 @@ package com.facebook.litho;
 import static com.facebook.litho.ComponentLifecycle.StateUpdate;
 import static com.facebook.litho.FrameworkLogEvents.EVENT_LAYOUT_CALCULATE;
 import static com.facebook.litho.FrameworkLogEvents.EVENT_PRE_ALLOCATE_MOUNT_CONTENT;
+import static com.facebook.litho.FrameworkLogEvents.EVENT_STATE_UPDATE_BATCH;
+import static com.facebook.litho.FrameworkLogEvents.PARAM_COALESCED_STATE_UPDATE_COUNT;
 import static com.facebook.litho.FrameworkLogEvents.PARAM_IS_BACKGROUND_LAYOUT;
 import static com.facebook.litho.FrameworkLogEvents.PARAM_LOG_TAG;
+import static com.facebook.litho.FrameworkLogEvents.PARAM_SAVED_LAYOUT_COUNT;
+import static com.facebook.litho.FrameworkLogEvents.PARAM_STATE_UPDATE_COUNT;
 import static com.facebook.litho.FrameworkLogEvents.PARAM_TREE_DIFF_ENABLED;
 import static com.facebook.litho.ThreadUtils.assertHoldsLock;
 import static com.facebook.litho.ThreadUtils.assertMainThread;
@@ -38,6 +42,9 @@ import android.view.ViewParent;
 import com.facebook.infer.annotation.ReturnsOwnership;
 import com.facebook.infer.annotation.ThreadConfined;
 import com.facebook.infer.annotation.ThreadSafe;
+import com.facebook.litho.config.ComponentsConfiguration;
+import com.facebook.litho.dataflow.ChoreographerCompat;
+import com.facebook.litho.dataflow.ChoreographerCompatImpl;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.ref.WeakReference;
@@ -66,6 +73,7 @@ public class ComponentTree {
   private static final int SIZE_UNINITIALIZED = -1;
   // MainThread Looper messages:
   private static final int MESSAGE_WHAT_BACKGROUND_LAYOUT_STATE_UPDATED = 1;
+  private static final int MESSAGE_WHAT_POST_STATE_UPDATE_BATCH = 2;
   private static final String DEFAULT_LAYOUT_THREAD_NAME = "ComponentLayoutThread";
   private static final int DEFAULT_LAYOUT_THREAD_PRIORITY = Process.THREAD_PRIORITY_BACKGROUND;
 
@@ -79,11 +87,25 @@ public class ComponentTree {
   @Retention(RetentionPolicy.SOURCE)
   private @interface PendingLayoutCalculation {}
 
+  /**
+   * Listens to the layouts calculated by a {@link ComponentTree}.
+   */
+  public interface NewLayoutStateReadyListener {
+
+    /**
+     * Called on the thread that calculated a new layout, once the tree holds it.
+     */
+    void onNewLayoutStateReady(ComponentTree componentTree);
+  }
+
   private static final AtomicInteger sIdGenerator = new AtomicInteger(0);
   private static final Handler sMainThreadHandler = new ComponentMainThreadHandler();
   // Do not access sDefaultLayoutThreadLooper directly, use getDefaultLayoutThreadLooper().
   @GuardedBy("ComponentTree.class")
   private static volatile Looper sDefaultLayoutThreadLooper;
+  // Do not access sDefaultLayoutThreadPool directly, use getDefaultLayoutThreadPool().
+  @GuardedBy("ComponentTree.class")
+  private static volatile ThreadPoolLayoutHandler.LayoutThreadPool sDefaultLayoutThreadPool;
 
   private static final ThreadLocal<WeakReference<Handler>> sSyncStateUpdatesHandler =
       new ThreadLocal<>();
@@ -114,6 +136,22 @@ public class ComponentTree {
     }
   };
 
+  private final ChoreographerCompat.FrameCallback mResumeTimeSlicedMountFrameCallback =
+      new ChoreographerCompat.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+          resumeTimeSlicedMount();
+        }
+      };
+
+  private final ChoreographerCompat.FrameCallback mStateUpdateBatchFrameCallback =
+      new ChoreographerCompat.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+          applyStateUpdateBatch();
+        }
+      };
+
   private final ComponentContext mContext;
   private final boolean mCanPrefetchDisplayLists;
   private final boolean mCanCacheDrawingDisplayLists;
@@ -125,6 +163,10 @@ public class ComponentTree {
   @ThreadConfined(ThreadConfined.UI)
   private final boolean mIncrementalMountEnabled;
   @ThreadConfined(ThreadConfined.UI)
+  private final boolean mTimeSlicedMountEnabled;
+  @ThreadConfined(ThreadConfined.UI)
+  private boolean mIsTimeSlicedMountResumeScheduled;
+  @ThreadConfined(ThreadConfined.UI)
   private final boolean mIsLayoutDiffingEnabled;
   @ThreadConfined(ThreadConfined.UI)
   private boolean mIsAttached;
@@ -163,6 +205,9 @@ public class ComponentTree {
   @GuardedBy("this")
   private StateHandler mStateHandler;
 
+  @GuardedBy("this")
+  private @Nullable NewLayoutStateReadyListener mNewLayoutStateReadyListener;
+
   @ThreadConfined(ThreadConfined.UI)
   private RenderState mPreviousRenderState;
 
@@ -179,6 +224,15 @@ public class ComponentTree {
   @GuardedBy("this")
   private int mScheduleLayoutAfterMeasure;
 
+  @GuardedBy("this")
+  private boolean mIsStateUpdateBatchScheduled;
+  @GuardedBy("this")
+  private int mBatchedStateUpdateCount;
+  @GuardedBy("this")
+  private int mCoalescedStateUpdateCount;
+  @GuardedBy("this")
+  private int mSavedLayoutCount;
+
   public static Builder create(ComponentContext context, Component.Builder<?, ?> root) {
     return create(context, root.build());
   }
@@ -192,6 +246,7 @@ public class ComponentTree {
     mRoot = builder.root;
 
     mIncrementalMountEnabled = builder.incrementalMountEnabled;
+    mTimeSlicedMountEnabled = builder.timeSlicedMountEnabled;
     mIsLayoutDiffingEnabled = builder.isLayoutDiffingEnabled;
     mLayoutThreadHandler = builder.layoutThreadHandler;
     mLayoutLock = builder.layoutLock;
@@ -201,7 +256,9 @@ public class ComponentTree {
     mShouldClipChildren = builder.shouldClipChildren;
 
     if (mLayoutThreadHandler == null) {
-      mLayoutThreadHandler = new DefaultLayoutHandler(getDefaultLayoutThreadLooper());
+      mLayoutThreadHandler = ComponentsConfiguration.useSharedLayoutThreadPool
+          ? new ThreadPoolLayoutHandler(getDefaultLayoutThreadPool())
+          : new DefaultLayoutHandler(getDefaultLayoutThreadLooper());
     }
 
     final StateHandler builderStateHandler = builder.stateHandler;
@@ -480,6 +537,34 @@ public class ComponentTree {
     }
 
     mIsMounting = false;
+
+    if (mTimeSlicedMountEnabled
+        && !mIsTimeSlicedMountResumeScheduled
+        && mLithoView.getMountState().isTimeSlicedMountPending()) {
+      mIsTimeSlicedMountResumeScheduled = true;
+      ChoreographerCompatImpl.getInstance().postFrameCallback(mResumeTimeSlicedMountFrameCallback);
+    }
+  }
+
+  /**
+   * Continues a time sliced mount that ran out of budget in the previous frame.
+   */
+  @ThreadConfined(ThreadConfined.UI)
+  private void resumeTimeSlicedMount() {
+    mIsTimeSlicedMountResumeScheduled = false;
+
+    if (mReleased
+        || mLithoView == null
+        || mMainThreadLayoutState == null
+        || !mLithoView.getMountState().isTimeSlicedMountPending()) {
+      return;
+    }
+
+    if (mIncrementalMountEnabled) {
+      incrementalMountComponent();
+    } else {
+      mountComponent(null, true);
+    }
   }
 
   private void applyPreviousRenderData(LayoutState layoutState) {
@@ -623,6 +708,8 @@ public class ComponentTree {
         localLayoutState = null;
       }
 
+      dispatchNewLayoutStateReady();
+
       // We need to force remount on layout
       mLithoView.setMountStateDirty();
     }
@@ -669,6 +756,13 @@ public class ComponentTree {
     return mIncrementalMountEnabled;
   }
 
+  /**
+   * Returns whether mounting this component is spread over several frames when it takes too long.
+   */
+  public boolean isTimeSlicedMountEnabled() {
+    return mTimeSlicedMountEnabled;
+  }
+
   synchronized Component getRoot() {
     return mRoot;
   }
@@ -812,11 +906,99 @@ public class ComponentTree {
       }
 
       mStateHandler.queueStateUpdate(componentKey, stateUpdate);
+
+      if (ComponentsConfiguration.batchStateUpdatesPerFrame) {
+        scheduleStateUpdateBatch();
+        return;
+      }
     }
 
     updateStateInternal(true);
   }
 
+  /**
+   * Makes sure that a single layout is calculated on the next frame for all the state updates
+   * queued until then.
+   */
+  @GuardedBy("this")
+  private void scheduleStateUpdateBatch() {
+    mBatchedStateUpdateCount++;
+
+    if (mIsStateUpdateBatchScheduled) {
+      return;
+    }
+
+    mIsStateUpdateBatchScheduled = true;
+
+    if (isMainThread()) {
+      postStateUpdateBatch();
+    } else {
+      sMainThreadHandler.obtainMessage(MESSAGE_WHAT_POST_STATE_UPDATE_BATCH, this).sendToTarget();
+    }
+  }
+
+  /**
+   * Cancels the pending state update batch, whose state updates are going to be applied by a
+   * layout that is calculated right away.
+   */
+  @GuardedBy("this")
+  private void cancelStateUpdateBatch() {
+    if (!mIsStateUpdateBatchScheduled) {
+      return;
+    }
+
+    mIsStateUpdateBatchScheduled = false;
+    mBatchedStateUpdateCount = 0;
+    sMainThreadHandler.removeMessages(MESSAGE_WHAT_POST_STATE_UPDATE_BATCH, this);
+
+    // Off the main thread the frame callback stays posted, but it finds no batch and returns.
+    if (isMainThread()) {
+      ChoreographerCompatImpl.getInstance().removeFrameCallback(mStateUpdateBatchFrameCallback);
+    }
+  }
+
+  @ThreadConfined(ThreadConfined.UI)
+  private void postStateUpdateBatch() {
+    ChoreographerCompatImpl.getInstance().postFrameCallback(mStateUpdateBatchFrameCallback);
+  }
+
+  @ThreadConfined(ThreadConfined.UI)
+  private void applyStateUpdateBatch() {
+    final int stateUpdateCount;
+
+    synchronized (this) {
+      if (!mIsStateUpdateBatchScheduled) {
+        // The tree was released in the meantime.
+        return;
+      }
+
+      stateUpdateCount = mBatchedStateUpdateCount;
+      mIsStateUpdateBatchScheduled = false;
+      mBatchedStateUpdateCount = 0;
+      mCoalescedStateUpdateCount += stateUpdateCount;
+      mSavedLayoutCount += stateUpdateCount - 1;
+    }
+
+    logStateUpdateBatch(stateUpdateCount);
+    updateStateInternal(true);
+  }
+
+  /**
+   * @return the number of async state updates that were applied in a batch.
+   */
+  @VisibleForTesting
+  synchronized int getCoalescedStateUpdateCount() {
+    return mCoalescedStateUpdateCount;
+  }
+
+  /**
+   * @return the number of layout calculations that were avoided by batching state updates.
+   */
+  @VisibleForTesting
+  synchronized int getSavedLayoutCount() {
+    return mSavedLayoutCount;
+  }
+
   void updateStateInternal(boolean isAsync) {
 
     final Component<?> root;
@@ -827,6 +1009,11 @@ public class ComponentTree {
         return;
       }
 
+      if (!isAsync) {
+        // The sync layout applies all the queued state updates, including the batched ones.
+        cancelStateUpdateBatch();
+      }
+
       if (mIsMeasuring) {
         // If the layout calculation was already scheduled to happen synchronously let's just go
         // with a sync layout calculation.
@@ -1112,6 +1299,9 @@ public class ComponentTree {
     }
 
     if (previousLayoutState != null) {
+      // Most likely the previous layout is the one that is mounted, so calculate here what the main
+      // thread would otherwise have to compute while mounting this one.
+      localLayoutState.prepareMountPlan(previousLayoutState);
       previousLayoutState.releaseRef();
       previousLayoutState = null;
     }
@@ -1147,6 +1337,7 @@ public class ComponentTree {
     }
 
     if (layoutStateUpdated) {
+      dispatchNewLayoutStateReady();
       postBackgroundLayoutStateUpdated();
     }
 
@@ -1155,6 +1346,17 @@ public class ComponentTree {
     }
   }
 
+  private void dispatchNewLayoutStateReady() {
+    final NewLayoutStateReadyListener listener;
+    synchronized (this) {
+      listener = mNewLayoutStateReadyListener;
+    }
+
+    if (listener != null) {
+      listener.onNewLayoutStateReady(this);
+    }
+  }
+
   /**
    * Transfer mBackgroundLayoutState to mMainThreadLayoutState. This will proxy
    * to the main thread if necessary. If the component/size-spec changes in the
@@ -1190,6 +1392,7 @@ public class ComponentTree {
       mLayoutThreadHandler.removeCallbacks(mCalculateLayoutRunnable);
       mLayoutThreadHandler.removeCallbacks(mUpdateStateSyncRunnable);
       mLayoutThreadHandler.removeCallbacks(mPreAllocateMountContentRunnable);
+      cancelStateUpdateBatch();
 
       mReleased = true;
       if (mLithoView != null) {
@@ -1205,6 +1408,7 @@ public class ComponentTree {
 
       // TODO t15532529
       mStateHandler = null;
+      mNewLayoutStateReadyListener = null;
       
       if (mPreviousRenderState != null && !mPreviousRenderStateSetFromBuilder) {
         ComponentsPools.release(mPreviousRenderState);
@@ -1257,6 +1461,31 @@ public class ComponentTree {
     return sDefaultLayoutThreadLooper;
   }
 
+  private static synchronized ThreadPoolLayoutHandler.LayoutThreadPool
+      getDefaultLayoutThreadPool() {
+    if (sDefaultLayoutThreadPool == null) {
+      sDefaultLayoutThreadPool =
+          new ThreadPoolLayoutHandler.LayoutThreadPool(
+              ComponentsConfiguration.layoutThreadPoolSize, DEFAULT_LAYOUT_THREAD_PRIORITY);
+    }
+
+    return sDefaultLayoutThreadPool;
+  }
+
+  /**
+   * Replaces the pool used by the trees created from now on when
+   * {@link ComponentsConfiguration#useSharedLayoutThreadPool} is enabled. A null pool makes the
+   * next tree create a new default one. The previous pool is returned and not shut down, since
+   * existing trees may still post to it.
+   */
+  @VisibleForTesting
+  static synchronized ThreadPoolLayoutHandler.LayoutThreadPool setDefaultLayoutThreadPool(
+      ThreadPoolLayoutHandler.LayoutThreadPool threadPool) {
+    final ThreadPoolLayoutHandler.LayoutThreadPool previous = sDefaultLayoutThreadPool;
+    sDefaultLayoutThreadPool = threadPool;
+    return previous;
+  }
+
   private static boolean isCompatibleSpec(
       LayoutState layoutState, int widthSpec, int heightSpec) {
     return layoutState != null
@@ -1283,6 +1512,36 @@ public class ComponentTree {
     return mReleased;
   }
 
+  /**
+   * @return a rough estimate, in bytes, of the memory held by the layouts this ComponentTree
+   * keeps, or 0 if it doesn't have any.
+   */
+  public synchronized int getEstimatedRetainedSize() {
+    int size = 0;
+    if (mMainThreadLayoutState != null) {
+      size += mMainThreadLayoutState.getEstimatedRetainedSize();
+    }
+    if (mBackgroundLayoutState != null && mBackgroundLayoutState != mMainThreadLayoutState) {
+      size += mBackgroundLayoutState.getEstimatedRetainedSize();
+    }
+    return size;
+  }
+
+  /**
+   * Sets a listener that is called every time this tree calculates a new layout.
+   */
+  public synchronized void setNewLayoutStateReadyListener(
+      @Nullable NewLayoutStateReadyListener listener) {
+    mNewLayoutStateReadyListener = listener;
+  }
+
+  /**
+   * @return whether a layout for the current root and size specs was already calculated.
+   */
+  public synchronized boolean hasCompatibleLayout() {
+    return mRoot != null && hasSizeSpec() && hasCompatibleComponentAndSpec();
+  }
+
   public ComponentContext getContext() {
     return mContext;
   }
@@ -1300,6 +1559,9 @@ public class ComponentTree {
 
           that.backgroundLayoutStateUpdated();
           break;
+        case MESSAGE_WHAT_POST_STATE_UPDATE_BATCH:
+          ((ComponentTree) msg.obj).postStateUpdateBatch();
+          break;
         default:
           throw new IllegalArgumentException();
       }
@@ -1352,6 +1614,23 @@ public class ComponentTree {
     }
   }
 
+  private void logStateUpdateBatch(int stateUpdateCount) {
+    final ComponentsLogger logger = mContext.getLogger();
+    if (logger == null) {
+      return;
+    }
+
+    final LogEvent event = logger.newEvent(EVENT_STATE_UPDATE_BATCH);
+    event.addParam(PARAM_LOG_TAG, mContext.getLogTag());
+    event.addParam(PARAM_STATE_UPDATE_COUNT, String.valueOf(stateUpdateCount));
+    synchronized (this) {
+      event.addParam(
+          PARAM_COALESCED_STATE_UPDATE_COUNT, String.valueOf(mCoalescedStateUpdateCount));
+      event.addParam(PARAM_SAVED_LAYOUT_COUNT, String.valueOf(mSavedLayoutCount));
+    }
+    logger.log(event);
+  }
+
   /**
    * A default {@link LayoutHandler} that will use a {@link Handler} with a {@link Thread}'s
    * {@link Looper}.
@@ -1377,6 +1656,7 @@ public class ComponentTree {
 
     // optional
     private boolean incrementalMountEnabled = true;
+    private boolean timeSlicedMountEnabled = false;
     private boolean isLayoutDiffingEnabled = true;
     private LayoutHandler layoutThreadHandler;
     private Object layoutLock;
@@ -1405,6 +1685,7 @@ public class ComponentTree {
       root = null;
 
       incrementalMountEnabled = true;
+      timeSlicedMountEnabled = false;
       isLayoutDiffingEnabled = true;
       layoutThreadHandler = null;
       layoutLock = null;
@@ -1429,6 +1710,17 @@ public class ComponentTree {
       return this;
     }
 
+    /**
+     * Whether a mount that takes longer than
+     * {@link ComponentsConfiguration#timeSlicedMountFrameBudgetMs} should continue on the next
+     * frames instead of blocking the main thread. The visible content is mounted first, and
+     * visibility events are dispatched once the mount is complete. False by default.
+     */
+    public Builder timeSlicedMount(boolean isEnabled) {
+      timeSlicedMountEnabled = isEnabled;
+      return this;
+    }
+
     /**
      * Whether or not to enable layout tree diffing. This will reduce the cost of
      * updates at the expense of using extra memory. True by default.
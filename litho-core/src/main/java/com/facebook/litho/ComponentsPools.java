@@ -21,6 +21,7 @@ import android.graphics.RectF;
 import android.graphics.drawable.Drawable;
 import android.os.Build;
 import android.os.Bundle;
+import android.support.annotation.Nullable;
 import android.support.v4.util.SparseArrayCompat;
 import android.util.SparseArray;
 import com.facebook.infer.annotation.ThreadSafe;
@@ -45,7 +46,7 @@ public class ComponentsPools {
 
   private static final int SCRAP_ARRAY_INITIAL_SIZE = 4;
 
-  private static YogaConfig sYogaConfig;
+  private static volatile YogaConfig sYogaConfig;
 
   private ComponentsPools() {
   }
@@ -58,16 +59,16 @@ public class ComponentsPools {
       new RecyclePool<>("LayoutState", 64, true);
 
   static final RecyclePool<InternalNode> sInternalNodePool =
-      new RecyclePool<>("InternalNode", 256, true);
+      createLayoutPool("InternalNode", 256);
 
   static final RecyclePool<NodeInfo> sNodeInfoPool =
-      new RecyclePool<>("NodeInfo", 256, true);
+      createLayoutPool("NodeInfo", 256);
 
   static final RecyclePool<ViewNodeInfo> sViewNodeInfoPool =
-      new RecyclePool<>("ViewNodeInfo", 64, true);
+      createLayoutPool("ViewNodeInfo", 64);
 
   static final RecyclePool<YogaNode> sYogaNodePool =
-      new RecyclePool<>("YogaNode", 256, true);
+      createLayoutPool("YogaNode", 256);
 
   static final RecyclePool<MountItem> sMountItemPool =
       new RecyclePool<>("MountItem", 256, true);
@@ -76,7 +77,7 @@ public class ComponentsPools {
       new ConcurrentHashMap<>(4);
 
   static final RecyclePool<LayoutOutput> sLayoutOutputPool =
-      new RecyclePool<>("LayoutOutput", 256, true);
+      createLayoutPool("LayoutOutput", 256);
 
   static final RecyclePool<DisplayListContainer> sDisplayListContainerPool =
       new RecyclePool<>("DisplayListContainer", 64, true);
@@ -95,7 +96,7 @@ public class ComponentsPools {
       new RecyclePool<>("Output", 20, true);
 
   static final RecyclePool<DiffNode> sDiffNodePool =
-      new RecyclePool<>("DiffNode", 256, true);
+      createLayoutPool("DiffNode", 256);
 
   static final RecyclePool<Diff<?>> sDiffPool =
       new RecyclePool<>("Diff", 20, true);
@@ -150,6 +151,8 @@ public class ComponentsPools {
 
   private static PoolsActivityCallback sActivityCallbacks;
 
+  private static final Object sYogaConfigLock = new Object();
+
   /**
    * To support Gingerbread (where the registerActivityLifecycleCallbacks API
    * doesn't exist), we allow apps to explicitly invoke activity callbacks. If
@@ -168,26 +171,52 @@ public class ComponentsPools {
     return state;
   }
 
-  static synchronized YogaNode acquireYogaNode(ComponentContext c) {
-    if (sYogaConfig == null) {
-      sYogaConfig = new YogaConfig();
-      sYogaConfig.setUseWebDefaults(true);
-      sYogaConfig.setUseLegacyStretchBehaviour(true);
+  /**
+   * Pools used on the layout hot path. When {@link ComponentsConfiguration#useStripedLayoutPools}
+   * is enabled, layouts running on different threads don't contend on a single monitor for every
+   * node they create.
+   */
+  private static <T> RecyclePool<T> createLayoutPool(String name, int maxSize) {
+    return ComponentsConfiguration.useStripedLayoutPools
+        ? new StripedRecyclePool<T>(name, maxSize)
+        : new RecyclePool<T>(name, maxSize, true);
+  }
+
+  private static YogaConfig getYogaConfig() {
+    YogaConfig yogaConfig = sYogaConfig;
+    if (yogaConfig == null) {
+      synchronized (sYogaConfigLock) {
+        yogaConfig = sYogaConfig;
+        if (yogaConfig == null) {
+          yogaConfig = new YogaConfig();
+          yogaConfig.setUseWebDefaults(true);
+          yogaConfig.setUseLegacyStretchBehaviour(true);
+          sYogaConfig = yogaConfig;
+        }
+      }
     }
 
-    if (sYogaConfig.getLogger() != ComponentsConfiguration.YOGA_LOGGER) {
-      sYogaConfig.setLogger(ComponentsConfiguration.YOGA_LOGGER);
+    if (yogaConfig.getLogger() != ComponentsConfiguration.YOGA_LOGGER) {
+      synchronized (sYogaConfigLock) {
+        yogaConfig.setLogger(ComponentsConfiguration.YOGA_LOGGER);
+      }
     }
 
+    return yogaConfig;
+  }
+
+  static YogaNode acquireYogaNode(ComponentContext c) {
+    final YogaConfig yogaConfig = getYogaConfig();
+
     YogaNode node = ComponentsConfiguration.usePooling ? sYogaNodePool.acquire() : null;
     if (node == null) {
-      node = new YogaNode(sYogaConfig);
+      node = new YogaNode(yogaConfig);
     }
 
     return node;
   }
 
-  static synchronized InternalNode acquireInternalNode(ComponentContext componentContext) {
+  static InternalNode acquireInternalNode(ComponentContext componentContext) {
     InternalNode node = ComponentsConfiguration.usePooling ? sInternalNodePool.acquire() : null;
     if (node == null) {
       node = new InternalNode();
@@ -197,7 +226,7 @@ public class ComponentsPools {
     return node;
   }
 
-  static synchronized NodeInfo acquireNodeInfo() {
+  static NodeInfo acquireNodeInfo() {
     NodeInfo nodeInfo = ComponentsConfiguration.usePooling ? sNodeInfoPool.acquire() : null;
     if (nodeInfo == null) {
       nodeInfo = new NodeInfo();
@@ -206,7 +235,7 @@ public class ComponentsPools {
     return nodeInfo;
   }
 
-  static synchronized ViewNodeInfo acquireViewNodeInfo() {
+  static ViewNodeInfo acquireViewNodeInfo() {
     ViewNodeInfo viewNodeInfo =
         ComponentsConfiguration.usePooling ? sViewNodeInfoPool.acquire() : null;
     if (viewNodeInfo == null) {
@@ -336,7 +365,7 @@ public class ComponentsPools {
   }
 
   static VisibilityItem acquireVisibilityItem(
-      String globalKey,
+      @Nullable Component<?> component,
       EventHandler<InvisibleEvent> invisibleHandler,
       EventHandler<UnfocusedVisibleEvent> unfocusedHandler) {
     VisibilityItem item = ComponentsConfiguration.usePooling ? sVisibilityItemPool.acquire() : null;
@@ -344,7 +373,7 @@ public class ComponentsPools {
       item = new VisibilityItem();
     }
 
-    item.setGlobalKey(globalKey);
+    item.setGlobalKey(component);
     item.setInvisibleHandler(invisibleHandler);
     item.setUnfocusedHandler(unfocusedHandler);
 
@@ -679,6 +708,29 @@ public class ComponentsPools {
     }
   }
 
+  static boolean hasMountContentPools(Context context) {
+    return sMountContentPoolsByContext.containsKey(context);
+  }
+
+  /**
+   * @return the number of mount contents of the given component type in the pools of all the live
+   * contexts.
+   */
+  static int getPooledMountContentCount(ComponentLifecycle lifecycle) {
+    int count = 0;
+
+    synchronized (mountContentLock) {
+      for (SparseArray<RecyclePool> poolsArray : sMountContentPoolsByContext.values()) {
+        final RecyclePool pool = poolsArray.get(lifecycle.getTypeId());
+        if (pool != null) {
+          count += pool.getCurrentSize();
+        }
+      }
+    }
+
+    return count;
+  }
+
   static SparseArrayCompat<MountItem> acquireScrapMountItemsArray() {
     SparseArrayCompat<MountItem> sparseArray =
         ComponentsConfiguration.usePooling ? sMountItemScrapArrayPool.acquire() : null;
@@ -817,6 +869,14 @@ public class ComponentsPools {
       throw new IllegalStateException("The MountContentPools has a reference to an activity" +
           "that has just been created");
     }
+
+    if (ComponentsConfiguration.warmMountContentPools) {
+      // The pools are created here since the Activity is alive, the warmer only fills them.
+      synchronized (mountContentLock) {
+        sMountContentPoolsByContext.put(context, new SparseArray<RecyclePool>());
+      }
+      MountContentPoolWarmer.warm(context);
+    }
   }
 
   static void onContextDestroyed(Context context) {
@@ -832,6 +892,8 @@ public class ComponentsPools {
         it.remove();
       }
     }
+
+    MountContentPoolWarmer.onContextDestroyed(context);
   }
 
   /**
@@ -886,7 +948,7 @@ public class ComponentsPools {
   /**
    * Check whether contextWrapper is a wrapper of baseContext
    */
-  private static boolean isContextWrapper(Context contextWrapper, Context baseContext) {
+  static boolean isContextWrapper(Context contextWrapper, Context baseContext) {
     Context currentContext = contextWrapper;
     while (currentContext instanceof ContextWrapper) {
       currentContext = ((ContextWrapper) currentContext).getBaseContext();
@@ -9,6 +9,7 @@
 
 package com.facebook.litho;
 
+import com.facebook.yoga.YogaDirection;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -31,6 +32,11 @@ class DiffNode implements Cloneable {
   private float mLastMeasuredHeight;
   private int mLastWidthSpec;
   private int mLastHeightSpec;
+  private int mPaddingLeft;
+  private int mPaddingTop;
+  private int mPaddingRight;
+  private int mPaddingBottom;
+  private YogaDirection mLayoutDirection;
   private final List<DiffNode> mChildren;
 
   DiffNode() {
@@ -85,6 +91,37 @@ class DiffNode implements Cloneable {
     mLastHeightSpec = heightSpec;
   }
 
+  int getPaddingLeft() {
+    return mPaddingLeft;
+  }
+
+  int getPaddingTop() {
+    return mPaddingTop;
+  }
+
+  int getPaddingRight() {
+    return mPaddingRight;
+  }
+
+  int getPaddingBottom() {
+    return mPaddingBottom;
+  }
+
+  void setPadding(int left, int top, int right, int bottom) {
+    mPaddingLeft = left;
+    mPaddingTop = top;
+    mPaddingRight = right;
+    mPaddingBottom = bottom;
+  }
+
+  YogaDirection getLayoutDirection() {
+    return mLayoutDirection;
+  }
+
+  void setLayoutDirection(YogaDirection layoutDirection) {
+    mLayoutDirection = layoutDirection;
+  }
+
   List<DiffNode> getChildren() {
     return mChildren;
   }
@@ -155,6 +192,11 @@ class DiffNode implements Cloneable {
     mLastMeasuredHeight = UNSPECIFIED;
     mLastWidthSpec = UNSPECIFIED;
     mLastHeightSpec = UNSPECIFIED;
+    mPaddingLeft = 0;
+    mPaddingTop = 0;
+    mPaddingRight = 0;
+    mPaddingBottom = 0;
+    mLayoutDirection = null;
 
     for (int i = 0, size = mChildren.size(); i < size; i++) {
       ComponentsPools.release(mChildren.get(i));
@@ -11,47 +11,93 @@ package com.facebook.litho;
 
 import android.annotation.TargetApi;
 import android.os.Build;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.support.annotation.VisibleForTesting;
 import android.view.Display;
 import android.view.View;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.TimeUnit;
+import javax.annotation.concurrent.GuardedBy;
 
 /**
  * {@link Runnable} that is used to prefetch display lists of components for which layout has been
  * already calculated but not yet appeared on screen. This will allow for faster drawing time when
  * these components come to screen.
+ *
+ * Any number of views can host the prefetcher, it prefetches until the next vsync of the one
+ * that was drawn last. The {@link LayoutState}s are processed in the order their layouts were
+ * calculated, which for the items of a RecyclerBinder is their distance from the viewport. If the
+ * time left in a frame runs out, prefetching continues the next time the main thread is idle.
+ *
+ * Whether a display list fits in the time that is left is decided on a high percentile of the
+ * durations observed for the same component type, rather than on their average, so that slow
+ * outliers don't make the frame miss its deadline. Component types that are expected to take
+ * longer than a whole frame are not prefetched at all.
  */
 @TargetApi(Build.VERSION_CODES.LOLLIPOP)
 public final class DisplayListPrefetcher implements Runnable {
 
   /**
-   * Keeps average display list creation time per unique component type defined by component class
-   * name.
+   * Keeps display list creation durations and mount hit rates per unique component type defined
+   * by component class name.
    */
-  private static final AverageDLPrefetchDuration sAverageDLPrefetchDurationNs
-      = new AverageDLPrefetchDuration();
+  @GuardedBy("DisplayListPrefetcher.class")
+  private static final DLPrefetchStats sPrefetchStats = new DLPrefetchStats();
 
   private static final DisplayListPrefetcher sDisplayListPrefetcher = new DisplayListPrefetcher();
 
+  @GuardedBy("this")
   private final Queue<WeakReference<LayoutState>> mLayoutStates;
+  @GuardedBy("this")
+  private final List<WeakReference<View>> mHostingViews;
 
   private long mFrameIntervalNs;
-  private WeakReference<View> mHostingView;
+  private boolean mIsIdleHandlerAdded;
+
+  private final MessageQueue.IdleHandler mIdleHandler =
+      new MessageQueue.IdleHandler() {
+        @Override
+        public boolean queueIdle() {
+          run();
+
+          mIsIdleHandlerAdded = hasPrefetchItems();
+          return mIsIdleHandlerAdded;
+        }
+      };
 
   private DisplayListPrefetcher() {
     mLayoutStates = new LinkedList<>();
+    mHostingViews = new ArrayList<>();
   }
 
   public static DisplayListPrefetcher getInstance() {
     return sDisplayListPrefetcher;
   }
 
+  /**
+   * Adds a view whose frames the prefetching is scheduled around. Views are held weakly and don't
+   * need to be removed.
+   */
   public synchronized void setHostingView(View view) {
-    if (mHostingView == null || mHostingView.get() != view) {
-      mHostingView = new WeakReference<>(view);
+    boolean isHostingView = false;
+
+    for (int i = mHostingViews.size() - 1; i >= 0; i--) {
+      final View hostingView = mHostingViews.get(i).get();
+      if (hostingView == null) {
+        mHostingViews.remove(i);
+      } else if (hostingView == view) {
+        isHostingView = true;
+      }
+    }
+
+    if (!isHostingView) {
+      mHostingViews.add(new WeakReference<>(view));
     }
     initIfNeeded(view);
   }
@@ -84,16 +130,8 @@ public final class DisplayListPrefetcher implements Runnable {
       return;
     }
 
-    final View hostingView = mHostingView.get();
-    if (hostingView == null) {
-      return;
-    }
-
-    final long latestFrameVsyncNs = TimeUnit.MILLISECONDS.toNanos(hostingView.getDrawingTime());
-    final long nextVsyncNs = latestFrameVsyncNs + mFrameIntervalNs;
-
-    if (System.nanoTime() > nextVsyncNs) {
-      // We are over the frame, bail.
+    final long nextVsyncNs = getNextVsyncNs();
+    if (nextVsyncNs == -1L) {
       return;
     }
 
@@ -109,41 +147,90 @@ public final class DisplayListPrefetcher implements Runnable {
         // There might be the case when LayoutState was posted when app was in foreground, but by
         // the time this runnable is executed we no longer can create displaylist, i.e. GLContext
         // has been killed, for example, if activity has finished.
-        mLayoutStates.remove();
+        removeFirstLayoutState();
         continue;
       }
 
       final LayoutOutput currentLayoutOutput =
-          currentLayoutState.getNextLayoutOutputForDLPrefetch();
+          currentLayoutState.peekNextLayoutOutputForDLPrefetch();
       final String currentComponentType = currentLayoutOutput.getComponent().getSimpleName();
-      final long startPrefetchNs = System.nanoTime();
+      final long expectedPrefetchDurationNs = getEstimatedDuration(currentComponentType);
 
-      if (!canPrefetchOnTime(currentComponentType, startPrefetchNs, nextVsyncNs)) {
+      if (expectedPrefetchDurationNs > mFrameIntervalNs) {
+        // This would not fit even in an idle frame, leave it to be created when it's drawn.
+        currentLayoutState.removeNextLayoutOutputForDLPrefetch();
+        continue;
+      }
+
+      final long startPrefetchNs = System.nanoTime();
+      if (expectedPrefetchDurationNs != -1L
+          && startPrefetchNs + expectedPrefetchDurationNs >= nextVsyncNs) {
+        // Keep the output in the queue for the next frame.
         break;
       }
 
+      currentLayoutState.removeNextLayoutOutputForDLPrefetch();
       currentLayoutState.createDisplayList(currentLayoutOutput);
       if (currentLayoutOutput.hasDisplayListContainer() // container might have been recycled.
           && currentLayoutOutput.hasValidDisplayList()) {
         // successfully created DL
         final long actualElapsedNs = System.nanoTime() - startPrefetchNs;
-        updateAveragePrefetchDuration(currentComponentType, actualElapsedNs);
+        synchronized (DisplayListPrefetcher.class) {
+          sPrefetchStats.addDuration(currentComponentType, actualElapsedNs);
+        }
       }
     }
 
     ComponentsSystrace.endSection();
+
+    if (!mIsIdleHandlerAdded && hasPrefetchItems()) {
+      mIsIdleHandlerAdded = true;
+      Looper.myQueue().addIdleHandler(mIdleHandler);
+    }
+  }
+
+  /**
+   * @return the time of the next vsync after now, based on the last frame any hosting view drew,
+   * or -1 if all the hosting views are gone.
+   */
+  private long getNextVsyncNs() {
+    long latestDrawingTimeMs = -1L;
+
+    synchronized (this) {
+      for (int i = mHostingViews.size() - 1; i >= 0; i--) {
+        final View hostingView = mHostingViews.get(i).get();
+        if (hostingView == null) {
+          mHostingViews.remove(i);
+        } else {
+          latestDrawingTimeMs = Math.max(latestDrawingTimeMs, hostingView.getDrawingTime());
+        }
+      }
+    }
+
+    if (latestDrawingTimeMs == -1L) {
+      return -1L;
+    }
+
+    final long nowNs = System.nanoTime();
+    long nextVsyncNs = TimeUnit.MILLISECONDS.toNanos(latestDrawingTimeMs) + mFrameIntervalNs;
+    if (nowNs > nextVsyncNs) {
+      // No frame was drawn since then: we are idle until the next vsync.
+      nextVsyncNs += ((nowNs - nextVsyncNs) / mFrameIntervalNs + 1) * mFrameIntervalNs;
+    }
+
+    return nextVsyncNs;
   }
 
-  private boolean canPrefetchOnTime(String componentType, long startTimeNs, long deadlineNs) {
-    final long expectedPrefetchDurationNs = sAverageDLPrefetchDurationNs.get(componentType);
-    return expectedPrefetchDurationNs == -1L
-        || (startTimeNs + expectedPrefetchDurationNs < deadlineNs);
+  private static long getEstimatedDuration(String componentType) {
+    synchronized (DisplayListPrefetcher.class) {
+      return sPrefetchStats.getEstimatedDuration(componentType);
+    }
   }
 
   /**
    * @return the next {@link LayoutState} from the queue that has non-zero elements to process.
    */
-  private LayoutState getValidLayoutStateFromQueue() {
+  private synchronized LayoutState getValidLayoutStateFromQueue() {
     WeakReference<LayoutState> currentLayoutState = mLayoutStates.peek();
     while (currentLayoutState != null) {
       final LayoutState layoutState = currentLayoutState.get();
@@ -167,16 +254,8 @@ public final class DisplayListPrefetcher implements Runnable {
     return currentLayoutState.get();
   }
 
-  private void updateAveragePrefetchDuration(String componentType, long actualElapsedNs) {
-    final long expectedPrefetchDurationNs = sAverageDLPrefetchDurationNs.get(componentType);
-    final long updatedValue;
-    if (expectedPrefetchDurationNs == -1L) {
-      updatedValue = actualElapsedNs;
-    } else {
-      // Not actual average, but good approximation.
-      updatedValue = (expectedPrefetchDurationNs / 4 * 3) + (actualElapsedNs / 4);
-    }
-    sAverageDLPrefetchDurationNs.put(componentType, updatedValue);
+  private synchronized void removeFirstLayoutState() {
+    mLayoutStates.remove();
   }
 
   public synchronized boolean hasPrefetchItems() {
@@ -184,41 +263,200 @@ public final class DisplayListPrefetcher implements Runnable {
   }
 
   /**
-   * Data structure to hold mapping between String and long primitive. We are using custom data
-   * structure instead of using HashMap&lt;String, Long&gt; to avoid boxing/unboxing of Long type.
+   * Records whether the display list of an output that could be prefetched was ready when the
+   * output got mounted.
+   */
+  static void onDisplayListOutputMounted(String componentType, boolean hasValidDisplayList) {
+    synchronized (DisplayListPrefetcher.class) {
+      sPrefetchStats.addMount(componentType, hasValidDisplayList);
+    }
+  }
+
+  /**
+   * @return the display list durations and the mount hit rates of every component type seen so
+   * far.
+   */
+  public static List<PrefetchStats> getPrefetchStats() {
+    synchronized (DisplayListPrefetcher.class) {
+      final List<PrefetchStats> stats = new ArrayList<>(sPrefetchStats.size());
+
+      for (int i = 0, size = sPrefetchStats.size(); i < size; i++) {
+        stats.add(sPrefetchStats.getStatsAt(i));
+      }
+
+      return stats;
+    }
+  }
+
+  /**
+   * @return the upper bound, in nanoseconds, of the durations counted by the given bucket of
+   * {@link PrefetchStats#durationHistogram}.
+   */
+  public static long getHistogramBucketUpperBoundNs(int bucket) {
+    return DLPrefetchStats.BUCKET_UPPER_BOUNDS_NS[bucket];
+  }
+
+  /**
+   * The display list prefetching statistics of a component type.
+   */
+  public static class PrefetchStats {
+    public final String componentType;
+    /**
+     * How many display lists took how long to create, see
+     * {@link #getHistogramBucketUpperBoundNs(int)}.
+     */
+    public final int[] durationHistogram;
+    /** The duration used to decide whether a display list fits in a frame, or -1. */
+    public final long estimatedDurationNs;
+    /** How many outputs had a valid display list when they got mounted. */
+    public final int mountHitCount;
+    /** How many outputs had to create their display list after they got mounted. */
+    public final int mountMissCount;
+
+    PrefetchStats(
+        String componentType,
+        int[] durationHistogram,
+        long estimatedDurationNs,
+        int mountHitCount,
+        int mountMissCount) {
+      this.componentType = componentType;
+      this.durationHistogram = durationHistogram;
+      this.estimatedDurationNs = estimatedDurationNs;
+      this.mountHitCount = mountHitCount;
+      this.mountMissCount = mountMissCount;
+    }
+
+    public float getMountHitRate() {
+      final int mountCount = mountHitCount + mountMissCount;
+      return mountCount == 0 ? 0 : (float) mountHitCount / mountCount;
+    }
+  }
+
+  /**
+   * Data structure to hold the statistics of every component type. We are using parallel arrays
+   * instead of a HashMap&lt;String, Stats&gt; to avoid allocations when recording durations.
    *
-   * NOTE: get() and put() are linear operations, but we don't expect to have large number of items
+   * Durations are counted in a histogram of exponentially growing buckets, and the estimated
+   * duration of a component type is the upper bound of the bucket that contains its
+   * {@link #PERCENTILE}th percentile. The counts are halved every {@link #MAX_SAMPLE_COUNT}
+   * samples so that the estimate follows changes in the durations.
+   *
+   * NOTE: lookups are linear operations, but we don't expect to have large number of items
    *       so for our case that is acceptable.
    */
-  static final class AverageDLPrefetchDuration {
+  @VisibleForTesting
+  static final class DLPrefetchStats {
     static final int INITIAL_SIZE = 10;
+    static final int PERCENTILE = 90;
+    static final int MAX_SAMPLE_COUNT = 1000;
+    static final int BUCKET_COUNT = 40;
+    // The first bucket holds durations of up to 10us, every next one grows by a factor of sqrt(2).
+    static final long[] BUCKET_UPPER_BOUNDS_NS = new long[BUCKET_COUNT];
+
+    static {
+      for (int i = 0; i < BUCKET_COUNT; i++) {
+        BUCKET_UPPER_BOUNDS_NS[i] = (long) (10000 * Math.pow(2, i / 2.0));
+      }
+    }
 
-    private long[] durationsNs = new long[INITIAL_SIZE];
+    private int[][] histograms = new int[INITIAL_SIZE][];
+    private int[] sampleCounts = new int[INITIAL_SIZE];
+    private int[] mountHitCounts = new int[INITIAL_SIZE];
+    private int[] mountMissCounts = new int[INITIAL_SIZE];
     private final ArrayList<String> componentTypes = new ArrayList<>();
 
-    long get(String componentType) {
-      final int indexOf = componentTypes.indexOf(componentType);
-      if (indexOf < 0) {
+    /**
+     * @return the duration the display list of the given component type is expected to take,
+     * or -1 if none was recorded yet.
+     */
+    long getEstimatedDuration(String componentType) {
+      final int index = componentTypes.indexOf(componentType);
+      if (index < 0 || sampleCounts[index] == 0) {
         return -1L;
       }
 
-      return durationsNs[indexOf];
+      return getEstimatedDurationAt(index);
     }
 
-    void put(String componentType, long durationNs) {
-      final int indexOfKey = componentTypes.indexOf(componentType);
-      if (indexOfKey == -1) {
-        if (componentTypes.size() >= durationsNs.length) {
-          final long[] oldDurationsNs = durationsNs;
-          durationsNs = new long[durationsNs.length + INITIAL_SIZE];
-          System.arraycopy(oldDurationsNs, 0, durationsNs, 0, oldDurationsNs.length);
+    void addDuration(String componentType, long durationNs) {
+      final int index = getOrCreateIndex(componentType);
+      final int[] histogram = histograms[index];
+
+      if (sampleCounts[index] >= MAX_SAMPLE_COUNT) {
+        sampleCounts[index] = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+          histogram[i] /= 2;
+          sampleCounts[index] += histogram[i];
         }
+      }
 
-        durationsNs[componentTypes.size()] = durationNs;
-        componentTypes.add(componentType);
+      histogram[getBucket(durationNs)]++;
+      sampleCounts[index]++;
+    }
+
+    void addMount(String componentType, boolean isHit) {
+      final int index = getOrCreateIndex(componentType);
+
+      if (isHit) {
+        mountHitCounts[index]++;
       } else {
-        durationsNs[indexOfKey] = durationNs;
+        mountMissCounts[index]++;
       }
     }
+
+    int size() {
+      return componentTypes.size();
+    }
+
+    PrefetchStats getStatsAt(int index) {
+      return new PrefetchStats(
+          componentTypes.get(index),
+          Arrays.copyOf(histograms[index], BUCKET_COUNT),
+          sampleCounts[index] == 0 ? -1L : getEstimatedDurationAt(index),
+          mountHitCounts[index],
+          mountMissCounts[index]);
+    }
+
+    static int getBucket(long durationNs) {
+      final int index = Arrays.binarySearch(BUCKET_UPPER_BOUNDS_NS, durationNs);
+      final int bucket = index >= 0 ? index : -index - 1;
+      return Math.min(bucket, BUCKET_COUNT - 1);
+    }
+
+    private long getEstimatedDurationAt(int index) {
+      final int[] histogram = histograms[index];
+      // The number of samples that must be at or below the percentile, rounded up.
+      final int target = (sampleCounts[index] * PERCENTILE + 99) / 100;
+
+      int count = 0;
+      for (int i = 0; i < BUCKET_COUNT; i++) {
+        count += histogram[i];
+        if (count >= target) {
+          return BUCKET_UPPER_BOUNDS_NS[i];
+        }
+      }
+
+      return BUCKET_UPPER_BOUNDS_NS[BUCKET_COUNT - 1];
+    }
+
+    private int getOrCreateIndex(String componentType) {
+      final int index = componentTypes.indexOf(componentType);
+      if (index >= 0) {
+        return index;
+      }
+
+      final int size = componentTypes.size();
+      if (size >= sampleCounts.length) {
+        final int newLength = sampleCounts.length + INITIAL_SIZE;
+        histograms = Arrays.copyOf(histograms, newLength);
+        sampleCounts = Arrays.copyOf(sampleCounts, newLength);
+        mountHitCounts = Arrays.copyOf(mountHitCounts, newLength);
+        mountMissCounts = Arrays.copyOf(mountMissCounts, newLength);
+      }
+
+      histograms[size] = new int[BUCKET_COUNT];
+      componentTypes.add(componentType);
+      return size;
+    }
   }
 }
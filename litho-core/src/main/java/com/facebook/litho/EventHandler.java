@@ -14,7 +14,11 @@ public class EventHandler<E> {
   public HasEventDispatcher mHasEventDispatcher;
   public final String name;
   public final int id;
+  /** Null if the params are stored inline, always read them with {@link #getParam(int)}. */
   public final Object[] params;
+  private final Object mParam0;
+  private final Object mParam1;
+  private final Object mParam2;
 
   protected EventHandler(HasEventDispatcher hasEventDispatcher, int id) {
     this(hasEventDispatcher, null, id, null);
@@ -29,6 +33,49 @@ public class EventHandler<E> {
     this.name = name;
     this.id = id;
     this.params = params;
+    this.mParam0 = null;
+    this.mParam1 = null;
+    this.mParam2 = null;
+  }
+
+  /**
+   * Creates a handler with up to three params, which are stored in fields instead of an array so
+   * that creating handlers during layout allocates less. Unused params are null.
+   */
+  public EventHandler(
+      HasEventDispatcher hasEventDispatcher,
+      String name,
+      int id,
+      Object param0,
+      Object param1,
+      Object param2) {
+    this.mHasEventDispatcher = hasEventDispatcher;
+    this.name = name;
+    this.id = id;
+    this.params = null;
+    this.mParam0 = param0;
+    this.mParam1 = param1;
+    this.mParam2 = param2;
+  }
+
+  /**
+   * @return the param at the given index, wherever this handler stores it.
+   */
+  public Object getParam(int index) {
+    if (params != null) {
+      return params[index];
+    }
+
+    switch (index) {
+      case 0:
+        return mParam0;
+      case 1:
+        return mParam1;
+      case 2:
+        return mParam2;
+      default:
+        throw new IndexOutOfBoundsException("EventHandler has no param at index " + index);
+    }
   }
 
   public void dispatchEvent(E event) {
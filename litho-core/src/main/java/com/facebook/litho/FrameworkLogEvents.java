@@ -26,6 +26,7 @@ public interface FrameworkLogEvents {
   int EVENT_STETHO_UPDATE_COMPONENT = 9;
   int EVENT_STETHO_INSPECT_COMPONENT = 10;
   int EVENT_ERROR = 11;
+  int EVENT_STATE_UPDATE_BATCH = 12;
 
   String PARAM_COMPONENT = "component";
   String PARAM_LOG_TAG = "log_tag";
@@ -41,4 +42,9 @@ public interface FrameworkLogEvents {
   String PARAM_NO_OP_COUNT = "no_op_count";
   String PARAM_IS_DIRTY = "is_dirty";
   String PARAM_MESSAGE = "message";
+  String PARAM_STATE_UPDATE_COUNT = "state_update_count";
+  String PARAM_COALESCED_STATE_UPDATE_COUNT = "coalesced_state_update_count";
+  String PARAM_SAVED_LAYOUT_COUNT = "saved_layout_count";
+  String PARAM_FRAME_COUNT = "frame_count";
+  String PARAM_IS_PENDING = "is_pending";
 }
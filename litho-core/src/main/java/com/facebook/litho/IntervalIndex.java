@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho;
+
+import java.util.Arrays;
+
+/**
+ * A static index of [start, end) intervals, which finds the k intervals overlapping a range in
+ * O(log n + k). Intervals are added with {@link #add(int, int)}, identified by the order in which
+ * they were added, and can be queried after {@link #build()}.
+ *
+ * This is an augmented interval tree stored implicitly in arrays sorted by start: the node at
+ * index i is at level k, where k is the number of trailing ones of i, its children are at i - 2^(k
+ * - 1) and i + 2^(k - 1), and mMaxEnds[i] is the largest end in its subtree.
+ */
+class IntervalIndex {
+
+  private static final int INITIAL_CAPACITY = 8;
+  // Below this level, scanning the subtree is cheaper than walking it.
+  private static final int SCAN_LEVEL = 3;
+  private static final int MAX_STACK_SIZE = 64;
+
+  private int mSize;
+  private int mMaxLevel;
+  // Packs the start in the high bits and the index in the low ones, so that sorting sorts by start.
+  private long[] mSortKeys = new long[INITIAL_CAPACITY];
+  private int[] mStarts = new int[INITIAL_CAPACITY];
+  private int[] mEnds = new int[INITIAL_CAPACITY];
+  private int[] mMaxEnds = new int[INITIAL_CAPACITY];
+  private int[] mIndices = new int[INITIAL_CAPACITY];
+
+  private final int[] mStackNodes = new int[MAX_STACK_SIZE];
+  private final int[] mStackLevels = new int[MAX_STACK_SIZE];
+  private final boolean[] mStackVisitedLeft = new boolean[MAX_STACK_SIZE];
+
+  void add(int start, int end) {
+    if (mSize == mSortKeys.length) {
+      final int capacity = mSize * 2;
+      mSortKeys = Arrays.copyOf(mSortKeys, capacity);
+      mStarts = Arrays.copyOf(mStarts, capacity);
+      mEnds = Arrays.copyOf(mEnds, capacity);
+      mMaxEnds = new int[capacity];
+      mIndices = new int[capacity];
+    }
+
+    mSortKeys[mSize] = ((long) start << 32) | mSize;
+    mEnds[mSize] = end;
+    mSize++;
+  }
+
+  /**
+   * Sorts the intervals and computes the subtree maximums. Must be called after the last
+   * {@link #add(int, int)} and before {@link #query(int, int, int[], int)}.
+   */
+  void build() {
+    Arrays.sort(mSortKeys, 0, mSize);
+
+    // mEnds is still in insertion order, reorder it using mMaxEnds as scratch space.
+    System.arraycopy(mEnds, 0, mMaxEnds, 0, mSize);
+    for (int i = 0; i < mSize; i++) {
+      final int index = (int) mSortKeys[i];
+      mIndices[i] = index;
+      mStarts[i] = (int) (mSortKeys[i] >> 32);
+      mEnds[i] = mMaxEnds[index];
+    }
+
+    if (mSize == 0) {
+      mMaxLevel = 0;
+      return;
+    }
+
+    // Leaves, at even indices.
+    int lastIndex = 0;
+    int lastMaxEnd = 0;
+    for (int i = 0; i < mSize; i += 2) {
+      lastIndex = i;
+      lastMaxEnd = mMaxEnds[i] = mEnds[i];
+    }
+
+    int level = 1;
+    for (; 1 << level <= mSize; level++) {
+      final int childOffset = 1 << (level - 1);
+      final int step = childOffset << 2;
+
+      for (int i = (childOffset << 1) - 1; i < mSize; i += step) {
+        final int leftMaxEnd = mMaxEnds[i - childOffset];
+        // The right subtree can be partially out of bounds, lastMaxEnd covers what's in bounds.
+        final int rightMaxEnd = i + childOffset < mSize ? mMaxEnds[i + childOffset] : lastMaxEnd;
+        mMaxEnds[i] = Math.max(mEnds[i], Math.max(leftMaxEnd, rightMaxEnd));
+      }
+
+      // The ancestor of the last node at this level, which may be out of bounds.
+      lastIndex =
+          ((lastIndex >> level) & 1) != 0 ? lastIndex - childOffset : lastIndex + childOffset;
+      if (lastIndex < mSize && mMaxEnds[lastIndex] > lastMaxEnd) {
+        lastMaxEnd = mMaxEnds[lastIndex];
+      }
+    }
+
+    mMaxLevel = level - 1;
+  }
+
+  /**
+   * Appends to results, starting at offset, the indices of the intervals overlapping [from, to).
+   * results needs room for {@link #size()} more indices.
+   *
+   * @return the new number of results.
+   */
+  int query(int from, int to, int[] results, int offset) {
+    if (mSize == 0) {
+      return offset;
+    }
+
+    int count = offset;
+    int stackSize = 0;
+    mStackNodes[stackSize] = (1 << mMaxLevel) - 1;
+    mStackLevels[stackSize] = mMaxLevel;
+    mStackVisitedLeft[stackSize] = false;
+    stackSize++;
+
+    while (stackSize > 0) {
+      stackSize--;
+      final int node = mStackNodes[stackSize];
+      final int level = mStackLevels[stackSize];
+      final boolean visitedLeft = mStackVisitedLeft[stackSize];
+
+      if (level <= SCAN_LEVEL) {
+        final int first = node >> level << level;
+        final int last = Math.min(first + (1 << (level + 1)) - 1, mSize);
+        for (int i = first; i < last && mStarts[i] < to; i++) {
+          if (from < mEnds[i]) {
+            results[count++] = mIndices[i];
+          }
+        }
+      } else if (!visitedLeft) {
+        final int leftChild = node - (1 << (level - 1));
+
+        // Come back to this node once the left subtree is done.
+        mStackNodes[stackSize] = node;
+        mStackLevels[stackSize] = level;
+        mStackVisitedLeft[stackSize] = true;
+        stackSize++;
+
+        if (leftChild >= mSize || mMaxEnds[leftChild] > from) {
+          mStackNodes[stackSize] = leftChild;
+          mStackLevels[stackSize] = level - 1;
+          mStackVisitedLeft[stackSize] = false;
+          stackSize++;
+        }
+      } else if (node < mSize && mStarts[node] < to) {
+        if (from < mEnds[node]) {
+          results[count++] = mIndices[node];
+        }
+
+        mStackNodes[stackSize] = node + (1 << (level - 1));
+        mStackLevels[stackSize] = level - 1;
+        mStackVisitedLeft[stackSize] = false;
+        stackSize++;
+      }
+    }
+
+    return count;
+  }
+
+  int size() {
+    return mSize;
+  }
+
+  void clear() {
+    mSize = 0;
+    mMaxLevel = 0;
+  }
+}
@@ -30,44 +30,120 @@ public class KeyHandler {
       "Please look at the following spec hierarchy and make sure "
           + "all sibling children components of the same type have unique keys:\n";
 
+  /** The FNV-1a offset basis, which is the hash of an empty key. */
+  static final long EMPTY_KEY_HASH = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
   private final @Nullable ComponentsLogger mLogger;
-  private final Set<String> mKnownGlobalKeys;
+  // The first component registered for every global key hash, as an index in mKnownComponents.
+  private final LongIntHashMap mKnownGlobalKeys;
+  private final List<Component> mKnownComponents;
+  // Keys that have the same hash as a different key in mKnownGlobalKeys. Almost always null.
+  private @Nullable Set<String> mCollidingGlobalKeys;
 
   public KeyHandler(@Nullable ComponentsLogger logger) {
-    mKnownGlobalKeys = new HashSet<>();
+    mKnownGlobalKeys = new LongIntHashMap();
+    mKnownComponents = new ArrayList<>();
     mLogger = logger;
   }
 
+  /**
+   * Extends the hash of a global key with the given key, without concatenating them. The result
+   * is the same as the hash of the concatenated String, i.e. {@code
+   * hashKey(hashKey(EMPTY_KEY_HASH, a), b) == hashKey(EMPTY_KEY_HASH, a + b)}.
+   */
+  static long hashKey(long parentKeyHash, @Nullable String key) {
+    final String keyString = String.valueOf(key);
+    long hash = parentKeyHash;
+
+    for (int i = 0, length = keyString.length(); i < length; i++) {
+      hash ^= keyString.charAt(i);
+      hash *= FNV_PRIME;
+    }
+
+    return hash;
+  }
+
   public void registerKey(Component component) {
     /**
      * We still need to check whether the component's global key is unique, in case a duplicate key
      * has been manually set on sibling components.
      */
-    checkIsDuplicateKey(component);
-    mKnownGlobalKeys.add(component.getGlobalKey());
+    final long globalKeyHash = component.getGlobalKeyHash();
+    final Component knownComponent = getKnownComponent(globalKeyHash);
+
+    if (knownComponent == null) {
+      mKnownGlobalKeys.put(globalKeyHash, mKnownComponents.size());
+      mKnownComponents.add(component);
+      return;
+    }
+
+    // Either a duplicate or a different key with the same hash, only the Strings can tell.
+    final String globalKey = component.getGlobalKey();
+    if (areKeysEqual(globalKey, knownComponent.getGlobalKey())) {
+      onDuplicateKey(component);
+      return;
+    }
+
+    if (mCollidingGlobalKeys == null) {
+      mCollidingGlobalKeys = new HashSet<>();
+    }
+
+    if (!mCollidingGlobalKeys.add(globalKey)) {
+      onDuplicateKey(component);
+    }
   }
 
   /** Returns true if this KeyHandler has already recorded a component with the given key. */
   public boolean hasKey(String key) {
-    return mKnownGlobalKeys.contains(key);
+    return hasKey(key, hashKey(EMPTY_KEY_HASH, key));
   }
 
-  private void checkIsDuplicateKey(Component component) {
-    if (mKnownGlobalKeys.contains(component.getGlobalKey())) {
-      final String message =
-          "Found another " + component.getSimpleName() + " Component with the same key.";
-      final String errorMessage = mLogger == null ? message : getDuplicateKeyMessage();
+  /**
+   * Same as {@link #hasKey(String)}, for callers that already have the hash of the key.
+   */
+  boolean hasKey(String key, long keyHash) {
+    final Component knownComponent = getKnownComponent(keyHash);
+    if (knownComponent == null) {
+      return false;
+    }
 
-      if (component.getLifecycle().hasState()) {
-        throw new RuntimeException(message + "\n" + errorMessage);
-      }
+    return areKeysEqual(key, knownComponent.getGlobalKey())
+        || (mCollidingGlobalKeys != null && mCollidingGlobalKeys.contains(key));
+  }
 
-      if (mLogger != null) {
-        final LogEvent event = mLogger.newEvent(EVENT_ERROR);
-        event.addParam(PARAM_MESSAGE, message + "\n" + errorMessage);
-        mLogger.log(event);
-      }
+  /**
+   * Returns false if this KeyHandler has definitely not recorded a component with a key with the
+   * given hash. If it returns true, {@link #hasKey(String)} tells whether it's the same key.
+   */
+  boolean hasKeyHash(long keyHash) {
+    return mKnownGlobalKeys.containsKey(keyHash);
+  }
+
+  @Nullable
+  private Component getKnownComponent(long keyHash) {
+    final int index = mKnownGlobalKeys.get(keyHash, -1);
+    return index == -1 ? null : mKnownComponents.get(index);
+  }
+
+  private void onDuplicateKey(Component component) {
+    final String message =
+        "Found another " + component.getSimpleName() + " Component with the same key.";
+    final String errorMessage = mLogger == null ? message : getDuplicateKeyMessage();
+
+    if (component.getLifecycle().hasState()) {
+      throw new RuntimeException(message + "\n" + errorMessage);
     }
+
+    if (mLogger != null) {
+      final LogEvent event = mLogger.newEvent(EVENT_ERROR);
+      event.addParam(PARAM_MESSAGE, message + "\n" + errorMessage);
+      mLogger.log(event);
+    }
+  }
+
+  private static boolean areKeysEqual(@Nullable String key, @Nullable String otherKey) {
+    return key == null ? otherKey == null : key.equals(otherKey);
   }
 
   /**
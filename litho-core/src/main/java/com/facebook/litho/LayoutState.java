@@ -47,7 +47,6 @@ import android.graphics.drawable.Drawable;
 import android.os.Build;
 import android.support.annotation.Nullable;
 import android.support.annotation.VisibleForTesting;
-import android.support.v4.util.LongSparseArray;
 import android.support.v4.util.SimpleArrayMap;
 import android.support.v4.view.accessibility.AccessibilityManagerCompat;
 import android.text.TextUtils;
@@ -115,6 +114,40 @@ class LayoutState {
         }
       };
 
+  static final Comparator<LayoutOutput> sLeftsComparator =
+      new Comparator<LayoutOutput>() {
+        @Override
+        public int compare(LayoutOutput lhs, LayoutOutput rhs) {
+          final int lhsLeft = lhs.getBounds().left;
+          final int rhsLeft = rhs.getBounds().left;
+          return lhsLeft < rhsLeft
+              ? -1
+              : lhsLeft > rhsLeft
+              ? 1
+              // Hosts should be first for lefts so that they are mounted first if possible.
+              : isHostSpec(lhs.getComponent()) == isHostSpec(rhs.getComponent())
+              ? 0
+              : isHostSpec(lhs.getComponent()) ? -1 : 1;
+        }
+      };
+
+  static final Comparator<LayoutOutput> sRightsComparator =
+      new Comparator<LayoutOutput>() {
+        @Override
+        public int compare(LayoutOutput lhs, LayoutOutput rhs) {
+          final int lhsRight = lhs.getBounds().right;
+          final int rhsRight = rhs.getBounds().right;
+          return lhsRight < rhsRight
+              ? -1
+              : lhsRight > rhsRight
+              ? 1
+              // Hosts should be last for rights so that they are mounted first if possible.
+              : isHostSpec(lhs.getComponent()) == isHostSpec(rhs.getComponent())
+              ? 0
+              : isHostSpec(lhs.getComponent()) ? 1 : -1;
+        }
+      };
+
   @ThreadConfined(ThreadConfined.UI)
   private final Rect mDisplayListCreateRect = new Rect();
 
@@ -124,6 +157,12 @@ class LayoutState {
   private static final int[] DRAWABLE_STATE_ENABLED = new int[]{android.R.attr.state_enabled};
   private static final int[] DRAWABLE_STATE_NOT_ENABLED = new int[]{};
 
+  // Rough sizes used by estimateRetainedSize(), including the objects each entry references.
+  private static final int ESTIMATED_LAYOUT_STATE_BYTES = 1024;
+  private static final int ESTIMATED_LAYOUT_OUTPUT_BYTES = 400;
+  private static final int ESTIMATED_VISIBILITY_OUTPUT_BYTES = 80;
+  private static final int ESTIMATED_DIFF_NODE_BYTES = 120;
+
   private volatile ComponentContext mContext;
   private TransitionContext mTransitionContext;
 
@@ -134,16 +173,25 @@ class LayoutState {
 
   private final List<LayoutOutput> mMountableOutputs = new ArrayList<>(8);
   private final List<VisibilityOutput> mVisibilityOutputs = new ArrayList<>(8);
-  private final LongSparseArray<Integer> mOutputsIdToPositionMap = new LongSparseArray<>(8);
+  // Index the visibility outputs by their vertical and horizontal extent respectively.
+  private final IntervalIndex mVisibilityOutputsVerticalIndex = new IntervalIndex();
+  private final IntervalIndex mVisibilityOutputsHorizontalIndex = new IntervalIndex();
+  private final LongIntHashMap mOutputsIdToPositionMap = new LongIntHashMap();
   private final LayoutStateOutputIdCalculator mLayoutStateOutputIdCalculator;
   private final ArrayList<LayoutOutput> mMountableOutputTops = new ArrayList<>();
   private final ArrayList<LayoutOutput> mMountableOutputBottoms = new ArrayList<>();
+  private final ArrayList<LayoutOutput> mMountableOutputLefts = new ArrayList<>();
+  private final ArrayList<LayoutOutput> mMountableOutputRights = new ArrayList<>();
+  private long[] mMountableOutputIds;
+  private @Nullable MountPlan mMountPlan;
   private final Queue<Integer> mDisplayListsToPrefetch = new LinkedList<>();
 
   private List<TestOutput> mTestOutputs;
 
   private InternalNode mLayoutRoot;
   private DiffNode mDiffTreeRoot;
+  private int mDiffNodeCount;
+  private int mEstimatedRetainedSize;
   // Reference count will be initialized to 1 in init().
   private final AtomicInteger mReferenceCount = new AtomicInteger(-1);
 
@@ -541,6 +589,7 @@ class LayoutState {
     final DiffNode diffNode;
     if (shouldGenerateDiffTree) {
       diffNode = createDiffNode(node, parentDiffNode);
+      layoutState.mDiffNodeCount++;
       if (parentDiffNode == null) {
         layoutState.mDiffTreeRoot = diffNode;
       }
@@ -621,8 +670,11 @@ class LayoutState {
 
     // 3. Now add the MountSpec (either View or Drawable) to the Outputs.
     if (isMountSpec(component)) {
-      // Notify component about its final size.
-      component.getLifecycle().onBoundsDefined(layoutState.mContext, node, component);
+      // Notify component about its final size. An unchanged component already copied the outputs
+      // of onBoundsDefined from the previous layout, so we can skip it if its bounds didn't change.
+      if (!isCachedOutputUpdated || !hasSameBounds(node, layoutOutput, currentDiffNode)) {
+        component.getLifecycle().onBoundsDefined(layoutState.mContext, node, component);
+      }
 
       addMountableOutput(layoutState, layoutOutput);
       addLayoutOutputIdToPositionsMap(
@@ -749,6 +801,26 @@ class LayoutState {
     layoutState.mShouldDuplicateParentState = shouldDuplicateParentState;
   }
 
+  /**
+   * @return whether the node has the same size, padding and layout direction as in the previous
+   * layout, that is whether the component would receive the same layout in onBoundsDefined.
+   */
+  private static boolean hasSameBounds(
+      InternalNode node,
+      LayoutOutput output,
+      DiffNode previousDiffNode) {
+    final Rect bounds = output.getBounds();
+    final Rect previousBounds = previousDiffNode.getContent().getBounds();
+
+    return bounds.width() == previousBounds.width()
+        && bounds.height() == previousBounds.height()
+        && node.getPaddingLeft() == previousDiffNode.getPaddingLeft()
+        && node.getPaddingTop() == previousDiffNode.getPaddingTop()
+        && node.getPaddingRight() == previousDiffNode.getPaddingRight()
+        && node.getPaddingBottom() == previousDiffNode.getPaddingBottom()
+        && node.getResolvedLayoutDirection() == previousDiffNode.getLayoutDirection();
+  }
+
   private static void calculateAndSetHostOutputIdAndUpdateState(
       InternalNode node,
       LayoutOutput hostOutput,
@@ -835,7 +907,7 @@ class LayoutState {
   }
 
   private static void addLayoutOutputIdToPositionsMap(
-      LongSparseArray outputsIdToPositionMap,
+      LongIntHashMap outputsIdToPositionMap,
       LayoutOutput layoutOutput,
       int position) {
     if (outputsIdToPositionMap != null) {
@@ -1036,6 +1108,7 @@ class LayoutState {
     final ComponentsLogger logger = c.getLogger();
 
     if (root == NULL_LAYOUT) {
+      layoutState.mMountableOutputIds = new long[0];
       return layoutState;
     }
 
@@ -1052,6 +1125,16 @@ class LayoutState {
 
     Collections.sort(layoutState.mMountableOutputTops, sTopsComparator);
     Collections.sort(layoutState.mMountableOutputBottoms, sBottomsComparator);
+    Collections.sort(layoutState.mMountableOutputLefts, sLeftsComparator);
+    Collections.sort(layoutState.mMountableOutputRights, sRightsComparator);
+    buildVisibilityOutputsIndices(layoutState);
+
+    final int outputCount = layoutState.mMountableOutputs.size();
+    layoutState.mMountableOutputIds = new long[outputCount];
+    for (int i = 0; i < outputCount; i++) {
+      layoutState.mMountableOutputIds[i] = layoutState.mMountableOutputs.get(i).getId();
+    }
+    layoutState.mEstimatedRetainedSize = estimateRetainedSize(layoutState);
 
     if (logger != null) {
       logger.log(collectResultsEvent);
@@ -1077,6 +1160,29 @@ class LayoutState {
     return layoutState;
   }
 
+  /**
+   * @return a rough estimate, in bytes, of the memory the results of a layout keep alive. Each
+   * output is counted together with the component it references and its share of the indices.
+   * The node tree isn't counted as it's released once the results are collected.
+   */
+  private static int estimateRetainedSize(LayoutState layoutState) {
+    return ESTIMATED_LAYOUT_STATE_BYTES
+        + layoutState.mMountableOutputs.size() * ESTIMATED_LAYOUT_OUTPUT_BYTES
+        + layoutState.mVisibilityOutputs.size() * ESTIMATED_VISIBILITY_OUTPUT_BYTES
+        + layoutState.mDiffNodeCount * ESTIMATED_DIFF_NODE_BYTES;
+  }
+
+  private static void buildVisibilityOutputsIndices(LayoutState layoutState) {
+    for (int i = 0, size = layoutState.mVisibilityOutputs.size(); i < size; i++) {
+      final Rect bounds = layoutState.mVisibilityOutputs.get(i).getBounds();
+      layoutState.mVisibilityOutputsVerticalIndex.add(bounds.top, bounds.bottom);
+      layoutState.mVisibilityOutputsHorizontalIndex.add(bounds.left, bounds.right);
+    }
+
+    layoutState.mVisibilityOutputsVerticalIndex.build();
+    layoutState.mVisibilityOutputsHorizontalIndex.build();
+  }
+
   @ThreadSafe(enableChecks = false)
   void preAllocateMountContent() {
     ComponentsSystrace.beginSection(
@@ -1501,6 +1607,12 @@ class LayoutState {
     diffNode.setLastMeasuredWidth(node.getLastMeasuredWidth());
     diffNode.setLastMeasuredHeight(node.getLastMeasuredHeight());
     diffNode.setComponent(node.getRootComponent());
+    diffNode.setPadding(
+        node.getPaddingLeft(),
+        node.getPaddingTop(),
+        node.getPaddingRight(),
+        node.getPaddingBottom());
+    diffNode.setLayoutDirection(node.getResolvedLayoutDirection());
     if (parent != null) {
       parent.addChild(diffNode);
     }
@@ -1669,6 +1781,44 @@ class LayoutState {
     return mMountableOutputBottoms;
   }
 
+  ArrayList<LayoutOutput> getMountableOutputLefts() {
+    return mMountableOutputLefts;
+  }
+
+  ArrayList<LayoutOutput> getMountableOutputRights() {
+    return mMountableOutputRights;
+  }
+
+  /**
+   * @return the ids of the mountable outputs. A new array is allocated for every layout
+   * calculation and never modified afterwards, so it can be kept after this LayoutState is
+   * released.
+   */
+  long[] getMountableOutputIds() {
+    return mMountableOutputIds;
+  }
+
+  /**
+   * Calculates the {@link MountPlan} to mount this LayoutState over the given one. This should be
+   * called on the thread that calculated this LayoutState, before it is handed to the main thread.
+   */
+  void prepareMountPlan(LayoutState previousLayoutState) {
+    if (previousLayoutState.mMountableOutputIds == null) {
+      return;
+    }
+
+    mMountPlan = MountPlan.create(previousLayoutState, this);
+  }
+
+  /**
+   * @return the {@link MountPlan} of this LayoutState if it can be applied over the outputs with
+   * the given ids, or null.
+   */
+  @Nullable
+  MountPlan getMountPlanFor(@Nullable long[] mountedIds) {
+    return mMountPlan != null && mMountPlan.isValidFor(mountedIds) ? mMountPlan : null;
+  }
+
   int getVisibilityOutputCount() {
     return mVisibilityOutputs.size();
   }
@@ -1677,6 +1827,22 @@ class LayoutState {
     return mVisibilityOutputs.get(index);
   }
 
+  /**
+   * @return the visibility outputs indexed by their top and bottom, with the same indices as
+   * {@link #getVisibilityOutputAt(int)}.
+   */
+  IntervalIndex getVisibilityOutputsVerticalIndex() {
+    return mVisibilityOutputsVerticalIndex;
+  }
+
+  /**
+   * @return the visibility outputs indexed by their left and right, with the same indices as
+   * {@link #getVisibilityOutputAt(int)}.
+   */
+  IntervalIndex getVisibilityOutputsHorizontalIndex() {
+    return mVisibilityOutputsHorizontalIndex;
+  }
+
   int getTestOutputCount() {
     return mTestOutputs == null ? 0 : mTestOutputs.size();
   }
@@ -1693,6 +1859,13 @@ class LayoutState {
     return mWidth;
   }
 
+  /**
+   * @return a rough estimate, in bytes, of the memory this LayoutState keeps alive.
+   */
+  int getEstimatedRetainedSize() {
+    return mEstimatedRetainedSize;
+  }
+
   int getHeight() {
     return mHeight;
   }
@@ -1736,6 +1909,10 @@ class LayoutState {
       mMountableOutputs.clear();
       mMountableOutputTops.clear();
       mMountableOutputBottoms.clear();
+      mMountableOutputLefts.clear();
+      mMountableOutputRights.clear();
+      mMountableOutputIds = null;
+      mMountPlan = null;
       mOutputsIdToPositionMap.clear();
       mDisplayListsToPrefetch.clear();
 
@@ -1743,6 +1920,8 @@ class LayoutState {
         ComponentsPools.release(mVisibilityOutputs.get(i));
       }
       mVisibilityOutputs.clear();
+      mVisibilityOutputsVerticalIndex.clear();
+      mVisibilityOutputsHorizontalIndex.clear();
 
       if (mTestOutputs != null) {
         for (int i = 0, size = mTestOutputs.size(); i < size; i++) {
@@ -1759,6 +1938,8 @@ class LayoutState {
         ComponentsPools.release(mDiffTreeRoot);
         mDiffTreeRoot = null;
       }
+      mDiffNodeCount = 0;
+      mEstimatedRetainedSize = 0;
       mLayoutStateOutputIdCalculator.clear();
 
       if (mTransitionContext != null) {
@@ -1917,6 +2098,8 @@ class LayoutState {
     layoutState.mMountableOutputs.add(layoutOutput);
     layoutState.mMountableOutputTops.add(layoutOutput);
     layoutState.mMountableOutputBottoms.add(layoutOutput);
+    layoutState.mMountableOutputLefts.add(layoutOutput);
+    layoutState.mMountableOutputRights.add(layoutOutput);
   }
 
   private TransitionContext getOrCreateTransitionContext() {
@@ -1958,14 +2141,21 @@ class LayoutState {
   }
 
   /**
-   * Removes and returns next {@link LayoutOutput} from the queue for Display Lists.
+   * Returns next {@link LayoutOutput} from the queue for Display Lists without removing it.
    * Note that it is callers responsibility to make sure queue is not empty.
    */
-  LayoutOutput getNextLayoutOutputForDLPrefetch() {
-    final int layoutOutputIndex = mDisplayListsToPrefetch.poll();
+  LayoutOutput peekNextLayoutOutputForDLPrefetch() {
+    final int layoutOutputIndex = mDisplayListsToPrefetch.peek();
     return getMountableOutputAt(layoutOutputIndex);
   }
 
+  /**
+   * Removes next {@link LayoutOutput} from the queue for Display Lists.
+   */
+  void removeNextLayoutOutputForDLPrefetch() {
+    mDisplayListsToPrefetch.remove();
+  }
+
   /**
    * @return the list of Components in this LayoutState that care about the previously mounted
    *     versions of their @Prop/@State params.
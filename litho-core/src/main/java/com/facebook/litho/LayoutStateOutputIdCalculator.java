@@ -9,8 +9,6 @@
 
 package com.facebook.litho;
 
-import android.support.v4.util.LongSparseArray;
-
 /**
  * Utility class used to calculate the id of a {@link LayoutOutput} in the context of a
  * {@link LayoutState}. It keeps track of all the {@link LayoutOutput}s with the same baseId
@@ -18,9 +16,8 @@ import android.support.v4.util.LongSparseArray;
  */
 class LayoutStateOutputIdCalculator {
 
-  private final LongSparseArray<Integer> mLayoutCurrentSequenceForBaseId = new LongSparseArray<>(8);
-  private final LongSparseArray<Integer> mVisibilityCurrentSequenceForBaseId =
-      new LongSparseArray<>(8);
+  private final LongIntHashMap mLayoutCurrentSequenceForBaseId = new LongIntHashMap();
+  private final LongIntHashMap mVisibilityCurrentSequenceForBaseId = new LongIntHashMap();
 
   private static final int MAX_SEQUENCE = 65535; // (2^16 - 1)
   private static final int MAX_LEVEL = 255; // (2^8 - 1)
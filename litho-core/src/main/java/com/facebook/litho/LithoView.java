@@ -543,8 +543,8 @@ public class LithoView extends ComponentHost {
     if (mTransientStateCount > 0 && isIncrementalMountEnabled()) {
       // If transient state is set but the MountState is dirty we want to re-mount everything.
       // Otherwise, we don't need to do anything as the entire LithoView was mounted when the
-      // transient state was set.
-      if (!mMountState.isDirty()) {
+      // transient state was set, unless that mount was time sliced and is still pending.
+      if (!mMountState.isDirty() && !mMountState.isTimeSlicedMountPending()) {
         return;
       } else {
         currentVisibleArea = ComponentsPools.acquireRect();
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho;
+
+import java.util.Arrays;
+
+/**
+ * An open addressing hash map from primitive long keys to primitive int values, so that neither
+ * reads nor writes box. Unlike {@link android.support.v4.util.LongSparseArray} inserts don't shift
+ * the existing entries, so it stays O(1) for keys inserted in any order, like hashes. Int keys,
+ * like resource ids, can be used as they are. This class is not thread safe.
+ */
+class LongIntHashMap {
+
+  static final long NOT_FOUND = Long.MIN_VALUE;
+
+  private static final int INITIAL_CAPACITY = 16;
+  private static final long EMPTY_KEY = 0L;
+
+  private long[] mKeys;
+  private int[] mValues;
+  private int mSize;
+  // 0 marks the empty slots, so its value is stored on the side.
+  private boolean mHasEmptyKey;
+  private int mEmptyKeyValue;
+
+  LongIntHashMap() {
+    mKeys = new long[INITIAL_CAPACITY];
+    mValues = new int[INITIAL_CAPACITY];
+  }
+
+  int get(long key, int valueIfKeyNotFound) {
+    final long value = get(key);
+    return value == NOT_FOUND ? valueIfKeyNotFound : (int) value;
+  }
+
+  /**
+   * @return the value for the given key, or {@link #NOT_FOUND} if there is none. Values are
+   * returned as a long so that every int is a valid value.
+   */
+  long get(long key) {
+    if (key == EMPTY_KEY) {
+      return mHasEmptyKey ? mEmptyKeyValue : NOT_FOUND;
+    }
+
+    final int index = indexOf(key);
+    return index == -1 ? NOT_FOUND : mValues[index];
+  }
+
+  boolean containsKey(long key) {
+    return key == EMPTY_KEY ? mHasEmptyKey : indexOf(key) != -1;
+  }
+
+  void put(long key, int value) {
+    if (key == EMPTY_KEY) {
+      if (!mHasEmptyKey) {
+        mHasEmptyKey = true;
+        mSize++;
+      }
+      mEmptyKeyValue = value;
+      return;
+    }
+
+    // Keep the load factor below 1/2 so that probe sequences stay short.
+    if ((mSize + 1) * 2 > mKeys.length) {
+      resize(mKeys.length * 2);
+    }
+
+    if (insert(key, value)) {
+      mSize++;
+    }
+  }
+
+  int size() {
+    return mSize;
+  }
+
+  void clear() {
+    if (mSize == 0) {
+      return;
+    }
+
+    Arrays.fill(mKeys, EMPTY_KEY);
+    mHasEmptyKey = false;
+    mSize = 0;
+  }
+
+  private int indexOf(long key) {
+    final int mask = mKeys.length - 1;
+    int index = hash(key) & mask;
+
+    while (true) {
+      final long slotKey = mKeys[index];
+      if (slotKey == key) {
+        return index;
+      }
+      if (slotKey == EMPTY_KEY) {
+        return -1;
+      }
+      index = (index + 1) & mask;
+    }
+  }
+
+  /**
+   * @return whether the key was added, rather than replaced.
+   */
+  private boolean insert(long key, int value) {
+    final int mask = mKeys.length - 1;
+    int index = hash(key) & mask;
+
+    while (true) {
+      final long slotKey = mKeys[index];
+      if (slotKey == key) {
+        mValues[index] = value;
+        return false;
+      }
+      if (slotKey == EMPTY_KEY) {
+        mKeys[index] = key;
+        mValues[index] = value;
+        return true;
+      }
+      index = (index + 1) & mask;
+    }
+  }
+
+  private void resize(int capacity) {
+    final long[] oldKeys = mKeys;
+    final int[] oldValues = mValues;
+
+    mKeys = new long[capacity];
+    mValues = new int[capacity];
+
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != EMPTY_KEY) {
+        insert(oldKeys[i], oldValues[i]);
+      }
+    }
+  }
+
+  private static int hash(long key) {
+    // Layout output ids and resource ids share their high bits, spread the low ones.
+    final int h = (int) (key ^ (key >>> 32)) * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+}
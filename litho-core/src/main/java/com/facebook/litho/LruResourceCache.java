@@ -12,8 +12,11 @@ package com.facebook.litho;
 import android.content.res.Configuration;
 import android.support.v4.util.LruCache;
 import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
 
 class LruResourceCache extends ResourceCache {
+  static final int PRIMITIVE_CACHE_MAX_SIZE = 512;
+
   private final LruCache<Integer, Object> mCache = new LruCache<Integer, Object>(500) {
     @Override
     protected int sizeOf(Integer key, Object value) {
@@ -24,6 +27,13 @@ class LruResourceCache extends ResourceCache {
     }
   };
 
+  // Numeric resources are kept apart, in maps that don't box keys or values. Floats are stored
+  // as their raw int bits.
+  @GuardedBy("mIntCache")
+  private final LongIntHashMap mIntCache = new LongIntHashMap();
+  @GuardedBy("mFloatCache")
+  private final LongIntHashMap mFloatCache = new LongIntHashMap();
+
   LruResourceCache(Configuration configuration) {
     super(configuration);
   }
@@ -38,4 +48,41 @@ class LruResourceCache extends ResourceCache {
   void put(int key, Object object) {
     mCache.put(key, object);
   }
+
+  @Override
+  long getInt(int key) {
+    synchronized (mIntCache) {
+      return mIntCache.get(key);
+    }
+  }
+
+  @Override
+  void putInt(int key, int value) {
+    putPrimitive(mIntCache, key, value);
+  }
+
+  @Override
+  float getFloat(int key) {
+    final long cached;
+    synchronized (mFloatCache) {
+      cached = mFloatCache.get(key);
+    }
+    return cached == NOT_FOUND ? Float.NaN : Float.intBitsToFloat((int) cached);
+  }
+
+  @Override
+  void putFloat(int key, float value) {
+    putPrimitive(mFloatCache, key, Float.floatToRawIntBits(value));
+  }
+
+  private static void putPrimitive(LongIntHashMap cache, int key, int value) {
+    synchronized (cache) {
+      // Resources are cheap to resolve again, so a full cache is cleared rather than tracking
+      // which entry is the least recently used.
+      if (cache.size() >= PRIMITIVE_CACHE_MAX_SIZE && !cache.containsKey(key)) {
+        cache.clear();
+      }
+      cache.put(key, value);
+    }
+  }
 }
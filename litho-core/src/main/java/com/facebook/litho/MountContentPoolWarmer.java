@@ -0,0 +1,264 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.support.annotation.VisibleForTesting;
+import android.util.SparseArray;
+import android.util.SparseIntArray;
+import com.facebook.litho.config.ComponentsConfiguration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import javax.annotation.concurrent.GuardedBy;
+
+/**
+ * Records how many mount contents of each component type are in use at the same time and, when a
+ * new Activity is created, fills its mount content pools up to the observed peaks on a background
+ * thread. This moves the creation of the Views and Drawables needed by the first scroll of a new
+ * surface off the main thread.
+ *
+ * At most {@link ComponentsConfiguration#mountContentPoolWarmerBudget} mount contents are created
+ * for every Activity, starting with the component types with the highest peaks.
+ *
+ * The number of mount contents in use is tracked per context, so that the mount contents of a
+ * destroyed Activity, which are never released, don't add up across Activity recreations.
+ */
+public class MountContentPoolWarmer {
+
+  private static final String THREAD_NAME = "MountContentPoolWarmer";
+
+  @GuardedBy("MountContentPoolWarmer.class")
+  private static final SparseArray<Usage> sUsageByType = new SparseArray<>();
+
+  /** The number of mount contents in use in each context, by component type. */
+  @GuardedBy("MountContentPoolWarmer.class")
+  private static final Map<Context, SparseIntArray> sActiveCountsByContext = new WeakHashMap<>();
+
+  @GuardedBy("MountContentPoolWarmer.class")
+  private static Handler sHandler;
+
+  private static final Comparator<Usage> sPeakComparator =
+      new Comparator<Usage>() {
+        @Override
+        public int compare(Usage lhs, Usage rhs) {
+          return rhs.mPeakCount - lhs.mPeakCount;
+        }
+      };
+
+  private MountContentPoolWarmer() {
+  }
+
+  static synchronized void onMountContentAcquired(
+      Context context,
+      ComponentLifecycle lifecycle,
+      boolean isPooled) {
+    context = getRootContext(context);
+    SparseIntArray activeCounts = sActiveCountsByContext.get(context);
+    if (activeCounts == null) {
+      activeCounts = new SparseIntArray();
+      sActiveCountsByContext.put(context, activeCounts);
+    }
+
+    final int typeId = lifecycle.getTypeId();
+    final int activeCount = activeCounts.get(typeId) + 1;
+    activeCounts.put(typeId, activeCount);
+
+    final Usage usage = getOrCreateUsage(lifecycle);
+    usage.mPeakCount = Math.max(usage.mPeakCount, activeCount);
+
+    if (!isPooled) {
+      usage.mMissCount++;
+    }
+  }
+
+  static synchronized void onMountContentReleased(Context context, ComponentLifecycle lifecycle) {
+    final SparseIntArray activeCounts = sActiveCountsByContext.get(getRootContext(context));
+    if (activeCounts == null) {
+      return;
+    }
+
+    final int typeId = lifecycle.getTypeId();
+    final int activeCount = activeCounts.get(typeId);
+    if (activeCount > 0) {
+      activeCounts.put(typeId, activeCount - 1);
+    }
+  }
+
+  /**
+   * Drops the mount contents in use in the given context and in its wrappers. They are never
+   * released once the Activity is destroyed.
+   */
+  static synchronized void onContextDestroyed(Context context) {
+    final Iterator<Context> it = sActiveCountsByContext.keySet().iterator();
+    while (it.hasNext()) {
+      final Context contextKey = it.next();
+      if (contextKey == context || ComponentsPools.isContextWrapper(contextKey, context)) {
+        it.remove();
+      }
+    }
+  }
+
+  /**
+   * Schedules the pools of the given context to be filled in the background.
+   */
+  static void warm(final Context context) {
+    getHandler()
+        .post(
+            new Runnable() {
+              @Override
+              public void run() {
+                warmNow(context);
+              }
+            });
+  }
+
+  /**
+   * Fills the pools of the given context synchronously.
+   *
+   * @return the number of mount contents that were created.
+   */
+  @VisibleForTesting
+  static int warmNow(Context context) {
+    final List<Usage> usages = new ArrayList<>();
+    synchronized (MountContentPoolWarmer.class) {
+      for (int i = 0, size = sUsageByType.size(); i < size; i++) {
+        // Copy the peaks so that they can't change while sorting.
+        final Usage usage = sUsageByType.valueAt(i);
+        final Usage copy = new Usage(usage.mLifecycle);
+        copy.mPeakCount = usage.mPeakCount;
+        usages.add(copy);
+      }
+    }
+
+    Collections.sort(usages, sPeakComparator);
+
+    final ComponentContext componentContext = new ComponentContext(context);
+    int budget = ComponentsConfiguration.mountContentPoolWarmerBudget;
+    int createdCount = 0;
+
+    for (int i = 0, size = usages.size(); i < size && budget > 0; i++) {
+      final ComponentLifecycle lifecycle = usages.get(i).mLifecycle;
+      final int count = Math.min(usages.get(i).mPeakCount, budget);
+
+      for (int j = 0; j < count && canAddMountContentToPool(context, lifecycle); j++) {
+        ComponentsPools.release(context, lifecycle, lifecycle.createMountContent(componentContext));
+        createdCount++;
+        budget--;
+      }
+    }
+
+    return createdCount;
+  }
+
+  private static boolean canAddMountContentToPool(Context context, ComponentLifecycle lifecycle) {
+    // The pools are gone if the Activity was destroyed in the meantime.
+    return ComponentsPools.hasMountContentPools(context)
+        && ComponentsPools.canAddMountContentToPool(context, lifecycle);
+  }
+
+  /**
+   * @return the usage of the mount content pools of every component type mounted so far, to tune
+   * pool sizes and {@link ComponentsConfiguration#mountContentPoolWarmerBudget}.
+   */
+  public static synchronized List<PoolStats> getPoolStats() {
+    final List<PoolStats> stats = new ArrayList<>(sUsageByType.size());
+
+    for (int i = 0, size = sUsageByType.size(); i < size; i++) {
+      final Usage usage = sUsageByType.valueAt(i);
+      stats.add(
+          new PoolStats(
+              usage.mLifecycle.getClass().getSimpleName(),
+              usage.mPeakCount,
+              usage.mMissCount,
+              ComponentsPools.getPooledMountContentCount(usage.mLifecycle)));
+    }
+
+    return stats;
+  }
+
+  @VisibleForTesting
+  static synchronized void reset() {
+    sUsageByType.clear();
+    sActiveCountsByContext.clear();
+  }
+
+  @VisibleForTesting
+  static synchronized int getActiveCount(Context context, ComponentLifecycle lifecycle) {
+    final SparseIntArray activeCounts = sActiveCountsByContext.get(getRootContext(context));
+    return activeCounts == null ? 0 : activeCounts.get(lifecycle.getTypeId());
+  }
+
+  private static Context getRootContext(Context context) {
+    // Mount contents are pooled by the context wrapped by the ComponentContext.
+    return context instanceof ComponentContext
+        ? ((ComponentContext) context).getBaseContext()
+        : context;
+  }
+
+  @GuardedBy("MountContentPoolWarmer.class")
+  private static Usage getOrCreateUsage(ComponentLifecycle lifecycle) {
+    Usage usage = sUsageByType.get(lifecycle.getTypeId());
+    if (usage == null) {
+      usage = new Usage(lifecycle);
+      sUsageByType.put(lifecycle.getTypeId(), usage);
+    }
+
+    return usage;
+  }
+
+  private static synchronized Handler getHandler() {
+    if (sHandler == null) {
+      final HandlerThread thread =
+          new HandlerThread(THREAD_NAME, Process.THREAD_PRIORITY_BACKGROUND);
+      thread.start();
+      sHandler = new Handler(thread.getLooper());
+    }
+
+    return sHandler;
+  }
+
+  /**
+   * The usage of the mount content pools of a component type.
+   */
+  public static class PoolStats {
+    public final String componentName;
+    /** The highest number of mount contents that were mounted at the same time. */
+    public final int peakCount;
+    /** How many mount contents had to be created on mount because the pool was empty. */
+    public final int missCount;
+    /** How many mount contents are currently in the pools of all the live contexts. */
+    public final int pooledCount;
+
+    PoolStats(String componentName, int peakCount, int missCount, int pooledCount) {
+      this.componentName = componentName;
+      this.peakCount = peakCount;
+      this.missCount = missCount;
+      this.pooledCount = pooledCount;
+    }
+  }
+
+  private static class Usage {
+    private final ComponentLifecycle mLifecycle;
+    private int mPeakCount;
+    private int mMissCount;
+
+    private Usage(ComponentLifecycle lifecycle) {
+      mLifecycle = lifecycle;
+    }
+  }
+}
@@ -16,6 +16,7 @@ import android.content.Context;
 import android.graphics.drawable.Drawable;
 import android.support.annotation.Nullable;
 import android.view.View;
+import com.facebook.litho.config.ComponentsConfiguration;
 import com.facebook.litho.displaylist.DisplayList;
 
 /**
@@ -212,6 +213,10 @@ class MountItem {
     // Component hosts are recycled within other hosts instead of the global pool.
     if (!(mContent instanceof ComponentHost)) {
       ComponentsPools.release(context, mComponent.getLifecycle(), mContent);
+
+      if (ComponentsConfiguration.warmMountContentPools) {
+        MountContentPoolWarmer.onMountContentReleased(context, mComponent.getLifecycle());
+      }
     }
 
     if (mDisplayListDrawable != null) {
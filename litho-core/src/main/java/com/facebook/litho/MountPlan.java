@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho;
+
+import android.support.annotation.Nullable;
+
+/**
+ * The part of mounting a {@link LayoutState} over the previously mounted one that doesn't depend
+ * on the mounted views. It is calculated on the layout thread, right after the new
+ * {@link LayoutState}, so that {@link MountState} only has to apply it on the main thread.
+ *
+ * A plan is only valid if the {@link LayoutState} it was calculated against is the last one that
+ * was mounted, which {@link MountState} checks by comparing the arrays of output ids.
+ */
+class MountPlan {
+
+  private static final byte SHOULD_UPDATE_UNKNOWN = 0;
+  private static final byte SHOULD_UPDATE_TRUE = 1;
+  private static final byte SHOULD_UPDATE_FALSE = 2;
+
+  private final long[] mPreviousIds;
+  // For every output of the previous LayoutState, its position in the new one or -1.
+  private final int[] mNewPositions;
+  // For every output of the new LayoutState, the result of shouldComponentUpdate against the
+  // component of the previous LayoutState with the same id, if mount needs it.
+  private final byte[] mShouldUpdate;
+
+  private MountPlan(long[] previousIds, int[] newPositions, byte[] shouldUpdate) {
+    mPreviousIds = previousIds;
+    mNewPositions = newPositions;
+    mShouldUpdate = shouldUpdate;
+  }
+
+  static MountPlan create(LayoutState previousLayoutState, LayoutState layoutState) {
+    final long[] previousIds = previousLayoutState.getMountableOutputIds();
+    final int[] newPositions = new int[previousIds.length];
+    final byte[] shouldUpdate = new byte[layoutState.getMountableOutputCount()];
+
+    for (int i = 0; i < previousIds.length; i++) {
+      final int newPosition = layoutState.getLayoutOutputPositionForId(previousIds[i]);
+      newPositions[i] = newPosition;
+
+      // With duplicated ids we can't know which of the outputs is mounted.
+      if (newPosition == -1
+          || previousLayoutState.getLayoutOutputPositionForId(previousIds[i]) != i) {
+        continue;
+      }
+
+      final Component<?> previousComponent =
+          previousLayoutState.getMountableOutputAt(i).getComponent();
+      final LayoutOutput layoutOutput = layoutState.getMountableOutputAt(newPosition);
+
+      if (needsShouldComponentUpdate(previousComponent, layoutOutput)) {
+        shouldUpdate[newPosition] =
+            previousComponent
+                    .getLifecycle()
+                    .shouldComponentUpdate(previousComponent, layoutOutput.getComponent())
+                ? SHOULD_UPDATE_TRUE
+                : SHOULD_UPDATE_FALSE;
+      }
+    }
+
+    return new MountPlan(previousIds, newPositions, shouldUpdate);
+  }
+
+  /**
+   * @return whether mount might call shouldComponentUpdate for this output, see
+   * MountState#shouldUpdateMountItem.
+   */
+  private static boolean needsShouldComponentUpdate(
+      Component<?> previousComponent,
+      LayoutOutput layoutOutput) {
+    final ComponentLifecycle previousLifecycle = previousComponent.getLifecycle();
+    final ComponentLifecycle lifecycle = layoutOutput.getComponent().getLifecycle();
+
+    switch (layoutOutput.getUpdateState()) {
+      case LayoutOutput.STATE_UPDATED:
+        return previousLifecycle instanceof DrawableComponent
+            && lifecycle instanceof DrawableComponent;
+      case LayoutOutput.STATE_DIRTY:
+        return false;
+    }
+
+    return previousLifecycle.callsShouldUpdateOnMount();
+  }
+
+  /**
+   * @return whether this plan can be applied over the outputs with the given ids.
+   */
+  boolean isValidFor(@Nullable long[] mountedIds) {
+    return mountedIds == mPreviousIds;
+  }
+
+  int getNewPosition(int previousIndex) {
+    return mNewPositions[previousIndex];
+  }
+
+  boolean hasShouldComponentUpdate(int index) {
+    return mShouldUpdate[index] != SHOULD_UPDATE_UNKNOWN;
+  }
+
+  boolean shouldComponentUpdate(int index) {
+    return mShouldUpdate[index] == SHOULD_UPDATE_TRUE;
+  }
+}
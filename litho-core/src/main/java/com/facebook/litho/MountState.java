@@ -18,7 +18,9 @@ import static com.facebook.litho.ComponentHostUtils.maybeSetDrawableState;
 import static com.facebook.litho.FrameworkLogEvents.EVENT_MOUNT;
 import static com.facebook.litho.FrameworkLogEvents.EVENT_PREPARE_MOUNT;
 import static com.facebook.litho.FrameworkLogEvents.EVENT_SHOULD_UPDATE_REFERENCE_LAYOUT_MISMATCH;
+import static com.facebook.litho.FrameworkLogEvents.PARAM_FRAME_COUNT;
 import static com.facebook.litho.FrameworkLogEvents.PARAM_IS_DIRTY;
+import static com.facebook.litho.FrameworkLogEvents.PARAM_IS_PENDING;
 import static com.facebook.litho.FrameworkLogEvents.PARAM_LOG_TAG;
 import static com.facebook.litho.FrameworkLogEvents.PARAM_MESSAGE;
 import static com.facebook.litho.FrameworkLogEvents.PARAM_MOUNTED_COUNT;
@@ -47,6 +49,7 @@ import com.facebook.infer.annotation.ThreadConfined;
 import com.facebook.litho.config.ComponentsConfiguration;
 import com.facebook.litho.reference.Reference;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Deque;
 import java.util.HashMap;
@@ -54,6 +57,7 @@ import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Encapsulates the mounted state of a {@link Component}. Provides APIs to update state
@@ -96,6 +100,11 @@ class MountState implements TransitionManager.OnAnimationCompleteListener {
 
   private static final Rect sTempRect = new Rect();
 
+  private static final int EDGE_TOP = 0;
+  private static final int EDGE_BOTTOM = 1;
+  private static final int EDGE_LEFT = 2;
+  private static final int EDGE_RIGHT = 3;
+
   private final ComponentContext mContext;
   private final LithoView mLithoView;
   private final Rect mPreviousLocalVisibleRect = new Rect();
@@ -104,12 +113,26 @@ class MountState implements TransitionManager.OnAnimationCompleteListener {
   private TransitionManager mTransitionManager;
   private int mPreviousTopsIndex;
   private int mPreviousBottomsIndex;
+  private int mPreviousLeftsIndex;
+  private int mPreviousRightsIndex;
   private int mLastMountedComponentTreeId = ComponentTree.INVALID_ID;
   private final HashMap<String, MountItem> mDisappearingMountItems = new HashMap<>();
   private final HashSet<String> mAnimatingTransitionKeys = new HashSet<>();
   private LayoutState mLastMountedLayoutState;
   private int[] mAnimationLockedIndices;
 
+  // True if the last mount ran out of its frame budget before mounting all its outputs.
+  private boolean mIsTimeSlicedMountPending;
+  // The number of mount passes (one per frame) the current time sliced mount took so far.
+  private int mTimeSlicedMountFrameCount;
+  private final Rect mTimeSlicedMountPriorityRect = new Rect();
+  private int[] mDeferredIndices = new int[0];
+
+  // The visible rect the visibility outputs of mLastMountedLayoutState were last processed for.
+  private final Rect mPreviousVisibilityRect = new Rect();
+  private boolean mHasPreviousVisibilityRect;
+  private int[] mVisibilityIndices = new int[0];
+
   private final MountItem mRootHostMountItem;
 
   public MountState(LithoView view) {
@@ -142,6 +165,7 @@ class MountState implements TransitionManager.OnAnimationCompleteListener {
 
     mIsDirty = true;
     mPreviousLocalVisibleRect.setEmpty();
+    mHasPreviousVisibilityRect = false;
   }
 
   boolean isDirty() {
@@ -150,6 +174,26 @@ class MountState implements TransitionManager.OnAnimationCompleteListener {
     return mIsDirty;
   }
 
+  /**
+   * @return whether the last mount was time sliced and has outputs left to mount on the next
+   * frame.
+   */
+  boolean isTimeSlicedMountPending() {
+    assertMainThread();
+
+    return mIsTimeSlicedMountPending;
+  }
+
+  /**
+   * @return the number of frames the last time sliced mount took, or is taking if it is still
+   * pending.
+   */
+  int getTimeSlicedMountFrameCount() {
+    assertMainThread();
+
+    return mTimeSlicedMountFrameCount;
+  }
+
   /**
    * Mount the layoutState on the pre-set HostView.
    *
@@ -181,6 +225,10 @@ class MountState implements TransitionManager.OnAnimationCompleteListener {
       mountEvent = logger.newPerformanceEvent(EVENT_MOUNT);
     }
 
+    // The plan calculated on the layout thread can only be used if it was calculated against what
+    // is currently mounted.
+    final MountPlan mountPlan = mIsDirty ? layoutState.getMountPlanFor(mLayoutOutputsIds) : null;
+
     if (mIsDirty) {
       updateTransitions(layoutState);
 
@@ -188,16 +236,41 @@ class MountState implements TransitionManager.OnAnimationCompleteListener {
 
       // Prepare the data structure for the new LayoutState and removes mountItems
       // that are not present anymore if isUpdateMountInPlace is enabled.
-      prepareMount(layoutState);
+      prepareMount(layoutState, mountPlan);
     }
 
     mMountStats.reset();
 
     final boolean isIncrementalMountEnabled = localVisibleRect != null;
+    final boolean isTimeSliced = componentTree.isTimeSlicedMountEnabled();
+    final boolean wasTimeSlicedMountPending = mIsTimeSlicedMountPending;
 
+    if (mIsDirty) {
+      mTimeSlicedMountFrameCount = 0;
+    }
+    if (mIsDirty || wasTimeSlicedMountPending) {
+      mTimeSlicedMountFrameCount++;
+    }
+    mIsTimeSlicedMountPending = false;
+
+    // A pending time sliced mount has to go through all the outputs again, since incremental mount
+    // only looks at the outputs entering or leaving the visible rect.
     if (!isIncrementalMountEnabled
+        || wasTimeSlicedMountPending
         || !performIncrementalMount(layoutState, localVisibleRect, processVisibilityOutputs)) {
       final MountItem rootMountItem = mIndexToItemMap.get(ROOT_HOST_ID);
+      final long deadlineNanos = isTimeSliced
+          ? System.nanoTime()
+              + TimeUnit.MILLISECONDS.toNanos(ComponentsConfiguration.timeSlicedMountFrameBudgetMs)
+          : Long.MAX_VALUE;
+      // Without incremental mount everything is mounted, but what is on screen goes first.
+      final Rect priorityRect = isTimeSliced
+          && !isIncrementalMountEnabled
+          && mLithoView.getLocalVisibleRect(mTimeSlicedMountPriorityRect)
+          ? mTimeSlicedMountPriorityRect
+          : null;
+      int mountedCount = 0;
+      int deferredCount = 0;
 
       for (int i = 0, size = layoutState.getMountableOutputCount(); i < size; i++) {
         final LayoutOutput layoutOutput = layoutState.getMountableOutputAt(i);
@@ -214,7 +287,16 @@ class MountState implements TransitionManager.OnAnimationCompleteListener {
                 (currentMountItem != null && currentMountItem == rootMountItem);
 
         if (isMountable && !isMounted) {
-          mountLayoutOutput(i, layoutOutput, layoutState);
+          final boolean isPriority = priorityRect == null
+              || isHostSpec(component)
+              || Rect.intersects(priorityRect, layoutOutput.getBounds());
+
+          if (isPriority && !isOverBudget(mountedCount, deadlineNanos)) {
+            mountLayoutOutput(i, layoutOutput, layoutState);
+            mountedCount++;
+          } else {
+            deferredCount = addDeferredIndex(i, deferredCount);
+          }
         } else if (!isMountable && isMounted) {
           unmountItem(mContext, i, mHostsByMarker);
         } else if (isMounted) {
@@ -228,7 +310,8 @@ class MountState implements TransitionManager.OnAnimationCompleteListener {
                 useUpdateValueFromLayoutOutput,
                 logger,
                 componentTreeId,
-                i);
+                i,
+                mountPlan);
 
             if (itemUpdated) {
               mMountStats.updatedCount++;
@@ -249,7 +332,23 @@ class MountState implements TransitionManager.OnAnimationCompleteListener {
         ComponentsSystrace.endSection();
       }
 
-      if (isIncrementalMountEnabled) {
+      // Mount what is off screen if there is budget left. Hosts were all mounted in the first pass
+      // unless we already ran out of budget.
+      int pendingCount = 0;
+      for (int j = 0; j < deferredCount; j++) {
+        final int index = mDeferredIndices[j];
+        if (isOverBudget(mountedCount, deadlineNanos)) {
+          pendingCount = deferredCount - j;
+          break;
+        }
+
+        mountLayoutOutput(index, layoutState.getMountableOutputAt(index), layoutState);
+        mountedCount++;
+      }
+
+      mIsTimeSlicedMountPending = pendingCount > 0;
+
+      if (isIncrementalMountEnabled && !mIsTimeSlicedMountPending) {
         setupPreviousMountableOutputData(layoutState, localVisibleRect);
       }
     }
@@ -263,11 +362,17 @@ class MountState implements TransitionManager.OnAnimationCompleteListener {
       mPreviousLocalVisibleRect.set(localVisibleRect);
     }
 
+    if (mLastMountedLayoutState != layoutState) {
+      // All the visibility outputs are new, so they all need to be processed.
+      mHasPreviousVisibilityRect = false;
+    }
+
     releaseLastMountedLayoutState();
     mLastMountedComponentTreeId = componentTreeId;
     mLastMountedLayoutState = layoutState.acquireRef();
 
-    if (processVisibilityOutputs) {
+    // Visibility events are dispatched once all the visible content is mounted.
+    if (processVisibilityOutputs && !mIsTimeSlicedMountPending) {
       processVisibilityOutputs(layoutState, localVisibleRect);
     }
 
@@ -282,19 +387,51 @@ class MountState implements TransitionManager.OnAnimationCompleteListener {
       mountEvent.addParam(PARAM_UPDATED_COUNT, String.valueOf(mMountStats.updatedCount));
       mountEvent.addParam(PARAM_NO_OP_COUNT, String.valueOf(mMountStats.noOpCount));
       mountEvent.addParam(PARAM_IS_DIRTY, String.valueOf(mIsDirty));
+      if (isTimeSliced) {
+        mountEvent.addParam(PARAM_FRAME_COUNT, String.valueOf(mTimeSlicedMountFrameCount));
+        mountEvent.addParam(PARAM_IS_PENDING, String.valueOf(mIsTimeSlicedMountPending));
+      }
       logger.log(mountEvent);
     }
 
     ComponentsSystrace.endSection();
   }
 
+  /**
+   * A time sliced mount always mounts at least one output per frame so that it makes progress.
+   */
+  private static boolean isOverBudget(int mountedCount, long deadlineNanos) {
+    return mountedCount > 0 && System.nanoTime() > deadlineNanos;
+  }
+
+  private int addDeferredIndex(int index, int deferredCount) {
+    if (deferredCount == mDeferredIndices.length) {
+      final int[] deferredIndices = new int[Math.max(8, deferredCount * 2)];
+      System.arraycopy(mDeferredIndices, 0, deferredIndices, 0, deferredCount);
+      mDeferredIndices = deferredIndices;
+    }
+
+    mDeferredIndices[deferredCount] = index;
+    return deferredCount + 1;
+  }
+
   private void processVisibilityOutputs(LayoutState layoutState, Rect localVisibleRect) {
     if (localVisibleRect == null) {
       return;
     }
 
-    for (int j = 0, size = layoutState.getVisibilityOutputCount(); j < size; j++) {
-      final VisibilityOutput visibilityOutput = layoutState.getVisibilityOutputAt(j);
+    final int indicesCount = collectVisibilityOutputsToProcess(layoutState, localVisibleRect);
+    final boolean processAll = indicesCount == -1;
+    final int count = processAll ? layoutState.getVisibilityOutputCount() : indicesCount;
+
+    for (int j = 0; j < count; j++) {
+      if (!processAll && j > 0 && mVisibilityIndices[j] == mVisibilityIndices[j - 1]) {
+        // The output overlaps more than one of the strips.
+        continue;
+      }
+
+      final VisibilityOutput visibilityOutput =
+          layoutState.getVisibilityOutputAt(processAll ? j : mVisibilityIndices[j]);
 
       final EventHandler<VisibleEvent> visibleHandler = visibilityOutput.getVisibleEventHandler();
       final EventHandler<FocusedVisibleEvent> focusedHandler =
@@ -314,13 +451,8 @@ class MountState implements TransitionManager.OnAnimationCompleteListener {
 
       VisibilityItem visibilityItem = mVisibilityIdToItemMap.get(visibilityOutputId);
       if (visibilityItem != null) {
-        final String previousGlobalKey = visibilityItem.getGlobalKey();
-        final String currentGlobalKey =
-            visibilityOutput.getComponent() != null
-                ? visibilityOutput.getComponent().getGlobalKey()
-                : null;
         final boolean hasGlobalKeyChanged =
-            previousGlobalKey != null && !previousGlobalKey.equals(currentGlobalKey);
+            visibilityItem.hasGlobalKeyChanged(visibilityOutput.getComponent());
 
         if (!hasGlobalKeyChanged) {
           // If we did a relayout due to e.g. a state update then the handlers will have changed,
@@ -353,12 +485,9 @@ class MountState implements TransitionManager.OnAnimationCompleteListener {
       if (isCurrentlyVisible) {
         // The component is visible now, but used to be outside the viewport.
         if (visibilityItem == null) {
-          final String globalKey =
-              visibilityOutput.getComponent() != null
-                  ? visibilityOutput.getComponent().getGlobalKey()
-                  : null;
           visibilityItem =
-              ComponentsPools.acquireVisibilityItem(globalKey, invisibleHandler, unfocusedHandler);
+              ComponentsPools.acquireVisibilityItem(
+                  visibilityOutput.getComponent(), invisibleHandler, unfocusedHandler);
           mVisibilityIdToItemMap.put(visibilityOutputId, visibilityItem);
 
           if (visibleHandler != null) {
@@ -395,6 +524,83 @@ class MountState implements TransitionManager.OnAnimationCompleteListener {
         }
       }
     }
+
+    mPreviousVisibilityRect.set(localVisibleRect);
+    mHasPreviousVisibilityRect = true;
+  }
+
+  /**
+   * An output can only become visible or invisible, or change how much of it is visible, if it
+   * overlaps the area between the previous and the current visible rect. When the rect only moved
+   * along one axis, that's the two strips between the previous and current edges on that axis, and
+   * the outputs crossing them are found with the indices of the LayoutState instead of looking at
+   * all of them.
+   *
+   * @return the number of indices of the visibility outputs to process, sorted in
+   *     mVisibilityIndices, or -1 if all of them need to be processed.
+   */
+  private int collectVisibilityOutputsToProcess(LayoutState layoutState, Rect localVisibleRect) {
+    if (!mHasPreviousVisibilityRect) {
+      return -1;
+    }
+
+    final Rect previousRect = mPreviousVisibilityRect;
+    final IntervalIndex index;
+    final int previousStart;
+    final int previousEnd;
+    final int start;
+    final int end;
+
+    if (previousRect.left == localVisibleRect.left
+        && previousRect.right == localVisibleRect.right) {
+      index = layoutState.getVisibilityOutputsVerticalIndex();
+      previousStart = previousRect.top;
+      previousEnd = previousRect.bottom;
+      start = localVisibleRect.top;
+      end = localVisibleRect.bottom;
+    } else if (previousRect.top == localVisibleRect.top
+        && previousRect.bottom == localVisibleRect.bottom) {
+      index = layoutState.getVisibilityOutputsHorizontalIndex();
+      previousStart = previousRect.left;
+      previousEnd = previousRect.right;
+      start = localVisibleRect.left;
+      end = localVisibleRect.right;
+    } else {
+      return -1;
+    }
+
+    final int maxCount = index.size() * 2;
+    if (mVisibilityIndices.length < maxCount) {
+      mVisibilityIndices = new int[maxCount];
+    }
+
+    int count = 0;
+    if (previousStart != start) {
+      final int from = Math.min(previousStart, start);
+      final int to = Math.max(previousStart, start);
+      count = index.query(from, to, mVisibilityIndices, count);
+    }
+    if (previousEnd != end) {
+      final int from = Math.min(previousEnd, end);
+      final int to = Math.max(previousEnd, end);
+      count = index.query(from, to, mVisibilityIndices, count);
+    }
+
+    // The visible ratios are checked against the size of the visible rect, so if that changed the
+    // outputs crossing an edge that didn't move need to be processed too.
+    if (previousEnd - previousStart != end - start) {
+      if (previousStart == start) {
+        count = index.query(start, start + 1, mVisibilityIndices, count);
+      }
+      if (previousEnd == end) {
+        count = index.query(end - 1, end, mVisibilityIndices, count);
+      }
+    }
+
+    // Keep dispatching events in the order of the outputs.
+    Arrays.sort(mVisibilityIndices, 0, count);
+
+    return count;
   }
 
   /**
@@ -451,27 +657,72 @@ class MountState implements TransitionManager.OnAnimationCompleteListener {
       return;
     }
 
-    final ArrayList<LayoutOutput> layoutOutputTops = layoutState.getMountableOutputTops();
-    final ArrayList<LayoutOutput> layoutOutputBottoms = layoutState.getMountableOutputBottoms();
-    final int mountableOutputCount = layoutState.getMountableOutputCount();
+    // The outputs are sorted by each edge on the layout thread, so we can binary search them.
+    mPreviousTopsIndex = findFirstOutputWithEdgeAtLeast(
+        layoutState.getMountableOutputTops(), EDGE_TOP, localVisibleRect.bottom);
+    mPreviousBottomsIndex = findFirstOutputWithEdgeAtLeast(
+        layoutState.getMountableOutputBottoms(), EDGE_BOTTOM, localVisibleRect.top + 1);
+    mPreviousLeftsIndex = findFirstOutputWithEdgeAtLeast(
+        layoutState.getMountableOutputLefts(), EDGE_LEFT, localVisibleRect.right);
+    mPreviousRightsIndex = findFirstOutputWithEdgeAtLeast(
+        layoutState.getMountableOutputRights(), EDGE_RIGHT, localVisibleRect.left + 1);
+  }
 
-    mPreviousTopsIndex = layoutState.getMountableOutputCount();
-    for (int i = 0; i < mountableOutputCount; i++) {
-      if (localVisibleRect.bottom <= layoutOutputTops.get(i).getBounds().top) {
-        mPreviousTopsIndex = i;
-        break;
+  /**
+   * @return the index of the first output whose given edge is at least value in a list of outputs
+   * sorted by that edge, or the size of the list if there is none.
+   */
+  private static int findFirstOutputWithEdgeAtLeast(
+      ArrayList<LayoutOutput> sortedOutputs,
+      int edge,
+      int value) {
+    int low = 0;
+    int high = sortedOutputs.size();
+
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (getEdge(sortedOutputs.get(mid).getBounds(), edge) < value) {
+        low = mid + 1;
+      } else {
+        high = mid;
       }
     }
 
-    mPreviousBottomsIndex = layoutState.getMountableOutputCount();
-    for (int i = 0; i < mountableOutputCount; i++) {
-      if (localVisibleRect.top < layoutOutputBottoms.get(i).getBounds().bottom) {
-        mPreviousBottomsIndex = i;
-        break;
-      }
+    return low;
+  }
+
+  private static int getEdge(Rect bounds, int edge) {
+    switch (edge) {
+      case EDGE_TOP:
+        return bounds.top;
+      case EDGE_BOTTOM:
+        return bounds.bottom;
+      case EDGE_LEFT:
+        return bounds.left;
+      case EDGE_RIGHT:
+        return bounds.right;
+      default:
+        throw new IllegalArgumentException("Unknown edge " + edge);
     }
   }
 
+  private void mountLayoutOutputIfNeeded(LayoutOutput layoutOutput, LayoutState layoutState) {
+    final int layoutOutputIndex = layoutState.getLayoutOutputPositionForId(layoutOutput.getId());
+    if (getItemAt(layoutOutputIndex) == null) {
+      mountLayoutOutput(layoutOutputIndex, layoutOutput, layoutState);
+    }
+  }
+
+  private static boolean isHorizontallyVisible(LayoutOutput layoutOutput, Rect localVisibleRect) {
+    final Rect bounds = layoutOutput.getBounds();
+    return bounds.right > localVisibleRect.left && bounds.left < localVisibleRect.right;
+  }
+
+  private static boolean isVerticallyVisible(LayoutOutput layoutOutput, Rect localVisibleRect) {
+    final Rect bounds = layoutOutput.getBounds();
+    return bounds.bottom > localVisibleRect.top && bounds.top < localVisibleRect.bottom;
+  }
+
   private void clearVisibilityItems() {
     for (int i = mVisibilityIdToItemMap.size() - 1; i >= 0; i--) {
       final VisibilityItem visibilityItem = mVisibilityIdToItemMap.valueAt(i);
@@ -493,6 +744,8 @@ class MountState implements TransitionManager.OnAnimationCompleteListener {
       mVisibilityIdToItemMap.removeAt(i);
       ComponentsPools.release(visibilityItem);
     }
+
+    mHasPreviousVisibilityRect = false;
   }
 
   private void registerHost(long id, ComponentHost host) {
@@ -558,7 +811,8 @@ class MountState implements TransitionManager.OnAnimationCompleteListener {
       boolean useUpdateValueFromLayoutOutput,
       ComponentsLogger logger,
       int componentTreeId,
-      int index) {
+      int index,
+      @Nullable MountPlan mountPlan) {
     final Component layoutOutputComponent = layoutOutput.getComponent();
     final Component itemComponent = currentMountItem.getComponent();
 
@@ -569,7 +823,9 @@ class MountState implements TransitionManager.OnAnimationCompleteListener {
         useUpdateValueFromLayoutOutput,
         mIndexToItemMap,
         mLayoutOutputsIds,
-        logger);
+        logger,
+        mountPlan,
+        index);
 
     // 2. Reset all the properties like click handler, content description and tags related to
     // this item if it needs to be updated. the update mount item will re-set the new ones.
@@ -660,7 +916,9 @@ class MountState implements TransitionManager.OnAnimationCompleteListener {
       boolean useUpdateValueFromLayoutOutput,
       LongSparseArray<MountItem> indexToItemMap,
       long[] layoutOutputsIds,
-      ComponentsLogger logger) {
+      ComponentsLogger logger,
+      @Nullable MountPlan mountPlan,
+      int index) {
     @LayoutOutput.UpdateState final int updateState = layoutOutput.getUpdateState();
     final Component currentComponent = currentMountItem.getComponent();
     final ComponentLifecycle currentLifecycle = currentComponent.getLifecycle();
@@ -679,7 +937,7 @@ class MountState implements TransitionManager.OnAnimationCompleteListener {
         // Check for incompatible ReferenceLifecycle.
         if (currentLifecycle instanceof DrawableComponent
             && nextLifecycle instanceof DrawableComponent
-            && currentLifecycle.shouldComponentUpdate(currentComponent, nextComponent)) {
+            && shouldComponentUpdate(currentComponent, nextComponent, mountPlan, index)) {
 
           if (logger != null) {
             LayoutOutputLog logObj = new LayoutOutputLog();
@@ -734,9 +992,19 @@ class MountState implements TransitionManager.OnAnimationCompleteListener {
       return true;
     }
 
-    return currentLifecycle.shouldComponentUpdate(
-        currentComponent,
-        nextComponent);
+    return shouldComponentUpdate(currentComponent, nextComponent, mountPlan, index);
+  }
+
+  private static boolean shouldComponentUpdate(
+      Component currentComponent,
+      Component nextComponent,
+      @Nullable MountPlan mountPlan,
+      int index) {
+    if (mountPlan != null && mountPlan.hasShouldComponentUpdate(index)) {
+      return mountPlan.shouldComponentUpdate(index);
+    }
+
+    return currentComponent.getLifecycle().shouldComponentUpdate(currentComponent, nextComponent);
   }
 
   private static boolean sameSize(LayoutOutput layoutOutput, MountItem item) {
@@ -784,7 +1052,7 @@ class MountState implements TransitionManager.OnAnimationCompleteListener {
    * Prepare the {@link MountState} to mount a new {@link LayoutState}.
    */
   @SuppressWarnings("unchecked")
-  private void prepareMount(LayoutState layoutState) {
+  private void prepareMount(LayoutState layoutState, @Nullable MountPlan mountPlan) {
     final ComponentTree component = mLithoView.getComponentTree();
     final ComponentsLogger logger = component.getContext().getLogger();
     final String logTag = component.getContext().getLogTag();
@@ -794,7 +1062,7 @@ class MountState implements TransitionManager.OnAnimationCompleteListener {
       prepareEvent = logger.newPerformanceEvent(EVENT_PREPARE_MOUNT);
     }
 
-    PrepareMountStats stats = unmountOrMoveOldItems(layoutState);
+    PrepareMountStats stats = unmountOrMoveOldItems(layoutState, mountPlan);
 
     if (logger != null) {
       prepareEvent.addParam(PARAM_LOG_TAG, logTag);
@@ -811,14 +1079,8 @@ class MountState implements TransitionManager.OnAnimationCompleteListener {
       mIndexToItemMap.put(ROOT_HOST_ID, mRootHostMountItem);
     }
 
-    int outputCount = layoutState.getMountableOutputCount();
-    if (mLayoutOutputsIds == null || outputCount != mLayoutOutputsIds.length) {
-      mLayoutOutputsIds = new long[layoutState.getMountableOutputCount()];
-    }
-
-    for (int i = 0; i < outputCount; i++) {
-      mLayoutOutputsIds[i] = layoutState.getMountableOutputAt(i).getId();
-    }
+    // The ids are never modified after the layout calculation, so there is no need to copy them.
+    mLayoutOutputsIds = layoutState.getMountableOutputIds();
 
     if (logger != null) {
       logger.log(prepareEvent);
@@ -853,7 +1115,9 @@ class MountState implements TransitionManager.OnAnimationCompleteListener {
    * The condition where an item changed host doesn't need any special treatment here since we
    * mark them as removed and re-added when calculating the new LayoutOutputs
    */
-  private PrepareMountStats unmountOrMoveOldItems(LayoutState newLayoutState) {
+  private PrepareMountStats unmountOrMoveOldItems(
+      LayoutState newLayoutState,
+      @Nullable MountPlan mountPlan) {
     mPrepareMountStats.reset();
 
     if (mLayoutOutputsIds == null) {
@@ -864,7 +1128,9 @@ class MountState implements TransitionManager.OnAnimationCompleteListener {
     // but only from mIndexToItemMap. If an host changes we're going to unmount it and recursively
     // all its mounted children.
     for (int i = 0; i < mLayoutOutputsIds.length; i++) {
-      final int newPosition = newLayoutState.getLayoutOutputPositionForId(mLayoutOutputsIds[i]);
+      final int newPosition = mountPlan != null
+          ? mountPlan.getNewPosition(i)
+          : newLayoutState.getLayoutOutputPositionForId(mLayoutOutputsIds[i]);
       final MountItem oldItem = getItemAt(i);
 
       // If an item is being unmounted and is doing a disappearing animation, don't actually unmount
@@ -985,6 +1251,11 @@ class MountState implements TransitionManager.OnAnimationCompleteListener {
     final ComponentContext context = getContextForComponent(component);
     final ComponentLifecycle lifecycle = component.getLifecycle();
 
+    if (layoutOutput.hasDisplayListContainer()) {
+      DisplayListPrefetcher.onDisplayListOutputMounted(
+          component.getSimpleName(), layoutOutput.hasValidDisplayList());
+    }
+
     // 2. Generate the component's mount state (this might also be a ComponentHost View).
     Object content = acquireMountContent(component, host);
     if (content == null) {
@@ -1070,7 +1341,12 @@ class MountState implements TransitionManager.OnAnimationCompleteListener {
       return host.recycleHost();
     }
 
-    return ComponentsPools.acquireMountContent(mContext, lifecycle.getTypeId());
+    final Object content = ComponentsPools.acquireMountContent(mContext, lifecycle.getTypeId());
+    if (ComponentsConfiguration.warmMountContentPools) {
+      MountContentPoolWarmer.onMountContentAcquired(mContext, lifecycle, content != null);
+    }
+
+    return content;
   }
 
   private static void applyBoundsToMountContent(
@@ -2305,6 +2581,10 @@ class MountState implements TransitionManager.OnAnimationCompleteListener {
   }
 
   /**
+   * Walks the outputs sorted by each edge from where the previous mount step left off, so that only
+   * the outputs that crossed an edge of the visible rect are touched. Scrolling on both axes at the
+   * same time is supported: an output is only mounted once it is visible on both axes.
+   *
    * @return true if this method did all the work that was necessary and there is no other content
    *     that needs mounting/unmounting in this mount step. If false then a full mount step should
    *     take place.
@@ -2315,11 +2595,6 @@ class MountState implements TransitionManager.OnAnimationCompleteListener {
       return false;
     }
 
-    if (localVisibleRect.left != mPreviousLocalVisibleRect.left ||
-        localVisibleRect.right != mPreviousLocalVisibleRect.right) {
-      return false;
-    }
-
     final ArrayList<LayoutOutput> layoutOutputTops = layoutState.getMountableOutputTops();
     final ArrayList<LayoutOutput> layoutOutputBottoms = layoutState.getMountableOutputBottoms();
     final int count = layoutState.getMountableOutputCount();
@@ -2343,13 +2618,8 @@ class MountState implements TransitionManager.OnAnimationCompleteListener {
               layoutOutputBottoms.get(mPreviousBottomsIndex - 1).getBounds().bottom) {
         mPreviousBottomsIndex--;
         final LayoutOutput layoutOutput = layoutOutputBottoms.get(mPreviousBottomsIndex);
-        final int layoutOutputIndex =
-            layoutState.getLayoutOutputPositionForId(layoutOutput.getId());
-        if (getItemAt(layoutOutputIndex) == null) {
-          mountLayoutOutput(
-              layoutState.getLayoutOutputPositionForId(layoutOutput.getId()),
-              layoutOutput,
-              layoutState);
+        if (isHorizontallyVisible(layoutOutput, localVisibleRect)) {
+          mountLayoutOutputIfNeeded(layoutOutput, layoutState);
         }
       }
     }
@@ -2361,13 +2631,8 @@ class MountState implements TransitionManager.OnAnimationCompleteListener {
       while (mPreviousTopsIndex < count &&
           localVisibleRect.bottom > layoutOutputTops.get(mPreviousTopsIndex).getBounds().top) {
         final LayoutOutput layoutOutput = layoutOutputTops.get(mPreviousTopsIndex);
-        final int layoutOutputIndex =
-            layoutState.getLayoutOutputPositionForId(layoutOutput.getId());
-        if (getItemAt(layoutOutputIndex) == null) {
-          mountLayoutOutput(
-              layoutState.getLayoutOutputPositionForId(layoutOutput.getId()),
-              layoutOutput,
-              layoutState);
+        if (isHorizontallyVisible(layoutOutput, localVisibleRect)) {
+          mountLayoutOutputIfNeeded(layoutOutput, layoutState);
         }
         mPreviousTopsIndex++;
       }
@@ -2384,6 +2649,59 @@ class MountState implements TransitionManager.OnAnimationCompleteListener {
       }
     }
 
+    final ArrayList<LayoutOutput> layoutOutputLefts = layoutState.getMountableOutputLefts();
+    final ArrayList<LayoutOutput> layoutOutputRights = layoutState.getMountableOutputRights();
+
+    if (localVisibleRect.left > 0 || mPreviousLocalVisibleRect.left > 0) {
+      // View is going on/off the left of the screen. Check the rights to see if there is anything
+      // that has moved on/off the left of the screen.
+      while (mPreviousRightsIndex < count &&
+          localVisibleRect.left >=
+              layoutOutputRights.get(mPreviousRightsIndex).getBounds().right) {
+        final long id = layoutOutputRights.get(mPreviousRightsIndex).getId();
+        final int layoutOutputIndex = layoutState.getLayoutOutputPositionForId(id);
+        if (!isAnimationLocked(layoutOutputIndex)) {
+          unmountItem(mContext, layoutOutputIndex, mHostsByMarker);
+        }
+        mPreviousRightsIndex++;
+      }
+
+      while (mPreviousRightsIndex > 0 &&
+          localVisibleRect.left <
+              layoutOutputRights.get(mPreviousRightsIndex - 1).getBounds().right) {
+        mPreviousRightsIndex--;
+        final LayoutOutput layoutOutput = layoutOutputRights.get(mPreviousRightsIndex);
+        if (isVerticallyVisible(layoutOutput, localVisibleRect)) {
+          mountLayoutOutputIfNeeded(layoutOutput, layoutState);
+        }
+      }
+    }
+
+    final int width = mLithoView.getWidth();
+    if (localVisibleRect.right < width || mPreviousLocalVisibleRect.right < width) {
+      // View is going on/off the right of the screen. Check the lefts to see if there is anything
+      // that has changed.
+      while (mPreviousLeftsIndex < count &&
+          localVisibleRect.right > layoutOutputLefts.get(mPreviousLeftsIndex).getBounds().left) {
+        final LayoutOutput layoutOutput = layoutOutputLefts.get(mPreviousLeftsIndex);
+        if (isVerticallyVisible(layoutOutput, localVisibleRect)) {
+          mountLayoutOutputIfNeeded(layoutOutput, layoutState);
+        }
+        mPreviousLeftsIndex++;
+      }
+
+      while (mPreviousLeftsIndex > 0 &&
+          localVisibleRect.right <=
+              layoutOutputLefts.get(mPreviousLeftsIndex - 1).getBounds().left) {
+        mPreviousLeftsIndex--;
+        final long id = layoutOutputLefts.get(mPreviousLeftsIndex).getId();
+        final int layoutOutputIndex = layoutState.getLayoutOutputPositionForId(id);
+        if (!isAnimationLocked(layoutOutputIndex)) {
+          unmountItem(mContext, layoutOutputIndex, mHostsByMarker);
+        }
+      }
+    }
+
     for (int i = 0, size = mCanMountIncrementallyMountItems.size(); i < size; i++) {
       final MountItem mountItem = mCanMountIncrementallyMountItems.valueAt(i);
       final int layoutOutputPosition =
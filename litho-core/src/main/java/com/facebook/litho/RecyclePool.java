@@ -27,32 +27,53 @@ public class RecyclePool<T> {
     mIsSync = sync;
     mName = name;
     mMaxSize = maxSize;
-    mPool = sync ? new Pools.SynchronizedPool<T>(maxSize) : new Pools.SimplePool<T>(maxSize);
+    // When synchronized we already hold the pool's monitor, no need for a SynchronizedPool.
+    mPool = new Pools.SimplePool<T>(maxSize);
+  }
+
+  /**
+   * Constructor for subclasses that provide their own storage by overriding {@link #acquire()},
+   * {@link #release(Object)}, {@link #getCurrentSize()} and {@link #clear()}.
+   */
+  protected RecyclePool(String name, int maxSize) {
+    mIsSync = true;
+    mName = name;
+    mMaxSize = maxSize;
+    mPool = null;
   }
 
   public T acquire() {
-    T item;
     if (mIsSync) {
       synchronized (this) {
-        item = mPool.acquire();
-        mCurrentSize = Math.max(0, mCurrentSize - 1);
+        return acquireInternal();
       }
     } else {
-      item = mPool.acquire();
-      mCurrentSize = Math.max(0, mCurrentSize - 1);
+      return acquireInternal();
     }
-    return item;
   }
 
   public void release(T item) {
     if (mIsSync) {
       synchronized (this) {
-        mPool.release(item);
-        mCurrentSize = Math.min(mMaxSize, mCurrentSize + 1);
+        releaseInternal(item);
       }
     } else {
-      mPool.release(item);
-      mCurrentSize = Math.min(mMaxSize, mCurrentSize + 1);
+      releaseInternal(item);
+    }
+  }
+
+  private T acquireInternal() {
+    final T item = mPool.acquire();
+    if (item != null) {
+      mCurrentSize--;
+    }
+
+    return item;
+  }
+
+  private void releaseInternal(T item) {
+    if (mPool.release(item)) {
+      mCurrentSize++;
     }
   }
 
@@ -69,18 +90,18 @@ public class RecyclePool<T> {
   }
 
   public boolean isFull() {
-    return mCurrentSize >= mMaxSize;
+    return getCurrentSize() >= mMaxSize;
   }
 
   public void clear() {
     if (mIsSync) {
       synchronized (this) {
-        while (acquire() != null) {
+        while (acquireInternal() != null) {
           // no-op.
         }
       }
     } else {
-      while (acquire() != null) {
+      while (acquireInternal() != null) {
         // no-op.
       }
     }
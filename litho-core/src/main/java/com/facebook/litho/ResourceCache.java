@@ -13,6 +13,9 @@ import android.content.res.Configuration;
 import javax.annotation.Nullable;
 
 public abstract class ResourceCache {
+  /** Returned by {@link #getInt(int)} for resources that are not cached. */
+  static final long NOT_FOUND = LongIntHashMap.NOT_FOUND;
+
   private static ResourceCache latest;
 
   static synchronized ResourceCache getLatest(Configuration configuration) {
@@ -32,4 +35,30 @@ public abstract class ResourceCache {
   abstract <T> T get(int key);
 
   abstract void put(int key, Object object);
+
+  /**
+   * @return the int cached for the given resource id, or {@link #NOT_FOUND}.
+   * Subclasses should override this and {@link #putInt(int, int)} to avoid boxing.
+   */
+  long getInt(int key) {
+    final Integer cached = get(key);
+    return cached != null ? cached : NOT_FOUND;
+  }
+
+  void putInt(int key, int value) {
+    put(key, value);
+  }
+
+  /**
+   * @return the float cached for the given resource id, or {@link Float#NaN}. Subclasses should
+   * override this and {@link #putFloat(int, float)} to avoid boxing.
+   */
+  float getFloat(int key) {
+    final Float cached = get(key);
+    return cached != null ? cached : Float.NaN;
+  }
+
+  void putFloat(int key, float value) {
+    put(key, value);
+  }
 }
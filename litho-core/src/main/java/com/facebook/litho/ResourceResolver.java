@@ -87,13 +87,13 @@ public class ResourceResolver {
 
   protected final int resolveIntRes(@IntegerRes int resId) {
     if (resId != 0) {
-      Integer cached = mResourceCache.get(resId);
-      if (cached != null) {
-        return cached;
+      final long cached = mResourceCache.getInt(resId);
+      if (cached != ResourceCache.NOT_FOUND) {
+        return (int) cached;
       }
 
       int result = mResources.getInteger(resId);
-      mResourceCache.put(resId, result);
+      mResourceCache.putInt(resId, result);
 
       return result;
     }
@@ -119,13 +119,13 @@ public class ResourceResolver {
 
   protected final boolean resolveBoolRes(@BoolRes int resId) {
     if (resId != 0) {
-      Boolean cached = mResourceCache.get(resId);
-      if (cached != null) {
-        return cached;
+      final long cached = mResourceCache.getInt(resId);
+      if (cached != ResourceCache.NOT_FOUND) {
+        return cached != 0;
       }
 
       boolean result = mResources.getBoolean(resId);
-      mResourceCache.put(resId, result);
+      mResourceCache.putInt(resId, result ? 1 : 0);
 
       return result;
     }
@@ -135,13 +135,13 @@ public class ResourceResolver {
 
   protected final int resolveColorRes(@ColorRes int resId) {
     if (resId != 0) {
-      Integer cached = mResourceCache.get(resId);
-      if (cached != null) {
-        return cached;
+      final long cached = mResourceCache.getInt(resId);
+      if (cached != ResourceCache.NOT_FOUND) {
+        return (int) cached;
       }
 
       int result = mResources.getColor(resId);
-      mResourceCache.put(resId, result);
+      mResourceCache.putInt(resId, result);
 
       return result;
     }
@@ -151,13 +151,13 @@ public class ResourceResolver {
 
   protected final int resolveDimenSizeRes(@DimenRes int resId) {
     if (resId != 0) {
-      Integer cached = mResourceCache.get(resId);
-      if (cached != null) {
-        return cached;
+      final long cached = mResourceCache.getInt(resId);
+      if (cached != ResourceCache.NOT_FOUND) {
+        return (int) cached;
       }
 
       int result = mResources.getDimensionPixelSize(resId);
-      mResourceCache.put(resId, result);
+      mResourceCache.putInt(resId, result);
 
       return result;
     }
@@ -167,13 +167,13 @@ public class ResourceResolver {
 
   protected final int resolveDimenOffsetRes(@DimenRes int resId) {
     if (resId != 0) {
-      Integer cached = mResourceCache.get(resId);
-      if (cached != null) {
-        return cached;
+      final long cached = mResourceCache.getInt(resId);
+      if (cached != ResourceCache.NOT_FOUND) {
+        return (int) cached;
       }
 
       int result = mResources.getDimensionPixelOffset(resId);
-      mResourceCache.put(resId, result);
+      mResourceCache.putInt(resId, result);
 
       return result;
     }
@@ -183,13 +183,13 @@ public class ResourceResolver {
 
   protected final float resolveFloatRes(@DimenRes int resId) {
     if (resId != 0) {
-      Float cached = mResourceCache.get(resId);
-      if (cached != null) {
+      final float cached = mResourceCache.getFloat(resId);
+      if (!Float.isNaN(cached)) {
         return cached;
       }
 
       float result = mResources.getDimension(resId);
-      mResourceCache.put(resId, result);
+      mResourceCache.putFloat(resId, result);
 
       return result;
     }
@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A thread safe {@link RecyclePool} that never blocks. Every thread first recycles through a small
+ * thread local magazine and only goes to a shared depot when its magazine is empty (on acquire) or
+ * full (on release). The depot is an array of slots updated with compare-and-set, and each thread
+ * starts scanning it at a different offset so that concurrent threads rarely touch the same slots.
+ *
+ * The size reported by {@link #getCurrentSize()} includes the items held in the magazines, so the
+ * pool never holds more than {@link #getMaxSize()} items overall. When a thread dies, the items in
+ * its magazine are moved to the depot by the next thread that starts using the pool, or that finds
+ * the pool full.
+ */
+public class StripedRecyclePool<T> extends RecyclePool<T> {
+
+  private static final int MAX_MAGAZINE_SIZE = 8;
+
+  private final AtomicReferenceArray<T> mDepot;
+  private final AtomicInteger mCurrentSize = new AtomicInteger(0);
+  // Upper bound of the items in the depot, used to avoid scanning it when it is empty.
+  private final AtomicInteger mDepotSize = new AtomicInteger(0);
+  private final int mMagazineSize;
+  // Incremented by clear() so that the magazines of all threads can lazily drop their items.
+  private final AtomicInteger mGeneration = new AtomicInteger(0);
+  // The magazines of all the threads that used this pool, so that the items of the threads that
+  // died can be reclaimed.
+  private final ConcurrentLinkedQueue<Magazine> mMagazines = new ConcurrentLinkedQueue<>();
+
+  private final ThreadLocal<Magazine> mMagazine = new ThreadLocal<Magazine>() {
+    @Override
+    protected Magazine initialValue() {
+      // Threads usually start using the pool when others went away, for example when an idle
+      // thread of a thread pool timed out.
+      reclaimDeadMagazines();
+
+      final Magazine magazine =
+          new Magazine(mMagazineSize, mGeneration.get(), Thread.currentThread());
+      mMagazines.add(magazine);
+      return magazine;
+    }
+  };
+
+  public StripedRecyclePool(String name, int maxSize) {
+    super(name, maxSize);
+    mDepot = new AtomicReferenceArray<>(maxSize);
+    mMagazineSize = Math.min(MAX_MAGAZINE_SIZE, maxSize / 4);
+  }
+
+  @Override
+  public T acquire() {
+    final Magazine magazine = getMagazine();
+    if (magazine.mCount > 0) {
+      final int index = --magazine.mCount;
+      final T item = (T) magazine.mItems[index];
+      magazine.mItems[index] = null;
+      mCurrentSize.decrementAndGet();
+
+      return item;
+    }
+
+    return acquireFromDepot();
+  }
+
+  @Override
+  public void release(T item) {
+    if (mCurrentSize.incrementAndGet() > getMaxSize()) {
+      mCurrentSize.decrementAndGet();
+
+      // Threads that died may still hold some of the items that make the pool full, but even once
+      // those are in the depot there is only room if someone acquired items in the meantime.
+      if (!reclaimDeadMagazines()) {
+        return;
+      }
+
+      if (mCurrentSize.incrementAndGet() > getMaxSize()) {
+        mCurrentSize.decrementAndGet();
+        return;
+      }
+    }
+
+    final Magazine magazine = getMagazine();
+    if (magazine.mCount < mMagazineSize) {
+      magazine.mItems[magazine.mCount++] = item;
+      return;
+    }
+
+    releaseToDepot(item);
+  }
+
+  @Override
+  public int getCurrentSize() {
+    return mCurrentSize.get();
+  }
+
+  /**
+   * Drops all the items in the depot. Items held in the magazines of other threads are dropped the
+   * next time those threads use the pool.
+   */
+  @Override
+  public void clear() {
+    mGeneration.incrementAndGet();
+    // Drops the items of the magazine of this thread right away.
+    getMagazine();
+
+    for (int i = 0, length = mDepot.length(); i < length; i++) {
+      mDepot.set(i, null);
+    }
+
+    mDepotSize.set(0);
+    mCurrentSize.set(0);
+  }
+
+  private Magazine getMagazine() {
+    final Magazine magazine = mMagazine.get();
+    final int generation = mGeneration.get();
+
+    if (magazine.mGeneration != generation) {
+      // The pool was cleared since this thread last used it. The items are not counted anymore.
+      for (int i = 0; i < magazine.mCount; i++) {
+        magazine.mItems[i] = null;
+      }
+      magazine.mCount = 0;
+      magazine.mGeneration = generation;
+    }
+
+    return magazine;
+  }
+
+  /**
+   * Moves the items held by the magazines of the threads that died to the depot, where other
+   * threads can acquire them.
+   *
+   * @return whether any magazine was reclaimed.
+   */
+  private boolean reclaimDeadMagazines() {
+    boolean reclaimed = false;
+
+    for (Magazine magazine : mMagazines) {
+      final Thread owner = magazine.mOwner.get();
+      // Seeing that the thread is not alive anymore also makes its last writes to the magazine
+      // visible. Only the thread that removes the magazine reclaims it.
+      if ((owner != null && owner.isAlive()) || !mMagazines.remove(magazine)) {
+        continue;
+      }
+
+      if (magazine.mGeneration == mGeneration.get()) {
+        for (int i = 0; i < magazine.mCount; i++) {
+          releaseToDepot((T) magazine.mItems[i]);
+          magazine.mItems[i] = null;
+        }
+      }
+      magazine.mCount = 0;
+      reclaimed = true;
+    }
+
+    return reclaimed;
+  }
+
+  private T acquireFromDepot() {
+    if (mDepotSize.get() <= 0) {
+      return null;
+    }
+
+    final int length = mDepot.length();
+    final int start = getStripeStart(length);
+
+    for (int i = 0; i < length; i++) {
+      final int index = (start + i) % length;
+      final T item = mDepot.get(index);
+
+      if (item != null && mDepot.compareAndSet(index, item, null)) {
+        mDepotSize.decrementAndGet();
+        mCurrentSize.decrementAndGet();
+        return item;
+      }
+    }
+
+    return null;
+  }
+
+  private void releaseToDepot(T item) {
+    final int length = mDepot.length();
+    final int start = getStripeStart(length);
+    mDepotSize.incrementAndGet();
+
+    for (int i = 0; i < length; i++) {
+      final int index = (start + i) % length;
+
+      if (mDepot.get(index) == null && mDepot.compareAndSet(index, null, item)) {
+        return;
+      }
+    }
+
+    // Only reachable if a concurrent clear() raced with this release.
+    mDepotSize.decrementAndGet();
+    mCurrentSize.decrementAndGet();
+  }
+
+  private static int getStripeStart(int length) {
+    if (length == 0) {
+      return 0;
+    }
+
+    final long threadId = Thread.currentThread().getId();
+    // Spread consecutive thread ids over the whole depot.
+    return (int) (((threadId * 0x9E3779B9L) >>> 16) % length);
+  }
+
+  private static class Magazine {
+    private final Object[] mItems;
+    // Weak, so that the magazine doesn't keep a thread that died alive until it is reclaimed.
+    private final WeakReference<Thread> mOwner;
+    private int mCount;
+    private int mGeneration;
+
+    private Magazine(int size, int generation, Thread owner) {
+      mItems = new Object[size];
+      mGeneration = generation;
+      mOwner = new WeakReference<>(owner);
+    }
+  }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho;
+
+import android.os.Process;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.concurrent.GuardedBy;
+
+/**
+ * A {@link LayoutHandler} that runs layout computations on a bounded pool of threads shared between
+ * all the handlers that use the same {@link LayoutThreadPool}. Runnables posted to the same
+ * handler are still executed one at a time and in the order they were posted, so the ordering
+ * guarantees a {@link ComponentTree} relies on are kept, while layouts of different trees can run
+ * in parallel.
+ */
+public class ThreadPoolLayoutHandler implements LayoutHandler {
+
+  public static final int DEFAULT_PRIORITY = 0;
+
+  private final LayoutThreadPool mThreadPool;
+  private final int mPriority;
+
+  @GuardedBy("this")
+  private final ArrayDeque<Runnable> mPendingRunnables = new ArrayDeque<>();
+
+  @GuardedBy("this")
+  private boolean mIsScheduled;
+
+  private final Runnable mDrainRunnable = new Runnable() {
+    @Override
+    public void run() {
+      drain();
+    }
+  };
+
+  public ThreadPoolLayoutHandler(LayoutThreadPool threadPool) {
+    this(threadPool, DEFAULT_PRIORITY);
+  }
+
+  /**
+   * @param priority the priority of the layouts posted to this handler relative to the other
+   * handlers sharing the same pool. Higher values are scheduled first when all the threads of the
+   * pool are busy.
+   */
+  public ThreadPoolLayoutHandler(LayoutThreadPool threadPool, int priority) {
+    mThreadPool = threadPool;
+    mPriority = priority;
+  }
+
+  @Override
+  public boolean post(Runnable runnable) {
+    synchronized (this) {
+      mPendingRunnables.addLast(runnable);
+
+      if (mIsScheduled) {
+        return true;
+      }
+
+      mIsScheduled = true;
+    }
+
+    mThreadPool.schedule(mDrainRunnable, mPriority);
+    return true;
+  }
+
+  @Override
+  public synchronized void removeCallbacks(Runnable runnable) {
+    final Iterator<Runnable> iterator = mPendingRunnables.iterator();
+    while (iterator.hasNext()) {
+      if (iterator.next() == runnable) {
+        iterator.remove();
+      }
+    }
+  }
+
+  @Override
+  public synchronized void removeCallbacksAndMessages(Object token) {
+    // Runnables are never posted with a token, so only a null token (which means "everything"
+    // for a Handler) has any effect.
+    if (token == null) {
+      mPendingRunnables.clear();
+    }
+  }
+
+  synchronized int getPendingCount() {
+    return mPendingRunnables.size();
+  }
+
+  private void drain() {
+    final Runnable runnable;
+
+    synchronized (this) {
+      runnable = mPendingRunnables.pollFirst();
+      if (runnable == null) {
+        mIsScheduled = false;
+        return;
+      }
+    }
+
+    try {
+      runnable.run();
+    } finally {
+      final boolean hasMore;
+      synchronized (this) {
+        hasMore = !mPendingRunnables.isEmpty();
+        mIsScheduled = hasMore;
+      }
+
+      // Yield the thread back to the pool after every runnable so that a single busy tree can't
+      // starve the others.
+      if (hasMore) {
+        mThreadPool.schedule(mDrainRunnable, mPriority);
+      }
+    }
+  }
+
+  /**
+   * A bounded pool of background threads that can be shared by multiple
+   * {@link ThreadPoolLayoutHandler}s. Pending work is ordered by the priority of the handler that
+   * posted it and then by submission order.
+   */
+  public static class LayoutThreadPool {
+
+    private static final String THREAD_NAME_PREFIX = "ComponentLayoutThread-";
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private final ThreadPoolExecutor mExecutor;
+    private final AtomicLong mSequenceGenerator = new AtomicLong(0);
+
+    public LayoutThreadPool(int threadCount, final int threadPriority) {
+      if (threadCount < 1) {
+        throw new IllegalArgumentException("A layout thread pool needs at least one thread");
+      }
+
+      final ThreadFactory threadFactory = new ThreadFactory() {
+        private final AtomicInteger mThreadCount = new AtomicInteger(0);
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+          return new Thread(
+              new Runnable() {
+                @Override
+                public void run() {
+                  Process.setThreadPriority(threadPriority);
+                  runnable.run();
+                }
+              },
+              THREAD_NAME_PREFIX + mThreadCount.getAndIncrement());
+        }
+      };
+
+      mExecutor =
+          new ThreadPoolExecutor(
+              threadCount,
+              threadCount,
+              KEEP_ALIVE_SECONDS,
+              TimeUnit.SECONDS,
+              new PriorityBlockingQueue<Runnable>(),
+              threadFactory);
+      mExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    public int getThreadCount() {
+      return mExecutor.getMaximumPoolSize();
+    }
+
+    /**
+     * Stops the threads of this pool once the layouts that were already scheduled have run. The
+     * handlers using this pool must not be posted to afterwards.
+     */
+    public void shutdown() {
+      mExecutor.shutdown();
+    }
+
+    public boolean isShutdown() {
+      return mExecutor.isShutdown();
+    }
+
+    void schedule(Runnable runnable, int priority) {
+      mExecutor.execute(
+          new PrioritizedRunnable(runnable, priority, mSequenceGenerator.getAndIncrement()));
+    }
+  }
+
+  private static class PrioritizedRunnable implements Runnable, Comparable<PrioritizedRunnable> {
+    private final Runnable mRunnable;
+    private final int mPriority;
+    private final long mSequence;
+
+    private PrioritizedRunnable(Runnable runnable, int priority, long sequence) {
+      mRunnable = runnable;
+      mPriority = priority;
+      mSequence = sequence;
+    }
+
+    @Override
+    public void run() {
+      mRunnable.run();
+    }
+
+    @Override
+    public int compareTo(PrioritizedRunnable other) {
+      if (mPriority != other.mPriority) {
+        return mPriority > other.mPriority ? -1 : 1;
+      }
+
+      return mSequence < other.mSequence ? -1 : (mSequence == other.mSequence ? 0 : 1);
+    }
+  }
+}
@@ -10,6 +10,7 @@
 package com.facebook.litho;
 
 import android.graphics.Rect;
+import android.support.annotation.Nullable;
 
 /**
  * Holds information about a VisibilityOutput (that is, about a component for which a visibility
@@ -24,7 +25,8 @@ class VisibilityItem {
   private static final int FLAG_BOTTOM_EDGE_VISIBLE = 1 << 4;
   private static final int FLAG_FOCUSED_RANGE = 1 << 5;
 
-  private String mGlobalKey;
+  private long mGlobalKeyHash;
+  private boolean mHasGlobalKey;
   private int mFlags;
   // The invisible event and unfocused event handlers are required to make it possible to dispatch
   // the corresponding event when unbind is called or when the MountState is reset.
@@ -37,12 +39,23 @@ class VisibilityItem {
     mUnfocusedHandler = null;
   }
 
-  String getGlobalKey() {
-    return mGlobalKey;
+  /**
+   * Remembers the global key of the component, by its hash so that comparing it doesn't need the
+   * String.
+   */
+  void setGlobalKey(@Nullable Component<?> component) {
+    mHasGlobalKey = component != null && component.hasGlobalKey();
+    mGlobalKeyHash = mHasGlobalKey ? component.getGlobalKeyHash() : 0;
   }
 
-  void setGlobalKey(String globalKey) {
-    mGlobalKey = globalKey;
+  /**
+   * Returns true if this item had a global key and the given component doesn't have the same one.
+   */
+  boolean hasGlobalKeyChanged(@Nullable Component<?> component) {
+    return mHasGlobalKey
+        && (component == null
+            || !component.hasGlobalKey()
+            || component.getGlobalKeyHash() != mGlobalKeyHash);
   }
 
   /**
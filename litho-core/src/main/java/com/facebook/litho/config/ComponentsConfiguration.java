@@ -79,4 +79,63 @@ public class ComponentsConfiguration {
    * attributes onto the {@link com.facebook.litho.Component} itself is performant.
    */
   public static boolean storeLayoutAttributesInSeparateObject = false;
+
+  /**
+   * Whether {@link com.facebook.litho.ComponentTree}s that weren't given a layout handler should
+   * compute their async layouts on a shared pool of {@link #layoutThreadPoolSize} threads instead
+   * of the single default layout thread.
+   */
+  public static boolean useSharedLayoutThreadPool = false;
+
+  /**
+   * Number of threads of the shared layout thread pool used when
+   * {@link #useSharedLayoutThreadPool} is enabled.
+   */
+  public static int layoutThreadPoolSize =
+      Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+
+  /**
+   * Whether the pools of the objects allocated during layout calculation (nodes, node infos and
+   * layout outputs) should use a lock free {@link com.facebook.litho.StripedRecyclePool}. Needs to
+   * be set before {@link com.facebook.litho.ComponentsPools} is first accessed.
+   */
+  public static boolean useStripedLayoutPools = false;
+
+  /**
+   * Whether the peak number of mount contents used by every component type should be recorded and
+   * used to fill the mount content pools of every new Activity in the background.
+   */
+  public static boolean warmMountContentPools = false;
+
+  /**
+   * The maximum number of mount contents created in the background for a new Activity.
+   */
+  public static int mountContentPoolWarmerBudget = 100;
+
+  /**
+   * Whether all the async state updates of a ComponentTree made within the same frame should be
+   * applied with a single layout calculation.
+   */
+  public static boolean batchStateUpdatesPerFrame = false;
+
+  /**
+   * How long a time sliced mount may spend mounting new content in a single frame, see
+   * {@link com.facebook.litho.ComponentTree.Builder#timeSlicedMount(boolean)}.
+   */
+  public static long timeSlicedMountFrameBudgetMs = 8;
+
+  /**
+   * Whether the text layouts of Text components should be shared through a process wide cache.
+   */
+  public static boolean useTextLayoutCache = false;
+
+  /**
+   * The maximum number of text layouts held by the text layout cache.
+   */
+  public static int textLayoutCacheSize = 500;
+
+  /**
+   * The number of background threads used to warm the glyphs of text layouts.
+   */
+  public static int glyphWarmerThreadCount = 1;
 }
@@ -13,34 +13,61 @@ import static android.os.Build.VERSION.SDK_INT;
 import static android.os.Build.VERSION_CODES.HONEYCOMB;
 
 import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
 import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
 import android.support.v4.content.res.ResourcesCompat;
 import android.support.v4.util.LruCache;
 import android.support.v4.util.Pools;
 import android.util.StateSet;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * A cache that holds Drawables retreived from Android {@link android.content.res.Resources} for
- * each resId this class keeps a {@link android.support.v4.util.Pools.SynchronizedPool} of
- * DRAWABLES_POOL_MAX_ITEMS. The cache has a maximum capacity of DRAWABLES_MAX_ENTRIES. When the
- * cache is full it starts clearing memory deleting the less recently used pool of resources
+ * each resId and theme this class keeps a
+ * {@link android.support.v4.util.Pools.SynchronizedPool} of DRAWABLES_POOL_MAX_ITEMS.
+ *
+ * The pools are spread over DRAWABLES_SHARD_COUNT independent LRU caches, so that layout threads
+ * looking up different resources don't contend on the same lock. Each shard holds at most its
+ * share of DRAWABLES_MAX_BYTES, where every pool is weighted by the estimated memory of its
+ * drawable: the bitmap for a {@link BitmapDrawable}, which all the drawables of a pool share
+ * through their {@link Drawable.ConstantState}, plus a fixed overhead per pooled instance. When a
+ * shard is full it starts clearing memory deleting the less recently used pools of resources.
  */
 class DrawableResourcesCache {
 
-  private static final int DRAWABLES_MAX_ENTRIES = 200;
+  private static final int DRAWABLES_SHARD_COUNT = 4;
+  private static final int DRAWABLES_MAX_BYTES = 4 * 1024 * 1024;
   private static final int DRAWABLES_POOL_MAX_ITEMS = 10;
+  private static final int DRAWABLE_INSTANCE_BYTES = 256;
+  private static final String REFILL_THREAD_NAME = "DrawableResourcesCache";
+
+  private static Handler sRefillHandler;
 
-  private final LruCache<Integer, SimplePoolWithCount<Drawable>> mDrawableCache;
+  private final LruCache<Key, DrawablesPool>[] mShards;
 
   DrawableResourcesCache() {
-    mDrawableCache = new LruCache<Integer, SimplePoolWithCount<Drawable>>(DRAWABLES_MAX_ENTRIES) {
-      @Override
-      protected int sizeOf(Integer key, SimplePoolWithCount<Drawable> value) {
-        return value.getPoolSize();
-      }
-    };
+    this(DRAWABLES_MAX_BYTES);
+  }
+
+  @VisibleForTesting
+  DrawableResourcesCache(int maxBytes) {
+    mShards = new LruCache[DRAWABLES_SHARD_COUNT];
+
+    for (int i = 0; i < DRAWABLES_SHARD_COUNT; i++) {
+      mShards[i] = new LruCache<Key, DrawablesPool>(maxBytes / DRAWABLES_SHARD_COUNT) {
+        @Override
+        protected int sizeOf(Key key, DrawablesPool value) {
+          return value.mEstimatedBytes;
+        }
+      };
+    }
   }
 
   /**
@@ -54,35 +81,51 @@ class DrawableResourcesCache {
 
   @Nullable
   public Drawable get(int resId, Resources resources, @Nullable Resources.Theme theme) {
-    SimplePoolWithCount<Drawable> drawablesPool = mDrawableCache.get(resId);
+    final Key key = new Key(resId, theme);
+    DrawablesPool drawablesPool = getShard(key).get(key);
 
-    if (drawablesPool == null) {
-      drawablesPool = new SimplePoolWithCount<>(DRAWABLES_POOL_MAX_ITEMS);
-      mDrawableCache.put(resId, drawablesPool);
-    }
+    Drawable drawable = null;
+    if (drawablesPool != null) {
+      drawable = drawablesPool.acquire();
 
-    Drawable drawable = drawablesPool.acquire();
+      if (drawable == null) {
+        // The refill didn't happen yet, this is still cheaper than going through Resources.
+        drawable = drawablesPool.newDrawable();
+      }
+    }
 
     if (drawable == null) {
       drawable = ResourcesCompat.getDrawable(resources, resId, theme);
     }
 
+    if (drawable == null) {
+      return null;
+    }
+
+    if (drawablesPool == null) {
+      drawablesPool = getOrCreatePool(key, drawable);
+    }
+
     // We never want this pool to remain empty otherwise we would risk to resolve a new drawable
-    // when get is called again. So if the pool is about to drain we just put a new Drawable in it
-    // to keep it warm.
-    if (drawable != null && drawablesPool.getPoolSize() == 0) {
-      drawablesPool.release(drawable.getConstantState().newDrawable());
+    // when get is called again. So if the pool is about to drain we put a new Drawable in it from
+    // a background thread to keep it warm.
+    if (drawablesPool.getPoolSize() == 0) {
+      drawablesPool.refillAsync(drawable.getConstantState());
     }
 
     return drawable;
   }
 
+  /**
+   * @deprecated use {@link #release(Drawable, int, Resources.Theme)}
+   */
+  @Deprecated
   public void release(Drawable drawable, int resId) {
-    SimplePoolWithCount<Drawable> drawablesPool = mDrawableCache.get(resId);
-    if (drawablesPool == null) {
-      drawablesPool = new SimplePoolWithCount<>(DRAWABLES_POOL_MAX_ITEMS);
-      mDrawableCache.put(resId, drawablesPool);
-    }
+    release(drawable, resId, null);
+  }
+
+  public void release(Drawable drawable, int resId, @Nullable Resources.Theme theme) {
+    final DrawablesPool drawablesPool = getOrCreatePool(new Key(resId, theme), drawable);
 
     // Reset a stateful drawable, and its animations, before being released.
     if (drawable.isStateful()) {
@@ -96,6 +139,125 @@ class DrawableResourcesCache {
     drawablesPool.release(drawable);
   }
 
+  private LruCache<Key, DrawablesPool> getShard(Key key) {
+    return mShards[key.hashCode() & (DRAWABLES_SHARD_COUNT - 1)];
+  }
+
+  private DrawablesPool getOrCreatePool(Key key, Drawable drawable) {
+    final LruCache<Key, DrawablesPool> shard = getShard(key);
+
+    // LruCache locks on itself, so this makes the lookup and the insertion atomic.
+    synchronized (shard) {
+      DrawablesPool drawablesPool = shard.get(key);
+      if (drawablesPool == null) {
+        drawablesPool = new DrawablesPool(DRAWABLES_POOL_MAX_ITEMS, estimateBytes(drawable));
+        shard.put(key, drawablesPool);
+      }
+
+      return drawablesPool;
+    }
+  }
+
+  /**
+   * @return the memory held by a pool of instances of the given drawable.
+   */
+  @VisibleForTesting
+  static int estimateBytes(Drawable drawable) {
+    int bytes = DRAWABLES_POOL_MAX_ITEMS * DRAWABLE_INSTANCE_BYTES;
+
+    if (drawable instanceof BitmapDrawable) {
+      final Bitmap bitmap = ((BitmapDrawable) drawable).getBitmap();
+      if (bitmap != null) {
+        bytes += bitmap.getRowBytes() * bitmap.getHeight();
+      }
+    }
+
+    return bytes;
+  }
+
+  private static synchronized Handler getRefillHandler() {
+    if (sRefillHandler == null) {
+      final HandlerThread thread =
+          new HandlerThread(REFILL_THREAD_NAME, Process.THREAD_PRIORITY_BACKGROUND);
+      thread.start();
+      sRefillHandler = new Handler(thread.getLooper());
+    }
+
+    return sRefillHandler;
+  }
+
+  private static class Key {
+    private final int mResId;
+    private final @Nullable Resources.Theme mTheme;
+
+    private Key(int resId, @Nullable Resources.Theme theme) {
+      mResId = resId;
+      mTheme = theme;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * mResId + (mTheme != null ? mTheme.hashCode() : 0);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+
+      if (!(o instanceof Key)) {
+        return false;
+      }
+
+      final Key other = (Key) o;
+      return mResId == other.mResId && mTheme == other.mTheme;
+    }
+  }
+
+  private static class DrawablesPool extends SimplePoolWithCount<Drawable> {
+
+    private final int mEstimatedBytes;
+    private final AtomicBoolean mIsRefillScheduled = new AtomicBoolean(false);
+    private volatile @Nullable Drawable.ConstantState mConstantState;
+
+    private DrawablesPool(int maxPoolSize, int estimatedBytes) {
+      super(maxPoolSize);
+      mEstimatedBytes = estimatedBytes;
+    }
+
+    @Nullable
+    Drawable newDrawable() {
+      final Drawable.ConstantState constantState = mConstantState;
+      return constantState != null ? constantState.newDrawable() : null;
+    }
+
+    void refillAsync(@Nullable Drawable.ConstantState constantState) {
+      if (constantState == null) {
+        return;
+      }
+
+      mConstantState = constantState;
+
+      if (!mIsRefillScheduled.compareAndSet(false, true)) {
+        return;
+      }
+
+      getRefillHandler()
+          .post(
+              new Runnable() {
+                @Override
+                public void run() {
+                  mIsRefillScheduled.set(false);
+
+                  if (getPoolSize() == 0) {
+                    release(newDrawable());
+                  }
+                }
+              });
+    }
+  }
+
   private static class SimplePoolWithCount<T> extends Pools.SynchronizedPool<T> {
 
     private final AtomicInteger mPoolSize;
@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho;
+
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Measures the memory allocated by the current thread, for tests asserting that a code path
+ * doesn't allocate. Tests using it are skipped on JVMs that can't measure allocations.
+ */
+final class AllocationTestHelper {
+
+  private AllocationTestHelper() {
+  }
+
+  /**
+   * @return the number of bytes the current thread allocated so far. Call it before and after the
+   * code under test, after running that code once to warm it up.
+   */
+  static long getAllocatedBytes() {
+    final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    assumeTrue(threadMXBean instanceof com.sun.management.ThreadMXBean);
+    final com.sun.management.ThreadMXBean allocationBean =
+        (com.sun.management.ThreadMXBean) threadMXBean;
+    assumeTrue(allocationBean.isThreadAllocatedMemoryEnabled());
+
+    return allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+}
@@ -14,6 +14,7 @@ import static com.facebook.litho.FrameworkLogEvents.PARAM_MESSAGE;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -242,6 +243,152 @@ public class ComponentGlobalKeyTest {
         layoutSpecId + "" + textSpecId + "0", getComponentAt(lithoView, 3).getGlobalKey());
   }
 
+  @Test
+  public void testGlobalKeyHash() {
+    final Component component =
+        new InlineLayoutSpec() {
+          @Override
+          @OnCreateLayout
+          protected ComponentLayout onCreateLayout(ComponentContext c) {
+            return Column.create(c)
+                .child(Text.create(mContext).text(""))
+                .child(Text.create(mContext).text(""))
+                .build();
+          }
+        };
+
+    final ComponentTree componentTree =
+        ComponentTree.create(mContext, component)
+            .incrementalMount(false)
+            .layoutDiffing(false)
+            .build();
+    final LithoView lithoView = getLithoView(componentTree);
+
+    final Component first = getComponentAt(lithoView, 0);
+    final Component second = getComponentAt(lithoView, 1);
+
+    Assert.assertEquals(
+        KeyHandler.hashKey(KeyHandler.EMPTY_KEY_HASH, first.getGlobalKey()),
+        first.getGlobalKeyHash());
+    Assert.assertEquals(
+        KeyHandler.hashKey(KeyHandler.EMPTY_KEY_HASH, second.getGlobalKey()),
+        second.getGlobalKeyHash());
+    Assert.assertNotEquals(first.getGlobalKeyHash(), second.getGlobalKeyHash());
+  }
+
+  @Test
+  public void testHashKeyIsIncremental() {
+    final long parentHash = KeyHandler.hashKey(KeyHandler.EMPTY_KEY_HASH, "parent");
+
+    Assert.assertEquals(
+        KeyHandler.hashKey(KeyHandler.EMPTY_KEY_HASH, "parentchild"),
+        KeyHandler.hashKey(parentHash, "child"));
+    Assert.assertEquals(
+        KeyHandler.EMPTY_KEY_HASH, KeyHandler.hashKey(KeyHandler.EMPTY_KEY_HASH, ""));
+  }
+
+  @Test
+  public void testKeyHandlerHasKey() {
+    final ComponentContext c =
+        new ComponentContext(
+            RuntimeEnvironment.application, new StateHandler(), new KeyHandler(null));
+    final Component parent = TestDrawableComponent.create(c).key("parent").build();
+    final Component child = TestDrawableComponent.create(c).key("child").build();
+
+    parent.applyStateUpdates(c);
+    child.applyStateUpdates(parent.getScopedContext());
+
+    final KeyHandler keyHandler = c.getKeyHandler();
+    Assert.assertTrue(keyHandler.hasKey("parent"));
+    Assert.assertTrue(keyHandler.hasKey("parentchild"));
+    Assert.assertFalse(keyHandler.hasKey("child"));
+    Assert.assertTrue(
+        keyHandler.hasKeyHash(KeyHandler.hashKey(KeyHandler.EMPTY_KEY_HASH, "parentchild")));
+    Assert.assertFalse(keyHandler.hasKeyHash(KeyHandler.hashKey(KeyHandler.EMPTY_KEY_HASH, "c")));
+  }
+
+  @Test
+  public void testKeyHandlerKeysWithSameHash() {
+    final KeyHandler keyHandler = new KeyHandler(mComponentsLogger);
+    final Component first = TestDrawableComponent.create(mContext).build();
+    final Component second = TestDrawableComponent.create(mContext).build();
+    final Component secondDuplicate = TestDrawableComponent.create(mContext).build();
+    first.setGlobalKey("first", 42L);
+    second.setGlobalKey("second", 42L);
+    secondDuplicate.setGlobalKey("second", 42L);
+
+    keyHandler.registerKey(first);
+    keyHandler.registerKey(second);
+
+    Assert.assertTrue(keyHandler.hasKeyHash(42L));
+    Assert.assertTrue(keyHandler.hasKey("first", 42L));
+    Assert.assertTrue(keyHandler.hasKey("second", 42L));
+    Assert.assertFalse(keyHandler.hasKey("third", 42L));
+    verify(mComponentsLogger, never()).log(any(LogEvent.class));
+
+    keyHandler.registerKey(secondDuplicate);
+
+    verify(mComponentsLogger).log(any(LogEvent.class));
+  }
+
+  @Test
+  public void testGlobalKeyDoesntChangeWhenParentIsKeyedAgain() {
+    final ComponentContext c =
+        new ComponentContext(
+            RuntimeEnvironment.application, new StateHandler(), new KeyHandler(null));
+    final Component parent = TestDrawableComponent.create(c).key("parent").build();
+    final Component child = TestDrawableComponent.create(c).key("child").build();
+
+    parent.applyStateUpdates(c);
+    child.applyStateUpdates(parent.getScopedContext());
+
+    parent.setKey("other");
+    parent.applyStateUpdates(
+        new ComponentContext(
+            RuntimeEnvironment.application, new StateHandler(), new KeyHandler(null)));
+
+    Assert.assertEquals("other", parent.getGlobalKey());
+    Assert.assertEquals("parentchild", child.getGlobalKey());
+    Assert.assertEquals(
+        KeyHandler.hashKey(KeyHandler.EMPTY_KEY_HASH, "parentchild"), child.getGlobalKeyHash());
+  }
+
+  /**
+   * Assigns the keys of a 500 deep tree. Building them as Strings would allocate O(depth) chars
+   * for every component, several MB in total.
+   */
+  @Test
+  public void testDeepTreeKeysAllocation() {
+    final int depth = 500;
+    final ComponentContext c =
+        new ComponentContext(
+            RuntimeEnvironment.application, new StateHandler(), new KeyHandler(null));
+    final Component[] components = new Component[depth];
+    for (int i = 0; i < depth; i++) {
+      components[i] = TestDrawableComponent.create(c).build();
+    }
+
+    final long allocatedBefore = AllocationTestHelper.getAllocatedBytes();
+
+    ComponentContext scopedContext = c;
+    for (int i = 0; i < depth; i++) {
+      components[i].applyStateUpdates(scopedContext);
+      scopedContext = components[i].getScopedContext();
+    }
+
+    final long allocated = AllocationTestHelper.getAllocatedBytes() - allocatedBefore;
+
+    final String key = components[0].getKey();
+    final StringBuilder expectedGlobalKey = new StringBuilder();
+    for (int i = 0; i < depth; i++) {
+      expectedGlobalKey.append(key);
+    }
+
+    Assert.assertEquals(expectedGlobalKey.toString(), components[depth - 1].getGlobalKey());
+    // What's left is mostly the scoped ComponentContext of every component.
+    Assert.assertTrue("Allocated " + allocated + " bytes", allocated < depth * 1024);
+  }
+
   private static Component getComponentAt(LithoView lithoView, int index) {
     return lithoView.getMountItemAt(index).getComponent();
   }
@@ -20,6 +20,8 @@ import static org.junit.Assert.fail;
 import static org.powermock.reflect.Whitebox.getInternalState;
 
 import android.os.Looper;
+import android.os.Process;
+import com.facebook.litho.config.ComponentsConfiguration;
 import com.facebook.litho.testing.TestDrawableComponent;
 import com.facebook.litho.testing.TestLayoutComponent;
 import com.facebook.litho.testing.testrunner.ComponentsTestRunner;
@@ -167,6 +169,59 @@ public class ComponentTreeTest {
     postSizeSpecChecks(componentTree, "mBackgroundLayoutState");
   }
 
+  @Test
+  public void testEstimatedRetainedSize() {
+    ComponentTree componentTree =
+        ComponentTree.create(mContext, mComponent)
+            .incrementalMount(false)
+            .layoutDiffing(true)
+            .build();
+
+    assertThat(componentTree.getEstimatedRetainedSize()).isEqualTo(0);
+
+    componentTree.setSizeSpec(mWidthSpec, mHeightSpec);
+    final LayoutState layoutState =
+        (LayoutState) Whitebox.getInternalState(componentTree, "mBackgroundLayoutState");
+
+    assertThat(layoutState.getEstimatedRetainedSize()).isGreaterThan(0);
+    assertThat(componentTree.getEstimatedRetainedSize())
+        .isEqualTo(layoutState.getEstimatedRetainedSize());
+
+    componentTree.release();
+
+    assertThat(componentTree.getEstimatedRetainedSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void testNewLayoutStateReadyListener() {
+    ComponentTree componentTree =
+        ComponentTree.create(mContext, mComponent)
+            .incrementalMount(false)
+            .build();
+    final int[] readyCount = new int[1];
+    componentTree.setNewLayoutStateReadyListener(
+        new ComponentTree.NewLayoutStateReadyListener() {
+          @Override
+          public void onNewLayoutStateReady(ComponentTree componentTree) {
+            readyCount[0]++;
+          }
+        });
+
+    componentTree.setSizeSpec(mWidthSpec, mHeightSpec);
+    assertThat(readyCount[0]).isEqualTo(1);
+
+    // A compatible layout is already there.
+    componentTree.setSizeSpec(mWidthSpec, mHeightSpec);
+    assertThat(readyCount[0]).isEqualTo(1);
+
+    componentTree.setSizeSpecAsync(mWidthSpec2, mHeightSpec2);
+    mLayoutThreadShadowLooper.runToEndOfTasks();
+    assertThat(readyCount[0]).isEqualTo(2);
+
+    componentTree.release();
+    assertThat(getInternalState(componentTree, "mNewLayoutStateReadyListener")).isNull();
+  }
+
   @Test
   public void testSetSizeSpecAsync() {
     ComponentTree componentTree =
@@ -458,6 +513,29 @@ public class ComponentTreeTest {
     Assert.assertNull(getComponentTree(lithoView1));
   }
 
+  @Test
+  public void testSharedLayoutThreadPoolCanBeReplaced() {
+    final ThreadPoolLayoutHandler.LayoutThreadPool threadPool =
+        new ThreadPoolLayoutHandler.LayoutThreadPool(1, Process.THREAD_PRIORITY_BACKGROUND);
+    final boolean useSharedLayoutThreadPool = ComponentsConfiguration.useSharedLayoutThreadPool;
+    final ThreadPoolLayoutHandler.LayoutThreadPool previous =
+        ComponentTree.setDefaultLayoutThreadPool(threadPool);
+    ComponentsConfiguration.useSharedLayoutThreadPool = true;
+
+    try {
+      final ComponentTree componentTree = create(mContext, mComponent).build();
+      final LayoutHandler layoutHandler =
+          Whitebox.getInternalState(componentTree, "mLayoutThreadHandler");
+
+      assertThat(layoutHandler).isInstanceOf(ThreadPoolLayoutHandler.class);
+      assertThat(Whitebox.getInternalState(layoutHandler, "mThreadPool")).isSameAs(threadPool);
+    } finally {
+      ComponentsConfiguration.useSharedLayoutThreadPool = useSharedLayoutThreadPool;
+      ComponentTree.setDefaultLayoutThreadPool(previous);
+      threadPool.shutdown();
+    }
+  }
+
   private static LithoView getLithoView(ComponentTree componentTree) {
     return Whitebox.getInternalState(componentTree, "mLithoView");
   }
@@ -9,10 +9,14 @@
 
 package com.facebook.litho;
 
-import static com.facebook.litho.DisplayListPrefetcher.AverageDLPrefetchDuration.INITIAL_SIZE;
+import static com.facebook.litho.DisplayListPrefetcher.DLPrefetchStats.BUCKET_COUNT;
+import static com.facebook.litho.DisplayListPrefetcher.DLPrefetchStats.BUCKET_UPPER_BOUNDS_NS;
+import static com.facebook.litho.DisplayListPrefetcher.DLPrefetchStats.INITIAL_SIZE;
+import static com.facebook.litho.DisplayListPrefetcher.DLPrefetchStats.MAX_SAMPLE_COUNT;
 import static org.assertj.core.api.Java6Assertions.assertThat;
 
-import com.facebook.litho.DisplayListPrefetcher.AverageDLPrefetchDuration;
+import com.facebook.litho.DisplayListPrefetcher.DLPrefetchStats;
+import com.facebook.litho.DisplayListPrefetcher.PrefetchStats;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -21,40 +25,93 @@ import org.junit.Test;
  */
 public class DisplayListPrefetcherTest {
 
-  AverageDLPrefetchDuration mAverageDLPrefetchDuration;
+  DLPrefetchStats mDLPrefetchStats;
 
   @Before
   public void setup() {
-    mAverageDLPrefetchDuration = new AverageDLPrefetchDuration();
+    mDLPrefetchStats = new DLPrefetchStats();
   }
 
   @Test
-  public void testAverageDLPrefetchDurationEmpty() {
-    assertThat(-1L).isEqualTo(mAverageDLPrefetchDuration.get("Text"));
+  public void testDLPrefetchStatsEmpty() {
+    assertThat(-1L).isEqualTo(mDLPrefetchStats.getEstimatedDuration("Text"));
   }
 
   @Test
-  public void testAverageDLPrefetchDurationAddItem() {
-    mAverageDLPrefetchDuration.put("Image", 100L);
-    assertThat(-1L).isEqualTo(mAverageDLPrefetchDuration.get("Text"));
-    assertThat(100L).isEqualTo(mAverageDLPrefetchDuration.get("Image"));
+  public void testDLPrefetchStatsAddItem() {
+    mDLPrefetchStats.addDuration("Image", 100000L);
+    assertThat(-1L).isEqualTo(mDLPrefetchStats.getEstimatedDuration("Text"));
+    assertThat(mDLPrefetchStats.getEstimatedDuration("Image"))
+        .isEqualTo(BUCKET_UPPER_BOUNDS_NS[DLPrefetchStats.getBucket(100000L)]);
   }
 
   @Test
-  public void testAverageDLPrefetchDurationUpdateItems() {
-    mAverageDLPrefetchDuration.put("Image", 100L);
-    mAverageDLPrefetchDuration.put("Image", 200L);
-    mAverageDLPrefetchDuration.put("Image", 250L);
-    assertThat(250L).isEqualTo(mAverageDLPrefetchDuration.get("Image"));
+  public void testDLPrefetchStatsEstimateIsPercentileNotMean() {
+    for (int i = 0; i < 95; i++) {
+      mDLPrefetchStats.addDuration("Image", 100000L);
+    }
+    for (int i = 0; i < 5; i++) {
+      mDLPrefetchStats.addDuration("Image", 10000000L);
+    }
+
+    // The 90th percentile ignores the 5% slow outliers, which would inflate a mean to ~600us.
+    assertThat(mDLPrefetchStats.getEstimatedDuration("Image"))
+        .isEqualTo(BUCKET_UPPER_BOUNDS_NS[DLPrefetchStats.getBucket(100000L)]);
+
+    for (int i = 0; i < 20; i++) {
+      mDLPrefetchStats.addDuration("Image", 10000000L);
+    }
+
+    assertThat(mDLPrefetchStats.getEstimatedDuration("Image"))
+        .isEqualTo(BUCKET_UPPER_BOUNDS_NS[DLPrefetchStats.getBucket(10000000L)]);
+  }
+
+  @Test
+  public void testDLPrefetchStatsBuckets() {
+    assertThat(DLPrefetchStats.getBucket(0)).isEqualTo(0);
+    assertThat(DLPrefetchStats.getBucket(BUCKET_UPPER_BOUNDS_NS[3])).isEqualTo(3);
+    assertThat(DLPrefetchStats.getBucket(BUCKET_UPPER_BOUNDS_NS[3] + 1)).isEqualTo(4);
+    assertThat(DLPrefetchStats.getBucket(Long.MAX_VALUE)).isEqualTo(BUCKET_COUNT - 1);
+  }
+
+  @Test
+  public void testDLPrefetchStatsDecayOldSamples() {
+    for (int i = 0; i < MAX_SAMPLE_COUNT; i++) {
+      mDLPrefetchStats.addDuration("Image", 100000L);
+    }
+    for (int i = 0; i < MAX_SAMPLE_COUNT; i++) {
+      mDLPrefetchStats.addDuration("Image", 10000000L);
+    }
+
+    assertThat(mDLPrefetchStats.getEstimatedDuration("Image"))
+        .isEqualTo(BUCKET_UPPER_BOUNDS_NS[DLPrefetchStats.getBucket(10000000L)]);
   }
 
   @Test
-  public void testAverageDLPrefetchDurationAddItemsExceedInitialSize() {
+  public void testDLPrefetchStatsAddItemsExceedInitialSize() {
     int initialSize = INITIAL_SIZE;
     for (int i = 0; i < initialSize; i++) {
-      mAverageDLPrefetchDuration.put("Image" + i, 100L + i * 10);
+      mDLPrefetchStats.addDuration("Image" + i, 100000L + i * 10);
     }
-    mAverageDLPrefetchDuration.put("Image" + initialSize, 111L);
-    assertThat(111L).isEqualTo(mAverageDLPrefetchDuration.get("Image" + initialSize));
+    mDLPrefetchStats.addDuration("Image" + initialSize, 1000000L);
+    assertThat(mDLPrefetchStats.getEstimatedDuration("Image" + initialSize))
+        .isEqualTo(BUCKET_UPPER_BOUNDS_NS[DLPrefetchStats.getBucket(1000000L)]);
+    assertThat(mDLPrefetchStats.size()).isEqualTo(initialSize + 1);
+  }
+
+  @Test
+  public void testDLPrefetchStatsMountHitRate() {
+    mDLPrefetchStats.addMount("Image", true);
+    mDLPrefetchStats.addMount("Image", true);
+    mDLPrefetchStats.addMount("Image", true);
+    mDLPrefetchStats.addMount("Image", false);
+
+    final PrefetchStats stats = mDLPrefetchStats.getStatsAt(0);
+
+    assertThat(stats.componentType).isEqualTo("Image");
+    assertThat(stats.mountHitCount).isEqualTo(3);
+    assertThat(stats.mountMissCount).isEqualTo(1);
+    assertThat(stats.getMountHitRate()).isEqualTo(0.75f);
+    assertThat(stats.estimatedDurationNs).isEqualTo(-1L);
   }
 }
@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link EventHandler}
+ */
+public class EventHandlerTest {
+
+  @Test
+  public void testGetParamFromArray() {
+    final Object param0 = new Object();
+    final EventHandler eventHandler =
+        new EventHandler(null, "name", 1, new Object[] {param0, 2, "three", 4L});
+
+    assertThat(eventHandler.getParam(0)).isSameAs(param0);
+    assertThat(eventHandler.getParam(1)).isEqualTo(2);
+    assertThat(eventHandler.getParam(2)).isEqualTo("three");
+    assertThat(eventHandler.getParam(3)).isEqualTo(4L);
+  }
+
+  @Test
+  public void testGetInlineParam() {
+    final Object param0 = new Object();
+    final EventHandler eventHandler = new EventHandler(null, "name", 1, param0, 2, null);
+
+    assertThat(eventHandler.params).isNull();
+    assertThat(eventHandler.getParam(0)).isSameAs(param0);
+    assertThat(eventHandler.getParam(1)).isEqualTo(2);
+    assertThat(eventHandler.getParam(2)).isNull();
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void testGetInlineParamOutOfBounds() {
+    new EventHandler(null, "name", 1, null, null, null).getParam(3);
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests {@link IntervalIndex}
+ */
+public class IntervalIndexTest {
+
+  private IntervalIndex mIntervalIndex;
+
+  @Before
+  public void setup() {
+    mIntervalIndex = new IntervalIndex();
+  }
+
+  @Test
+  public void testEmpty() {
+    mIntervalIndex.build();
+
+    assertThat(mIntervalIndex.query(0, 100, new int[0], 0)).isEqualTo(0);
+  }
+
+  @Test
+  public void testQuery() {
+    mIntervalIndex.add(50, 60);
+    mIntervalIndex.add(0, 10);
+    mIntervalIndex.add(0, 100);
+    mIntervalIndex.add(10, 20);
+    mIntervalIndex.build();
+
+    assertThat(query(0, 10)).containsExactly(1, 2);
+    assertThat(query(9, 11)).containsExactly(1, 2, 3);
+    assertThat(query(55, 56)).containsExactly(0, 2);
+    assertThat(query(100, 200)).isEmpty();
+  }
+
+  @Test
+  public void testQueryAppendsAtOffset() {
+    mIntervalIndex.add(0, 10);
+    mIntervalIndex.add(20, 30);
+    mIntervalIndex.build();
+
+    final int[] results = new int[4];
+    int count = mIntervalIndex.query(0, 5, results, 0);
+    count = mIntervalIndex.query(25, 26, results, count);
+
+    assertThat(count).isEqualTo(2);
+    assertThat(results[0]).isEqualTo(0);
+    assertThat(results[1]).isEqualTo(1);
+  }
+
+  @Test
+  public void testClearAndReuse() {
+    mIntervalIndex.add(0, 10);
+    mIntervalIndex.build();
+    mIntervalIndex.clear();
+
+    mIntervalIndex.add(20, 30);
+    mIntervalIndex.build();
+
+    assertThat(mIntervalIndex.size()).isEqualTo(1);
+    assertThat(query(0, 10)).isEmpty();
+    assertThat(query(0, 25)).containsExactly(0);
+  }
+
+  @Test
+  public void testMatchesLinearScan() {
+    final Random random = new Random(42);
+
+    for (int iteration = 0; iteration < 200; iteration++) {
+      mIntervalIndex.clear();
+
+      final int size = random.nextInt(300);
+      final int[] starts = new int[size];
+      final int[] ends = new int[size];
+      for (int i = 0; i < size; i++) {
+        starts[i] = random.nextInt(2000) - 500;
+        // Mostly small intervals, with a few spanning most of the range.
+        ends[i] = starts[i] + (random.nextInt(10) == 0 ? random.nextInt(3000) : random.nextInt(50));
+        mIntervalIndex.add(starts[i], ends[i]);
+      }
+      mIntervalIndex.build();
+
+      for (int q = 0; q < 20; q++) {
+        final int from = random.nextInt(2500) - 600;
+        final int to = from + random.nextInt(300);
+
+        final int[] expected = new int[size];
+        int expectedCount = 0;
+        for (int i = 0; i < size; i++) {
+          if (starts[i] < to && from < ends[i]) {
+            expected[expectedCount++] = i;
+          }
+        }
+
+        assertThat(query(from, to)).isEqualTo(Arrays.copyOf(expected, expectedCount));
+      }
+    }
+  }
+
+  private int[] query(int from, int to) {
+    final int[] results = new int[mIntervalIndex.size()];
+    final int count = mIntervalIndex.query(from, to, results, 0);
+    final int[] sortedResults = Arrays.copyOf(results, count);
+    Arrays.sort(sortedResults);
+    return sortedResults;
+  }
+}
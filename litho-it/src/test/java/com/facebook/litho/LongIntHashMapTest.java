@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LongIntHashMapTest {
+
+  private static final int POSITION_COUNT = 1000;
+
+  private LongIntHashMap mMap;
+
+  @Before
+  public void setup() {
+    mMap = new LongIntHashMap();
+  }
+
+  @Test
+  public void testPutAndGet() {
+    assertThat(mMap.get(1L, -1)).isEqualTo(-1);
+
+    mMap.put(1L, 10);
+    mMap.put(Long.MIN_VALUE, 20);
+    mMap.put(0L, 30);
+
+    assertThat(mMap.size()).isEqualTo(3);
+    assertThat(mMap.get(1L, -1)).isEqualTo(10);
+    assertThat(mMap.get(Long.MIN_VALUE, -1)).isEqualTo(20);
+    assertThat(mMap.get(0L, -1)).isEqualTo(30);
+    assertThat(mMap.get(2L, -1)).isEqualTo(-1);
+  }
+
+  @Test
+  public void testPutReplaces() {
+    mMap.put(1L, 10);
+    mMap.put(1L, 11);
+    mMap.put(0L, 20);
+    mMap.put(0L, 21);
+
+    assertThat(mMap.size()).isEqualTo(2);
+    assertThat(mMap.get(1L, -1)).isEqualTo(11);
+    assertThat(mMap.get(0L, -1)).isEqualTo(21);
+  }
+
+  @Test
+  public void testGetReturnsEveryIntValue() {
+    assertThat(mMap.get(1L)).isEqualTo(LongIntHashMap.NOT_FOUND);
+    assertThat(mMap.containsKey(1L)).isFalse();
+    assertThat(mMap.containsKey(0L)).isFalse();
+
+    mMap.put(1L, Integer.MIN_VALUE);
+    mMap.put(0L, -1);
+
+    assertThat(mMap.get(1L)).isEqualTo(Integer.MIN_VALUE);
+    assertThat(mMap.get(0L)).isEqualTo(-1);
+    assertThat(mMap.containsKey(1L)).isTrue();
+    assertThat(mMap.containsKey(0L)).isTrue();
+  }
+
+  @Test
+  public void testClear() {
+    mMap.put(0L, 1);
+    mMap.put(1L, 2);
+    mMap.clear();
+
+    assertThat(mMap.size()).isEqualTo(0);
+    assertThat(mMap.get(0L, -1)).isEqualTo(-1);
+    assertThat(mMap.get(1L, -1)).isEqualTo(-1);
+  }
+
+  @Test
+  public void testMatchesHashMap() {
+    final Random random = new Random(42);
+    final Map<Long, Integer> expected = new HashMap<>();
+
+    for (int i = 0; i < 2000; i++) {
+      // Few distinct high bits, like layout output ids.
+      final long key = ((long) random.nextInt(16) << 26) | random.nextInt(500);
+      final int value = random.nextInt();
+      mMap.put(key, value);
+      expected.put(key, value);
+    }
+
+    assertThat(mMap.size()).isEqualTo(expected.size());
+    for (Map.Entry<Long, Integer> entry : expected.entrySet()) {
+      assertThat(mMap.get(entry.getKey(), -1)).isEqualTo((int) entry.getValue());
+    }
+  }
+
+  @Test
+  public void testPutAndGetDontAllocate() {
+    // Warm up, so that the measurement doesn't include class loading or growing the map.
+    long sum = putAndGetPositions();
+    mMap.clear();
+
+    final long allocatedBefore = AllocationTestHelper.getAllocatedBytes();
+    sum += putAndGetPositions();
+    final long allocated = AllocationTestHelper.getAllocatedBytes() - allocatedBefore;
+
+    assertThat(sum).isGreaterThan(0);
+    // Boxing positions outside of the Integer cache would allocate at least 16 bytes each.
+    assertThat(allocated).isLessThan(POSITION_COUNT);
+  }
+
+  private long putAndGetPositions() {
+    for (int i = 0; i < POSITION_COUNT; i++) {
+      mMap.put(LayoutStateOutputIdCalculator.calculateId((long) i << 18, 0), i);
+    }
+
+    long sum = 0;
+    for (int i = 0; i < POSITION_COUNT; i++) {
+      sum += mMap.get(LayoutStateOutputIdCalculator.calculateId((long) i << 18, 0), -1);
+    }
+    return sum;
+  }
+}
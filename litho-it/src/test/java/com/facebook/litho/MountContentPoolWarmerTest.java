@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.graphics.Color;
+import android.graphics.drawable.ColorDrawable;
+import android.util.SparseArray;
+import com.facebook.litho.config.ComponentsConfiguration;
+import com.facebook.litho.testing.testrunner.ComponentsTestRunner;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RuntimeEnvironment;
+
+@RunWith(ComponentsTestRunner.class)
+public class MountContentPoolWarmerTest {
+
+  private final ComponentLifecycle mLifecycle =
+      new ComponentLifecycle() {
+        @Override
+        protected Object onCreateMountContent(ComponentContext context) {
+          return new ColorDrawable(Color.RED);
+        }
+      };
+
+  private Context mContext;
+  private int mBudget;
+
+  @Before
+  public void setup() {
+    mContext = new ContextWrapper(RuntimeEnvironment.application);
+    mBudget = ComponentsConfiguration.mountContentPoolWarmerBudget;
+    MountContentPoolWarmer.reset();
+    ComponentsPools.sMountContentPoolsByContext.put(mContext, new SparseArray<RecyclePool>());
+  }
+
+  @After
+  public void tearDown() {
+    ComponentsConfiguration.mountContentPoolWarmerBudget = mBudget;
+    MountContentPoolWarmer.reset();
+    ComponentsPools.clearMountContentPools();
+  }
+
+  @Test
+  public void testRecordsPeakAndMisses() {
+    MountContentPoolWarmer.onMountContentAcquired(mContext, mLifecycle, false);
+    MountContentPoolWarmer.onMountContentAcquired(mContext, mLifecycle, true);
+    MountContentPoolWarmer.onMountContentAcquired(mContext, mLifecycle, false);
+    MountContentPoolWarmer.onMountContentReleased(mContext, mLifecycle);
+    MountContentPoolWarmer.onMountContentReleased(mContext, mLifecycle);
+    MountContentPoolWarmer.onMountContentAcquired(mContext, mLifecycle, true);
+
+    final List<MountContentPoolWarmer.PoolStats> stats = MountContentPoolWarmer.getPoolStats();
+
+    assertThat(stats).hasSize(1);
+    assertThat(stats.get(0).peakCount).isEqualTo(3);
+    assertThat(stats.get(0).missCount).isEqualTo(2);
+    assertThat(stats.get(0).pooledCount).isEqualTo(0);
+  }
+
+  @Test
+  public void testWarmFillsPoolUpToPeak() {
+    acquire(4);
+
+    assertThat(MountContentPoolWarmer.warmNow(mContext)).isEqualTo(4);
+    assertThat(ComponentsPools.getPooledMountContentCount(mLifecycle)).isEqualTo(4);
+    assertThat(MountContentPoolWarmer.getPoolStats().get(0).pooledCount).isEqualTo(4);
+    assertThat(ComponentsPools.acquireMountContent(mContext, mLifecycle.getTypeId()))
+        .isInstanceOf(ColorDrawable.class);
+  }
+
+  @Test
+  public void testWarmRespectsBudget() {
+    ComponentsConfiguration.mountContentPoolWarmerBudget = 2;
+    acquire(4);
+
+    assertThat(MountContentPoolWarmer.warmNow(mContext)).isEqualTo(2);
+    assertThat(ComponentsPools.getPooledMountContentCount(mLifecycle)).isEqualTo(2);
+  }
+
+  @Test
+  public void testWarmDoesNothingForDestroyedContext() {
+    acquire(4);
+    ComponentsPools.onContextDestroyed(mContext);
+
+    assertThat(MountContentPoolWarmer.warmNow(mContext)).isEqualTo(0);
+    assertThat(ComponentsPools.getPooledMountContentCount(mLifecycle)).isEqualTo(0);
+  }
+
+  @Test
+  public void testPeakDoesNotGrowAcrossContextRecreation() {
+    acquire(3);
+    ComponentsPools.onContextDestroyed(mContext);
+
+    assertThat(MountContentPoolWarmer.getActiveCount(mContext, mLifecycle)).isEqualTo(0);
+
+    // The mount contents of the destroyed context are never released.
+    mContext = new ContextWrapper(RuntimeEnvironment.application);
+    acquire(3);
+
+    assertThat(MountContentPoolWarmer.getActiveCount(mContext, mLifecycle)).isEqualTo(3);
+    assertThat(MountContentPoolWarmer.getPoolStats().get(0).peakCount).isEqualTo(3);
+  }
+
+  @Test
+  public void testActiveCountIsTrackedPerContext() {
+    final Context otherContext = new ContextWrapper(RuntimeEnvironment.application);
+    acquire(2);
+    MountContentPoolWarmer.onMountContentAcquired(
+        new ComponentContext(otherContext), mLifecycle, false);
+    MountContentPoolWarmer.onMountContentReleased(otherContext, mLifecycle);
+
+    assertThat(MountContentPoolWarmer.getActiveCount(mContext, mLifecycle)).isEqualTo(2);
+    assertThat(MountContentPoolWarmer.getActiveCount(otherContext, mLifecycle)).isEqualTo(0);
+    assertThat(MountContentPoolWarmer.getPoolStats().get(0).peakCount).isEqualTo(2);
+  }
+
+  private void acquire(int count) {
+    for (int i = 0; i < count; i++) {
+      MountContentPoolWarmer.onMountContentAcquired(mContext, mLifecycle, false);
+    }
+  }
+}
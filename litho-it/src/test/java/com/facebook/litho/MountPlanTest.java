@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho;
+
+import static com.facebook.litho.SizeSpec.EXACTLY;
+import static com.facebook.litho.SizeSpec.makeSizeSpec;
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+import com.facebook.litho.testing.TestDrawableComponent;
+import com.facebook.litho.testing.testrunner.ComponentsTestRunner;
+import com.facebook.litho.testing.util.InlineLayoutSpec;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RuntimeEnvironment;
+
+@RunWith(ComponentsTestRunner.class)
+public class MountPlanTest {
+
+  private ComponentContext mContext;
+
+  @Before
+  public void setup() {
+    mContext = new ComponentContext(RuntimeEnvironment.application);
+  }
+
+  @Test
+  public void testPlanMapsPreviousOutputsToNewPositions() {
+    final LayoutState previousLayoutState = calculate(createComponent(false));
+    final LayoutState layoutState = calculate(createComponent(true));
+
+    layoutState.prepareMountPlan(previousLayoutState);
+    final MountPlan mountPlan =
+        layoutState.getMountPlanFor(previousLayoutState.getMountableOutputIds());
+
+    assertThat(mountPlan).isNotNull();
+    final long[] previousIds = previousLayoutState.getMountableOutputIds();
+    for (int i = 0; i < previousIds.length; i++) {
+      assertThat(mountPlan.getNewPosition(i))
+          .isEqualTo(layoutState.getLayoutOutputPositionForId(previousIds[i]));
+    }
+  }
+
+  @Test
+  public void testPlanPrecomputesShouldComponentUpdate() {
+    final LayoutState previousLayoutState = calculate(createComponent(false));
+    final LayoutState layoutState = calculate(createComponent(false));
+
+    layoutState.prepareMountPlan(previousLayoutState);
+    final MountPlan mountPlan =
+        layoutState.getMountPlanFor(previousLayoutState.getMountableOutputIds());
+
+    // The drawable is equal to the previous one, so it doesn't need to be updated.
+    assertThat(mountPlan.hasShouldComponentUpdate(1)).isTrue();
+    assertThat(mountPlan.shouldComponentUpdate(1)).isFalse();
+  }
+
+  @Test
+  public void testPlanIsInvalidForOtherMountedOutputs() {
+    final LayoutState previousLayoutState = calculate(createComponent(false));
+    final LayoutState layoutState = calculate(createComponent(true));
+
+    layoutState.prepareMountPlan(previousLayoutState);
+
+    assertThat(layoutState.getMountPlanFor(null)).isNull();
+    assertThat(layoutState.getMountPlanFor(previousLayoutState.getMountableOutputIds().clone()))
+        .isNull();
+    assertThat(layoutState.getMountPlanFor(layoutState.getMountableOutputIds())).isNull();
+  }
+
+  @Test
+  public void testMountWithPlan() {
+    final ComponentTree componentTree =
+        ComponentTree.create(mContext, createComponent(false)).incrementalMount(false).build();
+    final LithoView lithoView = new LithoView(mContext);
+    lithoView.setComponentTree(componentTree);
+    lithoView.onAttachedToWindow();
+    lithoView.measure(makeSizeSpec(100, EXACTLY), makeSizeSpec(100, EXACTLY));
+    lithoView.layout(0, 0, 100, 100);
+
+    componentTree.setRoot(createComponent(true));
+    lithoView.layout(0, 0, 100, 100);
+
+    assertThat(lithoView.getMountState().getItemCount()).isEqualTo(3);
+  }
+
+  private LayoutState calculate(Component<?> component) {
+    return LayoutState.calculate(
+        mContext,
+        component,
+        -1,
+        makeSizeSpec(100, EXACTLY),
+        makeSizeSpec(100, EXACTLY));
+  }
+
+  private static Component<?> createComponent(final boolean withSecondChild) {
+    return new InlineLayoutSpec() {
+      @Override
+      protected ComponentLayout onCreateLayout(ComponentContext c) {
+        final ComponentLayout.ContainerBuilder column =
+            Column.create(c)
+                .child(
+                    Layout.create(c, TestDrawableComponent.create(c).build())
+                        .widthPx(10)
+                        .heightPx(10));
+        if (withSecondChild) {
+          column.child(
+              Layout.create(c, TestDrawableComponent.create(c).build()).widthPx(10).heightPx(10));
+        }
+        return column.build();
+      }
+    };
+  }
+}
@@ -40,6 +40,7 @@ import com.facebook.litho.testing.TestViewComponent;
 import com.facebook.litho.testing.testrunner.ComponentsTestRunner;
 import com.facebook.litho.testing.util.InlineLayoutSpec;
 import com.facebook.yoga.YogaEdge;
+import java.util.ArrayList;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -223,6 +224,88 @@ public class MountStateIncrementalMountTest {
     verifyLoggingAndResetLogger(0, 1);
   }
 
+  /**
+   * Tests incremental mount behaviour of a grid of components scrolled on both axes at once.
+   */
+  @Test
+  public void testIncrementalMountGridScrollBothAxes() {
+    final TestComponent child1 = create(mContext)
+        .build();
+    final TestComponent child2 = create(mContext)
+        .build();
+    final TestComponent child3 = create(mContext)
+        .build();
+    final TestComponent child4 = create(mContext)
+        .build();
+    final LithoView lithoView = mountComponent(
+        mContext,
+        new InlineLayoutSpec() {
+          @Override
+          protected ComponentLayout onCreateLayout(ComponentContext c) {
+            return Column.create(c)
+                .child(
+                    Row.create(c)
+                        .child(
+                            Layout.create(c, child1)
+                                .widthPx(10)
+                                .heightPx(10))
+                        .child(
+                            Layout.create(c, child2)
+                                .widthPx(10)
+                                .heightPx(10)))
+                .child(
+                    Row.create(c)
+                        .child(
+                            Layout.create(c, child3)
+                                .widthPx(10)
+                                .heightPx(10))
+                        .child(
+                            Layout.create(c, child4)
+                                .widthPx(10)
+                                .heightPx(10)))
+                .build();
+          }
+        });
+
+    verifyLoggingAndResetLogger(4, 0);
+
+    lithoView.getComponentTree().mountComponent(new Rect(0, 0, 5, 5), true);
+    assertThat(child1.isMounted()).isTrue();
+    assertThat(child2.isMounted()).isFalse();
+    assertThat(child3.isMounted()).isFalse();
+    assertThat(child4.isMounted()).isFalse();
+    verifyLoggingAndResetLogger(0, 3);
+
+    lithoView.getComponentTree().mountComponent(new Rect(5, 5, 15, 15), true);
+    assertThat(child1.isMounted()).isTrue();
+    assertThat(child2.isMounted()).isTrue();
+    assertThat(child3.isMounted()).isTrue();
+    assertThat(child4.isMounted()).isTrue();
+    verifyLoggingAndResetLogger(3, 0);
+
+    lithoView.getComponentTree().mountComponent(new Rect(12, 12, 20, 20), true);
+    assertThat(child1.isMounted()).isFalse();
+    assertThat(child2.isMounted()).isFalse();
+    assertThat(child3.isMounted()).isFalse();
+    assertThat(child4.isMounted()).isTrue();
+    verifyLoggingAndResetLogger(0, 3);
+
+    // The cell that becomes visible vertically is still outside of the visible rect horizontally.
+    lithoView.getComponentTree().mountComponent(new Rect(12, 2, 20, 8), true);
+    assertThat(child1.isMounted()).isFalse();
+    assertThat(child2.isMounted()).isTrue();
+    assertThat(child3.isMounted()).isFalse();
+    assertThat(child4.isMounted()).isFalse();
+    verifyLoggingAndResetLogger(1, 1);
+
+    lithoView.getComponentTree().mountComponent(new Rect(2, 12, 8, 20), true);
+    assertThat(child1.isMounted()).isFalse();
+    assertThat(child2.isMounted()).isFalse();
+    assertThat(child3.isMounted()).isTrue();
+    assertThat(child4.isMounted()).isFalse();
+    verifyLoggingAndResetLogger(1, 1);
+  }
+
   /**
    * Tests incremental mount behaviour of a vertical stack of components with a Drawable mount type.
    */
@@ -571,6 +654,63 @@ public class MountStateIncrementalMountTest {
     assertThat(child1.wasOnUnmountCalled()).isFalse();
   }
 
+  /**
+   * Incremental mount looks up the position of every output that crosses an edge of the visible
+   * rect. Mounting itself goes through Robolectric's shadows, so only the lookups are measured.
+   */
+  @Test
+  public void testIncrementalMountLookupsDontAllocate() {
+    final int count = 200;
+    final Component component = new InlineLayoutSpec() {
+      @Override
+      protected ComponentLayout onCreateLayout(ComponentContext c) {
+        final ComponentLayout.ContainerBuilder column = Column.create(c);
+        for (int i = 0; i < count; i++) {
+          column.child(Layout.create(c, TestDrawableComponent.create(c).build()).heightPx(10));
+        }
+        return column.build();
+      }
+    };
+
+    final LayoutState layoutState =
+        LayoutState.calculate(
+            mContext,
+            component,
+            -1,
+            SizeSpec.makeSizeSpec(100, SizeSpec.EXACTLY),
+            SizeSpec.makeSizeSpec(count * 10, SizeSpec.EXACTLY));
+
+    // Warm up, so that the measurement doesn't include class loading.
+    long sum = lookUpScrolledOutputs(layoutState);
+
+    final long allocatedBefore = AllocationTestHelper.getAllocatedBytes();
+    sum += lookUpScrolledOutputs(layoutState);
+    final long allocated = AllocationTestHelper.getAllocatedBytes() - allocatedBefore;
+
+    assertThat(sum).isGreaterThan(0);
+    // Boxing an id or a position would allocate at least 16 bytes per lookup.
+    assertThat(allocated).isLessThan(layoutState.getMountableOutputCount());
+  }
+
+  /**
+   * Looks up the outputs in the order they leave the visible rect when scrolling all the way down
+   * and back up.
+   */
+  private static long lookUpScrolledOutputs(LayoutState layoutState) {
+    final ArrayList<LayoutOutput> bottoms = layoutState.getMountableOutputBottoms();
+    final ArrayList<LayoutOutput> tops = layoutState.getMountableOutputTops();
+    long sum = 0;
+
+    for (int i = 0, size = bottoms.size(); i < size; i++) {
+      sum += layoutState.getLayoutOutputPositionForId(bottoms.get(i).getId());
+    }
+    for (int i = tops.size() - 1; i >= 0; i--) {
+      sum += layoutState.getLayoutOutputPositionForId(tops.get(i).getId());
+    }
+
+    return sum;
+  }
+
   private void verifyLoggingAndResetLogger(int mountedCount, int unmountedCount) {
     final LogEvent event = mComponentsLogger.newPerformanceEvent(EVENT_MOUNT);
     event.addParam(PARAM_MOUNTED_COUNT, String.valueOf(mountedCount));
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho;
+
+import static com.facebook.litho.SizeSpec.EXACTLY;
+import static com.facebook.litho.SizeSpec.makeSizeSpec;
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+import com.facebook.litho.config.ComponentsConfiguration;
+import com.facebook.litho.dataflow.ChoreographerCompat;
+import com.facebook.litho.dataflow.ChoreographerCompatImpl;
+import com.facebook.litho.testing.TestDrawableComponent;
+import com.facebook.litho.testing.testrunner.ComponentsTestRunner;
+import com.facebook.litho.testing.util.InlineLayoutSpec;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RuntimeEnvironment;
+
+@RunWith(ComponentsTestRunner.class)
+public class MountStateTimeSlicedMountTest {
+
+  private ComponentContext mContext;
+  private TestChoreographer mChoreographer;
+  private long mFrameBudgetMs;
+
+  @Before
+  public void setup() {
+    mContext = new ComponentContext(RuntimeEnvironment.application);
+    mChoreographer = new TestChoreographer();
+    ChoreographerCompatImpl.setInstance(mChoreographer);
+
+    // Only one output can be mounted in every frame.
+    mFrameBudgetMs = ComponentsConfiguration.timeSlicedMountFrameBudgetMs;
+    ComponentsConfiguration.timeSlicedMountFrameBudgetMs = 0;
+  }
+
+  @After
+  public void tearDown() {
+    ComponentsConfiguration.timeSlicedMountFrameBudgetMs = mFrameBudgetMs;
+    ChoreographerCompatImpl.setInstance(null);
+  }
+
+  @Test
+  public void testMountContinuesOnNextFrames() {
+    final LithoView lithoView = mount(true);
+    final MountState mountState = lithoView.getMountState();
+
+    assertThat(lithoView.getMountItemCount()).isEqualTo(1);
+    assertThat(mountState.isTimeSlicedMountPending()).isTrue();
+
+    mChoreographer.doFrame();
+
+    assertThat(lithoView.getMountItemCount()).isEqualTo(2);
+    assertThat(mountState.isTimeSlicedMountPending()).isTrue();
+
+    mChoreographer.doFrame();
+
+    assertThat(lithoView.getMountItemCount()).isEqualTo(3);
+    assertThat(mountState.isTimeSlicedMountPending()).isFalse();
+    assertThat(mountState.getTimeSlicedMountFrameCount()).isEqualTo(3);
+
+    mChoreographer.doFrame();
+
+    assertThat(mountState.getTimeSlicedMountFrameCount()).isEqualTo(3);
+  }
+
+  @Test
+  public void testMountNotTimeSlicedByDefault() {
+    final LithoView lithoView = mount(false);
+
+    assertThat(lithoView.getMountItemCount()).isEqualTo(3);
+    assertThat(lithoView.getMountState().isTimeSlicedMountPending()).isFalse();
+  }
+
+  private LithoView mount(boolean timeSlicedMount) {
+    final Component<?> component = new InlineLayoutSpec() {
+      @Override
+      protected ComponentLayout onCreateLayout(ComponentContext c) {
+        return Column.create(c)
+            .child(Layout.create(c, TestDrawableComponent.create(c).build()).heightPx(10))
+            .child(Layout.create(c, TestDrawableComponent.create(c).build()).heightPx(10))
+            .child(Layout.create(c, TestDrawableComponent.create(c).build()).heightPx(10))
+            .build();
+      }
+    };
+
+    final ComponentTree componentTree = ComponentTree.create(mContext, component)
+        .incrementalMount(false)
+        .timeSlicedMount(timeSlicedMount)
+        .build();
+    final LithoView lithoView = new LithoView(mContext);
+    lithoView.setComponentTree(componentTree);
+    lithoView.onAttachedToWindow();
+    lithoView.measure(makeSizeSpec(100, EXACTLY), makeSizeSpec(100, EXACTLY));
+    lithoView.layout(0, 0, 100, 100);
+
+    return lithoView;
+  }
+
+  private static class TestChoreographer implements ChoreographerCompat {
+    private final List<FrameCallback> mCallbacks = new ArrayList<>();
+
+    @Override
+    public void postFrameCallback(FrameCallback callbackWrapper) {
+      mCallbacks.add(callbackWrapper);
+    }
+
+    @Override
+    public void postFrameCallbackDelayed(FrameCallback callbackWrapper, long delayMillis) {
+      mCallbacks.add(callbackWrapper);
+    }
+
+    @Override
+    public void removeFrameCallback(FrameCallback callbackWrapper) {
+      mCallbacks.remove(callbackWrapper);
+    }
+
+    void doFrame() {
+      // Callbacks posted while running the current ones run on the next frame.
+      final List<FrameCallback> callbacks = new ArrayList<>(mCallbacks);
+      mCallbacks.clear();
+      for (FrameCallback callback : callbacks) {
+        callback.doFrame(System.nanoTime());
+      }
+    }
+  }
+}
@@ -33,4 +33,21 @@ public class RecyclePoolTest {
 
     assertEquals(0, pool.getCurrentSize());
   }
+
+  @Test
+  public void testSizeAccounting() {
+    final RecyclePool<Object> pool = new RecyclePool<>("test", 2, true);
+
+    assertEquals(null, pool.acquire());
+    assertEquals(0, pool.getCurrentSize());
+
+    pool.release(new Object());
+    pool.release(new Object());
+    pool.release(new Object());
+    assertEquals(2, pool.getCurrentSize());
+    assertEquals(true, pool.isFull());
+
+    pool.acquire();
+    assertEquals(1, pool.getCurrentSize());
+  }
 }
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho;
+
+import static com.facebook.litho.LruResourceCache.PRIMITIVE_CACHE_MAX_SIZE;
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+import android.content.res.Configuration;
+import com.facebook.litho.testing.testrunner.ComponentsTestRunner;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RuntimeEnvironment;
+
+@RunWith(ComponentsTestRunner.class)
+public class ResourceCacheTest {
+
+  private static final int HIT_COUNT = 10000;
+
+  private Configuration mConfiguration;
+  private ResourceCache mResourceCache;
+
+  @Before
+  public void setup() {
+    mConfiguration = RuntimeEnvironment.application.getResources().getConfiguration();
+    mResourceCache = new LruResourceCache(mConfiguration);
+  }
+
+  @Test
+  public void testIntRoundTrip() {
+    assertThat(mResourceCache.getInt(1)).isEqualTo(ResourceCache.NOT_FOUND);
+
+    mResourceCache.putInt(1, Integer.MIN_VALUE);
+    mResourceCache.putInt(2, -5);
+    mResourceCache.putInt(3, 0);
+
+    assertThat(mResourceCache.getInt(1)).isEqualTo(Integer.MIN_VALUE);
+    assertThat(mResourceCache.getInt(2)).isEqualTo(-5);
+    assertThat(mResourceCache.getInt(3)).isEqualTo(0);
+    assertThat(mResourceCache.getInt(4)).isEqualTo(ResourceCache.NOT_FOUND);
+  }
+
+  @Test
+  public void testFloatRoundTrip() {
+    assertThat(Float.isNaN(mResourceCache.getFloat(1))).isTrue();
+
+    mResourceCache.putFloat(1, 12.5f);
+    mResourceCache.putFloat(2, -0.25f);
+
+    assertThat(mResourceCache.getFloat(1)).isEqualTo(12.5f);
+    assertThat(mResourceCache.getFloat(2)).isEqualTo(-0.25f);
+  }
+
+  @Test
+  public void testPrimitivesAreSeparateFromObjects() {
+    mResourceCache.put(1, "string");
+    mResourceCache.putInt(1, 10);
+    mResourceCache.putFloat(1, 2f);
+
+    assertThat((String) mResourceCache.get(1)).isEqualTo("string");
+    assertThat(mResourceCache.getInt(1)).isEqualTo(10);
+    assertThat(mResourceCache.getFloat(1)).isEqualTo(2f);
+  }
+
+  @Test
+  public void testPrimitivesClearedWhenFull() {
+    for (int i = 1; i <= PRIMITIVE_CACHE_MAX_SIZE; i++) {
+      mResourceCache.putInt(0x7f010000 + i, i);
+    }
+
+    for (int i = 1; i <= PRIMITIVE_CACHE_MAX_SIZE; i++) {
+      assertThat(mResourceCache.getInt(0x7f010000 + i)).isEqualTo(i);
+    }
+
+    // Replacing a cached value doesn't need room.
+    mResourceCache.putInt(0x7f010001, 0);
+    assertThat(mResourceCache.getInt(0x7f010002)).isEqualTo(2);
+
+    mResourceCache.putInt(0x7f020000, 1);
+
+    assertThat(mResourceCache.getInt(0x7f020000)).isEqualTo(1);
+    assertThat(mResourceCache.getInt(0x7f010002)).isEqualTo(ResourceCache.NOT_FOUND);
+  }
+
+  @Test
+  public void testInvalidatedOnConfigurationChange() {
+    final ResourceCache resourceCache = ResourceCache.getLatest(mConfiguration);
+    resourceCache.putInt(1, 10);
+
+    assertThat(ResourceCache.getLatest(mConfiguration)).isSameAs(resourceCache);
+
+    final Configuration newConfiguration = new Configuration(mConfiguration);
+    newConfiguration.fontScale = mConfiguration.fontScale * 2;
+    final ResourceCache newResourceCache = ResourceCache.getLatest(newConfiguration);
+
+    assertThat(newResourceCache).isNotSameAs(resourceCache);
+    assertThat(newResourceCache.getInt(1)).isEqualTo(ResourceCache.NOT_FOUND);
+  }
+
+  @Test
+  public void testHitsDontAllocate() {
+    mResourceCache.putInt(0x7f010001, 1000);
+    mResourceCache.putFloat(0x7f010002, 1000.5f);
+    // Warm up, so that the measurement doesn't include class loading.
+    long sum = readHits();
+
+    final long allocatedBefore = AllocationTestHelper.getAllocatedBytes();
+    sum += readHits();
+    final long allocated = AllocationTestHelper.getAllocatedBytes() - allocatedBefore;
+
+    assertThat(sum).isGreaterThan(0);
+    // Boxing would allocate at least 16 bytes per hit.
+    assertThat(allocated).isLessThan(HIT_COUNT);
+  }
+
+  private long readHits() {
+    long sum = 0;
+    for (int i = 0; i < HIT_COUNT; i++) {
+      sum += mResourceCache.getInt(0x7f010001);
+      sum += (long) mResourceCache.getFloat(0x7f010002);
+    }
+    return sum;
+  }
+}
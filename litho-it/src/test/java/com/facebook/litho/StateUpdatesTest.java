@@ -19,12 +19,17 @@ import static org.mockito.Mockito.when;
 
 import android.os.Looper;
 import com.facebook.litho.ComponentLifecycle.StateContainer;
+import com.facebook.litho.config.ComponentsConfiguration;
+import com.facebook.litho.dataflow.ChoreographerCompatImpl;
+import com.facebook.litho.dataflow.DataFlowGraph;
+import com.facebook.litho.dataflow.MockTimingSource;
 import com.facebook.litho.testing.ComponentTestHelper;
 import com.facebook.litho.testing.testrunner.ComponentsTestRunner;
 import com.facebook.litho.testing.util.InlineLayoutSpec;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -169,6 +174,12 @@ public class StateUpdatesTest {
     ComponentTestHelper.measureAndLayout(lithoView);
   }
 
+  @After
+  public void tearDown() {
+    ComponentsConfiguration.batchStateUpdatesPerFrame = false;
+    ChoreographerCompatImpl.setInstance(null);
+  }
+
   @Test(expected = RuntimeException.class)
   public void testCrashOnSameComponentKey() {
     final Component child1 = new TestComponent(mLifecycle);
@@ -286,6 +297,54 @@ public class StateUpdatesTest {
     assertThat(mTestComponent.getComponentForStateUpdate().getCount()).isEqualTo(INITIAL_COUNT_STATE_VALUE + 2);
   }
 
+  @Test
+  public void testStateUpdatesBatchedPerFrame() {
+    ComponentsConfiguration.batchStateUpdatesPerFrame = true;
+    final MockTimingSource timingSource = new MockTimingSource();
+    DataFlowGraph.create(timingSource);
+    ChoreographerCompatImpl.setInstance(timingSource);
+    timingSource.start();
+
+    final int stateUpdateCount = 5;
+    for (int i = 0; i < stateUpdateCount; i++) {
+      mComponentTree.updateStateAsync(mTestComponent.getGlobalKey(), new TestStateUpdate());
+    }
+
+    assertThat(mLayoutThreadShadowLooper.getScheduler().size()).isEqualTo(0);
+
+    timingSource.step(1);
+
+    assertThat(mLayoutThreadShadowLooper.getScheduler().size()).isEqualTo(1);
+    mLayoutThreadShadowLooper.runOneTask();
+
+    assertThat(mTestComponent.getComponentForStateUpdate().getCount())
+        .isEqualTo(INITIAL_COUNT_STATE_VALUE + stateUpdateCount);
+    assertThat(mComponentTree.getCoalescedStateUpdateCount()).isEqualTo(stateUpdateCount);
+    assertThat(mComponentTree.getSavedLayoutCount()).isEqualTo(stateUpdateCount - 1);
+  }
+
+  @Test
+  public void testSyncStateUpdateCancelsBatch() {
+    ComponentsConfiguration.batchStateUpdatesPerFrame = true;
+    final MockTimingSource timingSource = new MockTimingSource();
+    DataFlowGraph.create(timingSource);
+    ChoreographerCompatImpl.setInstance(timingSource);
+    timingSource.start();
+
+    mComponentTree.updateStateAsync(mTestComponent.getGlobalKey(), new TestStateUpdate());
+    mComponentTree.updateStateAsync(mTestComponent.getGlobalKey(), new TestStateUpdate());
+    mComponentTree.updateState(mTestComponent.getGlobalKey(), new TestStateUpdate());
+    ShadowLooper.runUiThreadTasks();
+
+    assertThat(mTestComponent.getComponentForStateUpdate().getCount())
+        .isEqualTo(INITIAL_COUNT_STATE_VALUE + 3);
+
+    timingSource.step(1);
+
+    assertThat(mLayoutThreadShadowLooper.getScheduler().size()).isEqualTo(0);
+    assertThat(mComponentTree.getCoalescedStateUpdateCount()).isEqualTo(0);
+  }
+
   private StateHandler getStateHandler() {
     return Whitebox.getInternalState(mComponentTree, "mStateHandler");
   }
@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+import com.facebook.litho.testing.testrunner.ComponentsTestRunner;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(ComponentsTestRunner.class)
+public class StripedRecyclePoolTest {
+
+  private static final int[] THREAD_COUNTS = {1, 2, 4, 8};
+  private static final int ITERATIONS_PER_THREAD = 20000;
+
+  @Test
+  public void testAcquireAndRelease() {
+    final StripedRecyclePool<Object> pool = new StripedRecyclePool<>("test", 64);
+    final Object item = new Object();
+
+    assertThat(pool.acquire()).isNull();
+
+    pool.release(item);
+    assertThat(pool.getCurrentSize()).isEqualTo(1);
+
+    assertThat(pool.acquire()).isSameAs(item);
+    assertThat(pool.getCurrentSize()).isEqualTo(0);
+    assertThat(pool.acquire()).isNull();
+  }
+
+  @Test
+  public void testNeverHoldsMoreThanMaxSize() {
+    final StripedRecyclePool<Object> pool = new StripedRecyclePool<>("test", 16);
+
+    for (int i = 0; i < 40; i++) {
+      pool.release(new Object());
+    }
+
+    assertThat(pool.getCurrentSize()).isEqualTo(16);
+    assertThat(pool.isFull()).isTrue();
+
+    int acquired = 0;
+    while (pool.acquire() != null) {
+      acquired++;
+    }
+
+    assertThat(acquired).isEqualTo(16);
+    assertThat(pool.getCurrentSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void testClear() {
+    final StripedRecyclePool<Object> pool = new StripedRecyclePool<>("test", 64);
+
+    for (int i = 0; i < 20; i++) {
+      pool.release(new Object());
+    }
+
+    pool.clear();
+
+    assertThat(pool.getCurrentSize()).isEqualTo(0);
+    assertThat(pool.acquire()).isNull();
+  }
+
+  @Test
+  public void testItemsReleasedOnOneThreadCanBeAcquiredOnAnother() throws InterruptedException {
+    final StripedRecyclePool<Object> pool = new StripedRecyclePool<>("test", 64);
+    final int count = 40;
+
+    final Thread releasingThread =
+        new Thread(
+            new Runnable() {
+              @Override
+              public void run() {
+                for (int i = 0; i < count; i++) {
+                  pool.release(new Object());
+                }
+              }
+            });
+    releasingThread.start();
+    releasingThread.join();
+
+    // The releasing thread died, so the items of its magazine were moved to the depot too.
+    int acquired = 0;
+    while (pool.acquire() != null) {
+      acquired++;
+    }
+
+    assertThat(acquired).isEqualTo(count);
+    assertThat(pool.getCurrentSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void testFullPoolReclaimsItemsOfDeadThreads() throws InterruptedException {
+    final StripedRecyclePool<Object> pool = new StripedRecyclePool<>("test", 16);
+    pool.release(new Object());
+
+    // Only fills its magazine, then dies without acquiring the items again.
+    final Thread releasingThread =
+        new Thread(
+            new Runnable() {
+              @Override
+              public void run() {
+                for (int i = 0; i < 4; i++) {
+                  pool.release(new Object());
+                }
+              }
+            });
+    releasingThread.start();
+    releasingThread.join();
+
+    for (int i = 0; i < 20; i++) {
+      pool.release(new Object());
+    }
+    assertThat(pool.getCurrentSize()).isEqualTo(16);
+
+    int acquired = 0;
+    while (pool.acquire() != null) {
+      acquired++;
+    }
+
+    assertThat(acquired).isEqualTo(16);
+    assertThat(pool.getCurrentSize()).isEqualTo(0);
+  }
+
+  @Test
+  public void testContendedAcquireAndRelease() throws InterruptedException {
+    for (int threadCount : THREAD_COUNTS) {
+      runContended(new StripedRecyclePool<Object>("striped", 256), threadCount);
+      runContended(new RecyclePool<Object>("synchronized", 256, true), threadCount);
+    }
+  }
+
+  /**
+   * Every thread repeatedly acquires a batch of items, checks nobody else holds them and releases
+   * them.
+   */
+  private static void runContended(final RecyclePool<Object> pool, int threadCount)
+      throws InterruptedException {
+    final Set<Object> inUse = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+    final AtomicBoolean handedOutTwice = new AtomicBoolean(false);
+    final CountDownLatch start = new CountDownLatch(1);
+    final CountDownLatch done = new CountDownLatch(threadCount);
+
+    for (int t = 0; t < threadCount; t++) {
+      new Thread(
+              new Runnable() {
+                @Override
+                public void run() {
+                  final List<Object> batch = new ArrayList<>();
+                  try {
+                    start.await();
+                    for (int i = 0; i < ITERATIONS_PER_THREAD; i++) {
+                      for (int j = 0; j < 4; j++) {
+                        Object item = pool.acquire();
+                        if (item == null) {
+                          item = new Object();
+                        }
+                        synchronized (inUse) {
+                          if (!inUse.add(item)) {
+                            handedOutTwice.set(true);
+                          }
+                        }
+                        batch.add(item);
+                      }
+
+                      for (Object item : batch) {
+                        synchronized (inUse) {
+                          inUse.remove(item);
+                        }
+                        pool.release(item);
+                      }
+                      batch.clear();
+                    }
+                  } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                  } finally {
+                    done.countDown();
+                  }
+                }
+              })
+          .start();
+    }
+
+    start.countDown();
+    assertThat(done.await(30, TimeUnit.SECONDS)).isTrue();
+
+    assertThat(handedOutTwice.get()).isFalse();
+    assertThat(pool.getCurrentSize()).isBetween(0, pool.getMaxSize());
+  }
+}
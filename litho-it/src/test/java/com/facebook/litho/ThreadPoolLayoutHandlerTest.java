@@ -0,0 +1,260 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+import android.os.Process;
+import com.facebook.litho.testing.testrunner.ComponentsTestRunner;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(ComponentsTestRunner.class)
+public class ThreadPoolLayoutHandlerTest {
+
+  private static final int THREAD_COUNT = 4;
+  private static final long TIMEOUT_SECONDS = 5;
+
+  private ThreadPoolLayoutHandler.LayoutThreadPool mThreadPool;
+
+  @Before
+  public void setup() {
+    mThreadPool =
+        new ThreadPoolLayoutHandler.LayoutThreadPool(
+            THREAD_COUNT, Process.THREAD_PRIORITY_BACKGROUND);
+  }
+
+  @After
+  public void tearDown() {
+    mThreadPool.shutdown();
+  }
+
+  @Test
+  public void testRunnablesOfOneHandlerRunInOrder() throws InterruptedException {
+    final ThreadPoolLayoutHandler handler = new ThreadPoolLayoutHandler(mThreadPool);
+    final List<Integer> executed = Collections.synchronizedList(new ArrayList<Integer>());
+    final int count = 50;
+    final CountDownLatch done = new CountDownLatch(count);
+
+    for (int i = 0; i < count; i++) {
+      final int index = i;
+      handler.post(
+          new Runnable() {
+            @Override
+            public void run() {
+              executed.add(index);
+              done.countDown();
+            }
+          });
+    }
+
+    assertThat(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isTrue();
+    for (int i = 0; i < count; i++) {
+      assertThat(executed.get(i)).isEqualTo(i);
+    }
+  }
+
+  @Test
+  public void testRunnablesOfOneHandlerNeverOverlap() throws InterruptedException {
+    final ThreadPoolLayoutHandler handler = new ThreadPoolLayoutHandler(mThreadPool);
+    final AtomicInteger running = new AtomicInteger(0);
+    final AtomicInteger maxRunning = new AtomicInteger(0);
+    final int count = 20;
+    final CountDownLatch done = new CountDownLatch(count);
+
+    for (int i = 0; i < count; i++) {
+      handler.post(
+          new Runnable() {
+            @Override
+            public void run() {
+              final int current = running.incrementAndGet();
+              maxRunning.set(Math.max(maxRunning.get(), current));
+              sleep(2);
+              running.decrementAndGet();
+              done.countDown();
+            }
+          });
+    }
+
+    assertThat(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isTrue();
+    assertThat(maxRunning.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void testRemoveCallbacks() throws InterruptedException {
+    final ThreadPoolLayoutHandler handler = new ThreadPoolLayoutHandler(mThreadPool);
+    final CountDownLatch blockerStarted = new CountDownLatch(1);
+    final CountDownLatch releaseBlocker = new CountDownLatch(1);
+    final CountDownLatch lastRun = new CountDownLatch(1);
+    final AtomicInteger removedRuns = new AtomicInteger(0);
+
+    final Runnable removed =
+        new Runnable() {
+          @Override
+          public void run() {
+            removedRuns.incrementAndGet();
+          }
+        };
+
+    handler.post(
+        new Runnable() {
+          @Override
+          public void run() {
+            blockerStarted.countDown();
+            await(releaseBlocker);
+          }
+        });
+    assertThat(blockerStarted.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isTrue();
+
+    handler.post(removed);
+    handler.post(
+        new Runnable() {
+          @Override
+          public void run() {
+            lastRun.countDown();
+          }
+        });
+    handler.removeCallbacks(removed);
+    assertThat(handler.getPendingCount()).isEqualTo(1);
+
+    releaseBlocker.countDown();
+
+    assertThat(lastRun.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isTrue();
+    assertThat(removedRuns.get()).isEqualTo(0);
+  }
+
+  @Test
+  public void testDifferentHandlersRunInParallel() throws InterruptedException {
+    final CountDownLatch allRunning = new CountDownLatch(THREAD_COUNT);
+    final CountDownLatch done = new CountDownLatch(THREAD_COUNT);
+
+    for (int i = 0; i < THREAD_COUNT; i++) {
+      new ThreadPoolLayoutHandler(mThreadPool)
+          .post(
+              new Runnable() {
+                @Override
+                public void run() {
+                  allRunning.countDown();
+                  // Only returns if all the handlers are running at the same time.
+                  await(allRunning);
+                  done.countDown();
+                }
+              });
+    }
+
+    assertThat(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isTrue();
+  }
+
+  @Test
+  public void testPoolRunsAtMostThreadCountLayoutsAtOnce() throws InterruptedException {
+    final int treeCount = THREAD_COUNT * 2;
+    final AtomicInteger started = new AtomicInteger(0);
+    final CountDownLatch allThreadsBusy = new CountDownLatch(THREAD_COUNT);
+    final CountDownLatch release = new CountDownLatch(1);
+    final CountDownLatch done = new CountDownLatch(treeCount);
+
+    for (int i = 0; i < treeCount; i++) {
+      new ThreadPoolLayoutHandler(mThreadPool)
+          .post(
+              new Runnable() {
+                @Override
+                public void run() {
+                  started.incrementAndGet();
+                  allThreadsBusy.countDown();
+                  await(release);
+                  done.countDown();
+                }
+              });
+    }
+
+    // Every thread is now blocked on the release latch, so no other layout can have started.
+    assertThat(allThreadsBusy.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isTrue();
+    assertThat(started.get()).isEqualTo(THREAD_COUNT);
+
+    release.countDown();
+
+    assertThat(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isTrue();
+    assertThat(started.get()).isEqualTo(treeCount);
+  }
+
+  @Test
+  public void testHigherPriorityHandlersRunFirst() throws InterruptedException {
+    final ThreadPoolLayoutHandler.LayoutThreadPool singleThreadPool =
+        new ThreadPoolLayoutHandler.LayoutThreadPool(1, Process.THREAD_PRIORITY_BACKGROUND);
+    final List<Integer> executed = Collections.synchronizedList(new ArrayList<Integer>());
+    final CountDownLatch blockerStarted = new CountDownLatch(1);
+    final CountDownLatch releaseBlocker = new CountDownLatch(1);
+    final CountDownLatch done = new CountDownLatch(3);
+
+    try {
+      new ThreadPoolLayoutHandler(singleThreadPool)
+          .post(
+              new Runnable() {
+                @Override
+                public void run() {
+                  blockerStarted.countDown();
+                  await(releaseBlocker);
+                }
+              });
+      assertThat(blockerStarted.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isTrue();
+
+      // Posted while the only thread is busy, so they are picked up in priority order.
+      for (final int priority : new int[] {0, 2, 1}) {
+        new ThreadPoolLayoutHandler(singleThreadPool, priority)
+            .post(
+                new Runnable() {
+                  @Override
+                  public void run() {
+                    executed.add(priority);
+                    done.countDown();
+                  }
+                });
+      }
+
+      releaseBlocker.countDown();
+
+      assertThat(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isTrue();
+      assertThat(executed).containsExactly(2, 1, 0);
+    } finally {
+      singleThreadPool.shutdown();
+    }
+  }
+
+  @Test
+  public void testShutdown() {
+    mThreadPool.shutdown();
+
+    assertThat(mThreadPool.isShutdown()).isTrue();
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      throw new RuntimeException(e);
+    }
+  }
+}
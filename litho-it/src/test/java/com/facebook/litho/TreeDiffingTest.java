@@ -50,6 +50,7 @@ import com.facebook.litho.testing.TestDrawableComponent;
 import com.facebook.litho.testing.TestSizeDependentComponent;
 import com.facebook.litho.testing.testrunner.ComponentsTestRunner;
 import com.facebook.litho.testing.util.InlineLayoutSpec;
+import com.facebook.yoga.YogaDirection;
 import com.facebook.yoga.YogaMeasureFunction;
 import org.junit.Before;
 import org.junit.Test;
@@ -459,6 +460,100 @@ public class TreeDiffingTest {
     }
   }
 
+  @Test
+  public void testOnBoundsDefinedSkippedForUnchangedComponent() {
+    final TestComponent component1 = TestDrawableComponent.create(mContext).build();
+    final TestComponent component2 = TestDrawableComponent.create(mContext).build();
+
+    final LayoutState prevLayoutState =
+        calculateLayoutStateWithDrawable(component1, 350, null);
+    final LayoutState layoutState =
+        calculateLayoutStateWithDrawable(component2, 350, prevLayoutState.getDiffTree());
+
+    assertThat(component1.wasOnBoundsDefinedCalled()).isTrue();
+    assertThat(component2.wasOnBoundsDefinedCalled()).isFalse();
+    assertThat(layoutState.getMountableOutputAt(1).getUpdateState()).isEqualTo(STATE_UPDATED);
+  }
+
+  @Test
+  public void testOnBoundsDefinedCalledWhenSizeChanges() {
+    final TestComponent component1 = TestDrawableComponent.create(mContext).build();
+    final TestComponent component2 = TestDrawableComponent.create(mContext).build();
+
+    final LayoutState prevLayoutState =
+        calculateLayoutStateWithDrawable(component1, 350, null);
+    calculateLayoutStateWithDrawable(component2, 300, prevLayoutState.getDiffTree());
+
+    assertThat(component2.wasOnBoundsDefinedCalled()).isTrue();
+  }
+
+  @Test
+  public void testOnBoundsDefinedCalledWhenPaddingChanges() {
+    final TestComponent component1 = TestDrawableComponent.create(mContext).build();
+    final TestComponent component2 = TestDrawableComponent.create(mContext).build();
+
+    final LayoutState prevLayoutState =
+        calculateLayoutStateWithDrawable(component1, 350, 0, YogaDirection.LTR, null);
+    calculateLayoutStateWithDrawable(
+        component2, 350, 10, YogaDirection.LTR, prevLayoutState.getDiffTree());
+
+    assertThat(component2.wasOnBoundsDefinedCalled()).isTrue();
+  }
+
+  @Test
+  public void testOnBoundsDefinedCalledWhenLayoutDirectionChanges() {
+    final TestComponent component1 = TestDrawableComponent.create(mContext).build();
+    final TestComponent component2 = TestDrawableComponent.create(mContext).build();
+
+    final LayoutState prevLayoutState =
+        calculateLayoutStateWithDrawable(component1, 350, 0, YogaDirection.LTR, null);
+    calculateLayoutStateWithDrawable(
+        component2, 350, 0, YogaDirection.RTL, prevLayoutState.getDiffTree());
+
+    assertThat(component2.wasOnBoundsDefinedCalled()).isTrue();
+  }
+
+  private LayoutState calculateLayoutStateWithDrawable(
+      TestComponent drawable,
+      int drawableWidth,
+      DiffNode previousDiffTree) {
+    return calculateLayoutStateWithDrawable(
+        drawable, drawableWidth, 0, YogaDirection.LTR, previousDiffTree);
+  }
+
+  private LayoutState calculateLayoutStateWithDrawable(
+      final TestComponent drawable,
+      final int drawableWidth,
+      final int drawablePadding,
+      final YogaDirection layoutDirection,
+      DiffNode previousDiffTree) {
+    final Component component = new InlineLayoutSpec() {
+      @Override
+      protected ComponentLayout onCreateLayout(ComponentContext c) {
+        return Column.create(c)
+            .layoutDirection(layoutDirection)
+            .child(
+                Layout.create(c, drawable)
+                    .widthPx(drawableWidth)
+                    .heightPx(100)
+                    .paddingPx(ALL, drawablePadding))
+            .build();
+      }
+    };
+
+    return LayoutState.calculate(
+        mContext,
+        component,
+        -1,
+        SizeSpec.makeSizeSpec(350, SizeSpec.EXACTLY),
+        SizeSpec.makeSizeSpec(200, SizeSpec.EXACTLY),
+        true /* shouldGenerateDiffTree */,
+        previousDiffTree,
+        false /* canPrefetchDisplayLists */,
+        false /* canCacheDrawingDisplayLists */,
+        true /* clipChildren */);
+  }
+
   private void assertCachedMeasurementsNotDefined(InternalNode node) {
     assertThat(node.areCachedMeasuresValid()).isFalse();
   }
@@ -21,6 +21,7 @@ import com.facebook.litho.testing.TestViewComponent;
 import com.facebook.litho.testing.testrunner.ComponentsTestRunner;
 import com.facebook.litho.testing.util.InlineLayoutSpec;
 import com.facebook.yoga.YogaEdge;
+import java.util.List;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -316,6 +317,61 @@ public class VisibilityEventsTest {
         .doesNotContain(visibleEventHandler);
   }
 
+  @Test
+  public void testVisibilityEventsWhileScrolling() {
+    final TestComponent<?> content1 = create(mContext).build();
+    final TestComponent<?> content2 = create(mContext).build();
+    final EventHandler<VisibleEvent> visibleEventHandler1 = new EventHandler<>(content1, 1);
+    final EventHandler<InvisibleEvent> invisibleEventHandler1 = new EventHandler<>(content1, 2);
+    final EventHandler<VisibleEvent> visibleEventHandler2 = new EventHandler<>(content2, 3);
+    final EventHandler<InvisibleEvent> invisibleEventHandler2 = new EventHandler<>(content2, 4);
+
+    final LithoView lithoView =
+        mountComponent(
+            mContext,
+            mLithoView,
+            new InlineLayoutSpec() {
+              @Override
+              protected ComponentLayout onCreateLayout(ComponentContext c) {
+                return Column.create(c)
+                    .child(
+                        Layout.create(c, content1)
+                            .visibleHandler(visibleEventHandler1)
+                            .invisibleHandler(invisibleEventHandler1)
+                            .widthPx(10)
+                            .heightPx(5))
+                    .child(
+                        Layout.create(c, content2)
+                            .visibleHandler(visibleEventHandler2)
+                            .invisibleHandler(invisibleEventHandler2)
+                            .widthPx(10)
+                            .heightPx(5)
+                            .marginPx(YogaEdge.TOP, 15))
+                    .build();
+              }
+            },
+            true,
+            10,
+            25);
+
+    // Both contents share their lifecycle, so they record the events in the same list.
+    final List<EventHandler<?>> dispatchedEventHandlers =
+        content1.getLifecycle().getDispatchedEventHandlers();
+
+    lithoView.performIncrementalMount(new Rect(LEFT, 0, RIGHT, 10), true);
+    dispatchedEventHandlers.clear();
+
+    lithoView.performIncrementalMount(new Rect(LEFT, 1, RIGHT, 11), true);
+    assertThat(dispatchedEventHandlers).isEmpty();
+
+    lithoView.performIncrementalMount(new Rect(LEFT, 12, RIGHT, 22), true);
+    assertThat(dispatchedEventHandlers).containsOnly(invisibleEventHandler1, visibleEventHandler2);
+
+    dispatchedEventHandlers.clear();
+    lithoView.performIncrementalMount(new Rect(LEFT, 4, RIGHT, 14), true);
+    assertThat(dispatchedEventHandlers).containsOnly(visibleEventHandler1, invisibleEventHandler2);
+  }
+
   @Test
   public void testMultipleVisibleEvents() {
     final TestComponent<?> content1 = create(mContext).build();
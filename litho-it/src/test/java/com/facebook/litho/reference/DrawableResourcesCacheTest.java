@@ -74,4 +74,30 @@ public class DrawableResourcesCacheTest {
     assertThat(mCache.get(1, resources)).isEqualTo(drawable3);
   }
 
+  @Test
+  public void testDrawablesAreKeyedByTheme() {
+    Resources resources = application.getResources();
+    Resources.Theme theme = resources.newTheme();
+    Resources.Theme otherTheme = resources.newTheme();
+
+    ColorDrawable drawable = new ColorDrawable();
+    ColorDrawable otherDrawable = new ColorDrawable();
+    mCache.release(drawable, 1, theme);
+    mCache.release(otherDrawable, 1, otherTheme);
+
+    assertThat(mCache.get(1, resources, otherTheme)).isSameAs(otherDrawable);
+    assertThat(mCache.get(1, resources, theme)).isSameAs(drawable);
+  }
+
+  @Test
+  public void testBitmapBytesAreCounted() {
+    Resources resources = application.getResources();
+    BitmapDrawable drawable =
+        new BitmapDrawable(resources, Bitmap.createBitmap(100, 100, Bitmap.Config.ARGB_8888));
+
+    assertThat(DrawableResourcesCache.estimateBytes(drawable))
+        .isGreaterThanOrEqualTo(
+            DrawableResourcesCache.estimateBytes(new ColorDrawable()) + 100 * 100 * 4);
+  }
+
 }
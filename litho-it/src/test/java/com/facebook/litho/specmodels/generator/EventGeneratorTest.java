@@ -128,19 +128,13 @@ public class EventGeneratorTest {
         .isEqualTo(
             "public static <T extends java.lang.CharSequence> com.facebook.litho.EventHandler<java.lang.Object> testEventMethod1(com.facebook.litho.ComponentContext c,\n" +
             "    java.lang.Object arg2, T arg3) {\n" +
-            "  return newEventHandler(c, \"testEventMethod1\", -1400079064, new Object[] {\n" +
-            "        c,\n" +
-            "        arg2,\n" +
-            "        arg3,\n" +
-            "      });\n" +
+            "  return newEventHandler(c, \"testEventMethod1\", -1400079064, c, arg2, arg3);\n" +
             "}\n");
 
     assertThat(dataHolder.getMethodSpecs().get(1).toString())
         .isEqualTo(
             "public static com.facebook.litho.EventHandler<java.lang.Object> testEventMethod2(com.facebook.litho.ComponentContext c) {\n" +
-            "  return newEventHandler(c, \"testEventMethod2\", -1400079063, new Object[] {\n" +
-            "        c,\n" +
-            "      });\n" +
+            "  return newEventHandler(c, \"testEventMethod2\", -1400079063, c, null, null);\n" +
             "}\n");
   }
 
@@ -157,8 +151,8 @@ public class EventGeneratorTest {
             "      java.lang.Object _event = (java.lang.Object) eventState;\n" +
             "      testEventMethod1(\n" +
             "            eventHandler.mHasEventDispatcher,\n" +
-            "            (java.lang.Object) eventHandler.params[0],\n" +
-            "            (T) eventHandler.params[1]);\n" +
+            "            (java.lang.Object) eventHandler.getParam(0),\n" +
+            "            (T) eventHandler.getParam(1));\n" +
             "      return null;\n" +
             "    }\n" +
             "    case -1400079063: {\n" +
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho.widget;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+import android.support.v7.widget.RecyclerView;
+import com.facebook.litho.testing.testrunner.ComponentsTestRunner;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Tests {@link AdaptiveRangePolicy}
+ */
+@RunWith(ComponentsTestRunner.class)
+public class AdaptiveRangePolicyTest {
+
+  private static final float RANGE_RATIO = 2f;
+
+  private AdaptiveRangePolicy mRangePolicy;
+
+  @Before
+  public void setup() {
+    mRangePolicy = new AdaptiveRangePolicy(RANGE_RATIO);
+  }
+
+  @Test
+  public void testBehavesLikeFixedRangeWithoutData() {
+    assertThat(mRangePolicy.getViewportCount(5, 100)).isEqualTo(5);
+    assertThat(mRangePolicy.getItemCountBefore(5)).isEqualTo(10);
+    assertThat(mRangePolicy.getItemCountAfter(5)).isEqualTo(10);
+  }
+
+  @Test
+  public void testViewportCountFollowsMedianSize() {
+    mRangePolicy.onItemMeasured(100);
+    assertThat(mRangePolicy.getViewportCount(5, 100)).isEqualTo(5);
+
+    // Most items are a quarter of the size of the first one.
+    for (int i = 0; i < 10; i++) {
+      mRangePolicy.onItemMeasured(25);
+    }
+
+    assertThat(mRangePolicy.getMedianSize()).isEqualTo(25);
+    assertThat(mRangePolicy.getViewportCount(5, 100)).isEqualTo(20);
+  }
+
+  @Test
+  public void testHistogramFollowsRecentSizes() {
+    for (int i = 0; i < AdaptiveRangePolicy.MAX_SAMPLES; i++) {
+      mRangePolicy.onItemMeasured(400);
+    }
+    assertThat(mRangePolicy.getMedianSize()).isEqualTo(400);
+
+    for (int i = 0; i < AdaptiveRangePolicy.MAX_SAMPLES; i++) {
+      mRangePolicy.onItemMeasured(50);
+    }
+    assertThat(mRangePolicy.getMedianSize()).isEqualTo(50);
+  }
+
+  @Test
+  public void testIgnoresEmptyItems() {
+    mRangePolicy.onItemMeasured(0);
+
+    assertThat(mRangePolicy.getMedianSize()).isEqualTo(-1);
+  }
+
+  @Test
+  public void testRangeMovesAheadWhenScrolling() {
+    mRangePolicy.onItemMeasured(100);
+
+    // 50px per ms towards the last item, which is faster than the full bias velocity.
+    for (int i = 0; i <= 10; i++) {
+      mRangePolicy.onScrolled(800, i * 16);
+    }
+
+    assertThat(mRangePolicy.getItemCountBefore(5)).isEqualTo(5);
+    assertThat(mRangePolicy.getItemCountAfter(5)).isEqualTo(15);
+
+    mRangePolicy.onScrollStateChanged(RecyclerView.SCROLL_STATE_IDLE);
+
+    assertThat(mRangePolicy.getItemCountBefore(5)).isEqualTo(10);
+    assertThat(mRangePolicy.getItemCountAfter(5)).isEqualTo(10);
+  }
+
+  @Test
+  public void testRangeMovesBackWhenScrollingBack() {
+    mRangePolicy.onItemMeasured(100);
+
+    for (int i = 0; i <= 10; i++) {
+      mRangePolicy.onScrolled(-800, i * 16);
+    }
+
+    assertThat(mRangePolicy.getItemCountBefore(5)).isEqualTo(15);
+    assertThat(mRangePolicy.getItemCountAfter(5)).isEqualTo(5);
+  }
+
+  @Test
+  public void testBiasIsProportionalToVelocity() {
+    mRangePolicy.onItemMeasured(100);
+
+    // 0.5px per ms is half a viewport of 10 items per second, which moves an eighth of the range.
+    for (int i = 0; i <= 100; i++) {
+      mRangePolicy.onScrolled(8, i * 16);
+    }
+
+    assertThat(mRangePolicy.getItemCountBefore(10)).isEqualTo(17);
+    assertThat(mRangePolicy.getItemCountAfter(10)).isEqualTo(22);
+  }
+
+  @Test
+  public void testCountsHitsAndMisses() {
+    mRangePolicy.onItemBound(0, true);
+    mRangePolicy.onItemBound(1, true);
+    mRangePolicy.onItemBound(2, false);
+
+    assertThat(mRangePolicy.getRangeHitCount()).isEqualTo(2);
+    assertThat(mRangePolicy.getRangeMissCount()).isEqualTo(1);
+  }
+}
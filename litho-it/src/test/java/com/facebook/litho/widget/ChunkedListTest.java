@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho.widget;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+import com.facebook.litho.testing.testrunner.ComponentsTestRunner;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Tests {@link ChunkedList}
+ */
+@RunWith(ComponentsTestRunner.class)
+public class ChunkedListTest {
+
+  private ChunkedList<Integer> mList;
+
+  @Before
+  public void setup() {
+    mList = new ChunkedList<>();
+  }
+
+  @Test
+  public void testPrependHeavyWorkload() {
+    // Like a chat: older messages are loaded at the head while new ones arrive at the tail.
+    final List<Integer> expected = new ArrayList<>();
+    for (int i = 0; i < 10000; i++) {
+      if (i % 10 == 0) {
+        expected.add(i);
+        mList.add(i);
+      } else {
+        expected.add(0, i);
+        mList.add(0, i);
+      }
+    }
+
+    assertThat(mList).isEqualTo(expected);
+    // Full chunks are split in halves, so all the chunks but the first and last are half full.
+    assertThat(mList.getChunkCount())
+        .isLessThanOrEqualTo(expected.size() / (ChunkedList.CHUNK_CAPACITY / 2) + 2);
+  }
+
+  @Test
+  public void testMatchesArrayList() {
+    final Random random = new Random(42);
+    final List<Integer> expected = new ArrayList<>();
+
+    for (int i = 0; i < 20000; i++) {
+      final int operation = random.nextInt(10);
+      if (operation < 5 || expected.isEmpty()) {
+        final int index = random.nextInt(expected.size() + 1);
+        expected.add(index, i);
+        mList.add(index, i);
+      } else if (operation < 8) {
+        final int index = random.nextInt(expected.size());
+        assertThat(mList.remove(index)).isEqualTo(expected.remove(index));
+      } else {
+        final int index = random.nextInt(expected.size());
+        assertThat(mList.set(index, i)).isEqualTo(expected.set(index, i));
+      }
+    }
+
+    assertThat(mList.size()).isEqualTo(expected.size());
+    for (int i = expected.size() - 1; i >= 0; i--) {
+      assertThat(mList.get(i)).isEqualTo(expected.get(i));
+    }
+    assertThat(mList).isEqualTo(expected);
+  }
+
+  @Test
+  public void testRemovalsMergeChunks() {
+    for (int i = 0; i < 1000; i++) {
+      mList.add(i);
+    }
+
+    // Keeps every tenth item.
+    for (int i = 999; i >= 0; i--) {
+      if (i % 10 != 0) {
+        mList.remove(i);
+      }
+    }
+
+    assertThat(mList.size()).isEqualTo(100);
+    // Any two neighbouring chunks hold more than half a chunk.
+    assertThat(mList.getChunkCount())
+        .isLessThanOrEqualTo(2 * mList.size() / (ChunkedList.CHUNK_CAPACITY / 2) + 1);
+    for (int i = 0; i < mList.size(); i++) {
+      assertThat(mList.get(i)).isEqualTo(i * 10);
+    }
+  }
+
+  @Test
+  public void testModificationCountIgnoresSet() {
+    mList.add(0);
+    mList.add(1);
+    final int modificationCount = mList.getModificationCount();
+
+    mList.set(0, 2);
+    assertThat(mList.getModificationCount()).isEqualTo(modificationCount);
+
+    // Same size, but the positions moved.
+    mList.add(0, 3);
+    mList.remove(2);
+    assertThat(mList.size()).isEqualTo(2);
+    assertThat(mList.getModificationCount()).isNotEqualTo(modificationCount);
+  }
+
+  @Test
+  public void testClear() {
+    for (int i = 0; i < 200; i++) {
+      mList.add(i);
+    }
+
+    mList.clear();
+
+    assertThat(mList).isEmpty();
+    assertThat(mList.getChunkCount()).isEqualTo(0);
+
+    mList.add(0, 1);
+    assertThat(mList).containsExactly(1);
+  }
+
+  @Test
+  public void testConcurrentGets() throws Exception {
+    final int size = 10000;
+    for (int i = 0; i < size; i++) {
+      mList.add(0, size - 1 - i);
+    }
+
+    final int threadCount = 4;
+    final AtomicInteger mismatches = new AtomicInteger();
+    final AtomicReference<Throwable> error = new AtomicReference<>();
+    final CountDownLatch start = new CountDownLatch(1);
+    final Thread[] threads = new Thread[threadCount];
+    for (int t = 0; t < threadCount; t++) {
+      final int seed = t;
+      threads[t] =
+          new Thread(
+              new Runnable() {
+                @Override
+                public void run() {
+                  final Random random = new Random(seed);
+                  try {
+                    start.await();
+                    for (int i = 0; i < 100000; i++) {
+                      // Mixes sequential and random reads, which used to share a lookup cache.
+                      final int index = (i % 2 == 0) ? i % size : random.nextInt(size);
+                      if (mList.get(index) != index) {
+                        mismatches.incrementAndGet();
+                      }
+                    }
+                  } catch (Throwable e) {
+                    error.compareAndSet(null, e);
+                  }
+                }
+              });
+      threads[t].start();
+    }
+
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertThat(error.get()).isNull();
+    assertThat(mismatches.get()).isEqualTo(0);
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void testGetOutOfBounds() {
+    mList.add(0);
+    mList.get(1);
+  }
+}
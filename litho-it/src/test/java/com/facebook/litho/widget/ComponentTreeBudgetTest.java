@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho.widget;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+import com.facebook.litho.testing.testrunner.ComponentsTestRunner;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Tests {@link ComponentTreeBudget}
+ */
+@RunWith(ComponentsTestRunner.class)
+public class ComponentTreeBudgetTest {
+
+  private ComponentTreeBudget mBudget;
+
+  @Before
+  public void setup() {
+    mBudget = new ComponentTreeBudget(1000);
+  }
+
+  @Test
+  public void testNothingReleasedWithinCap() {
+    final TestClient client = new TestClient(new int[] {0, 1, 2}, 300);
+    mBudget.register(client);
+
+    mBudget.enforce();
+
+    assertThat(mBudget.getEstimatedRetainedSize()).isEqualTo(900);
+    assertThat(client.mReleasedDistances).isEmpty();
+  }
+
+  @Test
+  public void testReleasesFarthestTreesFirstAcrossClients() {
+    final TestClient first = new TestClient(new int[] {0, 1, 4}, 200);
+    final TestClient second = new TestClient(new int[] {0, 2, 3}, 200);
+    mBudget.register(first);
+    mBudget.register(second);
+
+    mBudget.enforce();
+
+    assertThat(mBudget.getEstimatedRetainedSize()).isEqualTo(1000);
+    assertThat(first.mReleasedDistances).containsExactly(4);
+    assertThat(second.mReleasedDistances).isEmpty();
+
+    mBudget.setCapBytes(500);
+    mBudget.enforce();
+
+    assertThat(mBudget.getEstimatedRetainedSize()).isEqualTo(400);
+    assertThat(first.mReleasedDistances).containsExactly(4, 1);
+    assertThat(second.mReleasedDistances).containsExactly(3, 2);
+  }
+
+  @Test
+  public void testVisibleTreesAreKept() {
+    final TestClient client = new TestClient(new int[] {0, 0, 0, 1}, 500);
+    mBudget.register(client);
+
+    mBudget.enforce();
+
+    assertThat(client.mReleasedDistances).containsExactly(1);
+    assertThat(mBudget.getEstimatedRetainedSize()).isEqualTo(1500);
+  }
+
+  @Test
+  public void testUnregisteredClientsAreIgnored() {
+    final TestClient client = new TestClient(new int[] {1, 2, 3}, 1000);
+    mBudget.register(client);
+    mBudget.unregister(client);
+
+    mBudget.enforce();
+
+    assertThat(mBudget.getEstimatedRetainedSize()).isEqualTo(0);
+    assertThat(client.mReleasedDistances).isEmpty();
+  }
+
+  private static class TestClient implements ComponentTreeBudget.Client {
+
+    // The distances from the viewport of the held trees, 0 for visible ones.
+    private final List<Integer> mDistances = new ArrayList<>();
+    private final List<Integer> mReleasedDistances = new ArrayList<>();
+    private final int mTreeSize;
+
+    private TestClient(int[] distances, int treeSize) {
+      for (int distance : distances) {
+        mDistances.add(distance);
+      }
+      mTreeSize = treeSize;
+    }
+
+    @Override
+    public int getEstimatedRetainedSize() {
+      return mDistances.size() * mTreeSize;
+    }
+
+    @Override
+    public int getFarthestReleasableTreeDistance() {
+      int farthest = 0;
+      for (int distance : mDistances) {
+        farthest = Math.max(farthest, distance);
+      }
+      return farthest;
+    }
+
+    @Override
+    public int releaseFarthestTree() {
+      final int farthest = getFarthestReleasableTreeDistance();
+      if (farthest == 0) {
+        return -1;
+      }
+
+      mDistances.remove(Integer.valueOf(farthest));
+      mReleasedDistances.add(farthest);
+      return mTreeSize;
+    }
+  }
+}
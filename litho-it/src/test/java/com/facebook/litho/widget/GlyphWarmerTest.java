@@ -9,13 +9,19 @@
 
 package com.facebook.litho.widget;
 
+import static org.assertj.core.api.Java6Assertions.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 
 import android.graphics.Canvas;
 import android.graphics.Picture;
+import android.os.SystemClock;
 import android.text.Layout;
+import android.text.StaticLayout;
+import android.text.TextPaint;
 import com.facebook.litho.testing.testrunner.ComponentsTestRunner;
 import org.junit.Before;
 import org.junit.Test;
@@ -39,6 +45,7 @@ public class GlyphWarmerTest {
   public void setup() {
     mGlyphWarmer = GlyphWarmer.getInstance();
     mShadowLooper = Shadows.shadowOf(mGlyphWarmer.getWarmerLooper());
+    mGlyphWarmer.reset();
   }
 
   @Test
@@ -49,6 +56,55 @@ public class GlyphWarmerTest {
     verify(layout).draw(any(Canvas.class));
   }
 
+  @Test
+  public void testSkipsDuplicates() {
+    Layout layout = createLayout("Some text.");
+    Layout duplicateLayout = createLayout("Some text.");
+
+    mGlyphWarmer.warmLayout(layout);
+    mGlyphWarmer.warmLayout(duplicateLayout);
+    mShadowLooper.runToEndOfTasks();
+
+    verify(layout).draw(any(Canvas.class));
+    verify(duplicateLayout, never()).draw(any(Canvas.class));
+    assertThat(mGlyphWarmer.getWarmedCount()).isEqualTo(1);
+    assertThat(mGlyphWarmer.getSkippedDuplicateCount()).isEqualTo(1);
+
+    mGlyphWarmer.warmLayout(createLayout("Some text."));
+
+    assertThat(mGlyphWarmer.getSkippedDuplicateCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void testWarmsHigherPriorityFirst() {
+    Layout lowPriorityLayout = createLayout("Low priority");
+    Layout highPriorityLayout = createLayout("High priority");
+
+    mGlyphWarmer.warmLayout(lowPriorityLayout, GlyphWarmer.PRIORITY_LOW);
+    mGlyphWarmer.warmLayout(highPriorityLayout, GlyphWarmer.PRIORITY_HIGH);
+    mShadowLooper.runOneTask();
+
+    verify(highPriorityLayout).draw(any(Canvas.class));
+    verify(lowPriorityLayout, never()).draw(any(Canvas.class));
+  }
+
+  @Test
+  public void testDropsStaleLayouts() {
+    Layout layout = createLayout("Some text.");
+
+    mGlyphWarmer.warmLayout(layout);
+    SystemClock.sleep(1000);
+    mShadowLooper.runOneTask();
+
+    verify(layout, never()).draw(any(Canvas.class));
+    assertThat(mGlyphWarmer.getDroppedStaleCount()).isEqualTo(1);
+  }
+
+  private static Layout createLayout(String text) {
+    return spy(
+        new StaticLayout(text, new TextPaint(), 100, Layout.Alignment.ALIGN_NORMAL, 1, 0, false));
+  }
+
   @Implements(Picture.class)
   public static class ShadowPicture {
 
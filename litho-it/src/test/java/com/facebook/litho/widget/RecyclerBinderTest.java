@@ -52,6 +52,7 @@ import org.junit.runner.RunWith;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowLooper;
 
 /**
  * Tests for {@link RecyclerBinder}
@@ -61,6 +62,7 @@ public class RecyclerBinderTest {
 
   private static final float RANGE_RATIO = 2.0f;
   private static final int RANGE_SIZE = 3;
+  private static final int TREE_SIZE = 100;
 
   private static final ViewCreator VIEW_CREATOR_1 =
       new ViewCreator() {
@@ -93,6 +95,7 @@ public class RecyclerBinderTest {
 
   private final Map<Component, TestComponentTreeHolder> mHoldersForComponents = new HashMap<>();
   private RecyclerBinder mRecyclerBinder;
+  private RecyclerBinder.ComponentTreeHolderFactory mComponentTreeHolderFactory;
   private LayoutInfo mLayoutInfo;
   private ComponentContext mComponentContext;
 
@@ -100,7 +103,7 @@ public class RecyclerBinderTest {
   public void setup() throws NoSuchFieldException, IllegalAccessException {
     mComponentContext = new ComponentContext(RuntimeEnvironment.application);
 
-    final RecyclerBinder.ComponentTreeHolderFactory componentTreeHolderFactory =
+    mComponentTreeHolderFactory =
         new RecyclerBinder.ComponentTreeHolderFactory() {
           @Override
           public ComponentTreeHolder create(
@@ -123,7 +126,7 @@ public class RecyclerBinderTest {
     mRecyclerBinder = new RecyclerBinder.Builder()
         .rangeRatio(RANGE_RATIO)
         .layoutInfo(mLayoutInfo)
-        .componentTreeHolderFactory(componentTreeHolderFactory)
+        .componentTreeHolderFactory(mComponentTreeHolderFactory)
         .build(mComponentContext);
 
     mRenderInfoViewCreatorController = mRecyclerBinder.mRenderInfoViewCreatorController;
@@ -563,6 +566,38 @@ public class RecyclerBinderTest {
     }
   }
 
+  @Test
+  public void testScrollOnlyVisitsRangeEdges() {
+    final List<ComponentRenderInfo> components = prepareLoadedBinder();
+    final int rangeTotal = (int) (RANGE_SIZE + (RANGE_RATIO * RANGE_SIZE));
+
+    // Invalidate an item that stays within the range behind the binder's back: since nothing
+    // changed in the binder, scrolling by one item should only visit the items at the edges.
+    final TestComponentTreeHolder stillInRange =
+        mHoldersForComponents.get(components.get(rangeTotal).getComponent());
+    stillInRange.mTreeValid = false;
+    stillInRange.mLayoutAsyncCalled = false;
+
+    mRecyclerBinder.onNewVisibleRange(1, 1 + RANGE_SIZE);
+
+    assertThat(stillInRange.mLayoutAsyncCalled).isFalse();
+    final TestComponentTreeHolder enteredRange =
+        mHoldersForComponents.get(components.get(rangeTotal + 1).getComponent());
+    assertThat(enteredRange.isTreeValid()).isTrue();
+    assertThat(enteredRange.mLayoutAsyncCalled).isTrue();
+  }
+
+  @Test
+  public void testSortByDistanceFromViewport() {
+    final long[] sorted = RecyclerBinder.sortByDistanceFromViewport(0, 9, 3, 4, 5, 6);
+    final int[] positions = new int[sorted.length];
+    for (int i = 0; i < sorted.length; i++) {
+      positions[i] = (int) sorted[i];
+    }
+
+    assertThat(positions).containsExactly(5, 6, 7, 8, 2, 9, 1, 0);
+  }
+
   @Test
   public void testRealRangeOverridesEstimatedRange() {
     final List<ComponentRenderInfo> components = prepareLoadedBinder();
@@ -631,6 +666,41 @@ public class RecyclerBinderTest {
     }
   }
 
+  @Test
+  public void testStickyPositionsFollowChanges() {
+    final List<ComponentRenderInfo> components = prepareLoadedBinder();
+    makeIndexSticky(components, 5);
+    makeIndexSticky(components, 40);
+
+    assertThat(mRecyclerBinder.findStickyPositionAtOrBefore(30)).isEqualTo(5);
+    assertThat(mRecyclerBinder.findStickyPositionAfter(5)).isEqualTo(40);
+
+    final List<RenderInfo> newRenderInfos = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      newRenderInfos.add(
+          ComponentRenderInfo.create()
+              .component(mock(Component.class))
+              .isSticky(i == 1)
+              .build());
+    }
+    mRecyclerBinder.insertRangeAt(10, newRenderInfos);
+
+    assertThat(mRecyclerBinder.isSticky(11)).isTrue();
+    assertThat(mRecyclerBinder.isSticky(43)).isTrue();
+
+    mRecyclerBinder.removeRangeAt(0, 6);
+    mRecyclerBinder.moveItem(37, 0);
+    mRecyclerBinder.updateItemAt(
+        6, ComponentRenderInfo.create().component(mock(Component.class)).build());
+
+    assertThat(mRecyclerBinder.findStickyPositionAtOrBefore(99)).isEqualTo(0);
+    assertThat(mRecyclerBinder.findStickyPositionAfter(0)).isEqualTo(RecyclerView.NO_POSITION);
+    for (int i = 0; i < mRecyclerBinder.getItemCount(); i++) {
+      assertThat(mRecyclerBinder.isSticky(i))
+          .isEqualTo(mRecyclerBinder.getRenderInfoAt(i).isSticky());
+    }
+  }
+
   @Test
   public void testMoveRangeToEnd() {
     final List<ComponentRenderInfo> components = prepareLoadedBinder();
@@ -1252,6 +1322,112 @@ public class RecyclerBinderTest {
     assertThat(mRecyclerBinder.getRangeCalculationResult()).isNotNull();
   }
 
+  @Test
+  public void testRangePolicyDecidesRangeBounds() {
+    final RangePolicy rangePolicy = mock(RangePolicy.class);
+    when(rangePolicy.getViewportCount(anyInt(), anyInt())).thenReturn(RANGE_SIZE);
+    when(rangePolicy.getItemCountBefore(anyInt())).thenReturn(0);
+    when(rangePolicy.getItemCountAfter(anyInt())).thenReturn(1);
+
+    mRecyclerBinder = new RecyclerBinder.Builder()
+        .rangePolicy(rangePolicy)
+        .layoutInfo(mLayoutInfo)
+        .componentTreeHolderFactory(mComponentTreeHolderFactory)
+        .build(mComponentContext);
+    final List<ComponentRenderInfo> components = prepareLoadedBinder();
+
+    // The first item was measured to estimate the range.
+    verify(rangePolicy).onItemMeasured(100);
+
+    mRecyclerBinder.onNewVisibleRange(10, 11);
+
+    for (int i = 0; i < components.size(); i++) {
+      final TestComponentTreeHolder holder =
+          mHoldersForComponents.get(components.get(i).getComponent());
+      assertThat(holder.isTreeValid()).isEqualTo(i >= 10 && i <= 10 + RANGE_SIZE + 1);
+    }
+  }
+
+  @Test
+  public void testRangePolicyViewportCountDecidesSyncLayouts() {
+    // Twice as many items fit in the viewport as estimated from the first one.
+    final RangePolicy rangePolicy = mock(RangePolicy.class);
+    when(rangePolicy.getViewportCount(anyInt(), anyInt())).thenReturn(2 * RANGE_SIZE);
+    when(rangePolicy.getItemCountBefore(anyInt())).thenReturn(0);
+    when(rangePolicy.getItemCountAfter(anyInt())).thenReturn(0);
+
+    mRecyclerBinder = new RecyclerBinder.Builder()
+        .rangePolicy(rangePolicy)
+        .layoutInfo(mLayoutInfo)
+        .componentTreeHolderFactory(mComponentTreeHolderFactory)
+        .build(mComponentContext);
+    final List<ComponentRenderInfo> components = prepareLoadedBinder();
+    mRecyclerBinder.onNewVisibleRange(0, 2 * RANGE_SIZE - 1);
+
+    final ComponentRenderInfo insertedRenderInfo =
+        ComponentRenderInfo.create().component(mock(Component.class)).build();
+    mRecyclerBinder.insertItemAt(RANGE_SIZE + 1, insertedRenderInfo);
+
+    assertThat(mHoldersForComponents.get(insertedRenderInfo.getComponent()).mLayoutSyncCalled)
+        .isTrue();
+
+    final TestComponentTreeHolder updatedHolder =
+        mHoldersForComponents.get(components.get(RANGE_SIZE + 1).getComponent());
+    updatedHolder.mLayoutSyncCalled = false;
+    mRecyclerBinder.updateItemAt(
+        RANGE_SIZE + 2, ComponentRenderInfo.create().component(mock(Component.class)).build());
+
+    assertThat(updatedHolder.mLayoutSyncCalled).isTrue();
+  }
+
+  @Test
+  public void testComponentTreeBudgetReleasesFarthestTrees() {
+    final ComponentTreeBudget budget = new ComponentTreeBudget(5 * TREE_SIZE);
+    mRecyclerBinder = new RecyclerBinder.Builder()
+        .rangeRatio(RANGE_RATIO)
+        .componentTreeBudget(budget)
+        .layoutInfo(mLayoutInfo)
+        .componentTreeHolderFactory(mComponentTreeHolderFactory)
+        .build(mComponentContext);
+    final List<ComponentRenderInfo> components = prepareLoadedBinder();
+
+    // The layouts just requested for the range are pending, they hold nothing and are kept.
+    final List<TestComponentTreeHolder> rangeHolders = new ArrayList<>();
+    for (int i = 0; i < components.size(); i++) {
+      final TestComponentTreeHolder holder =
+          mHoldersForComponents.get(components.get(i).getComponent());
+      if (holder.mLayoutAsyncCalled || holder.mLayoutSyncCalled) {
+        assertThat(holder.isTreeValid()).isTrue();
+        assertThat(holder.mDidAcquireStateHandler).isFalse();
+        rangeHolders.add(holder);
+      }
+    }
+    assertThat(rangeHolders.size()).isGreaterThan(5);
+    assertThat(budget.getEstimatedRetainedSize()).isLessThanOrEqualTo(5 * TREE_SIZE);
+
+    // Completed layouts grow the binder, which enforces the budget.
+    for (TestComponentTreeHolder holder : rangeHolders) {
+      holder.completeAsyncLayout();
+    }
+    ShadowLooper.runUiThreadTasks();
+
+    for (int i = 0; i < components.size(); i++) {
+      final TestComponentTreeHolder holder =
+          mHoldersForComponents.get(components.get(i).getComponent());
+      assertThat(holder.isTreeValid()).isEqualTo(i < 5);
+    }
+    assertThat(mRecyclerBinder.getEstimatedRetainedSize()).isEqualTo(5 * TREE_SIZE);
+    assertThat(budget.getEstimatedRetainedSize()).isEqualTo(5 * TREE_SIZE);
+
+    // The released items are still in the range, so they are laid out again.
+    mRecyclerBinder.onNewVisibleRange(0, 0);
+
+    for (TestComponentTreeHolder holder : rangeHolders) {
+      assertThat(holder.isTreeValid()).isTrue();
+    }
+    assertThat(budget.getEstimatedRetainedSize()).isEqualTo(5 * TREE_SIZE);
+  }
+
   private List<RenderInfo> prepareMixedLoadedBinder(
       int adapterSize, Set<Integer> viewItems, ViewCreatorProvider viewCreatorProvider) {
     final List<RenderInfo> renderInfos = new ArrayList<>();
@@ -1311,6 +1487,8 @@ public class RecyclerBinderTest {
   private static class TestComponentTreeHolder extends ComponentTreeHolder {
 
     private boolean mTreeValid;
+    // Async layouts only hold a layout once the test completes them.
+    private boolean mLayoutCompleted;
     private ComponentTree mComponentTree;
     private RenderInfo mRenderInfo;
     private boolean mLayoutAsyncCalled;
@@ -1330,17 +1508,22 @@ public class RecyclerBinderTest {
     }
 
     @Override
-    public synchronized void acquireStateHandlerAndReleaseTree() {
-      mComponentTree = null;
-      mTreeValid = false;
-      mLayoutAsyncCalled = false;
-      mLayoutSyncCalled = false;
-      mDidAcquireStateHandler = true;
+    public void acquireStateHandlerAndReleaseTree() {
+      synchronized (this) {
+        mComponentTree = null;
+        mTreeValid = false;
+        mLayoutCompleted = false;
+        mLayoutAsyncCalled = false;
+        mLayoutSyncCalled = false;
+        mDidAcquireStateHandler = true;
+      }
+      setRetainedSize(0);
     }
 
     @Override
     protected synchronized void invalidateTree() {
       mTreeValid = false;
+      mLayoutCompleted = false;
       mLayoutAsyncCalled = false;
       mLayoutSyncCalled = false;
     }
@@ -1352,6 +1535,7 @@ public class RecyclerBinderTest {
         int heightSpec) {
       mComponentTree = mock(ComponentTree.class);
       mTreeValid = true;
+      mLayoutCompleted = false;
       mLayoutAsyncCalled = true;
       mChildWidth = SizeSpec.getSize(widthSpec);
       mChildHeight = SizeSpec.getSize(heightSpec);
@@ -1362,12 +1546,14 @@ public class RecyclerBinderTest {
         ComponentContext context, int widthSpec, int heightSpec, Size size) {
       mComponentTree = mock(ComponentTree.class);
       mTreeValid = true;
+      mLayoutCompleted = true;
       if (size != null) {
         size.width = SizeSpec.getSize(widthSpec);
         size.height = SizeSpec.getSize(heightSpec);
       }
 
       mLayoutSyncCalled = true;
+      setRetainedSize(TREE_SIZE);
     }
 
     @Override
@@ -1380,6 +1566,21 @@ public class RecyclerBinderTest {
       return mTreeValid;
     }
 
+    @Override
+    public synchronized boolean hasCompletedLatestLayout() {
+      return mTreeValid && mLayoutCompleted;
+    }
+
+    private void completeAsyncLayout() {
+      synchronized (this) {
+        if (!mTreeValid) {
+          return;
+        }
+        mLayoutCompleted = true;
+      }
+      setRetainedSize(TREE_SIZE);
+    }
+
     @Override
     public synchronized ComponentTree getComponentTree() {
       return mComponentTree;
@@ -0,0 +1,259 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho.widget;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import android.support.v7.util.DiffUtil;
+import com.facebook.litho.Component;
+import com.facebook.litho.ComponentContext;
+import com.facebook.litho.testing.testrunner.ComponentsTestRunner;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowLooper;
+
+/**
+ * Tests {@link RecyclerBinderUpdateCallback}
+ */
+@RunWith(ComponentsTestRunner.class)
+public class RecyclerBinderUpdateCallbackTest {
+
+  private static final String ITEM = "item";
+  private static final int ITEM_COUNT = 5000;
+
+  private final Component mComponent = mock(Component.class);
+  private final AtomicInteger mRenderCount = new AtomicInteger();
+  private RecyclerBinder mRecyclerBinder;
+  private ExecutorService mDiffExecutor;
+  private ExecutorService mRenderExecutor;
+
+  private final RecyclerBinderUpdateCallback.ComponentRenderer<Integer> mComponentRenderer =
+      new RecyclerBinderUpdateCallback.ComponentRenderer<Integer>() {
+        @Override
+        public RenderInfo render(Integer item, int idx) {
+          mRenderCount.incrementAndGet();
+          return ComponentRenderInfo.create()
+              .component(mComponent)
+              .customAttribute(ITEM, item)
+              .build();
+        }
+      };
+
+  @Before
+  public void setup() {
+    mRecyclerBinder =
+        new RecyclerBinder.Builder()
+            .build(new ComponentContext(RuntimeEnvironment.application));
+    mDiffExecutor = Executors.newSingleThreadExecutor();
+    mRenderExecutor = Executors.newFixedThreadPool(3);
+  }
+
+  @After
+  public void tearDown() {
+    mDiffExecutor.shutdownNow();
+    mRenderExecutor.shutdownNow();
+  }
+
+  @Test
+  public void testApplyChangesetRendersOnlyChangedItems() {
+    final List<Integer> oldData = createData(0, 10);
+    applyChangeset(new ArrayList<Integer>(), oldData);
+    mRenderCount.set(0);
+
+    final List<Integer> newData = new ArrayList<>(oldData);
+    newData.remove(2);
+    newData.set(5, 100);
+    newData.add(0, 200);
+    applyChangeset(oldData, newData);
+
+    assertThat(mRenderCount.get()).isEqualTo(2);
+    assertBinderContains(newData);
+  }
+
+  @Test
+  public void testApplyDiffAsyncAppliesOnMainThread() throws Exception {
+    final List<Integer> data = createData(0, ITEM_COUNT);
+
+    applyDiffAsync(new ArrayList<Integer>(), data, mRenderExecutor);
+    awaitDiffExecutor();
+
+    assertThat(mRecyclerBinder.getItemCount()).isEqualTo(0);
+
+    ShadowLooper.runUiThreadTasks();
+
+    assertThat(mRenderCount.get()).isEqualTo(ITEM_COUNT);
+    assertBinderContains(data);
+  }
+
+  @Test
+  public void testApplyDiffAsyncAppliesUpdatesInOrder() throws Exception {
+    final List<Integer> first = createData(0, ITEM_COUNT);
+    final List<Integer> second = new ArrayList<>(first);
+    for (int i = 0; i < ITEM_COUNT; i += 7) {
+      second.set(i, -i);
+    }
+    final List<Integer> third = new ArrayList<>(second.subList(100, ITEM_COUNT));
+    third.addAll(createData(ITEM_COUNT, 500));
+
+    applyDiffAsync(new ArrayList<Integer>(), first, mRenderExecutor);
+    applyDiffAsync(first, second, mRenderExecutor);
+    applyDiffAsync(second, third, null);
+    awaitDiffExecutor();
+    ShadowLooper.runUiThreadTasks();
+
+    assertBinderContains(third);
+  }
+
+  @Test
+  public void testApplyDiffAsyncRethrowsFailuresOnMainThread() throws Exception {
+    final IllegalStateException failure = new IllegalStateException();
+    final List<Integer> data = createData(0, 10);
+
+    RecyclerBinderUpdateCallback.applyDiffAsync(
+        0,
+        data,
+        new IntegerDiffCallback(new ArrayList<Integer>(), data),
+        new RecyclerBinderUpdateCallback.ComponentRenderer<Integer>() {
+          @Override
+          public RenderInfo render(Integer item, int idx) {
+            throw failure;
+          }
+        },
+        mRecyclerBinder,
+        mDiffExecutor,
+        null);
+    awaitDiffExecutor();
+
+    Throwable thrown = null;
+    try {
+      ShadowLooper.runUiThreadTasks();
+    } catch (Throwable t) {
+      thrown = t;
+    }
+
+    assertThat(thrown).isSameAs(failure);
+    assertThat(mRecyclerBinder.getItemCount()).isEqualTo(0);
+
+    // The dropped update doesn't leave anything behind for the next ones.
+    applyDiffAsync(new ArrayList<Integer>(), data, null);
+    awaitDiffExecutor();
+    ShadowLooper.runUiThreadTasks();
+
+    assertBinderContains(data);
+  }
+
+  @Test(expected = RuntimeException.class)
+  public void testParallelRenderRethrowsErrors() {
+    final RecyclerBinderUpdateCallback<Integer> updatesCallback =
+        RecyclerBinderUpdateCallback.acquire(
+            0,
+            createData(0, ITEM_COUNT),
+            new RecyclerBinderUpdateCallback.ComponentRenderer<Integer>() {
+              @Override
+              public RenderInfo render(Integer item, int idx) {
+                if (idx == ITEM_COUNT / 2) {
+                  throw new IllegalStateException();
+                }
+                return mComponentRenderer.render(item, idx);
+              }
+            },
+            mRecyclerBinder);
+    updatesCallback.onInserted(0, ITEM_COUNT);
+
+    updatesCallback.renderPlaceholders(mRenderExecutor);
+  }
+
+  private void applyChangeset(List<Integer> oldData, List<Integer> newData) {
+    final RecyclerBinderUpdateCallback<Integer> updatesCallback =
+        RecyclerBinderUpdateCallback.acquire(
+            oldData.size(), newData, mComponentRenderer, mRecyclerBinder);
+    DiffUtil.calculateDiff(new IntegerDiffCallback(oldData, newData))
+        .dispatchUpdatesTo(updatesCallback);
+    updatesCallback.applyChangeset();
+    RecyclerBinderUpdateCallback.release(updatesCallback);
+  }
+
+  private void applyDiffAsync(
+      List<Integer> oldData, List<Integer> newData, ExecutorService renderExecutor) {
+    RecyclerBinderUpdateCallback.applyDiffAsync(
+        oldData.size(),
+        newData,
+        new IntegerDiffCallback(oldData, newData),
+        mComponentRenderer,
+        mRecyclerBinder,
+        mDiffExecutor,
+        renderExecutor);
+  }
+
+  private void awaitDiffExecutor() throws Exception {
+    // The executor is serial, so this runs after the updates scheduled before it.
+    mDiffExecutor.submit(new Runnable() {
+      @Override
+      public void run() {
+      }
+    }).get();
+  }
+
+  private void assertBinderContains(List<Integer> data) {
+    assertThat(mRecyclerBinder.getItemCount()).isEqualTo(data.size());
+    for (int i = 0; i < data.size(); i++) {
+      assertThat(mRecyclerBinder.getRenderInfoAt(i).getCustomAttribute(ITEM))
+          .isEqualTo(data.get(i));
+    }
+  }
+
+  private static List<Integer> createData(int start, int count) {
+    final List<Integer> data = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      data.add(start + i);
+    }
+    return data;
+  }
+
+  private static class IntegerDiffCallback extends DiffUtil.Callback {
+
+    private final List<Integer> mOldData;
+    private final List<Integer> mNewData;
+
+    private IntegerDiffCallback(List<Integer> oldData, List<Integer> newData) {
+      mOldData = oldData;
+      mNewData = newData;
+    }
+
+    @Override
+    public int getOldListSize() {
+      return mOldData.size();
+    }
+
+    @Override
+    public int getNewListSize() {
+      return mNewData.size();
+    }
+
+    @Override
+    public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+      return mOldData.get(oldItemPosition).equals(mNewData.get(newItemPosition));
+    }
+
+    @Override
+    public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+      return true;
+    }
+  }
+}
@@ -91,7 +91,7 @@ public class StickyHeaderControllerTest {
     mStickyHeaderController.init(wrapper);
 
     when(mHasStickyHeader.findFirstVisibleItemPosition()).thenReturn(2);
-    when(mHasStickyHeader.isSticky(2)).thenReturn(true);
+    when(mHasStickyHeader.findStickyPositionAtOrBefore(2)).thenReturn(2);
 
     ComponentTree componentTree = mock(ComponentTree.class);
     when(mHasStickyHeader.getComponentAt(2)).thenReturn(componentTree);
@@ -113,7 +113,8 @@ public class StickyHeaderControllerTest {
     mStickyHeaderController.init(wrapper);
 
     when(mHasStickyHeader.findFirstVisibleItemPosition()).thenReturn(6);
-    when(mHasStickyHeader.isSticky(2)).thenReturn(true);
+    when(mHasStickyHeader.findStickyPositionAtOrBefore(6)).thenReturn(2);
+    when(mHasStickyHeader.findStickyPositionAfter(6)).thenReturn(RecyclerView.NO_POSITION);
 
     when(mHasStickyHeader.getComponentAt(2)).thenReturn(mock(ComponentTree.class));
     when(mHasStickyHeader.getComponentAt(6)).thenReturn(mock(ComponentTree.class));
@@ -132,7 +133,7 @@ public class StickyHeaderControllerTest {
     mStickyHeaderController.init(wrapper);
 
     when(mHasStickyHeader.findFirstVisibleItemPosition()).thenReturn(2);
-    when(mHasStickyHeader.isSticky(2)).thenReturn(true);
+    when(mHasStickyHeader.findStickyPositionAtOrBefore(2)).thenReturn(2);
     when(mHasStickyHeader.isSticky(3)).thenReturn(true);
     when(mHasStickyHeader.isValidPosition(3)).thenReturn(true);
 
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho.widget;
+
+import static android.support.v7.widget.RecyclerView.NO_POSITION;
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+import com.facebook.litho.testing.testrunner.ComponentsTestRunner;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Tests {@link StickyPositionIndex}
+ */
+@RunWith(ComponentsTestRunner.class)
+public class StickyPositionIndexTest {
+
+  private StickyPositionIndex mIndex;
+
+  @Before
+  public void setup() {
+    mIndex = new StickyPositionIndex();
+    mIndex.set(2, true);
+    mIndex.set(10, true);
+    mIndex.set(20, true);
+  }
+
+  @Test
+  public void testFindStickyPositionAtOrBefore() {
+    assertThat(mIndex.findStickyPositionAtOrBefore(0)).isEqualTo(NO_POSITION);
+    assertThat(mIndex.findStickyPositionAtOrBefore(2)).isEqualTo(2);
+    assertThat(mIndex.findStickyPositionAtOrBefore(9)).isEqualTo(2);
+    assertThat(mIndex.findStickyPositionAtOrBefore(10)).isEqualTo(10);
+    assertThat(mIndex.findStickyPositionAtOrBefore(100)).isEqualTo(20);
+  }
+
+  @Test
+  public void testFindStickyPositionAfter() {
+    assertThat(mIndex.findStickyPositionAfter(0)).isEqualTo(2);
+    assertThat(mIndex.findStickyPositionAfter(2)).isEqualTo(10);
+    assertThat(mIndex.findStickyPositionAfter(15)).isEqualTo(20);
+    assertThat(mIndex.findStickyPositionAfter(20)).isEqualTo(NO_POSITION);
+  }
+
+  @Test
+  public void testSet() {
+    mIndex.set(10, false);
+    mIndex.set(5, true);
+    mIndex.set(2, true);
+
+    assertSticky(2, 5, 20);
+  }
+
+  @Test
+  public void testInsertShiftsFollowingPositions() {
+    mIndex.insert(10, 3);
+
+    assertSticky(2, 13, 23);
+    assertThat(mIndex.isSticky(10)).isFalse();
+  }
+
+  @Test
+  public void testRemoveDropsRemovedPositions() {
+    mIndex.remove(5, 6);
+
+    assertSticky(2, 14);
+  }
+
+  @Test
+  public void testMove() {
+    mIndex.move(10, 0);
+    assertSticky(0, 3, 20);
+
+    mIndex.move(5, 25);
+    assertSticky(0, 3, 19);
+
+    mIndex.move(19, 4);
+    assertSticky(0, 3, 4);
+  }
+
+  private void assertSticky(int... positions) {
+    int position = -1;
+    for (int expected : positions) {
+      position = mIndex.findStickyPositionAfter(position);
+      assertThat(position).isEqualTo(expected);
+      assertThat(mIndex.isSticky(position)).isTrue();
+    }
+    assertThat(mIndex.findStickyPositionAfter(position)).isEqualTo(NO_POSITION);
+  }
+}
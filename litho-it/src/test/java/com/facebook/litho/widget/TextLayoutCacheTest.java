@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho.widget;
+
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+import android.graphics.Color;
+import android.text.Layout;
+import android.text.Spannable;
+import com.facebook.litho.Component;
+import com.facebook.litho.ComponentContext;
+import com.facebook.litho.config.ComponentsConfiguration;
+import com.facebook.litho.testing.ComponentTestHelper;
+import com.facebook.litho.testing.testrunner.ComponentsTestRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.reflect.Whitebox;
+import org.robolectric.RuntimeEnvironment;
+
+@RunWith(ComponentsTestRunner.class)
+public class TextLayoutCacheTest {
+
+  private ComponentContext mContext;
+
+  @Before
+  public void setup() {
+    mContext = new ComponentContext(RuntimeEnvironment.application);
+    ComponentsConfiguration.useTextLayoutCache = true;
+    TextLayoutCache.clear();
+  }
+
+  @After
+  public void tearDown() {
+    ComponentsConfiguration.useTextLayoutCache = false;
+    TextLayoutCache.clear();
+  }
+
+  @Test
+  public void testEqualTextSharesLayout() {
+    final Layout layout =
+        getMountedLayout(Text.create(mContext).text("Some text.").textColor(Color.RED).build());
+    final int hitCount = TextLayoutCache.getHitCount();
+
+    final Layout otherLayout =
+        getMountedLayout(Text.create(mContext).text("Some text.").textColor(Color.RED).build());
+
+    assertThat(otherLayout).isSameAs(layout);
+    assertThat(TextLayoutCache.getHitCount()).isGreaterThan(hitCount);
+  }
+
+  @Test
+  public void testDifferentAttributesDontShareLayout() {
+    final Layout layout =
+        getMountedLayout(Text.create(mContext).text("Some text.").textColor(Color.RED).build());
+
+    assertThat(
+            getMountedLayout(
+                Text.create(mContext).text("Some text.").textColor(Color.BLUE).build()))
+        .isNotSameAs(layout);
+    assertThat(
+            getMountedLayout(
+                Text.create(mContext).text("Some text.").textColor(Color.RED).textSizePx(50)
+                    .build()))
+        .isNotSameAs(layout);
+  }
+
+  @Test
+  public void testSpannedTextIsNotCached() {
+    final Spannable text = Spannable.Factory.getInstance().newSpannable("Some text.");
+    final int hitCount = TextLayoutCache.getHitCount();
+    final int missCount = TextLayoutCache.getMissCount();
+
+    final Layout layout =
+        getMountedLayout(Text.create(mContext).text(text).textColor(Color.RED).build());
+
+    assertThat(getMountedLayout(Text.create(mContext).text(text).textColor(Color.RED).build()))
+        .isNotSameAs(layout);
+    assertThat(TextLayoutCache.getHitCount()).isEqualTo(hitCount);
+    assertThat(TextLayoutCache.getMissCount()).isEqualTo(missCount);
+  }
+
+  private Layout getMountedLayout(Component component) {
+    final TextDrawable drawable =
+        (TextDrawable) ComponentTestHelper.mountComponent(mContext, component)
+            .getDrawables()
+            .get(0);
+    return Whitebox.getInternalState(drawable, "mLayout");
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho.widget;
+
+import static com.facebook.litho.SizeSpec.EXACTLY;
+import static com.facebook.litho.SizeSpec.makeSizeSpec;
+import static org.assertj.core.api.Java6Assertions.assertThat;
+
+import android.graphics.Color;
+import com.facebook.litho.Component;
+import com.facebook.litho.ComponentContext;
+import com.facebook.litho.ComponentTree;
+import com.facebook.litho.config.ComponentsConfiguration;
+import com.facebook.litho.testing.testrunner.ComponentsTestRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.Shadows;
+import org.robolectric.shadows.ShadowLooper;
+
+/**
+ * Tests {@link TextPrewarmer}.
+ */
+@RunWith(ComponentsTestRunner.class)
+public class TextPrewarmerTest {
+
+  private ComponentContext mContext;
+  private ShadowLooper mShadowLooper;
+  private TextPrewarmer mTextPrewarmer;
+  private boolean mHasPendingLayouts;
+  private int mWidthSpec;
+  private int mHeightSpec;
+
+  @Before
+  public void setup() {
+    mContext = new ComponentContext(RuntimeEnvironment.application);
+    mShadowLooper = Shadows.shadowOf(TextPrewarmer.getPrewarmLooper());
+    mTextPrewarmer =
+        new TextPrewarmer(
+            mContext,
+            new TextPrewarmer.PendingLayoutChecker() {
+              @Override
+              public boolean hasPendingLayouts() {
+                return mHasPendingLayouts;
+              }
+            });
+    mWidthSpec = makeSizeSpec(100, EXACTLY);
+    mHeightSpec = makeSizeSpec(100, EXACTLY);
+
+    ComponentsConfiguration.useTextLayoutCache = true;
+    TextLayoutCache.clear();
+  }
+
+  @After
+  public void tearDown() {
+    mTextPrewarmer.cancel();
+    ComponentsConfiguration.useTextLayoutCache = false;
+    TextLayoutCache.clear();
+  }
+
+  @Test
+  public void testPrewarmedTextIsReusedByLayout() {
+    final int missCount = TextLayoutCache.getMissCount();
+
+    mTextPrewarmer.prewarm(createText(), mWidthSpec, mHeightSpec);
+    assertThat(mTextPrewarmer.getQueuedCount()).isEqualTo(1);
+
+    mShadowLooper.runOneTask();
+
+    assertThat(mTextPrewarmer.getQueuedCount()).isEqualTo(0);
+    assertThat(TextLayoutCache.getMissCount()).isGreaterThan(missCount);
+
+    final int hitCount = TextLayoutCache.getHitCount();
+    final ComponentTree componentTree = ComponentTree.create(mContext, createText()).build();
+    componentTree.setSizeSpec(mWidthSpec, mHeightSpec);
+
+    assertThat(TextLayoutCache.getHitCount()).isGreaterThan(hitCount);
+  }
+
+  @Test
+  public void testWaitsForPendingLayouts() {
+    mHasPendingLayouts = true;
+
+    mTextPrewarmer.prewarm(createText(), mWidthSpec, mHeightSpec);
+    mShadowLooper.runOneTask();
+
+    assertThat(mTextPrewarmer.getQueuedCount()).isEqualTo(1);
+
+    mHasPendingLayouts = false;
+    mShadowLooper.runToEndOfTasks();
+
+    assertThat(mTextPrewarmer.getQueuedCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void testCancelDropsQueuedItems() {
+    final int missCount = TextLayoutCache.getMissCount();
+
+    mTextPrewarmer.prewarm(createText(), mWidthSpec, mHeightSpec);
+    mTextPrewarmer.prewarm(createText(), mWidthSpec, mHeightSpec);
+    mTextPrewarmer.cancel();
+    mShadowLooper.runToEndOfTasks();
+
+    assertThat(mTextPrewarmer.getQueuedCount()).isEqualTo(0);
+    assertThat(TextLayoutCache.getMissCount()).isEqualTo(missCount);
+  }
+
+  @Test
+  public void testSameComponentIsPrewarmedOnce() {
+    final Component text = createText();
+
+    mTextPrewarmer.prewarm(text, mWidthSpec, mHeightSpec);
+    mShadowLooper.runToEndOfTasks();
+    mTextPrewarmer.prewarm(text, mWidthSpec, mHeightSpec);
+
+    assertThat(mTextPrewarmer.getQueuedCount()).isEqualTo(0);
+  }
+
+  private Component createText() {
+    return Text.create(mContext).text("Prewarmed text").textColor(Color.BLACK).build();
+  }
+}
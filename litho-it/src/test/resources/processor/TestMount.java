@@ -304,10 +304,7 @@ public final class TestMount<S extends View> extends ComponentLifecycle {
   }
 
   public static EventHandler<ClickEvent> testLayoutEvent(ComponentContext c, int param1) {
-    return newEventHandler(c, "testLayoutEvent", 1328162206, new Object[] {
-        c,
-        param1,
-    });
+    return newEventHandler(c, "testLayoutEvent", 1328162206, c, param1, null);
   }
 
   @Override
@@ -318,9 +315,9 @@ public final class TestMount<S extends View> extends ComponentLifecycle {
         ClickEvent _event = (ClickEvent) eventState;
         testLayoutEvent(
             eventHandler.mHasEventDispatcher,
-            (ComponentContext) eventHandler.params[0],
+            (ComponentContext) eventHandler.getParam(0),
             (View) _event.view,
-            (int) eventHandler.params[1]);
+            (int) eventHandler.getParam(1));
         return null;
       }
       default:
@@ -31,6 +31,8 @@ import com.squareup.javapoet.ParameterSpec;
 import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeVariableName;
+import java.util.ArrayList;
+import java.util.List;
 import javax.lang.model.element.Modifier;
 
 /**
@@ -38,6 +40,12 @@ import javax.lang.model.element.Modifier;
  */
 public class EventGenerator {
 
+  /**
+   * Event handlers with up to this many params, including the context, store them in fields rather
+   * than in an Object[].
+   */
+  private static final int MAX_INLINE_EVENT_HANDLER_PARAMS = 3;
+
   private EventGenerator() {
   }
 
@@ -273,7 +281,7 @@ public class EventGenerator {
         } else if (MethodParamModelUtils.isAnnotatedWith(methodParamModel, Param.class) ||
             methodParamModel.getType().equals(specModel.getContextClass())) {
           eventHandlerParams.add(
-              ",\n($T) eventHandler.params[$L]", methodParamModel.getType(), paramIndex++);
+              ",\n($T) eventHandler.getParam($L)", methodParamModel.getType(), paramIndex++);
         }
       }
 
@@ -321,16 +329,13 @@ public class EventGenerator {
             ClassNames.EVENT_HANDLER,
             eventMethodModel.eventType.name));
 
-    final CodeBlock.Builder paramsBlock = CodeBlock.builder();
-
-    paramsBlock.add("new Object[] {\n");
-    paramsBlock.indent();
-    paramsBlock.add("c,\n");
+    final List<String> paramNames = new ArrayList<>();
+    paramNames.add("c");
 
     for (MethodParamModel methodParamModel : eventMethodModel.methodParams) {
       if (MethodParamModelUtils.isAnnotatedWith(methodParamModel, Param.class)) {
         builder.addParameter(methodParamModel.getType(), methodParamModel.getName());
-        paramsBlock.add("$L,\n", methodParamModel.getName());
+        paramNames.add(methodParamModel.getName());
 
         if (methodParamModel.getType() instanceof TypeVariableName) {
           builder.addTypeVariable((TypeVariableName) methodParamModel.getType());
@@ -338,8 +343,21 @@ public class EventGenerator {
       }
     }
 
-    paramsBlock.unindent();
-    paramsBlock.add("}");
+    final CodeBlock.Builder paramsBlock = CodeBlock.builder();
+
+    if (paramNames.size() <= MAX_INLINE_EVENT_HANDLER_PARAMS) {
+      for (int i = 0; i < MAX_INLINE_EVENT_HANDLER_PARAMS; i++) {
+        paramsBlock.add(i == 0 ? "$L" : ", $L", i < paramNames.size() ? paramNames.get(i) : "null");
+      }
+    } else {
+      paramsBlock.add("new Object[] {\n");
+      paramsBlock.indent();
+      for (String paramName : paramNames) {
+        paramsBlock.add("$L,\n", paramName);
+      }
+      paramsBlock.unindent();
+      paramsBlock.add("}");
+    }
 
     builder.addStatement(
         "return newEventHandler(c, $S, $L, $L)",
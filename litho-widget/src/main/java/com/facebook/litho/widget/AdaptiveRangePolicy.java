@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho.widget;
+
+import android.support.annotation.VisibleForTesting;
+import android.support.v7.widget.RecyclerView;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * The default {@link RangePolicy}. It lays out rangeRatio viewports worth of items on each side of
+ * the viewport, like a fixed range, with two adjustments:
+ *
+ * <ul>
+ *   <li>The number of items in the viewport is estimated from the median size of the recently
+ *       shown items rather than from the first one, using a histogram that halves its counts
+ *       every {@link #MAX_SAMPLES} items so that it follows the content.
+ *   <li>While scrolling, part of the range moves from behind the viewport to ahead of it, in
+ *       proportion to the scroll velocity.
+ * </ul>
+ *
+ * It also counts how many items were bound with their layout ready (hits) or not (misses).
+ */
+@ThreadSafe
+public class AdaptiveRangePolicy implements RangePolicy {
+
+  // Four buckets per power of two, which bounds the error of a bucket to about 20%.
+  private static final int BUCKETS_PER_POWER_OF_TWO = 4;
+  private static final int BUCKET_COUNT = 32 * BUCKETS_PER_POWER_OF_TWO;
+  @VisibleForTesting static final int MAX_SAMPLES = 128;
+
+  // Scrolls further apart than this are not part of the same gesture.
+  private static final long MAX_SCROLL_INTERVAL_MS = 100;
+  private static final float VELOCITY_SMOOTHING = 0.3f;
+  // At most this fraction of the range behind the viewport is moved ahead of it.
+  @VisibleForTesting static final float MAX_BIAS = 0.5f;
+  // The velocity, in viewports per second, at which the range gets the full bias.
+  private static final float FULL_BIAS_VIEWPORTS_PER_SECOND = 2f;
+
+  private final float mRangeRatio;
+
+  @GuardedBy("this")
+  private final int[] mBucketCounts = new int[BUCKET_COUNT];
+  @GuardedBy("this")
+  private final long[] mBucketSums = new long[BUCKET_COUNT];
+  @GuardedBy("this")
+  private int mSampleCount;
+  @GuardedBy("this")
+  private int mMedianSize = -1;
+
+  // In pixels per millisecond, positive towards the last item.
+  @GuardedBy("this")
+  private float mVelocity;
+  @GuardedBy("this")
+  private long mLastScrollUptimeMillis = -1;
+  @GuardedBy("this")
+  private int mPendingScrollDelta;
+
+  @GuardedBy("this")
+  private int mHitCount;
+  @GuardedBy("this")
+  private int mMissCount;
+
+  /**
+   * @param rangeRatio see {@link RecyclerBinder.Builder#rangeRatio(float)}.
+   */
+  public AdaptiveRangePolicy(float rangeRatio) {
+    mRangeRatio = rangeRatio;
+  }
+
+  @Override
+  public synchronized void onItemMeasured(int size) {
+    if (size <= 0) {
+      return;
+    }
+
+    if (mSampleCount == MAX_SAMPLES) {
+      mSampleCount = 0;
+      for (int i = 0; i < BUCKET_COUNT; i++) {
+        final int count = mBucketCounts[i];
+        if (count > 0) {
+          // Keeps the mean of the bucket.
+          mBucketCounts[i] = count / 2;
+          mBucketSums[i] = mBucketSums[i] * mBucketCounts[i] / count;
+          mSampleCount += mBucketCounts[i];
+        }
+      }
+    }
+
+    final int bucket = getBucket(size);
+    mBucketCounts[bucket]++;
+    mBucketSums[bucket] += size;
+    mSampleCount++;
+    mMedianSize = -1;
+  }
+
+  @Override
+  public synchronized void onScrolled(int delta, long uptimeMillis) {
+    final long interval = uptimeMillis - mLastScrollUptimeMillis;
+
+    if (mLastScrollUptimeMillis < 0 || interval > MAX_SCROLL_INTERVAL_MS) {
+      mVelocity = 0;
+      mPendingScrollDelta = 0;
+    } else if (interval == 0) {
+      mPendingScrollDelta += delta;
+      return;
+    } else {
+      final float velocity = (mPendingScrollDelta + delta) / (float) interval;
+      mVelocity += VELOCITY_SMOOTHING * (velocity - mVelocity);
+      mPendingScrollDelta = 0;
+    }
+
+    mLastScrollUptimeMillis = uptimeMillis;
+  }
+
+  @Override
+  public synchronized void onScrollStateChanged(int newState) {
+    if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+      mVelocity = 0;
+      mLastScrollUptimeMillis = -1;
+      mPendingScrollDelta = 0;
+    }
+  }
+
+  @Override
+  public synchronized void onItemBound(int position, boolean hadLayout) {
+    if (hadLayout) {
+      mHitCount++;
+    } else {
+      mMissCount++;
+    }
+  }
+
+  @Override
+  public synchronized int getViewportCount(int estimatedViewportCount, int estimatedItemSize) {
+    final int medianSize = getMedianSize();
+    if (medianSize <= 0 || estimatedItemSize <= 0) {
+      return estimatedViewportCount;
+    }
+
+    return Math.max(
+        1, (int) Math.ceil(estimatedViewportCount * (float) estimatedItemSize / medianSize));
+  }
+
+  @Override
+  public synchronized int getItemCountBefore(int viewportCount) {
+    return (int) (viewportCount * mRangeRatio * (1 - getBias(viewportCount)));
+  }
+
+  @Override
+  public synchronized int getItemCountAfter(int viewportCount) {
+    return (int) (viewportCount * mRangeRatio * (1 + getBias(viewportCount)));
+  }
+
+  /**
+   * @return how many items were bound with their layout ready.
+   */
+  public synchronized int getRangeHitCount() {
+    return mHitCount;
+  }
+
+  /**
+   * @return how many items were bound before their layout was ready, so that it had to be computed
+   * synchronously.
+   */
+  public synchronized int getRangeMissCount() {
+    return mMissCount;
+  }
+
+  /**
+   * @return the median of the recently measured sizes, or -1 if none were measured.
+   */
+  @VisibleForTesting
+  synchronized int getMedianSize() {
+    if (mMedianSize >= 0 || mSampleCount == 0) {
+      return mMedianSize;
+    }
+
+    int count = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      count += mBucketCounts[i];
+      if (count * 2 >= mSampleCount) {
+        // The mean of the bucket is exact when the items have the same size.
+        mMedianSize = (int) (mBucketSums[i] / mBucketCounts[i]);
+        break;
+      }
+    }
+
+    return mMedianSize;
+  }
+
+  /**
+   * @return the fraction of the range to move ahead of the viewport, between -{@link #MAX_BIAS}
+   * and {@link #MAX_BIAS}.
+   */
+  @GuardedBy("this")
+  private float getBias(int viewportCount) {
+    final int medianSize = getMedianSize();
+    if (mVelocity == 0 || medianSize <= 0 || viewportCount <= 0) {
+      return 0;
+    }
+
+    final float viewportsPerSecond = mVelocity * 1000 / (medianSize * viewportCount);
+    final float bias = MAX_BIAS * viewportsPerSecond / FULL_BIAS_VIEWPORTS_PER_SECOND;
+    return Math.max(-MAX_BIAS, Math.min(MAX_BIAS, bias));
+  }
+
+  private static int getBucket(int size) {
+    if (size < BUCKETS_PER_POWER_OF_TWO) {
+      return size;
+    }
+
+    final int powerOfTwo = 31 - Integer.numberOfLeadingZeros(size);
+    // The two bits after the leading one pick the bucket within the power of two.
+    final int subBucket = (size >> (powerOfTwo - 2)) & (BUCKETS_PER_POWER_OF_TWO - 1);
+    return powerOfTwo * BUCKETS_PER_POWER_OF_TWO + subBucket;
+  }
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho.widget;
+
+import android.support.annotation.VisibleForTesting;
+import java.util.AbstractList;
+import java.util.Arrays;
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * A list that stores its items in chunks of at most {@link #CHUNK_CAPACITY} items, with a Fenwick
+ * tree over the chunk sizes to find the chunk of a position. Inserting or removing an item only
+ * shifts the items of its chunk, so it costs O(log n) plus the chunk size wherever it happens,
+ * while an {@link java.util.ArrayList} shifts every item after it. That matters for lists that
+ * grow at the head, like chats.
+ *
+ * Lookups don't write any state, so like an {@link java.util.ArrayList} it can be read from
+ * several threads at once as long as nothing modifies it.
+ */
+@NotThreadSafe
+class ChunkedList<T> extends AbstractList<T> {
+
+  @VisibleForTesting static final int CHUNK_CAPACITY = 64;
+  // Neighbouring chunks are merged when they fit in a chunk this full, so that chunks never get
+  // too small after removals while a merged chunk still has room for insertions.
+  private static final int MERGE_THRESHOLD = CHUNK_CAPACITY / 2;
+  private static final int INITIAL_CHUNK_ARRAY_SIZE = 4;
+
+  private Object[][] mChunks = new Object[INITIAL_CHUNK_ARRAY_SIZE][];
+  private int[] mChunkSizes = new int[INITIAL_CHUNK_ARRAY_SIZE];
+  // 1-based Fenwick tree over mChunkSizes.
+  private int[] mTree = new int[INITIAL_CHUNK_ARRAY_SIZE + 1];
+  private int mChunkCount;
+  private int mSize;
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public T get(int index) {
+    checkIndex(index, mSize);
+    final long location = findChunk(index);
+    return (T) mChunks[getChunk(location)][getOffset(location)];
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public T set(int index, T element) {
+    checkIndex(index, mSize);
+    final long location = findChunk(index);
+    final Object[] items = mChunks[getChunk(location)];
+    final int offset = getOffset(location);
+    final T previous = (T) items[offset];
+    items[offset] = element;
+    return previous;
+  }
+
+  @Override
+  public void add(int index, T element) {
+    checkIndex(index, mSize + 1);
+
+    if (mChunkCount == 0) {
+      insertChunk(0);
+    }
+
+    int chunk;
+    int offset;
+    if (index == mSize) {
+      chunk = mChunkCount - 1;
+      offset = mChunkSizes[chunk];
+    } else {
+      final long location = findChunk(index);
+      chunk = getChunk(location);
+      offset = getOffset(location);
+    }
+
+    if (mChunkSizes[chunk] == CHUNK_CAPACITY) {
+      splitChunk(chunk);
+      if (offset > mChunkSizes[chunk]) {
+        offset -= mChunkSizes[chunk];
+        chunk++;
+      }
+    }
+
+    final Object[] items = mChunks[chunk];
+    System.arraycopy(items, offset, items, offset + 1, mChunkSizes[chunk] - offset);
+    items[offset] = element;
+    mChunkSizes[chunk]++;
+    addToTree(chunk, 1);
+    mSize++;
+    modCount++;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public T remove(int index) {
+    checkIndex(index, mSize);
+    final long location = findChunk(index);
+    final int chunk = getChunk(location);
+    final int offset = getOffset(location);
+    final Object[] items = mChunks[chunk];
+    final T removed = (T) items[offset];
+
+    final int newChunkSize = mChunkSizes[chunk] - 1;
+    System.arraycopy(items, offset + 1, items, offset, newChunkSize - offset);
+    items[newChunkSize] = null;
+    mChunkSizes[chunk] = newChunkSize;
+    addToTree(chunk, -1);
+    mSize--;
+    modCount++;
+
+    if (newChunkSize == 0) {
+      removeChunk(chunk);
+    } else if (chunk + 1 < mChunkCount
+        && newChunkSize + mChunkSizes[chunk + 1] <= MERGE_THRESHOLD) {
+      mergeChunks(chunk);
+    } else if (chunk > 0 && newChunkSize + mChunkSizes[chunk - 1] <= MERGE_THRESHOLD) {
+      mergeChunks(chunk - 1);
+    }
+
+    return removed;
+  }
+
+  @Override
+  public void clear() {
+    Arrays.fill(mChunks, 0, mChunkCount, null);
+    Arrays.fill(mChunkSizes, 0, mChunkCount, 0);
+    Arrays.fill(mTree, 0);
+    mChunkCount = 0;
+    mSize = 0;
+    modCount++;
+  }
+
+  @Override
+  public int size() {
+    return mSize;
+  }
+
+  /**
+   * @return a count that changes whenever items are added or removed, but not when they're set.
+   * Callers that walk the list between other changes compare it to find out whether positions
+   * moved, which comparing sizes misses when as many items were added as removed.
+   */
+  int getModificationCount() {
+    return modCount;
+  }
+
+  @VisibleForTesting
+  int getChunkCount() {
+    return mChunkCount;
+  }
+
+  /**
+   * @return the chunk holding the item at index in the high 32 bits and the offset of the item in
+   * that chunk in the low 32 bits, see {@link #getChunk(long)} and {@link #getOffset(long)}.
+   */
+  private long findChunk(int index) {
+    // Descends the tree to the last chunk that ends at or before index.
+    int chunk = 0;
+    int remaining = index;
+    for (int step = Integer.highestOneBit(mChunkCount); step > 0; step >>= 1) {
+      final int next = chunk + step;
+      if (next <= mChunkCount && mTree[next] <= remaining) {
+        chunk = next;
+        remaining -= mTree[next];
+      }
+    }
+
+    return ((long) chunk << 32) | remaining;
+  }
+
+  private static int getChunk(long location) {
+    return (int) (location >>> 32);
+  }
+
+  private static int getOffset(long location) {
+    return (int) location;
+  }
+
+  private void addToTree(int chunk, int delta) {
+    for (int i = chunk + 1; i <= mChunkCount; i += i & -i) {
+      mTree[i] += delta;
+    }
+  }
+
+  private void rebuildTree() {
+    Arrays.fill(mTree, 0);
+    for (int i = 1; i <= mChunkCount; i++) {
+      mTree[i] += mChunkSizes[i - 1];
+      final int parent = i + (i & -i);
+      if (parent <= mChunkCount) {
+        mTree[parent] += mTree[i];
+      }
+    }
+  }
+
+  private void splitChunk(int chunk) {
+    insertChunk(chunk + 1);
+
+    final int size = mChunkSizes[chunk];
+    final int firstHalf = size / 2;
+    System.arraycopy(mChunks[chunk], firstHalf, mChunks[chunk + 1], 0, size - firstHalf);
+    Arrays.fill(mChunks[chunk], firstHalf, size, null);
+    mChunkSizes[chunk] = firstHalf;
+    mChunkSizes[chunk + 1] = size - firstHalf;
+    rebuildTree();
+  }
+
+  private void mergeChunks(int chunk) {
+    final int size = mChunkSizes[chunk];
+    final int nextSize = mChunkSizes[chunk + 1];
+    System.arraycopy(mChunks[chunk + 1], 0, mChunks[chunk], size, nextSize);
+    mChunkSizes[chunk] = size + nextSize;
+    mChunkSizes[chunk + 1] = 0;
+    removeChunk(chunk + 1);
+  }
+
+  /**
+   * Inserts an empty chunk at chunk. The caller rebuilds the tree once the sizes are set.
+   */
+  private void insertChunk(int chunk) {
+    if (mChunkCount == mChunks.length) {
+      final int newLength = mChunks.length * 2;
+      mChunks = Arrays.copyOf(mChunks, newLength);
+      mChunkSizes = Arrays.copyOf(mChunkSizes, newLength);
+      mTree = new int[newLength + 1];
+    }
+
+    System.arraycopy(mChunks, chunk, mChunks, chunk + 1, mChunkCount - chunk);
+    System.arraycopy(mChunkSizes, chunk, mChunkSizes, chunk + 1, mChunkCount - chunk);
+    mChunks[chunk] = new Object[CHUNK_CAPACITY];
+    mChunkSizes[chunk] = 0;
+    mChunkCount++;
+  }
+
+  private void removeChunk(int chunk) {
+    mChunkCount--;
+    System.arraycopy(mChunks, chunk + 1, mChunks, chunk, mChunkCount - chunk);
+    System.arraycopy(mChunkSizes, chunk + 1, mChunkSizes, chunk, mChunkCount - chunk);
+    mChunks[mChunkCount] = null;
+    mChunkSizes[mChunkCount] = 0;
+    rebuildTree();
+  }
+
+  private static void checkIndex(int index, int size) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+  }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho.widget;
+
+import android.support.annotation.VisibleForTesting;
+import com.facebook.litho.ComponentTree;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.WeakHashMap;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Caps the memory kept alive by the {@link ComponentTree}s that {@link RecyclerBinder}s lay out
+ * ahead of time. Every binder keeps the trees of the items in its range, so several binders, for
+ * example nested horizontal lists, can together hold a lot of layouts. When the estimated size of
+ * all of them goes over the cap, the trees farthest from the viewport of their binder are released
+ * first. Visible items are never released.
+ *
+ * Sizes are estimated from the layouts, see {@link ComponentTree#getEstimatedRetainedSize()}.
+ */
+@ThreadSafe
+public class ComponentTreeBudget {
+
+  // A share of the heap that leaves room for the rest of the app.
+  private static final int DEFAULT_HEAP_FRACTION = 8;
+
+  private static ComponentTreeBudget sDefaultBudget;
+
+  /**
+   * Something holding {@link ComponentTree}s that can be released when over budget.
+   */
+  interface Client {
+
+    /**
+     * @return the estimated size of the trees this client holds, in bytes. This is called for
+     * every client on each enforcement, so clients keep it as a running total.
+     */
+    int getEstimatedRetainedSize();
+
+    /**
+     * @return the distance from the viewport of the farthest tree that can be released, or 0 if
+     * none can be. This is called for every client each time a tree is released, so it shouldn't
+     * walk all the trees of the client.
+     */
+    int getFarthestReleasableTreeDistance();
+
+    /**
+     * Releases the farthest tree from the viewport that can be released.
+     *
+     * @return the estimated size of the released tree, or -1 if none was released.
+     */
+    int releaseFarthestTree();
+  }
+
+  @GuardedBy("this")
+  private final WeakHashMap<Client, Boolean> mClients = new WeakHashMap<>();
+  @GuardedBy("this")
+  private long mCapBytes;
+
+  /**
+   * @param capBytes the estimated size over which trees are released.
+   */
+  public ComponentTreeBudget(long capBytes) {
+    mCapBytes = capBytes;
+  }
+
+  /**
+   * @return the budget shared by all the {@link RecyclerBinder}s that don't set their own. Its cap
+   * is an eighth of the maximum heap size.
+   */
+  public static synchronized ComponentTreeBudget getDefault() {
+    if (sDefaultBudget == null) {
+      sDefaultBudget =
+          new ComponentTreeBudget(Runtime.getRuntime().maxMemory() / DEFAULT_HEAP_FRACTION);
+    }
+
+    return sDefaultBudget;
+  }
+
+  public synchronized void setCapBytes(long capBytes) {
+    mCapBytes = capBytes;
+  }
+
+  public synchronized long getCapBytes() {
+    return mCapBytes;
+  }
+
+  /**
+   * @return the estimated size of the trees held by all the clients of this budget.
+   */
+  public synchronized long getEstimatedRetainedSize() {
+    long size = 0;
+    for (Client client : mClients.keySet()) {
+      size += client.getEstimatedRetainedSize();
+    }
+    return size;
+  }
+
+  /**
+   * Clients are only weakly referenced, so they don't need to unregister.
+   */
+  synchronized void register(Client client) {
+    mClients.put(client, Boolean.TRUE);
+  }
+
+  @VisibleForTesting
+  synchronized void unregister(Client client) {
+    mClients.remove(client);
+  }
+
+  /**
+   * Releases trees, farthest from the viewport first, until the estimated size of all the clients
+   * fits within the cap. Called by clients on the main thread when their estimated size grew,
+   * outside of their own locks.
+   */
+  synchronized void enforce() {
+    final List<Client> clients = new ArrayList<>(mClients.keySet());
+    long size = 0;
+    for (int i = 0, count = clients.size(); i < count; i++) {
+      size += clients.get(i).getEstimatedRetainedSize();
+    }
+
+    while (size > mCapBytes) {
+      Client farthestClient = null;
+      int farthestDistance = 0;
+      for (int i = 0, count = clients.size(); i < count; i++) {
+        final Client client = clients.get(i);
+        final int distance = client.getFarthestReleasableTreeDistance();
+        if (distance > farthestDistance) {
+          farthestClient = client;
+          farthestDistance = distance;
+        }
+      }
+
+      if (farthestClient == null) {
+        // Only visible items are left.
+        return;
+      }
+
+      final int releasedSize = farthestClient.releaseFarthestTree();
+      if (releasedSize < 0) {
+        return;
+      }
+      size -= releasedSize;
+    }
+  }
+}
@@ -9,6 +9,8 @@
 
 package com.facebook.litho.widget;
 
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
 import android.support.v4.util.Pools;
 import com.facebook.litho.Component;
 import com.facebook.litho.ComponentContext;
@@ -39,11 +41,36 @@ public class ComponentTreeHolder {
   @GuardedBy("this")
   private RenderInfo mRenderInfo;
 
+  // The estimated size of the layouts of mComponentTree when it last calculated one.
+  @GuardedBy("this")
+  private int mRetainedSize;
+
+  @GuardedBy("this")
+  private @Nullable RetainedSizeListener mRetainedSizeListener;
+
+  private final ComponentTree.NewLayoutStateReadyListener mNewLayoutStateReadyListener =
+      new ComponentTree.NewLayoutStateReadyListener() {
+        @Override
+        public void onNewLayoutStateReady(ComponentTree componentTree) {
+          updateRetainedSize(componentTree);
+        }
+      };
+
   private boolean mIsTreeValid;
   private LayoutHandler mLayoutHandler;
   private boolean mCanPrefetchDisplayLists;
   private boolean mCanCacheDrawingDisplayLists;
 
+  /**
+   * Notified when the estimated size of the layouts held by a {@link ComponentTreeHolder} changes,
+   * that is when its tree calculates a layout or is released. It is called outside of the lock of
+   * the holder.
+   */
+  interface RetainedSizeListener {
+
+    void onRetainedSizeChanged(int delta);
+  }
+
   public static ComponentTreeHolder acquire(
       RenderInfo renderInfo,
       LayoutHandler layoutHandler,
@@ -60,9 +87,17 @@ public class ComponentTreeHolder {
     return componentTreeHolder;
   }
 
-  public synchronized void acquireStateHandlerAndReleaseTree() {
-    acquireStateHandler();
-    releaseTree();
+  public void acquireStateHandlerAndReleaseTree() {
+    final int releasedSize;
+    final RetainedSizeListener listener;
+
+    synchronized (this) {
+      acquireStateHandler();
+      releasedSize = releaseTree();
+      listener = mRetainedSizeListener;
+    }
+
+    notifyRetainedSizeChanged(listener, -releasedSize);
   }
 
   synchronized void invalidateTree() {
@@ -134,22 +169,69 @@ public class ComponentTreeHolder {
     return mIsTreeValid;
   }
 
+  /**
+   * @return whether the layout last requested for this item was calculated.
+   */
+  public synchronized boolean hasCompletedLatestLayout() {
+    return mIsTreeValid && mComponentTree != null && mComponentTree.hasCompatibleLayout();
+  }
+
   public synchronized ComponentTree getComponentTree() {
     return mComponentTree;
   }
 
+  /**
+   * @return the estimated size of the layouts held by this item's {@link ComponentTree}, in bytes,
+   * as of the last layout it calculated.
+   */
+  public synchronized int getEstimatedRetainedSize() {
+    return mRetainedSize;
+  }
+
+  synchronized void setRetainedSizeListener(@Nullable RetainedSizeListener listener) {
+    mRetainedSizeListener = listener;
+  }
+
+  /**
+   * Records the estimated size of the layouts this item holds and reports the change to the
+   * {@link RetainedSizeListener}. Holders that don't use a real {@link ComponentTree} in tests call
+   * this directly.
+   */
+  @VisibleForTesting
+  void setRetainedSize(int retainedSize) {
+    final int delta;
+    final RetainedSizeListener listener;
+
+    synchronized (this) {
+      delta = retainedSize - mRetainedSize;
+      mRetainedSize = retainedSize;
+      listener = mRetainedSizeListener;
+    }
+
+    notifyRetainedSizeChanged(listener, delta);
+  }
+
   public synchronized void setRenderInfo(RenderInfo renderInfo) {
     invalidateTree();
     mRenderInfo = renderInfo;
   }
 
-  public synchronized void release() {
-    releaseTree();
-    clearStateHandler();
-    mRenderInfo = null;
-    mLayoutHandler = null;
-    mCanPrefetchDisplayLists = false;
-    mCanCacheDrawingDisplayLists = false;
+  public void release() {
+    final int releasedSize;
+    final RetainedSizeListener listener;
+
+    synchronized (this) {
+      releasedSize = releaseTree();
+      listener = mRetainedSizeListener;
+      clearStateHandler();
+      mRenderInfo = null;
+      mLayoutHandler = null;
+      mCanPrefetchDisplayLists = false;
+      mCanCacheDrawingDisplayLists = false;
+      mRetainedSizeListener = null;
+    }
+
+    notifyRetainedSizeChanged(listener, -releasedSize);
     sComponentTreeHoldersPool.release(this);
   }
 
@@ -167,17 +249,51 @@ public class ComponentTreeHolder {
               .canCacheDrawingDisplayLists(mCanCacheDrawingDisplayLists)
               .shouldClipChildren(clipChildren)
               .build();
+      mComponentTree.setNewLayoutStateReadyListener(mNewLayoutStateReadyListener);
+    }
+  }
+
+  private void updateRetainedSize(ComponentTree componentTree) {
+    final int delta;
+    final RetainedSizeListener listener;
+
+    synchronized (this) {
+      if (componentTree != mComponentTree) {
+        // The tree was released while it calculated this layout.
+        return;
+      }
+
+      final int retainedSize = componentTree.getEstimatedRetainedSize();
+      delta = retainedSize - mRetainedSize;
+      mRetainedSize = retainedSize;
+      listener = mRetainedSizeListener;
     }
+
+    notifyRetainedSizeChanged(listener, delta);
   }
 
+  private static void notifyRetainedSizeChanged(
+      @Nullable RetainedSizeListener listener, int delta) {
+    if (listener != null && delta != 0) {
+      listener.onRetainedSizeChanged(delta);
+    }
+  }
+
+  /**
+   * @return the estimated size of the layouts held by the released tree.
+   */
   @GuardedBy("this")
-  private void releaseTree() {
+  private int releaseTree() {
     if (mComponentTree != null) {
       mComponentTree.release();
       mComponentTree = null;
     }
 
     mIsTreeValid = false;
+
+    final int releasedSize = mRetainedSize;
+    mRetainedSize = 0;
+    return releasedSize;
   }
 
   @GuardedBy("this")
@@ -14,14 +14,24 @@ import static android.os.Process.THREAD_PRIORITY_LOWEST;
 
 import android.graphics.Canvas;
 import android.graphics.Picture;
+import android.graphics.Typeface;
 import android.os.Handler;
 import android.os.HandlerThread;
 import android.os.Looper;
 import android.os.Message;
+import android.os.SystemClock;
+import android.support.annotation.Nullable;
 import android.support.annotation.VisibleForTesting;
+import android.support.v4.util.LruCache;
 import android.text.Layout;
+import android.text.TextPaint;
 import com.facebook.fbui.textlayoutbuilder.util.LayoutMeasureUtil;
+import com.facebook.litho.config.ComponentsConfiguration;
 import java.lang.ref.WeakReference;
+import java.util.HashSet;
+import java.util.PriorityQueue;
+import java.util.Set;
+import javax.annotation.concurrent.GuardedBy;
 
 /**
  * A class that schedules a background draw of a {@link Layout}. Drawing a {@link Layout} in the
@@ -29,6 +39,11 @@ import java.lang.ref.WeakReference;
  * {@link Layout} on a real {@link Canvas}. This will substantially reduce drawing times for big
  * chunks of text. On the other hand over-using text warming might rotate the glyphs cache too
  * quickly and diminish the optimization.
+ *
+ * Layouts are drawn by {@link ComponentsConfiguration#glyphWarmerThreadCount} threads, in order of
+ * priority. A layout with the same text, typeface and size as one that is queued or was recently
+ * drawn is skipped, and layouts that were garbage collected or waited in the queue for too long
+ * are dropped, since by then they were most likely either drawn or scrolled away.
  */
 public class GlyphWarmer {
 
@@ -37,49 +52,173 @@ public class GlyphWarmer {
   private static final int WARMER_THREAD_PRIORITY =
       (THREAD_PRIORITY_BACKGROUND + THREAD_PRIORITY_LOWEST) / 2;
 
+  /**
+   * The priority of the layouts of items that are about to be shown.
+   */
+  public static final int PRIORITY_HIGH = 0;
+
+  /**
+   * The priority of the layouts calculated ahead of time, which might never be shown.
+   */
+  public static final int PRIORITY_LOW = 1;
+
+  private static final long MAX_QUEUED_TIME_MS = 500;
+  private static final int RECENTLY_WARMED_SIZE = 256;
+
   private static GlyphWarmer sInstance;
-  private final WarmerHandler mHandler;
+  private final WarmerHandler[] mHandlers;
+
+  @GuardedBy("this")
+  private final PriorityQueue<WarmRequest> mQueue = new PriorityQueue<>();
+  @GuardedBy("this")
+  private final Set<WarmKey> mQueuedKeys = new HashSet<>();
+  @GuardedBy("this")
+  private final LruCache<WarmKey, Boolean> mRecentlyWarmedKeys =
+      new LruCache<>(RECENTLY_WARMED_SIZE);
+  @GuardedBy("this")
+  private long mNextSequenceNumber;
+  @GuardedBy("this")
+  private int mNextHandler;
+  @GuardedBy("this")
+  private int mWarmedCount;
+  @GuardedBy("this")
+  private int mSkippedDuplicateCount;
+  @GuardedBy("this")
+  private int mDroppedStaleCount;
 
   /**
    * @return the global {@link GlyphWarmer} instance.
    */
   public static synchronized GlyphWarmer getInstance() {
     if (sInstance == null) {
-      sInstance = new GlyphWarmer();
+      sInstance = new GlyphWarmer(ComponentsConfiguration.glyphWarmerThreadCount);
     }
 
     return sInstance;
   }
 
-  private GlyphWarmer() {
+  private GlyphWarmer(int threadCount) {
+    mHandlers = new WarmerHandler[Math.max(threadCount, 1)];
 
-    HandlerThread handlerThread = new HandlerThread(TAG, WARMER_THREAD_PRIORITY);
-    handlerThread.start();
+    for (int i = 0; i < mHandlers.length; i++) {
+      HandlerThread handlerThread = new HandlerThread(TAG + i, WARMER_THREAD_PRIORITY);
+      handlerThread.start();
 
-    mHandler = new WarmerHandler(handlerThread.getLooper());
+      mHandlers[i] = new WarmerHandler(this, handlerThread.getLooper());
+    }
   }
 
   @VisibleForTesting
   Looper getWarmerLooper() {
-    return mHandler.getLooper();
+    return mHandlers[0].getLooper();
   }
 
   /**
-   * Schedules a {@link Layout} to be drawn in the background. This warms up the Glyph cache for
-   * that {@link Layout}.
+   * Schedules a {@link Layout} to be drawn in the background with {@link #PRIORITY_HIGH}. This
+   * warms up the Glyph cache for that {@link Layout}.
    */
   public void warmLayout(Layout layout) {
-    mHandler.obtainMessage(WarmerHandler.WARM_LAYOUT, new WeakReference<>(layout)).sendToTarget();
+    warmLayout(layout, PRIORITY_HIGH);
+  }
+
+  /**
+   * Schedules a {@link Layout} to be drawn in the background. Layouts with a lower priority value
+   * are drawn first, and layouts with the same priority in the order they were scheduled.
+   */
+  public void warmLayout(Layout layout, int priority) {
+    final WarmKey key = new WarmKey(layout);
+    final WarmerHandler handler;
+
+    synchronized (this) {
+      if (mQueuedKeys.contains(key) || mRecentlyWarmedKeys.get(key) != null) {
+        mSkippedDuplicateCount++;
+        return;
+      }
+
+      mQueuedKeys.add(key);
+      mQueue.add(
+          new WarmRequest(
+              layout, key, priority, mNextSequenceNumber++, SystemClock.uptimeMillis()));
+
+      handler = mHandlers[mNextHandler];
+      mNextHandler = (mNextHandler + 1) % mHandlers.length;
+    }
+
+    handler.sendEmptyMessage(WarmerHandler.WARM_NEXT_LAYOUT);
+  }
+
+  /**
+   * @return the number of layouts that were drawn.
+   */
+  public synchronized int getWarmedCount() {
+    return mWarmedCount;
+  }
+
+  /**
+   * @return the number of layouts that were not drawn because an equivalent one was queued or
+   * had been drawn recently.
+   */
+  public synchronized int getSkippedDuplicateCount() {
+    return mSkippedDuplicateCount;
+  }
+
+  /**
+   * @return the number of layouts that were not drawn because they were garbage collected or
+   * waited in the queue for too long.
+   */
+  public synchronized int getDroppedStaleCount() {
+    return mDroppedStaleCount;
+  }
+
+  @VisibleForTesting
+  synchronized void reset() {
+    mQueue.clear();
+    mQueuedKeys.clear();
+    mRecentlyWarmedKeys.evictAll();
+    mWarmedCount = 0;
+    mSkippedDuplicateCount = 0;
+    mDroppedStaleCount = 0;
+  }
+
+  /**
+   * @return the queued layout with the highest priority that is still worth drawing.
+   */
+  @Nullable
+  private synchronized Layout pollLayout() {
+    final long now = SystemClock.uptimeMillis();
+
+    WarmRequest request;
+    while ((request = mQueue.poll()) != null) {
+      mQueuedKeys.remove(request.mKey);
+
+      final Layout layout = request.mLayout.get();
+      if (layout == null || now - request.mQueuedTime > MAX_QUEUED_TIME_MS) {
+        mDroppedStaleCount++;
+        continue;
+      }
+
+      mRecentlyWarmedKeys.put(request.mKey, Boolean.TRUE);
+      return layout;
+    }
+
+    return null;
+  }
+
+  private synchronized void onLayoutWarmed() {
+    mWarmedCount++;
   }
 
   private static final class WarmerHandler extends Handler {
-    public static final int WARM_LAYOUT = 0;
+    public static final int WARM_NEXT_LAYOUT = 0;
 
+    private final GlyphWarmer mGlyphWarmer;
     private final Picture mPicture;
 
-    private WarmerHandler(Looper looper) {
+    private WarmerHandler(GlyphWarmer glyphWarmer, Looper looper) {
       super(looper);
 
+      mGlyphWarmer = glyphWarmer;
+
       Picture picture;
       try {
         picture = new Picture();
@@ -92,26 +231,93 @@ public class GlyphWarmer {
 
     @Override
     public void handleMessage(Message msg) {
-      if (mPicture == null) {
+      final Layout layout = mGlyphWarmer.pollLayout();
+
+      if (mPicture == null || layout == null) {
         return;
       }
 
       try {
-        final Layout layout = ((WeakReference<Layout>) msg.obj).get();
-
-        if (layout == null) {
-          return;
-        }
-
         final Canvas canvas = mPicture.beginRecording(
             layout.getWidth(),
             LayoutMeasureUtil.getHeight(layout));
 
         layout.draw(canvas);
         mPicture.endRecording();
+        mGlyphWarmer.onLayoutWarmed();
       } catch (Exception e) {
         // Nothing to do here. This is a best effort. No real problem if it fails.
       }
     }
   }
+
+  private static final class WarmRequest implements Comparable<WarmRequest> {
+    private final WeakReference<Layout> mLayout;
+    private final WarmKey mKey;
+    private final int mPriority;
+    private final long mSequenceNumber;
+    private final long mQueuedTime;
+
+    private WarmRequest(
+        Layout layout, WarmKey key, int priority, long sequenceNumber, long queuedTime) {
+      mLayout = new WeakReference<>(layout);
+      mKey = key;
+      mPriority = priority;
+      mSequenceNumber = sequenceNumber;
+      mQueuedTime = queuedTime;
+    }
+
+    @Override
+    public int compareTo(WarmRequest other) {
+      if (mPriority != other.mPriority) {
+        return mPriority < other.mPriority ? -1 : 1;
+      }
+
+      return mSequenceNumber < other.mSequenceNumber
+          ? -1
+          : (mSequenceNumber == other.mSequenceNumber ? 0 : 1);
+    }
+  }
+
+  /**
+   * What the glyphs drawn for a {@link Layout} depend on.
+   */
+  private static final class WarmKey {
+    private final String mText;
+    private final @Nullable Typeface mTypeface;
+    private final float mTextSize;
+
+    private WarmKey(Layout layout) {
+      final CharSequence text = layout.getText();
+      final TextPaint paint = layout.getPaint();
+
+      mText = text != null ? text.toString() : "";
+      mTypeface = paint != null ? paint.getTypeface() : null;
+      mTextSize = paint != null ? paint.getTextSize() : 0;
+    }
+
+    @Override
+    public int hashCode() {
+      int result = mText.hashCode();
+      result = 31 * result + (mTypeface != null ? mTypeface.hashCode() : 0);
+      result = 31 * result + Float.floatToIntBits(mTextSize);
+      return result;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+
+      if (!(o instanceof WarmKey)) {
+        return false;
+      }
+
+      final WarmKey other = (WarmKey) o;
+      return Float.compare(mTextSize, other.mTextSize) == 0
+          && (mTypeface == null ? other.mTypeface == null : mTypeface.equals(other.mTypeface))
+          && mText.equals(other.mText);
+    }
+  }
 }
@@ -18,6 +18,20 @@ interface HasStickyHeader extends ViewportInfo {
    */
   boolean isSticky(int position);
 
+  /**
+   * @param position
+   * @return the position of the last sticky item at or before position, or
+   * {@link android.support.v7.widget.RecyclerView#NO_POSITION} if there is none.
+   */
+  int findStickyPositionAtOrBefore(int position);
+
+  /**
+   * @param position
+   * @return the position of the first sticky item after position, or
+   * {@link android.support.v7.widget.RecyclerView#NO_POSITION} if there is none.
+   */
+  int findStickyPositionAfter(int position);
+
   /**
    * @param position
    * @return Whether the item at given position is *valid*, i.e. whether such position exists.
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho.widget;
+
+/**
+ * Decides how many items around the viewport {@link RecyclerBinder} keeps laid out. The binder
+ * reports the sizes of the items it shows, how it is scrolled and whether the items it binds were
+ * laid out in time, so that an implementation can adapt the range to them. Sizes and scroll deltas
+ * are in pixels along the scrolling direction. Methods can be called from any thread.
+ */
+public interface RangePolicy {
+
+  /**
+   * Called with the size of an item that was laid out and shown.
+   */
+  void onItemMeasured(int size);
+
+  /**
+   * Called every time the list scrolls. delta is positive when scrolling towards the last item.
+   */
+  void onScrolled(int delta, long uptimeMillis);
+
+  /**
+   * Called when the scroll state changes, see {@link
+   * android.support.v7.widget.RecyclerView#SCROLL_STATE_IDLE}.
+   */
+  void onScrollStateChanged(int newState);
+
+  /**
+   * Called when an item is bound to a view.
+   *
+   * @param hadLayout whether the layout of the item was ready, rather than having to be computed
+   * synchronously while binding.
+   */
+  void onItemBound(int position, boolean hadLayout);
+
+  /**
+   * @param estimatedViewportCount the number of items needed to fill the viewport, estimated from
+   * a single item.
+   * @param estimatedItemSize the size of the item that estimate is based on.
+   * @return the number of items needed to fill the viewport.
+   */
+  int getViewportCount(int estimatedViewportCount, int estimatedItemSize);
+
+  /**
+   * @return how many items before the first visible one should be laid out.
+   */
+  int getItemCountBefore(int viewportCount);
+
+  /**
+   * @return how many items after the last visible one should be laid out.
+   */
+  int getItemCountAfter(int viewportCount);
+}
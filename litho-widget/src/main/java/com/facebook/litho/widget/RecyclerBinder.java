@@ -18,6 +18,7 @@ import static com.facebook.litho.widget.RenderInfoViewCreatorController.COMPONEN
 import android.os.Build;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
 import android.support.annotation.UiThread;
 import android.support.annotation.VisibleForTesting;
 import android.support.v4.view.ViewCompat;
@@ -41,6 +42,7 @@ import com.facebook.litho.ThreadUtils;
 import com.facebook.litho.utils.DisplayListUtils;
 import com.facebook.litho.viewcompat.ViewCreator;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 import javax.annotation.Nullable;
@@ -59,8 +61,12 @@ public class RecyclerBinder
   private static final Size sDummySize = new Size();
   private static final String TAG = RecyclerBinder.class.getSimpleName();
 
+  // Chunked, so that inserting and removing items anywhere, typically at the head of chat-like
+  // lists, doesn't shift every holder after them while holding the lock.
   @GuardedBy("this")
-  private final List<ComponentTreeHolder> mComponentTreeHolders;
+  private final ChunkedList<ComponentTreeHolder> mComponentTreeHolders;
+  // Read without the lock by the sticky header lookups on scroll.
+  private final StickyPositionIndex mStickyPositions = new StickyPositionIndex();
   private final LayoutInfo mLayoutInfo;
   private final RecyclerView.Adapter mInternalAdapter;
   private final ComponentContext mComponentContext;
@@ -75,7 +81,69 @@ public class RecyclerBinder
   // range.
   //TODO t15827349
   private final List<ComponentTreeHolder> mPendingComponentTreeHolders;
-  private final float mRangeRatio;
+  private final RangePolicy mRangePolicy;
+  private final ComponentTreeBudget mComponentTreeBudget;
+  private final ComponentTreeBudget.Client mComponentTreeBudgetClient =
+      new ComponentTreeBudget.Client() {
+        @Override
+        public int getEstimatedRetainedSize() {
+          return RecyclerBinder.this.getEstimatedRetainedSize();
+        }
+
+        @Override
+        public int getFarthestReleasableTreeDistance() {
+          synchronized (RecyclerBinder.this) {
+            final int position = findFarthestReleasableTree();
+            return position < 0 ? 0 : getDistanceFromViewport(position);
+          }
+        }
+
+        @Override
+        public int releaseFarthestTree() {
+          final ComponentTreeHolder holder;
+          synchronized (RecyclerBinder.this) {
+            final int position = findFarthestReleasableTree();
+            if (position < 0) {
+              return -1;
+            }
+            holder = mComponentTreeHolders.get(position);
+            // The released item is still within the computed range, so the next range
+            // computation has to lay it out again.
+            mHasReleasedRangeTrees = true;
+          }
+
+          final int size = holder.getEstimatedRetainedSize();
+          holder.acquireStateHandlerAndReleaseTree();
+          return size;
+        }
+      };
+  private final ComponentTreeHolder.RetainedSizeListener mRetainedSizeListener =
+      new ComponentTreeHolder.RetainedSizeListener() {
+        @Override
+        public void onRetainedSizeChanged(int delta) {
+          synchronized (RecyclerBinder.this) {
+            mRetainedSize += delta;
+            if (delta > 0) {
+              // The tree that grew may be farther out than the release cursors.
+              resetReleaseCursors();
+            }
+          }
+
+          if (delta > 0 && mIsBudgetEnforcementScheduled.compareAndSet(false, true)) {
+            mMainThreadHandler.post(mEnforceBudgetRunnable);
+          }
+        }
+      };
+  private final AtomicBoolean mIsBudgetEnforcementScheduled = new AtomicBoolean(false);
+  // The budget releases trees, which has to happen on the main thread, and it calls back into
+  // binders, so it can't run under the locks held when a layout completes.
+  private final Runnable mEnforceBudgetRunnable = new Runnable() {
+    @Override
+    public void run() {
+      mIsBudgetEnforcementScheduled.set(false);
+      mComponentTreeBudget.enforce();
+    }
+  };
   private final AtomicBoolean mIsMeasured = new AtomicBoolean(false);
   private final AtomicBoolean mRequiresRemeasure = new AtomicBoolean(false);
   private final Runnable mRemeasureRunnable = new Runnable() {
@@ -95,9 +163,32 @@ public class RecyclerBinder
   private int mCurrentLastVisiblePosition = RecyclerView.NO_POSITION;
   private int mCurrentOffset;
   private @Nullable RangeCalculationResult mRange;
+  // The bounds of the range the last call to computeRange walked. Only valid while
+  // mHasComputedRange is true, which stops being the case as soon as the items change.
+  @GuardedBy("this")
+  private boolean mHasComputedRange;
+  @GuardedBy("this")
+  private int mComputedRangeStart;
+  @GuardedBy("this")
+  private int mComputedRangeEnd;
+  // Whether the budget released trees within the computed range since it was computed.
+  @GuardedBy("this")
+  private boolean mHasReleasedRangeTrees;
+  // The estimated size of the layouts held by the trees of all the items.
+  @GuardedBy("this")
+  private int mRetainedSize;
+  // The items of the computed range before mReleaseCursorStart or after mReleaseCursorEnd hold
+  // nothing the budget can release. The cursors only move towards the viewport until the range
+  // changes or a layout completes, so the budget doesn't walk the range on every release.
+  @GuardedBy("this")
+  private int mReleaseCursorStart;
+  @GuardedBy("this")
+  private int mReleaseCursorEnd = -1;
   private StickyHeaderController mStickyHeaderController;
   private final boolean mCanPrefetchDisplayLists;
   private final boolean mCanCacheDrawingDisplayLists;
+  private final int mTextPrewarmCount;
+  private final @Nullable TextPrewarmer mTextPrewarmer;
   private EventHandler<ReMeasureEvent> mReMeasureEventEventHandler;
 
   private final ViewportManager mViewportManager;
@@ -143,6 +234,8 @@ public class RecyclerBinder
   public static class Builder {
 
     private float rangeRatio = 4f;
+    private @Nullable RangePolicy rangePolicy;
+    private @Nullable ComponentTreeBudget componentTreeBudget;
     private LayoutInfo layoutInfo;
     private @Nullable LayoutHandlerFactory layoutHandlerFactory;
     private boolean canPrefetchDisplayLists;
@@ -151,6 +244,7 @@ public class RecyclerBinder
         DEFAULT_COMPONENT_TREE_HOLDER_FACTORY;
     private ComponentContext componentContext;
     private LithoViewFactory lithoViewFactory;
+    private int textPrewarmCount;
 
     /**
      * @param rangeRatio specifies how big a range this binder should try to compute. The range is
@@ -165,6 +259,26 @@ public class RecyclerBinder
       return this;
     }
 
+    /**
+     * @param rangePolicy decides how big the range is on each side of the viewport. If not set,
+     * defaults to an {@link AdaptiveRangePolicy} using {@link #rangeRatio(float)}. Pass an
+     * instance explicitly to read its range hit and miss counts.
+     */
+    public Builder rangePolicy(RangePolicy rangePolicy) {
+      this.rangePolicy = rangePolicy;
+      return this;
+    }
+
+    /**
+     * @param componentTreeBudget caps the memory held by the {@link ComponentTree}s this binder
+     * lays out ahead of time, together with the other binders using it. If not set, defaults to
+     * {@link ComponentTreeBudget#getDefault()}.
+     */
+    public Builder componentTreeBudget(ComponentTreeBudget componentTreeBudget) {
+      this.componentTreeBudget = componentTreeBudget;
+      return this;
+    }
+
     /**
      * @param layoutInfo an implementation of {@link LayoutInfo} that will expose information about
      * the {@link LayoutManager} this RecyclerBinder will use. If not set, it will default to a
@@ -201,6 +315,17 @@ public class RecyclerBinder
       return this;
     }
 
+    /**
+     * @param textPrewarmCount how many items past each end of the range should be laid out ahead of
+     * time on a low priority thread, to measure their Text components and warm their glyphs. This
+     * only runs while the layouts of the range are complete. Works best together with
+     * {@link com.facebook.litho.config.ComponentsConfiguration#useTextLayoutCache}. Defaults to 0.
+     */
+    public Builder textPrewarmCount(int textPrewarmCount) {
+      this.textPrewarmCount = textPrewarmCount;
+      return this;
+    }
+
     /**
      *
      * @param componentTreeHolderFactory Factory to acquire a new ComponentTreeHolder. Defaults to
@@ -229,16 +354,36 @@ public class RecyclerBinder
   private RecyclerBinder(Builder builder) {
     mComponentContext = builder.componentContext;
     mComponentTreeHolderFactory = builder.componentTreeHolderFactory;
-    mComponentTreeHolders = new ArrayList<>();
+    mComponentTreeHolders = new ChunkedList<>();
     mPendingComponentTreeHolders = new ArrayList<>();
     mInternalAdapter = new InternalAdapter();
 
-    mRangeRatio = builder.rangeRatio;
+    mRangePolicy =
+        builder.rangePolicy != null
+            ? builder.rangePolicy
+            : new AdaptiveRangePolicy(builder.rangeRatio);
+    mComponentTreeBudget =
+        builder.componentTreeBudget != null
+            ? builder.componentTreeBudget
+            : ComponentTreeBudget.getDefault();
+    mComponentTreeBudget.register(mComponentTreeBudgetClient);
     mLayoutInfo = builder.layoutInfo;
     mLayoutHandlerFactory = builder.layoutHandlerFactory;
     mLithoViewFactory = builder.lithoViewFactory;
     mCanPrefetchDisplayLists = builder.canPrefetchDisplayLists;
     mCanCacheDrawingDisplayLists = builder.canCacheDrawingDisplayLists;
+    mTextPrewarmCount = builder.textPrewarmCount;
+    mTextPrewarmer =
+        mTextPrewarmCount > 0
+            ? new TextPrewarmer(
+                mComponentContext,
+                new TextPrewarmer.PendingLayoutChecker() {
+                  @Override
+                  public boolean hasPendingLayouts() {
+                    return hasPendingRangeLayouts();
+                  }
+                })
+            : null;
 
     mViewportManager = new ViewportManager(
         mCurrentFirstVisiblePosition,
@@ -347,10 +492,14 @@ public class RecyclerBinder
             null,
         mCanPrefetchDisplayLists,
         mCanCacheDrawingDisplayLists);
+    holder.setRetainedSizeListener(mRetainedSizeListener);
     final boolean computeLayout;
     final int childrenWidthSpec, childrenHeightSpec;
     synchronized (this) {
       mComponentTreeHolders.add(position, holder);
+      mStickyPositions.insert(position, 1);
+      mStickyPositions.set(position, renderInfo.isSticky());
+      invalidateComputedRange();
 
       mRenderInfoViewCreatorController.maybeUpdateViewCreatorMappingsOnItemInsert(renderInfo);
 
@@ -374,7 +523,7 @@ public class RecyclerBinder
         } else {
           final int firstVisiblePosition = Math.max(mCurrentFirstVisiblePosition, 0);
           computeLayout = position >= firstVisiblePosition &&
-              position < firstVisiblePosition + mRange.estimatedViewportCount;
+              position < firstVisiblePosition + getViewportCount();
         }
       } else {
         computeLayout = false;
@@ -411,6 +560,10 @@ public class RecyclerBinder
   public final void insertRangeAt(int position, List<RenderInfo> renderInfos) {
     ThreadUtils.assertMainThread();
 
+    synchronized (this) {
+      mStickyPositions.insert(position, renderInfos.size());
+    }
+
     for (int i = 0, size = renderInfos.size(); i < size; i++) {
 
       synchronized (this) {
@@ -422,8 +575,13 @@ public class RecyclerBinder
                 null,
             mCanPrefetchDisplayLists,
             mCanCacheDrawingDisplayLists);
+        holder.setRetainedSizeListener(mRetainedSizeListener);
 
         mComponentTreeHolders.add(position + i, holder);
+        if (renderInfo.isSticky()) {
+          mStickyPositions.set(position + i, true);
+        }
+        invalidateComputedRange();
         mRenderInfoViewCreatorController.maybeUpdateViewCreatorMappingsOnItemInsert(renderInfo);
 
         if (mRange == null && mIsMeasured.get() && holder.getRenderInfo().rendersComponent()) {
@@ -465,12 +623,14 @@ public class RecyclerBinder
     synchronized (this) {
       holder = mComponentTreeHolders.get(position);
       shouldComputeLayout = mRange != null && position >= mCurrentFirstVisiblePosition &&
-          position < mCurrentFirstVisiblePosition + mRange.estimatedViewportCount;
+          position < mCurrentFirstVisiblePosition + getViewportCount();
 
       final RenderInfo previousRenderInfo = holder.getRenderInfo();
       mRenderInfoViewCreatorController.maybeUpdateViewCreatorMappingsOnItemUpdate(
           previousRenderInfo, renderInfo);
       holder.setRenderInfo(renderInfo);
+      mStickyPositions.set(position, renderInfo.isSticky());
+      invalidateComputedRange();
 
       if (mRange == null && mIsMeasured.get() && renderInfo.rendersComponent()) {
         // Range might not have been initialized if all previous items were views and we update
@@ -518,6 +678,8 @@ public class RecyclerBinder
             previousRenderInfo, newRenderInfo);
 
         holder.setRenderInfo(newRenderInfo);
+        mStickyPositions.set(position + i, newRenderInfo.isSticky());
+        invalidateComputedRange();
 
         if (mRange == null && mIsMeasured.get() && newRenderInfo.rendersComponent()) {
           // Range might not have been initialized if all previous items were views and we update
@@ -551,11 +713,18 @@ public class RecyclerBinder
     synchronized (this) {
       holder = mComponentTreeHolders.remove(fromPosition);
       mComponentTreeHolders.add(toPosition, holder);
-      final int mRangeSize = mRange != null ? mRange.estimatedViewportCount : -1;
+      mStickyPositions.move(fromPosition, toPosition);
+      invalidateComputedRange();
+      final int mRangeSize = mRange != null ? getViewportCount() : -1;
+
+      final int rangeStart =
+          mCurrentFirstVisiblePosition - mRangePolicy.getItemCountBefore(mRangeSize);
+      final int rangeEnd =
+          mCurrentFirstVisiblePosition + mRangeSize + mRangePolicy.getItemCountAfter(mRangeSize);
 
       isNewPositionInRange = mRangeSize > 0 &&
-          toPosition >= mCurrentFirstVisiblePosition - (mRangeSize * mRangeRatio) &&
-          toPosition <= mCurrentFirstVisiblePosition + mRangeSize + (mRangeSize * mRangeRatio);
+          toPosition >= rangeStart &&
+          toPosition <= rangeEnd;
 
       isNewPositionInVisibleRange = mRangeSize > 0 &&
           toPosition >= mCurrentFirstVisiblePosition &&
@@ -585,6 +754,8 @@ public class RecyclerBinder
     final ComponentTreeHolder holder;
     synchronized (this) {
       holder = mComponentTreeHolders.remove(position);
+      mStickyPositions.remove(position, 1);
+      invalidateComputedRange();
       mRenderInfoViewCreatorController.maybeUpdateViewCreatorMappingsOnItemRemove(
           holder.getRenderInfo());
     }
@@ -607,6 +778,8 @@ public class RecyclerBinder
             holder.getRenderInfo());
         holder.release();
       }
+      mStickyPositions.remove(position, count);
+      invalidateComputedRange();
     }
     mInternalAdapter.notifyItemRangeRemoved(position, count);
 
@@ -822,6 +995,7 @@ public class RecyclerBinder
   @GuardedBy("this")
   private void invalidateLayoutData() {
     mRange = null;
+    invalidateComputedRange();
     for (int i = 0, size = mComponentTreeHolders.size(); i < size; i++) {
       mComponentTreeHolders.get(i).invalidateTree();
     }
@@ -854,6 +1028,28 @@ public class RecyclerBinder
     mRange = new RangeCalculationResult();
     mRange.measuredSize = scrollDirection == HORIZONTAL ? size.height : size.width;
     mRange.estimatedViewportCount = rangeSize;
+    mRange.estimatedItemSize = scrollDirection == HORIZONTAL ? size.width : size.height;
+    mRangePolicy.onItemMeasured(mRange.estimatedItemSize);
+    invalidateComputedRange();
+  }
+
+  /**
+   * @return the number of items needed to fill the viewport according to {@link #mRangePolicy}.
+   */
+  @GuardedBy("this")
+  private int getViewportCount() {
+    return mRangePolicy.getViewportCount(
+        mRange.estimatedViewportCount, mRange.estimatedItemSize);
+  }
+
+  /**
+   * Forces the next {@link #computeRange(int, int)} to walk all the items instead of only the
+   * ones that entered or left the range since the previous computation. This has to be called
+   * every time the items or their layout data change.
+   */
+  @GuardedBy("this")
+  private void invalidateComputedRange() {
+    mHasComputedRange = false;
   }
 
   /**
@@ -975,6 +1171,9 @@ public class RecyclerBinder
     }
 
     mMountedView = null;
+    if (mTextPrewarmer != null) {
+      mTextPrewarmer.cancel();
+    }
     if (mStickyHeaderController != null) {
       mStickyHeaderController.reset();
     }
@@ -1049,10 +1248,18 @@ public class RecyclerBinder
   }
 
   @Override
-  @UiThread
-  @GuardedBy("this")
   public boolean isSticky(int position) {
-    return mComponentTreeHolders.get(position).getRenderInfo().isSticky();
+    return mStickyPositions.isSticky(position);
+  }
+
+  @Override
+  public int findStickyPositionAtOrBefore(int position) {
+    return mStickyPositions.findStickyPositionAtOrBefore(position);
+  }
+
+  @Override
+  public int findStickyPositionAfter(int position) {
+    return mStickyPositions.findStickyPositionAfter(position);
   }
 
   @Override
@@ -1068,6 +1275,8 @@ public class RecyclerBinder
     private int estimatedViewportCount;
     // The size computed for the first Component.
     private int measuredSize;
+    // The size of the first Component in the scrolling direction.
+    private int estimatedItemSize;
   }
 
   @Override
@@ -1078,16 +1287,58 @@ public class RecyclerBinder
 
   @VisibleForTesting
   void onNewVisibleRange(int firstVisiblePosition, int lastVisiblePosition) {
+    measureNewlyVisibleItems(firstVisiblePosition, lastVisiblePosition);
     mCurrentFirstVisiblePosition = firstVisiblePosition;
     mCurrentLastVisiblePosition = lastVisiblePosition;
     computeRange(firstVisiblePosition, lastVisiblePosition);
   }
 
+  /**
+   * Reports to {@link #mRangePolicy} the sizes of the items in [firstVisible, lastVisible] that
+   * were not visible before, so that each shown item is measured once.
+   */
+  @UiThread
+  private void measureNewlyVisibleItems(int firstVisible, int lastVisible) {
+    if (mMountedView == null || firstVisible < 0 || lastVisible < firstVisible) {
+      return;
+    }
+
+    final LayoutManager layoutManager = mMountedView.getLayoutManager();
+    if (layoutManager == null) {
+      return;
+    }
+
+    final boolean isVertical = mLayoutInfo.getScrollDirection() == VERTICAL;
+    for (int i = firstVisible; i <= lastVisible; i++) {
+      if (i >= mCurrentFirstVisiblePosition && i <= mCurrentLastVisiblePosition) {
+        i = mCurrentLastVisiblePosition;
+        continue;
+      }
+
+      final View view = layoutManager.findViewByPosition(i);
+      if (view != null) {
+        mRangePolicy.onItemMeasured(isVertical ? view.getHeight() : view.getWidth());
+      }
+    }
+  }
+
+  /**
+   * Makes sure the items within the range around [firstVisible, lastVisible] have a layout and
+   * releases the {@link ComponentTree}s of the items outside of it. If nothing changed since the
+   * previous computation only the items that entered or left the range are visited. Layouts are
+   * requested in order of distance from the visible items, so that when they run on a shared pool
+   * (see {@link com.facebook.litho.ThreadPoolLayoutHandler}) the closest items are computed first.
+   */
   private void computeRange(int firstVisible, int lastVisible) {
     final int rangeSize;
     final int rangeStart;
     final int rangeEnd;
     final int treeHoldersSize;
+    final int treeHoldersModificationCount;
+    final boolean hadComputedRange;
+    final boolean hasReleasedRangeTrees;
+    final int previousRangeStart;
+    final int previousRangeEnd;
 
     synchronized (this) {
       if (!mIsMeasured.get() || mRange == null) {
@@ -1097,25 +1348,95 @@ public class RecyclerBinder
       if (firstVisible == RecyclerView.NO_POSITION || lastVisible == RecyclerView.NO_POSITION) {
         firstVisible = lastVisible = 0;
       }
-      rangeSize = Math.max(mRange.estimatedViewportCount, lastVisible - firstVisible);
-      rangeStart = firstVisible - (int) (rangeSize * mRangeRatio);
-      rangeEnd = firstVisible + rangeSize + (int) (rangeSize * mRangeRatio);
+      rangeSize = Math.max(getViewportCount(), lastVisible - firstVisible);
+      rangeStart = firstVisible - mRangePolicy.getItemCountBefore(rangeSize);
+      rangeEnd = firstVisible + rangeSize + mRangePolicy.getItemCountAfter(rangeSize);
       treeHoldersSize = mComponentTreeHolders.size();
+      treeHoldersModificationCount = mComponentTreeHolders.getModificationCount();
+
+      hadComputedRange = mHasComputedRange;
+      hasReleasedRangeTrees = mHasReleasedRangeTrees;
+      previousRangeStart = mComputedRangeStart;
+      previousRangeEnd = mComputedRangeEnd;
+
+      if (hadComputedRange
+          && !hasReleasedRangeTrees
+          && previousRangeStart == rangeStart
+          && previousRangeEnd == rangeEnd) {
+        // The visible items may still have moved within the range.
+        resetReleaseCursors();
+        return;
+      }
+
+      mHasComputedRange = true;
+      mHasReleasedRangeTrees = false;
+      mComputedRangeStart = rangeStart;
+      mComputedRangeEnd = rangeEnd;
+      resetReleaseCursors();
+    }
+
+    if (mTextPrewarmer != null) {
+      // The layouts of the new range go first.
+      mTextPrewarmer.cancel();
+    }
+
+    final int lastPosition = treeHoldersSize - 1;
+    final long[] positionsToLayout;
+
+    if (hadComputedRange) {
+      // Only the edges of the range moved: release what left it and lay out what entered it.
+      final boolean released =
+          releaseTreesOutsideRange(
+              Math.max(previousRangeStart, 0),
+              Math.min(previousRangeEnd, lastPosition),
+              rangeStart,
+              rangeEnd,
+              treeHoldersModificationCount);
+      if (!released) {
+        return;
+      }
+
+      // Trees the budget released within the previous range are laid out again along with the
+      // items that entered the range.
+      positionsToLayout =
+          sortByDistanceFromViewport(
+              Math.max(rangeStart, 0),
+              Math.min(rangeEnd, lastPosition),
+              hasReleasedRangeTrees ? lastPosition + 1 : previousRangeStart,
+              hasReleasedRangeTrees ? lastPosition : previousRangeEnd,
+              firstVisible,
+              lastVisible);
+    } else {
+      final boolean released =
+          releaseTreesOutsideRange(
+              0, lastPosition, rangeStart, rangeEnd, treeHoldersModificationCount);
+      if (!released) {
+        return;
+      }
+
+      positionsToLayout =
+          sortByDistanceFromViewport(
+              Math.max(rangeStart, 0),
+              Math.min(rangeEnd, lastPosition),
+              lastPosition + 1,
+              lastPosition,
+              firstVisible,
+              lastVisible);
     }
 
-    // TODO 16212153 optimize computeRange loop.
-    for (int i = 0; i < treeHoldersSize; i++) {
+    for (long sortKey : positionsToLayout) {
+      final int position = (int) sortKey;
       final ComponentTreeHolder holder;
       final int childrenWidthSpec, childrenHeightSpec;
 
       synchronized (this) {
         // Someone modified the ComponentsTreeHolders while we were computing this range. We
         // can just bail as another range will be computed.
-        if (treeHoldersSize != mComponentTreeHolders.size()) {
+        if (treeHoldersModificationCount != mComponentTreeHolders.getModificationCount()) {
           return;
         }
 
-        holder = mComponentTreeHolders.get(i);
+        holder = mComponentTreeHolders.get(position);
 
         if (holder.getRenderInfo().rendersView()) {
           continue;
@@ -1125,14 +1446,246 @@ public class RecyclerBinder
         childrenHeightSpec = getActualChildrenHeightSpec(holder);
       }
 
+      if (!holder.isTreeValid()) {
+        holder.computeLayoutAsync(mComponentContext, childrenWidthSpec, childrenHeightSpec);
+      }
+    }
+
+    if (mTextPrewarmer != null) {
+      prewarmTextOutsideRange(
+          rangeStart,
+          rangeEnd,
+          firstVisible,
+          lastVisible,
+          treeHoldersSize,
+          treeHoldersModificationCount);
+    }
+  }
+
+  /**
+   * Queues the items within {@link #mTextPrewarmCount} positions of [rangeStart, rangeEnd] to be
+   * laid out by the {@link TextPrewarmer}, closest to the visible items first.
+   */
+  private void prewarmTextOutsideRange(
+      int rangeStart,
+      int rangeEnd,
+      int firstVisible,
+      int lastVisible,
+      int treeHoldersSize,
+      int treeHoldersModificationCount) {
+    final long[] positionsToPrewarm =
+        sortByDistanceFromViewport(
+            Math.max(rangeStart - mTextPrewarmCount, 0),
+            Math.min(rangeEnd + mTextPrewarmCount, treeHoldersSize - 1),
+            rangeStart,
+            rangeEnd,
+            firstVisible,
+            lastVisible);
+
+    for (long sortKey : positionsToPrewarm) {
+      final int position = (int) sortKey;
+      final Component component;
+      final int childrenWidthSpec, childrenHeightSpec;
+
+      synchronized (this) {
+        if (treeHoldersModificationCount != mComponentTreeHolders.getModificationCount()) {
+          return;
+        }
+
+        final ComponentTreeHolder holder = mComponentTreeHolders.get(position);
+
+        if (holder.getRenderInfo().rendersView() || holder.isTreeValid()) {
+          continue;
+        }
+
+        component = holder.getRenderInfo().getComponent();
+        childrenWidthSpec = getActualChildrenWidthSpec(holder);
+        childrenHeightSpec = getActualChildrenHeightSpec(holder);
+      }
+
+      mTextPrewarmer.prewarm(component, childrenWidthSpec, childrenHeightSpec);
+    }
+  }
+
+  /**
+   * @return whether any item of the last computed range is still waiting for its layout.
+   */
+  private synchronized boolean hasPendingRangeLayouts() {
+    if (!mHasComputedRange) {
+      return true;
+    }
+
+    final int end = Math.min(mComputedRangeEnd, mComponentTreeHolders.size() - 1);
+    for (int i = Math.max(mComputedRangeStart, 0); i <= end; i++) {
+      final ComponentTreeHolder holder = mComponentTreeHolders.get(i);
+      // Trees released by the budget are not pending.
+      if (!holder.getRenderInfo().rendersView()
+          && holder.isTreeValid()
+          && !holder.hasCompletedLatestLayout()) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * @return the estimated size, in bytes, of the layouts held by the {@link ComponentTree}s of the
+   * items. Trees are only counted once their layout is calculated. This is a running total, kept up
+   * to date as layouts complete and trees are released.
+   */
+  public synchronized int getEstimatedRetainedSize() {
+    return mRetainedSize;
+  }
+
+  /**
+   * @return the position in the current range of the non visible, non sticky item holding a
+   * calculated layout that is farthest from the viewport, or -1 if there is none. Items whose
+   * layout is still pending are skipped: they don't hold anything yet, and releasing them would
+   * only drop the layouts just requested ahead of the scroll. The farthest items are at the edges
+   * of the range, so this only moves the release cursors inwards past the items that can't be
+   * released.
+   */
+  @GuardedBy("this")
+  private int findFarthestReleasableTree() {
+    if (!mHasComputedRange) {
+      return -1;
+    }
+
+    final int firstVisible = Math.max(mCurrentFirstVisiblePosition, 0);
+    final int lastVisible = Math.max(mCurrentLastVisiblePosition, firstVisible);
+
+    while (mReleaseCursorStart < firstVisible
+        && mReleaseCursorStart <= mReleaseCursorEnd
+        && !isReleasable(mComponentTreeHolders.get(mReleaseCursorStart))) {
+      mReleaseCursorStart++;
+    }
+
+    while (mReleaseCursorEnd > lastVisible
+        && mReleaseCursorEnd >= mReleaseCursorStart
+        && !isReleasable(mComponentTreeHolders.get(mReleaseCursorEnd))) {
+      mReleaseCursorEnd--;
+    }
+
+    final boolean hasCandidates = mReleaseCursorStart <= mReleaseCursorEnd;
+    final int startDistance =
+        hasCandidates && mReleaseCursorStart < firstVisible
+            ? firstVisible - mReleaseCursorStart
+            : 0;
+    final int endDistance =
+        hasCandidates && mReleaseCursorEnd > lastVisible ? mReleaseCursorEnd - lastVisible : 0;
+
+    if (startDistance == 0 && endDistance == 0) {
+      return -1;
+    }
+
+    return startDistance >= endDistance ? mReleaseCursorStart : mReleaseCursorEnd;
+  }
+
+  private static boolean isReleasable(ComponentTreeHolder holder) {
+    return holder.hasCompletedLatestLayout()
+        && holder.getEstimatedRetainedSize() > 0
+        && !holder.getRenderInfo().isSticky();
+  }
+
+  @GuardedBy("this")
+  private void resetReleaseCursors() {
+    mReleaseCursorStart = Math.max(mComputedRangeStart, 0);
+    mReleaseCursorEnd = Math.min(mComputedRangeEnd, mComponentTreeHolders.size() - 1);
+  }
+
+  @GuardedBy("this")
+  private int getDistanceFromViewport(int position) {
+    final int firstVisible = Math.max(mCurrentFirstVisiblePosition, 0);
+    final int lastVisible = Math.max(mCurrentLastVisiblePosition, firstVisible);
+    return (int) (toDistanceSortKey(position, firstVisible, lastVisible) >>> 32);
+  }
+
+  /**
+   * Releases the {@link ComponentTree} of the non sticky items in [start, end] that are not within
+   * [rangeStart, rangeEnd]. Releasing a tree also drops any layout that is still pending for it.
+   *
+   * @return false if the items were modified while they were being walked.
+   */
+  private boolean releaseTreesOutsideRange(
+      int start, int end, int rangeStart, int rangeEnd, int treeHoldersModificationCount) {
+    for (int i = start; i <= end; i++) {
       if (i >= rangeStart && i <= rangeEnd) {
-        if (!holder.isTreeValid()) {
-          holder.computeLayoutAsync(mComponentContext, childrenWidthSpec, childrenHeightSpec);
+        // Skip the whole range in one go.
+        i = rangeEnd;
+        continue;
+      }
+
+      final ComponentTreeHolder holder;
+
+      synchronized (this) {
+        if (treeHoldersModificationCount != mComponentTreeHolders.getModificationCount()) {
+          return false;
+        }
+
+        holder = mComponentTreeHolders.get(i);
+
+        if (holder.getRenderInfo().rendersView()) {
+          continue;
         }
-      } else if (holder.isTreeValid() && !holder.getRenderInfo().isSticky()) {
+      }
+
+      if (holder.isTreeValid() && !holder.getRenderInfo().isSticky()) {
         holder.acquireStateHandlerAndReleaseTree();
       }
     }
+
+    return true;
+  }
+
+  /**
+   * @return the positions in [start, end] that are not within [excludedStart, excludedEnd], sorted
+   * by their distance from [firstVisible, lastVisible]. Each entry packs the distance in the high
+   * 32 bits and the position in the low 32 bits, so casting an entry to int gives the position.
+   */
+  @VisibleForTesting
+  static long[] sortByDistanceFromViewport(
+      int start,
+      int end,
+      int excludedStart,
+      int excludedEnd,
+      int firstVisible,
+      int lastVisible) {
+    if (start > end) {
+      return new long[0];
+    }
+
+    final int beforeExcludedEnd = Math.min(end, excludedStart - 1);
+    final int afterExcludedStart = Math.max(start, excludedEnd + 1);
+    final int beforeCount = Math.max(0, beforeExcludedEnd - start + 1);
+    final int afterCount = Math.max(0, end - afterExcludedStart + 1);
+
+    final long[] positions = new long[beforeCount + afterCount];
+    int index = 0;
+
+    for (int i = start; i <= beforeExcludedEnd; i++) {
+      positions[index++] = toDistanceSortKey(i, firstVisible, lastVisible);
+    }
+
+    for (int i = afterExcludedStart; i <= end; i++) {
+      positions[index++] = toDistanceSortKey(i, firstVisible, lastVisible);
+    }
+
+    Arrays.sort(positions);
+    return positions;
+  }
+
+  private static long toDistanceSortKey(int position, int firstVisible, int lastVisible) {
+    final long distance;
+    if (position < firstVisible) {
+      distance = firstVisible - position;
+    } else if (position > lastVisible) {
+      distance = position - lastVisible;
+    } else {
+      distance = 0;
+    }
+
+    return (distance << 32) | position;
   }
 
   @VisibleForTesting
@@ -1170,6 +1723,19 @@ public class RecyclerBinder
       if (mCanPrefetchDisplayLists) {
         DisplayListUtils.prefetchDisplayLists(recyclerView);
       }
+
+      int delta = mLayoutInfo.getScrollDirection() == HORIZONTAL ? dx : dy;
+      final LayoutManager layoutManager = recyclerView.getLayoutManager();
+      if (layoutManager instanceof LinearLayoutManager
+          && ((LinearLayoutManager) layoutManager).getReverseLayout()) {
+        delta = -delta;
+      }
+      mRangePolicy.onScrolled(delta, SystemClock.uptimeMillis());
+    }
+
+    @Override
+    public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
+      mRangePolicy.onScrollStateChanged(newState);
     }
   }
 
@@ -1222,6 +1788,7 @@ public class RecyclerBinder
         final LithoView lithoView = (LithoView) holder.itemView;
         final int childrenWidthSpec = getActualChildrenWidthSpec(componentTreeHolder);
         final int childrenHeightSpec = getActualChildrenHeightSpec(componentTreeHolder);
+        mRangePolicy.onItemBound(position, componentTreeHolder.hasCompletedLatestLayout());
         if (!componentTreeHolder.isTreeValid()) {
           componentTreeHolder.computeLayoutSync(
               mComponentContext, childrenWidthSpec, childrenHeightSpec, null);
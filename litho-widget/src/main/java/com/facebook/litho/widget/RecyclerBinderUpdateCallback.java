@@ -9,11 +9,20 @@
 
 package com.facebook.litho.widget;
 
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.VisibleForTesting;
 import android.support.v4.util.Pools.SynchronizedPool;
+import android.support.v7.util.DiffUtil;
 import android.support.v7.util.ListUpdateCallback;
 import com.facebook.litho.Component;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
 
 /**
  * An implementation of {@link ListUpdateCallback} that generates the relevant {@link Component}s
@@ -22,12 +31,20 @@ import java.util.List;
  * The user of this API is expected to provide a ComponentRenderer implementation to build a
  * Component from a generic model object.
  *
+ * For large lists, {@link #applyDiffAsync} computes the diff and renders the items off the main
+ * thread, and then applies all the operations in a single main thread message.
  */
 public class RecyclerBinderUpdateCallback<T> implements ListUpdateCallback {
 
   private static final SynchronizedPool<RecyclerBinderUpdateCallback> sUpdatesCallbackPool =
       new SynchronizedPool<>(4);
 
+  // Below this many items to render, handing them to other threads costs more than it saves.
+  private static final int MIN_PARALLEL_RENDER_COUNT = 64;
+  private static final int RENDER_CHUNK_SIZE = 32;
+  private static final int MAX_RENDER_HELPERS =
+      Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+
   public interface ComponentRenderer<T> {
     RenderInfo render(T t, int idx);
   }
@@ -70,6 +87,71 @@ public class RecyclerBinderUpdateCallback<T> implements ListUpdateCallback {
     return instance;
   }
 
+  /**
+   * Computes the diff described by diffCallback and renders the items it inserts or changes on
+   * executor, then applies all the resulting operations to recyclerBinder in a single main thread
+   * message, using range operations for consecutive items. Updates scheduled on the same serial
+   * executor are applied in order.
+   *
+   * If computing the diff or rendering fails, the update is dropped and the exception is rethrown
+   * on the main thread: the updates queued after it were computed against the data it would have
+   * applied, so the binder can't be kept in sync.
+   *
+   * @param renderExecutor if not null, rendering is split between the thread running the update
+   * and this executor, so componentRenderer has to be thread safe.
+   */
+  public static <T> void applyDiffAsync(
+      final int oldDataSize,
+      final List<T> data,
+      final DiffUtil.Callback diffCallback,
+      final ComponentRenderer<T> componentRenderer,
+      final RecyclerBinder recyclerBinder,
+      Executor executor,
+      @Nullable final Executor renderExecutor) {
+    final Handler mainThreadHandler = new Handler(Looper.getMainLooper());
+    executor.execute(
+        new Runnable() {
+          @Override
+          public void run() {
+            RecyclerBinderUpdateCallback<T> updatesCallback = null;
+            try {
+              final DiffUtil.DiffResult diffResult = DiffUtil.calculateDiff(diffCallback);
+              updatesCallback = acquire(oldDataSize, data, componentRenderer, recyclerBinder);
+              diffResult.dispatchUpdatesTo(updatesCallback);
+              updatesCallback.renderPlaceholders(renderExecutor);
+            } catch (final RuntimeException e) {
+              if (updatesCallback != null) {
+                release(updatesCallback);
+              }
+
+              // An executor would swallow the exception and the update would silently be lost.
+              mainThreadHandler.post(
+                  new Runnable() {
+                    @Override
+                    public void run() {
+                      throw e;
+                    }
+                  });
+              return;
+            }
+
+            final RecyclerBinderUpdateCallback<T> renderedUpdatesCallback = updatesCallback;
+            mainThreadHandler.post(
+                new Runnable() {
+                  @Override
+                  public void run() {
+                    try {
+                      renderedUpdatesCallback.mOperationExecutor.executeOperations(
+                          renderedUpdatesCallback.mOperations);
+                    } finally {
+                      release(renderedUpdatesCallback);
+                    }
+                  }
+                });
+          }
+        });
+  }
+
   public static<T> void release(RecyclerBinderUpdateCallback<T> updatesCallback) {
     final List<Operation> operations = updatesCallback.mOperations;
     for (int i = 0, size = operations.size(); i < size; i++) {
@@ -79,8 +161,12 @@ public class RecyclerBinderUpdateCallback<T> implements ListUpdateCallback {
 
     updatesCallback.mData = null;
     for (int i = 0, size = updatesCallback.mPlaceholders.size(); i < size; i++) {
-      updatesCallback.mPlaceholders.get(i).release();
+      final ComponentContainer placeholder = updatesCallback.mPlaceholders.get(i);
+      if (placeholder != null) {
+        placeholder.release();
+      }
     }
+    updatesCallback.mPlaceholders = null;
     updatesCallback.mComponentRenderer = null;
     updatesCallback.mOperationExecutor = null;
     sUpdatesCallbackPool.release(updatesCallback);
@@ -100,16 +186,14 @@ public class RecyclerBinderUpdateCallback<T> implements ListUpdateCallback {
     mOperationExecutor = operationExecutor;
 
     mOperations = new ArrayList<>();
-    mPlaceholders = new ArrayList<>();
-    for (int i = 0; i < oldDataSize; i++) {
-      mPlaceholders.add(ComponentContainer.acquire());
-    }
+    // Items that don't change don't need a placeholder, null keeps their position.
+    mPlaceholders = new ArrayList<>(Collections.<ComponentContainer>nCopies(oldDataSize, null));
   }
 
   @Override
   public void onInserted(int position, int count) {
 
-    final List<ComponentContainer> placeholders = new ArrayList<>();
+    final List<ComponentContainer> placeholders = new ArrayList<>(count);
     for (int i = 0; i < count; i++) {
       final int index = position + i;
       final ComponentContainer componentContainer = ComponentContainer.acquire();
@@ -125,7 +209,9 @@ public class RecyclerBinderUpdateCallback<T> implements ListUpdateCallback {
   public void onRemoved(int position, int count) {
     for (int i = 0; i < count; i++) {
       final ComponentContainer componentContainer = mPlaceholders.remove(position);
-      componentContainer.release();
+      if (componentContainer != null) {
+        componentContainer.release();
+      }
     }
 
     mOperations.add(Operation.acquire(Operation.DELETE, position, count, null));
@@ -140,11 +226,15 @@ public class RecyclerBinderUpdateCallback<T> implements ListUpdateCallback {
 
   @Override
   public void onChanged(int position, int count, Object payload) {
-    final List<ComponentContainer> placeholders = new ArrayList<>();
+    final List<ComponentContainer> placeholders = new ArrayList<>(count);
 
     for (int i = 0; i < count; i++) {
       final int index = position + i;
-      final ComponentContainer placeholder = mPlaceholders.get(index);
+      ComponentContainer placeholder = mPlaceholders.get(index);
+      if (placeholder == null) {
+        placeholder = ComponentContainer.acquire();
+        mPlaceholders.set(index, placeholder);
+      }
       placeholder.mNeedsComputation = true;
       placeholders.add(placeholder);
     }
@@ -153,14 +243,124 @@ public class RecyclerBinderUpdateCallback<T> implements ListUpdateCallback {
   }
 
   public void applyChangeset() {
+    renderPlaceholders(null);
+
+    mOperationExecutor.executeOperations(mOperations);
+  }
+
+  /**
+   * Renders the items that were inserted or changed, on this thread and renderExecutor if it's not
+   * null. Returns once all of them are rendered.
+   */
+  @VisibleForTesting
+  void renderPlaceholders(@Nullable Executor renderExecutor) {
+    int count = 0;
     for (int i = 0, size = mPlaceholders.size(); i < size; i++) {
-      if (mPlaceholders.get(i).mNeedsComputation) {
-        mPlaceholders.get(i).mRenderInfo =
-            mComponentRenderer.render(mData.get(i), i);
+      final ComponentContainer placeholder = mPlaceholders.get(i);
+      if (placeholder != null && placeholder.mNeedsComputation) {
+        count++;
       }
     }
 
-    mOperationExecutor.executeOperations(mOperations);
+    final int[] positions = new int[count];
+    int index = 0;
+    for (int i = 0, size = mPlaceholders.size(); i < size; i++) {
+      final ComponentContainer placeholder = mPlaceholders.get(i);
+      if (placeholder != null && placeholder.mNeedsComputation) {
+        positions[index++] = i;
+      }
+    }
+
+    if (renderExecutor == null || count < MIN_PARALLEL_RENDER_COUNT) {
+      renderPositions(positions, 0, count);
+      return;
+    }
+
+    final ParallelRender parallelRender = new ParallelRender(positions);
+    final int helperCount = Math.min(MAX_RENDER_HELPERS, parallelRender.mChunkCount - 1);
+    for (int i = 0; i < helperCount; i++) {
+      renderExecutor.execute(parallelRender);
+    }
+
+    parallelRender.run();
+    parallelRender.awaitCompletion();
+  }
+
+  private void renderPositions(int[] positions, int start, int end) {
+    for (int i = start; i < end; i++) {
+      final int position = positions[i];
+      mPlaceholders.get(position).mRenderInfo =
+          mComponentRenderer.render(mData.get(position), position);
+    }
+  }
+
+  /**
+   * Renders chunks of positions until there are none left. It runs on the calling thread and on
+   * helper threads, so the calling thread never waits for a helper that didn't start: helpers that
+   * start late find no chunk left.
+   */
+  private class ParallelRender implements Runnable {
+
+    private final int[] mPositions;
+    private final int mChunkCount;
+    private final AtomicInteger mNextChunk = new AtomicInteger();
+    @GuardedBy("this")
+    private int mRunningCount;
+    @GuardedBy("this")
+    private Throwable mError;
+
+    private ParallelRender(int[] positions) {
+      mPositions = positions;
+      mChunkCount = (positions.length + RENDER_CHUNK_SIZE - 1) / RENDER_CHUNK_SIZE;
+    }
+
+    @Override
+    public void run() {
+      synchronized (this) {
+        mRunningCount++;
+      }
+
+      try {
+        int chunk;
+        while ((chunk = mNextChunk.getAndIncrement()) < mChunkCount) {
+          final int start = chunk * RENDER_CHUNK_SIZE;
+          final int end = Math.min(start + RENDER_CHUNK_SIZE, mPositions.length);
+          renderPositions(mPositions, start, end);
+        }
+      } catch (Throwable t) {
+        synchronized (this) {
+          if (mError == null) {
+            mError = t;
+          }
+        }
+        // Stops the other threads.
+        mNextChunk.set(mChunkCount);
+      } finally {
+        synchronized (this) {
+          mRunningCount--;
+          notifyAll();
+        }
+      }
+    }
+
+    private synchronized void awaitCompletion() {
+      boolean interrupted = false;
+      while (mRunningCount > 0) {
+        try {
+          wait();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+
+      if (mError != null) {
+        throw new RuntimeException("Rendering the updated items failed", mError);
+      }
+    }
   }
 
   public static class Operation {
@@ -11,7 +11,6 @@ package com.facebook.litho.widget;
 
 import android.annotation.TargetApi;
 import android.os.Build;
-import android.support.annotation.VisibleForTesting;
 import android.support.v7.widget.RecyclerView;
 import android.view.View;
 import com.facebook.litho.ComponentTree;
@@ -80,7 +79,8 @@ class StickyHeaderController extends RecyclerView.OnScrollListener {
       return;
     }
 
-    final int stickyHeaderPosition = findStickyHeaderPosition(firstVisiblePosition);
+    final int stickyHeaderPosition =
+        mHasStickyHeader.findStickyPositionAtOrBefore(firstVisiblePosition);
     final ComponentTree firstVisibleItemComponentTree =
         mHasStickyHeader.getComponentAt(firstVisiblePosition);
 
@@ -126,16 +126,17 @@ class StickyHeaderController extends RecyclerView.OnScrollListener {
 
       // Translate sticky header
       final int lastVisiblePosition = mHasStickyHeader.findLastVisibleItemPosition();
+      // The first visible item isn't sticky here, so the next sticky item is after it.
+      final int nextStickyHeaderPosition =
+          mHasStickyHeader.findStickyPositionAfter(firstVisiblePosition);
       int translationY = 0;
-      for (int i = firstVisiblePosition; i <= lastVisiblePosition; i++) {
-        if (mHasStickyHeader.isSticky(i)) {
-          final View nextStickyHeader = mLayoutManager.findViewByPosition(i);
-          final int offsetBetweenStickyHeaders = nextStickyHeader.getTop()
-              - mRecyclerViewWrapper.getStickyHeader().getBottom()
-              + mRecyclerViewWrapper.getPaddingTop();
-          translationY = Math.min(offsetBetweenStickyHeaders, 0);
-          break;
-        }
+      if (nextStickyHeaderPosition > firstVisiblePosition
+          && nextStickyHeaderPosition <= lastVisiblePosition) {
+        final View nextStickyHeader = mLayoutManager.findViewByPosition(nextStickyHeaderPosition);
+        final int offsetBetweenStickyHeaders = nextStickyHeader.getTop()
+            - mRecyclerViewWrapper.getStickyHeader().getBottom()
+            + mRecyclerViewWrapper.getPaddingTop();
+        translationY = Math.min(offsetBetweenStickyHeaders, 0);
       }
       mRecyclerViewWrapper.setStickyHeaderVerticalOffset(translationY);
       previousStickyHeaderPosition = stickyHeaderPosition;
@@ -161,14 +162,4 @@ class StickyHeaderController extends RecyclerView.OnScrollListener {
         view.onStartTemporaryDetach();
     }
   }
-
-  @VisibleForTesting(otherwise = VisibleForTesting.PRIVATE)
-  int findStickyHeaderPosition(int currentFirstVisiblePosition) {
-    for (int i = currentFirstVisiblePosition; i >= 0; i--) {
-      if (mHasStickyHeader.isSticky(i)) {
-        return i;
-      }
-    }
-    return RecyclerView.NO_POSITION;
-  }
 }
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho.widget;
+
+import android.support.v7.widget.RecyclerView;
+import java.util.Arrays;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * The sorted positions of the sticky items of a {@link RecyclerBinder}, kept up to date as items
+ * are inserted, removed, moved and updated, so that the sticky header above a position is found
+ * with a binary search.
+ *
+ * Lists usually have few sticky items, so every change copies the array: lookups, which happen on
+ * every scroll, read the current array without locking.
+ */
+@ThreadSafe
+class StickyPositionIndex {
+
+  private static final int[] EMPTY = new int[0];
+
+  private volatile int[] mPositions = EMPTY;
+
+  boolean isSticky(int position) {
+    return Arrays.binarySearch(mPositions, position) >= 0;
+  }
+
+  /**
+   * @return the last sticky position at or before position, or {@link RecyclerView#NO_POSITION}.
+   */
+  int findStickyPositionAtOrBefore(int position) {
+    final int[] positions = mPositions;
+    final int index = Arrays.binarySearch(positions, position);
+    if (index >= 0) {
+      return positions[index];
+    }
+
+    final int before = -index - 2;
+    return before >= 0 ? positions[before] : RecyclerView.NO_POSITION;
+  }
+
+  /**
+   * @return the first sticky position after position, or {@link RecyclerView#NO_POSITION}.
+   */
+  int findStickyPositionAfter(int position) {
+    final int[] positions = mPositions;
+    final int index = Arrays.binarySearch(positions, position);
+    final int after = index >= 0 ? index + 1 : -index - 1;
+    return after < positions.length ? positions[after] : RecyclerView.NO_POSITION;
+  }
+
+  synchronized void set(int position, boolean isSticky) {
+    mPositions = set(mPositions, position, isSticky);
+  }
+
+  /**
+   * Makes room for count items that aren't sticky at position.
+   */
+  synchronized void insert(int position, int count) {
+    mPositions = insert(mPositions, position, count);
+  }
+
+  synchronized void remove(int position, int count) {
+    mPositions = remove(mPositions, position, count);
+  }
+
+  synchronized void move(int fromPosition, int toPosition) {
+    final int[] positions = mPositions;
+    final boolean isSticky = Arrays.binarySearch(positions, fromPosition) >= 0;
+    final int[] withoutItem = remove(positions, fromPosition, 1);
+    mPositions = set(insert(withoutItem, toPosition, 1), toPosition, isSticky);
+  }
+
+  private static int[] set(int[] positions, int position, boolean isSticky) {
+    final int index = Arrays.binarySearch(positions, position);
+    if ((index >= 0) == isSticky) {
+      return positions;
+    }
+
+    final int[] newPositions;
+    if (isSticky) {
+      final int insertionIndex = -index - 1;
+      newPositions = new int[positions.length + 1];
+      System.arraycopy(positions, 0, newPositions, 0, insertionIndex);
+      newPositions[insertionIndex] = position;
+      System.arraycopy(
+          positions,
+          insertionIndex,
+          newPositions,
+          insertionIndex + 1,
+          positions.length - insertionIndex);
+    } else {
+      newPositions = new int[positions.length - 1];
+      System.arraycopy(positions, 0, newPositions, 0, index);
+      System.arraycopy(positions, index + 1, newPositions, index, positions.length - index - 1);
+    }
+
+    return newPositions;
+  }
+
+  private static int[] insert(int[] positions, int position, int count) {
+    final int start = indexOfFirstAtOrAfter(positions, position);
+    if (start == positions.length || count == 0) {
+      return positions;
+    }
+
+    final int[] newPositions = positions.clone();
+    for (int i = start; i < newPositions.length; i++) {
+      newPositions[i] += count;
+    }
+
+    return newPositions;
+  }
+
+  private static int[] remove(int[] positions, int position, int count) {
+    final int start = indexOfFirstAtOrAfter(positions, position);
+    if (start == positions.length || count == 0) {
+      return positions;
+    }
+
+    final int end = indexOfFirstAtOrAfter(positions, position + count);
+    final int[] newPositions = new int[positions.length - (end - start)];
+    System.arraycopy(positions, 0, newPositions, 0, start);
+    for (int i = end; i < positions.length; i++) {
+      newPositions[start + i - end] = positions[i] - count;
+    }
+
+    return newPositions;
+  }
+
+  private static int indexOfFirstAtOrAfter(int[] positions, int position) {
+    final int index = Arrays.binarySearch(positions, position);
+    return index >= 0 ? index : -index - 1;
+  }
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho.widget;
+
+import android.graphics.Typeface;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
+import android.support.v4.text.TextDirectionHeuristicCompat;
+import android.support.v4.util.LruCache;
+import android.text.Layout;
+import android.text.Layout.Alignment;
+import android.text.TextUtils.TruncateAt;
+import com.facebook.litho.config.ComponentsConfiguration;
+
+/**
+ * A process wide LRU cache of the text {@link Layout}s created by {@link TextSpec}. Labels,
+ * timestamps and names are often repeated across many items of a list, and with this cache each
+ * of them is laid out only once for every width and set of text attributes.
+ *
+ * The cached layouts are shared by all the Text components that use them, so only plain strings
+ * whose paint is never changed on mount are cached. Lookups are thread safe and can happen on any
+ * layout thread.
+ */
+public class TextLayoutCache {
+
+  private static TextLayoutCache sInstance;
+
+  private final LruCache<Key, Layout> mCache;
+
+  static synchronized TextLayoutCache getInstance() {
+    if (sInstance == null) {
+      sInstance = new TextLayoutCache(ComponentsConfiguration.textLayoutCacheSize);
+    }
+
+    return sInstance;
+  }
+
+  @VisibleForTesting
+  TextLayoutCache(int maxSize) {
+    mCache = new LruCache<>(maxSize);
+  }
+
+  @Nullable
+  Layout get(Key key) {
+    return mCache.get(key);
+  }
+
+  void put(Key key, Layout layout) {
+    mCache.put(key, layout);
+  }
+
+  /**
+   * @return the number of text layouts that were found in the cache.
+   */
+  public static int getHitCount() {
+    return getInstance().mCache.hitCount();
+  }
+
+  /**
+   * @return the number of text layouts that had to be created because they were not cached.
+   */
+  public static int getMissCount() {
+    return getInstance().mCache.missCount();
+  }
+
+  /**
+   * @return the ratio of lookups that were found in the cache, or 0 if there were none.
+   */
+  public static float getHitRate() {
+    final int hitCount = getHitCount();
+    final int lookupCount = hitCount + getMissCount();
+    return lookupCount == 0 ? 0 : (float) hitCount / lookupCount;
+  }
+
+  /**
+   * Removes all the cached text layouts, for example on a configuration change or on low memory.
+   */
+  public static void clear() {
+    getInstance().mCache.evictAll();
+  }
+
+  /**
+   * Everything a text {@link Layout} created by {@link TextSpec} depends on.
+   */
+  static class Key {
+    private final String mText;
+    private final int mWidthSpec;
+    private final TruncateAt mEllipsize;
+    private final boolean mShouldIncludeFontPadding;
+    private final int mMaxLines;
+    private final float mShadowRadius;
+    private final float mShadowDx;
+    private final float mShadowDy;
+    private final int mShadowColor;
+    private final boolean mIsSingleLine;
+    private final int mTextColor;
+    private final int mLinkColor;
+    private final int mTextSize;
+    private final float mExtraSpacing;
+    private final float mSpacingMultiplier;
+    private final int mTextStyle;
+    private final Typeface mTypeface;
+    private final Alignment mTextAlignment;
+    private final int mMinEms;
+    private final int mMaxEms;
+    private final int mMinWidth;
+    private final int mMaxWidth;
+    private final TextDirectionHeuristicCompat mTextDirection;
+    private final int mHashCode;
+
+    Key(
+        String text,
+        int widthSpec,
+        TruncateAt ellipsize,
+        boolean shouldIncludeFontPadding,
+        int maxLines,
+        float shadowRadius,
+        float shadowDx,
+        float shadowDy,
+        int shadowColor,
+        boolean isSingleLine,
+        int textColor,
+        int linkColor,
+        int textSize,
+        float extraSpacing,
+        float spacingMultiplier,
+        int textStyle,
+        Typeface typeface,
+        Alignment textAlignment,
+        int minEms,
+        int maxEms,
+        int minWidth,
+        int maxWidth,
+        TextDirectionHeuristicCompat textDirection) {
+      mText = text;
+      mWidthSpec = widthSpec;
+      mEllipsize = ellipsize;
+      mShouldIncludeFontPadding = shouldIncludeFontPadding;
+      mMaxLines = maxLines;
+      mShadowRadius = shadowRadius;
+      mShadowDx = shadowDx;
+      mShadowDy = shadowDy;
+      mShadowColor = shadowColor;
+      mIsSingleLine = isSingleLine;
+      mTextColor = textColor;
+      mLinkColor = linkColor;
+      mTextSize = textSize;
+      mExtraSpacing = extraSpacing;
+      mSpacingMultiplier = spacingMultiplier;
+      mTextStyle = textStyle;
+      mTypeface = typeface;
+      mTextAlignment = textAlignment;
+      mMinEms = minEms;
+      mMaxEms = maxEms;
+      mMinWidth = minWidth;
+      mMaxWidth = maxWidth;
+      mTextDirection = textDirection;
+      mHashCode = computeHashCode();
+    }
+
+    private int computeHashCode() {
+      int result = mText.hashCode();
+      result = 31 * result + mWidthSpec;
+      result = 31 * result + (mEllipsize != null ? mEllipsize.hashCode() : 0);
+      result = 31 * result + (mShouldIncludeFontPadding ? 1 : 0);
+      result = 31 * result + mMaxLines;
+      result = 31 * result + Float.floatToIntBits(mShadowRadius);
+      result = 31 * result + mShadowColor;
+      result = 31 * result + (mIsSingleLine ? 1 : 0);
+      result = 31 * result + mTextColor;
+      result = 31 * result + mTextSize;
+      result = 31 * result + mTextStyle;
+      result = 31 * result + (mTextAlignment != null ? mTextAlignment.hashCode() : 0);
+      return result;
+    }
+
+    @Override
+    public int hashCode() {
+      return mHashCode;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+
+      if (!(o instanceof Key)) {
+        return false;
+      }
+
+      final Key other = (Key) o;
+      return mHashCode == other.mHashCode
+          && mWidthSpec == other.mWidthSpec
+          && mShouldIncludeFontPadding == other.mShouldIncludeFontPadding
+          && mMaxLines == other.mMaxLines
+          && Float.compare(mShadowRadius, other.mShadowRadius) == 0
+          && Float.compare(mShadowDx, other.mShadowDx) == 0
+          && Float.compare(mShadowDy, other.mShadowDy) == 0
+          && mShadowColor == other.mShadowColor
+          && mIsSingleLine == other.mIsSingleLine
+          && mTextColor == other.mTextColor
+          && mLinkColor == other.mLinkColor
+          && mTextSize == other.mTextSize
+          && Float.compare(mExtraSpacing, other.mExtraSpacing) == 0
+          && Float.compare(mSpacingMultiplier, other.mSpacingMultiplier) == 0
+          && mTextStyle == other.mTextStyle
+          && mMinEms == other.mMinEms
+          && mMaxEms == other.mMaxEms
+          && mMinWidth == other.mMinWidth
+          && mMaxWidth == other.mMaxWidth
+          && mEllipsize == other.mEllipsize
+          && mTextAlignment == other.mTextAlignment
+          && mTypeface == other.mTypeface
+          && mTextDirection == other.mTextDirection
+          && mText.equals(other.mText);
+    }
+  }
+}
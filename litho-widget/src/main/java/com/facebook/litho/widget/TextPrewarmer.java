@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2017-present, Facebook, Inc.
+ * All rights reserved.
+ *
+ * This source code is licensed under the BSD-style license found in the
+ * LICENSE file in the root directory of this source tree. An additional grant
+ * of patent rights can be found in the PATENTS file in the same directory.
+ */
+
+package com.facebook.litho.widget;
+
+import static android.os.Process.THREAD_PRIORITY_LOWEST;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.support.annotation.VisibleForTesting;
+import com.facebook.litho.Component;
+import com.facebook.litho.ComponentContext;
+import com.facebook.litho.ComponentTree;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+import javax.annotation.concurrent.GuardedBy;
+
+/**
+ * Lays out the items a {@link RecyclerBinder} is going to need soon, but that are still outside
+ * of its range, on a low priority background thread. The resulting layouts are thrown away: the
+ * point is to measure their Text components ahead of time, which fills the {@link TextLayoutCache}
+ * and warms their glyphs through the {@link GlyphWarmer}, so that the real layout is much cheaper
+ * once the items enter the range.
+ *
+ * Items are laid out one at a time and only while the binder has no real layout in flight. If a
+ * real layout is pending the prewarmer waits, and {@link #cancel()} drops everything that is
+ * still queued.
+ */
+class TextPrewarmer {
+
+  private static final String THREAD_NAME = "TextPrewarmer";
+  private static final long PENDING_LAYOUT_RETRY_DELAY_MS = 16;
+
+  private static Looper sPrewarmLooper;
+
+  interface PendingLayoutChecker {
+
+    /**
+     * @return whether a layout the user is waiting for hasn't been calculated yet.
+     */
+    boolean hasPendingLayouts();
+  }
+
+  private final ComponentContext mContext;
+  private final PendingLayoutChecker mPendingLayoutChecker;
+  private final Handler mHandler;
+
+  @GuardedBy("this")
+  private final ArrayDeque<PrewarmItem> mQueue = new ArrayDeque<>();
+  // The components that were already laid out, so that moving the range back and forth doesn't
+  // lay out the same items again.
+  @GuardedBy("this")
+  private final Set<Component> mPrewarmedComponents =
+      Collections.newSetFromMap(new WeakHashMap<Component, Boolean>());
+  @GuardedBy("this")
+  private boolean mIsDrainScheduled;
+
+  private final Runnable mDrainRunnable =
+      new Runnable() {
+        @Override
+        public void run() {
+          drain();
+        }
+      };
+
+  TextPrewarmer(ComponentContext context, PendingLayoutChecker pendingLayoutChecker) {
+    mContext = context;
+    mPendingLayoutChecker = pendingLayoutChecker;
+    mHandler = new Handler(getPrewarmLooper());
+  }
+
+  /**
+   * Queues the given component to be laid out with the given size specs.
+   */
+  synchronized void prewarm(Component component, int widthSpec, int heightSpec) {
+    if (mPrewarmedComponents.contains(component)) {
+      return;
+    }
+
+    mQueue.add(new PrewarmItem(component, widthSpec, heightSpec));
+
+    if (!mIsDrainScheduled) {
+      mIsDrainScheduled = true;
+      mHandler.post(mDrainRunnable);
+    }
+  }
+
+  /**
+   * Drops all the items that are still queued. An item that is being laid out is completed.
+   */
+  synchronized void cancel() {
+    mQueue.clear();
+    mIsDrainScheduled = false;
+    mHandler.removeCallbacks(mDrainRunnable);
+  }
+
+  @VisibleForTesting
+  synchronized int getQueuedCount() {
+    return mQueue.size();
+  }
+
+  /**
+   * @return whether the calling thread is the one laying out the prewarmed items.
+   */
+  static boolean isPrewarmThread() {
+    final Looper looper = Looper.myLooper();
+    return looper != null && looper == sPrewarmLooper;
+  }
+
+  @VisibleForTesting
+  static synchronized Looper getPrewarmLooper() {
+    if (sPrewarmLooper == null) {
+      final HandlerThread thread = new HandlerThread(THREAD_NAME, THREAD_PRIORITY_LOWEST);
+      thread.start();
+      sPrewarmLooper = thread.getLooper();
+    }
+
+    return sPrewarmLooper;
+  }
+
+  private void drain() {
+    final boolean hasPendingLayouts = mPendingLayoutChecker.hasPendingLayouts();
+    final PrewarmItem item;
+
+    synchronized (this) {
+      if (mQueue.isEmpty()) {
+        mIsDrainScheduled = false;
+        return;
+      }
+
+      if (hasPendingLayouts) {
+        mHandler.removeCallbacks(mDrainRunnable);
+        mHandler.postDelayed(mDrainRunnable, PENDING_LAYOUT_RETRY_DELAY_MS);
+        return;
+      }
+
+      item = mQueue.poll();
+      mPrewarmedComponents.add(item.mComponent);
+    }
+
+    final ComponentTree componentTree =
+        ComponentTree.create(mContext, item.mComponent).incrementalMount(false).build();
+    componentTree.setSizeSpec(item.mWidthSpec, item.mHeightSpec);
+    componentTree.release();
+
+    // Lay out one item per message, so that cancel() and real layouts get a chance in between.
+    synchronized (this) {
+      if (mIsDrainScheduled) {
+        // prewarm() might have posted it again if cancel() was called in the meantime.
+        mHandler.removeCallbacks(mDrainRunnable);
+        mHandler.post(mDrainRunnable);
+      }
+    }
+  }
+
+  private static class PrewarmItem {
+    private final Component mComponent;
+    private final int mWidthSpec;
+    private final int mHeightSpec;
+
+    private PrewarmItem(Component component, int widthSpec, int heightSpec) {
+      mComponent = component;
+      mWidthSpec = widthSpec;
+      mHeightSpec = heightSpec;
+    }
+  }
+}
@@ -75,6 +75,7 @@ import com.facebook.litho.annotations.OnUnmount;
 import com.facebook.litho.annotations.Prop;
 import com.facebook.litho.annotations.PropDefault;
 import com.facebook.litho.annotations.ResType;
+import com.facebook.litho.config.ComponentsConfiguration;
 import com.facebook.litho.utils.DisplayListUtils;
 import com.facebook.widget.accessibility.delegates.AccessibleClickableSpan;
 import com.facebook.yoga.YogaDirection;
@@ -498,6 +499,46 @@ class TextSpec {
       TextDirectionHeuristicCompat textDirection) {
     Layout newLayout;
 
+    if (textDirection == null) {
+      textDirection = layoutDirection == YogaDirection.RTL
+          ? TextDirectionHeuristicsCompat.FIRSTSTRONG_RTL
+          : TextDirectionHeuristicsCompat.FIRSTSTRONG_LTR;
+    }
+
+    TextLayoutCache.Key cacheKey = null;
+    if (ComponentsConfiguration.useTextLayoutCache
+        && canShareTextLayout(text, textColor, textColorStateList)) {
+      cacheKey = new TextLayoutCache.Key(
+          (String) text,
+          widthSpec,
+          ellipsize,
+          shouldIncludeFontPadding,
+          maxLines,
+          shadowRadius,
+          shadowDx,
+          shadowDy,
+          shadowColor,
+          isSingleLine,
+          textColor != 0 ? textColor : textColorStateList.getDefaultColor(),
+          linkColor,
+          textSize,
+          extraSpacing,
+          spacingMultiplier,
+          textStyle,
+          typeface,
+          textAlignment,
+          minEms,
+          maxEms,
+          minWidth,
+          maxWidth,
+          textDirection);
+
+      final Layout cachedLayout = TextLayoutCache.getInstance().get(cacheKey);
+      if (cachedLayout != null) {
+        return cachedLayout;
+      }
+    }
+
     TextLayoutBuilder layoutBuilder = sTextLayoutBuilderPool.acquire();
     if (layoutBuilder == null) {
       layoutBuilder = new TextLayoutBuilder();
@@ -554,13 +595,7 @@ class TextSpec {
       layoutBuilder.setTextStyle(textStyle);
     }
 
-    if (textDirection != null) {
-      layoutBuilder.setTextDirection(textDirection);
-    } else {
-      layoutBuilder.setTextDirection(layoutDirection == YogaDirection.RTL
-          ? TextDirectionHeuristicsCompat.FIRSTSTRONG_RTL
-          : TextDirectionHeuristicsCompat.FIRSTSTRONG_LTR);
-    }
+    layoutBuilder.setTextDirection(textDirection);
 
     layoutBuilder.setIncludeFontPadding(shouldIncludeFontPadding);
     layoutBuilder.setTextSpacingExtra(extraSpacing);
@@ -573,13 +608,33 @@ class TextSpec {
     layoutBuilder.setText(null);
     sTextLayoutBuilderPool.release(layoutBuilder);
 
-    if (glyphWarming && !DisplayListUtils.isEligibleForCreatingDisplayLists()) {
-      GlyphWarmer.getInstance().warmLayout(newLayout);
+    if (cacheKey != null && newLayout != null) {
+      TextLayoutCache.getInstance().put(cacheKey, newLayout);
+    }
+
+    final boolean isPrewarming = TextPrewarmer.isPrewarmThread();
+    if ((glyphWarming || isPrewarming) && !DisplayListUtils.isEligibleForCreatingDisplayLists()) {
+      GlyphWarmer.getInstance()
+          .warmLayout(
+              newLayout, isPrewarming ? GlyphWarmer.PRIORITY_LOW : GlyphWarmer.PRIORITY_HIGH);
     }
 
     return newLayout;
   }
 
+  /**
+   * A text layout can only be shared between components if TextDrawable never changes its paint,
+   * which it does for stateful colors, and if nothing else holds on to its text, like the
+   * clickable spans of a Spanned.
+   */
+  private static boolean canShareTextLayout(
+      CharSequence text,
+      int textColor,
+      ColorStateList textColorStateList) {
+    return text instanceof String
+        && (textColor != 0 || (textColorStateList != null && !textColorStateList.isStateful()));
+  }
+
   private static Alignment getAlignment(int viewTextAlignment, int gravity) {
     final Alignment alignment;
     switch (viewTextAlignment) {